@@ -1,5 +1,7 @@
 package RobotSimulation;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * The <code>ArenaItem</code> class is an abstract base class for all items
  * within the simulation arena.
@@ -32,14 +34,63 @@ public abstract class ArenaItem {
 	protected char col;
 
 	/**
-	 * A static counter used to assign unique IDs to each <code>ArenaItem</code>
-	 * created.
+	 * A static counter used to give each <code>ArenaItem</code> a provisional ID
+	 * when it is created. It is shared by every arena in the JVM, so the arena
+	 * replaces the ID with one of its own when the item is added.
 	 */
-	static int itemCounter = 0;
+	static final AtomicInteger itemCounter = new AtomicInteger();
 
-	/** The unique ID of this <code>ArenaItem</code>. */
+	/**
+	 * The ID of this <code>ArenaItem</code>, unique within the arena holding it.
+	 */
 	protected int itemID;
 
+	/**
+	 * Items within the arena's interaction radius, rebuilt once per tick by
+	 * <code>RobotArena</code> before any <code>checkItem</code> call, through
+	 * {@link #neighbourFound(ArenaItem, double)}.
+	 */
+	protected final NeighbourList neighbours = new NeighbourList();
+
+	/**
+	 * Whether this item is asleep. <code>RobotArena</code> skips sleeping items in
+	 * its per-tick loops until something changes near them.
+	 */
+	boolean sleeping = false;
+
+	/**
+	 * This item's position in each of the arena's typed indices, so that it can be
+	 * removed from them in constant time. Maintained by <code>ItemIndex</code>.
+	 */
+	int[] indexSlots = ItemIndex.NO_SLOTS;
+
+	/**
+	 * Whether this item is a read-only copy of an item owned by another shard. A
+	 * ghost is seen by sensors and collisions but never updated, and any change
+	 * made to it is thrown away at the end of the tick.
+	 */
+	boolean ghost = false;
+
+	/**
+	 * Whether this item is in an arena's item lists. Cleared when the item is
+	 * removed, so that removals queued during a tick can be swept from every list
+	 * in one pass.
+	 */
+	boolean inArena = false;
+
+	/**
+	 * The ID this item had in the arena a sharded simulation was split from, or
+	 * -1 if it was never handed to a shard. Item IDs are given out by each arena,
+	 * so this is what identifies an item from one shard to the next.
+	 */
+	int shardKey = -1;
+
+	/**
+	 * This item's position in the collision pass's list of colliders, set at the
+	 * start of each pass. Used to put colliding pairs in a fixed order.
+	 */
+	int passIndex = -1;
+
 	/**
 	 * Constructs a new <code>ArenaItem</code> at the given coordinates with the
 	 * specified radius.
@@ -52,7 +103,7 @@ public abstract class ArenaItem {
 		x = d;
 		y = e;
 		rad = f;
-		itemID = itemCounter++;
+		itemID = itemCounter.getAndIncrement();
 		// Default colour set to 'r' (red). Subclasses can override as needed.
 		col = 'r';
 	}
@@ -105,12 +156,65 @@ public abstract class ArenaItem {
 	}
 
 	/**
-	 * Draws this <code>ArenaItem</code> on the provided <code>MyCanvas</code>.
+	 * Returns the items found near this <code>ArenaItem</code> during the current
+	 * tick. It is empty for items that take their neighbours as they are found
+	 * instead of listing them.
+	 *
+	 * @return the neighbour list of this item
+	 */
+	public NeighbourList getNeighbours() {
+		return neighbours;
+	}
+
+	/**
+	 * Empties the neighbour list before <code>RobotArena</code> finds this tick's
+	 * neighbours.
+	 */
+	void clearNeighbours() {
+		neighbours.clear();
+	}
+
+	/**
+	 * Receives an item found within the arena's interaction radius while
+	 * <code>RobotArena</code> finds this tick's neighbours, and adds it to the
+	 * neighbour list. Items that only need a sum over their neighbours can take
+	 * it here instead, while the other item has just been read, and skip the
+	 * list.
+	 *
+	 * @param other the neighbouring item
+	 * @param dist  the centre-to-centre distance to it
+	 */
+	void neighbourFound(ArenaItem other, double dist) {
+		neighbours.add(other, dist);
+	}
+
+	/**
+	 * Returns whether this item never moves and has no behaviour of its own.
+	 * Static items are left out of the arena's per-tick update loops; moving
+	 * items still find them through spatial queries and react to them.
+	 *
+	 * @return <code>true</code> for static items; <code>false</code> by default
+	 */
+	public boolean isStatic() {
+		return false;
+	}
+
+	/**
+	 * Returns whether this item is currently asleep.
+	 *
+	 * @return <code>true</code> if the arena is skipping this item's updates
+	 */
+	public boolean isSleeping() {
+		return sleeping;
+	}
+
+	/**
+	 * Draws this <code>ArenaItem</code> on the provided <code>Renderer</code>.
 	 * Subclasses must implement the specific drawing logic.
 	 *
-	 * @param mc the <code>MyCanvas</code> used for rendering this item
+	 * @param mc the <code>Renderer</code> used for rendering this item
 	 */
-	public abstract void drawItem(MyCanvas mc);
+	public abstract void drawItem(Renderer mc);
 
 	/**
 	 * Returns a string representation of this item's type. Subclasses can override
@@ -163,7 +267,7 @@ public abstract class ArenaItem {
 		// Note: The multiplication in (rad + or) * (rad + or) might be a placeholder
 		// for
 		// an alternative approach. Typically, you'd compare distance < (rad + or).
-		return Math.hypot(x - ox, y - oy) < (rad + or) * (rad + or);
+		return StrictMath.hypot(x - ox, y - oy) < (rad + or) * (rad + or);
 	}
 
 	/**
@@ -188,7 +292,7 @@ public abstract class ArenaItem {
 	 * @return the computed X coordinate
 	 */
 	public double calcX(double s, double a) {
-		return x + s * Math.cos(Math.toRadians(a));
+		return x + s * StrictMath.cos(Math.toRadians(a));
 	}
 
 	/**
@@ -201,7 +305,83 @@ public abstract class ArenaItem {
 	 * @return the computed Y coordinate
 	 */
 	public double calcY(double s, double a) {
-		return y + s * Math.sin(Math.toRadians(a));
+		return y + s * StrictMath.sin(Math.toRadians(a));
+	}
+
+	/**
+	 * Returns a hash of this item's state, used by the arena's deterministic mode
+	 * to detect the first tick at which two runs differ. Subclasses with state of
+	 * their own that affects later ticks fold it in as well.
+	 *
+	 * @return a 64-bit hash of the position, radius, colour and sleep state
+	 */
+	public long stateHash() {
+		long h = mix((long) col, x);
+		h = mix(h, y);
+		h = mix(h, rad);
+		return mix(h, sleeping ? 1L : 0L);
+	}
+
+	/**
+	 * Folds a value into a running hash. Cheap, but every input bit affects the
+	 * result, so states differing in a single bit give different hashes.
+	 *
+	 * @param h the hash so far
+	 * @param v the value to add
+	 * @return the new hash
+	 */
+	static long mix(long h, long v) {
+		h = (h ^ v) * 0x9E3779B97F4A7C15L;
+		return h ^ (h >>> 29);
+	}
+
+	/**
+	 * Same as {@link #mix(long, long)} for a double, by its bit pattern.
+	 *
+	 * @param h the hash so far
+	 * @param v the value to add
+	 * @return the new hash
+	 */
+	static long mix(long h, double v) {
+		return mix(h, Double.doubleToLongBits(v));
+	}
+
+	/**
+	 * Returns the key identifying this item across the shards of a sharded
+	 * simulation.
+	 *
+	 * @return the shard key, or the item ID if the item has none yet
+	 */
+	int getShardKey() {
+		return shardKey >= 0 ? shardKey : itemID;
+	}
+
+	/**
+	 * Appends the state that {@link #fileString()} leaves out or rounds, as
+	 * space-separated fields, so that the item can be handed to another shard
+	 * unchanged. Subclasses with state of their own append it after calling this
+	 * method.
+	 *
+	 * @param sb where the fields are appended
+	 */
+	void writeState(StringBuilder sb) {
+		sb.append(x).append(' ').append(y).append(' ').append(rad).append(' ').append(sleeping);
+	}
+
+	/**
+	 * Restores the state written by {@link #writeState(StringBuilder)}.
+	 * Subclasses read their own fields after calling this method.
+	 *
+	 * @param f the fields
+	 * @param i the index of the first field to read
+	 * @return the index of the first field not read
+	 */
+	int readState(String[] f, int i) {
+		x = Double.parseDouble(f[i++]);
+		y = Double.parseDouble(f[i++]);
+		rad = Double.parseDouble(f[i++]);
+		sleeping = Boolean.parseBoolean(f[i++]);
+		return i;
 	}
 
 	/**
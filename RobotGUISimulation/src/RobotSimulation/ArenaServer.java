@@ -0,0 +1,399 @@
+package RobotSimulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * The <code>ArenaServer</code> class hosts many independent arenas in one JVM
+ * and ticks them on a shared pool of worker threads.
+ *
+ * <p>
+ * Arenas are created and destroyed through the API and identified by a number.
+ * Each hosted arena sits in a run queue ordered by the time its next tick is
+ * due. A worker takes the arena that has been due longest, runs a slice of at
+ * most its tick budget (and at most {@link #SLICE_NANOS} of work), and puts it
+ * back in the queue behind every arena already waiting, so a large arena
+ * cannot starve small ones. An arena may also be given a tick rate, in which
+ * case it is not queued again until its next tick is due.
+ * </p>
+ *
+ * <p>
+ * An arena is only ever ticked by one worker at a time. Other threads reach it
+ * through {@link #withArena(int, Function)}, which holds the same lock as the
+ * worker. Item IDs are allocated by each arena, so arenas do not affect each
+ * other.
+ * </p>
+ *
+ * @author Ahmed Elamari
+ * @version 1.0
+ */
+public class ArenaServer implements AutoCloseable {
+
+	/** Longest time a worker spends on one arena before moving to the next. */
+	public static final long SLICE_NANOS = 2_000_000;
+	/** Tick budget per slice for arenas that have not been given one. */
+	public static final int DEFAULT_TICK_BUDGET = 8;
+
+	/**
+	 * The <code>Hosted</code> class holds one arena with its scheduling state.
+	 */
+	private static final class Hosted implements Delayed {
+		/** The arena's number on this server. */
+		final int id;
+		/** The arena itself. */
+		final RobotArena arena;
+		/** Maximum number of ticks per slice. */
+		volatile int tickBudget = DEFAULT_TICK_BUDGET;
+		/** Ticks per second, or 0 to tick as fast as the workers allow. */
+		volatile double tickRate = 0;
+		/** When the arena's next tick is due, in <code>System.nanoTime()</code>. */
+		long due;
+		/** When ticking at the current rate started. */
+		long rateStart;
+		/** Ticks run since <code>rateStart</code>. */
+		long rateTicks;
+		/** Total time spent ticking this arena, in nanoseconds. */
+		long busyNanos;
+		/** Set once the arena has been destroyed. */
+		volatile boolean destroyed = false;
+
+		/**
+		 * Constructs the scheduling state for a new arena, due immediately.
+		 *
+		 * @param id    the arena's number
+		 * @param arena the arena
+		 */
+		Hosted(int id, RobotArena arena) {
+			this.id = id;
+			this.arena = arena;
+			due = System.nanoTime();
+			rateStart = due;
+		}
+
+		@Override
+		public long getDelay(TimeUnit unit) {
+			return unit.convert(due - System.nanoTime(), TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		public int compareTo(Delayed o) {
+			return Long.compare(due, ((Hosted) o).due);
+		}
+	}
+
+	/** The hosted arenas by number. */
+	private final ConcurrentHashMap<Integer, Hosted> arenas = new ConcurrentHashMap<>();
+	/** Arenas waiting for a worker, earliest due first. */
+	private final DelayQueue<Hosted> runQueue = new DelayQueue<>();
+	/** The worker threads. */
+	private final List<Thread> workers = new ArrayList<>();
+	/** The number given to the next arena created. */
+	private final AtomicInteger nextId = new AtomicInteger();
+	/** Whether the workers should keep running. */
+	private volatile boolean running = true;
+
+	/**
+	 * Starts a server with the given number of worker threads.
+	 *
+	 * @param workerCount the number of workers, normally the number of cores
+	 */
+	public ArenaServer(int workerCount) {
+		if (workerCount < 1) {
+			throw new IllegalArgumentException("Need at least one worker: " + workerCount);
+		}
+		for (int i = 0; i < workerCount; i++) {
+			Thread t = new Thread(this::workLoop, "arena-worker-" + i);
+			t.setDaemon(true);
+			workers.add(t);
+			t.start();
+		}
+	}
+
+	/**
+	 * Creates an empty arena of the given size and starts ticking it.
+	 *
+	 * @param width  the width of the arena
+	 * @param height the height of the arena
+	 * @return the new arena's number
+	 */
+	public int createArena(double width, double height) {
+		return host(new RobotArena(width, height));
+	}
+
+	/**
+	 * Creates an arena from saved data and starts ticking it.
+	 *
+	 * @param savedData the arena in the save file format
+	 * @return the new arena's number
+	 */
+	public int createArena(String savedData) {
+		return host(new RobotArena(savedData));
+	}
+
+	/**
+	 * Starts ticking an arena built elsewhere. The caller must not use the arena
+	 * directly afterwards, only through {@link #withArena(int, Function)}.
+	 *
+	 * @param arena the arena to host
+	 * @return the arena's number
+	 */
+	public int host(RobotArena arena) {
+		Hosted h = new Hosted(nextId.getAndIncrement(), arena);
+		arenas.put(h.id, h);
+		runQueue.add(h);
+		return h.id;
+	}
+
+	/**
+	 * Stops ticking an arena and forgets it. A slice already running finishes
+	 * first.
+	 *
+	 * @param id the arena's number
+	 * @return <code>true</code> if the arena existed
+	 */
+	public boolean destroyArena(int id) {
+		Hosted h = arenas.remove(id);
+		if (h == null) {
+			return false;
+		}
+		runQueue.remove(h);
+		synchronized (h) {
+			// Taking the lock waits for a running slice, so the arena has stopped
+			h.destroyed = true;
+		}
+		return true;
+	}
+
+	/**
+	 * Runs an operation on an arena while no worker is ticking it, for example to
+	 * add items or read its state.
+	 *
+	 * @param <T> the type of the result
+	 * @param id  the arena's number
+	 * @param op  the operation
+	 * @return the operation's result
+	 * @throws IllegalArgumentException if there is no such arena
+	 */
+	public <T> T withArena(int id, Function<RobotArena, T> op) {
+		Hosted h = lookup(id);
+		synchronized (h) {
+			return op.apply(h.arena);
+		}
+	}
+
+	/**
+	 * Sets the largest number of ticks an arena may run in one slice before the
+	 * worker moves on to another arena.
+	 *
+	 * @param id     the arena's number
+	 * @param budget the tick budget, at least 1
+	 */
+	public void setTickBudget(int id, int budget) {
+		if (budget < 1) {
+			throw new IllegalArgumentException("Tick budget must be positive: " + budget);
+		}
+		lookup(id).tickBudget = budget;
+	}
+
+	/**
+	 * Limits an arena to a number of ticks per second.
+	 *
+	 * @param id   the arena's number
+	 * @param rate the ticks per second, or 0 to tick as fast as possible
+	 */
+	public void setTickRate(int id, double rate) {
+		Hosted h = lookup(id);
+		synchronized (h) {
+			h.tickRate = rate;
+			h.rateStart = System.nanoTime();
+			h.rateTicks = 0;
+		}
+	}
+
+	/**
+	 * Returns the number of ticks an arena has completed.
+	 *
+	 * @param id the arena's number
+	 * @return the arena's tick count
+	 */
+	public long getTick(int id) {
+		return withArena(id, RobotArena::getTick);
+	}
+
+	/**
+	 * Returns the total time workers have spent ticking an arena.
+	 *
+	 * @param id the arena's number
+	 * @return the busy time in nanoseconds
+	 */
+	public long getBusyNanos(int id) {
+		Hosted h = lookup(id);
+		synchronized (h) {
+			return h.busyNanos;
+		}
+	}
+
+	/**
+	 * Returns the numbers of the arenas currently hosted.
+	 *
+	 * @return the arena numbers, in no particular order
+	 */
+	public List<Integer> getArenaIds() {
+		return new ArrayList<>(arenas.keySet());
+	}
+
+	/**
+	 * Returns the number of arenas currently hosted.
+	 *
+	 * @return the arena count
+	 */
+	public int getArenaCount() {
+		return arenas.size();
+	}
+
+	/**
+	 * Finds a hosted arena.
+	 *
+	 * @param id the arena's number
+	 * @return its scheduling state
+	 * @throws IllegalArgumentException if there is no such arena
+	 */
+	private Hosted lookup(int id) {
+		Hosted h = arenas.get(id);
+		if (h == null) {
+			throw new IllegalArgumentException("No arena " + id);
+		}
+		return h;
+	}
+
+	/**
+	 * Body of each worker: repeatedly takes the arena due longest, runs a slice
+	 * and queues it again.
+	 */
+	private void workLoop() {
+		while (running) {
+			Hosted h;
+			try {
+				h = runQueue.take();
+			} catch (InterruptedException e) {
+				return;
+			}
+			if (h.destroyed) {
+				continue;
+			}
+			synchronized (h) {
+				// destroyArena may have run while this worker waited for the lock
+				if (h.destroyed) {
+					continue;
+				}
+				runSlice(h);
+			}
+			if (!h.destroyed && running) {
+				runQueue.add(h);
+			}
+		}
+	}
+
+	/**
+	 * Runs up to one tick budget of ticks on an arena, stopping early when the
+	 * slice time is used up or a rate-limited arena has caught up, then works out
+	 * when it is next due.
+	 *
+	 * @param h the arena to tick
+	 */
+	private void runSlice(Hosted h) {
+		long start = System.nanoTime();
+		double rate = h.tickRate;
+		int budget = h.tickBudget;
+		long now = start;
+		for (int i = 0; i < budget; i++) {
+			if (rate > 0 && h.rateTicks >= (long) ((now - h.rateStart) * rate / 1e9) + 1) {
+				break; // ahead of schedule
+			}
+			try {
+				h.arena.checkItems();
+				h.arena.adjustItems();
+			} catch (RuntimeException e) {
+				System.out.println("Arena " + h.id + " failed and was stopped: " + e);
+				h.destroyed = true;
+				arenas.remove(h.id);
+				break;
+			}
+			h.rateTicks++;
+			now = System.nanoTime();
+			if (now - start >= SLICE_NANOS) {
+				break;
+			}
+		}
+		h.busyNanos += now - start;
+		if (rate > 0) {
+			// Due when the next tick falls within the schedule
+			h.due = Math.max(now, h.rateStart + (long) (h.rateTicks * 1e9 / rate));
+		} else {
+			h.due = now;
+		}
+	}
+
+	/**
+	 * Stops the workers and forgets every arena.
+	 */
+	@Override
+	public void close() {
+		running = false;
+		for (Thread t : workers) {
+			t.interrupt();
+		}
+		for (Thread t : workers) {
+			try {
+				t.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		arenas.clear();
+		runQueue.clear();
+	}
+
+	/**
+	 * Hosts a number of small arenas for a few seconds and reports how evenly the
+	 * ticks were shared.
+	 *
+	 * @param args optionally the number of arenas, seconds to run and workers
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+		try (ArenaServer server = new ArenaServer(threads)) {
+			for (int i = 0; i < count; i++) {
+				int id = server.createArena(400, 500);
+				server.withArena(id, a -> {
+					for (int k = 0; k < 5; k++) {
+						a.addRobot();
+						a.addPrey();
+					}
+					return null;
+				});
+			}
+			Thread.sleep(seconds * 1000L);
+
+			long min = Long.MAX_VALUE, max = 0, total = 0;
+			for (int id : server.getArenaIds()) {
+				long t = server.getTick(id);
+				min = Math.min(min, t);
+				max = Math.max(max, t);
+				total += t;
+			}
+			System.out.printf("%d arenas on %d workers: %d ticks/s in total, per arena min %d max %d%n",
+					server.getArenaCount(), threads, total / seconds, min, max);
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package RobotSimulation;
 
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * A Beam that extends the Robot class but draws a shorter, "diamond-like" beam
@@ -17,7 +18,14 @@ public class Beam extends Robot {
 	protected double beamSpread = 45.0; // Total angular spread of the beam in degrees
 	protected int arcSegments = 15; // Number of segments to approximate the top arc
 
-	protected ArrayList<double[]> beamPoints; // Stores points along the arc for detection
+	protected ArrayList<double[]> beamPoints; // Corners of the beam polygon, reused for drawing
+
+	private double arcSpread = Double.NaN; // beamSpread the arc offsets below were computed for
+	private double[] arcCos; // Cosine of each arc point's angle relative to the heading
+	private double[] arcSin; // Sine of each arc point's angle relative to the heading
+
+	// Result of the beam's ray casts, reused every check
+	protected final RaycastService.RayHit beamHit = new RaycastService.RayHit();
 
 	public Beam(double ix, double iy, double ir, double ia, double is, RobotArena arena) {
 		super(ix, iy, ir, ia, is, arena);
@@ -30,53 +38,65 @@ public class Beam extends Robot {
 	 * approximate the arc.
 	 */
 	@Override
-	public void drawItem(MyCanvas mc) {
+	public void drawItem(Renderer mc) {
 		super.drawItem(mc);
 
-		beamPoints.clear();
-
-		double leftAngle = rAngle - (beamSpread / 2.0);
-		double rightAngle = rAngle + (beamSpread / 2.0);
+		updateBeamPoints();
 
-		// Endpoints of the diverging lines
-		double leftX = calcX(beamRadius, leftAngle);
-		double leftY = calcY(beamRadius, leftAngle);
-		double rightX = calcX(beamRadius, rightAngle);
-		double rightY = calcY(beamRadius, rightAngle);
-
-		// Draw the two straight lines
-		mc.drawLine(x, y, leftX, leftY);
-		mc.drawLine(x, y, rightX, rightY);
+		// Draw the two straight lines to the ends of the arc
+		double[] left = beamPoints.get(0);
+		double[] right = beamPoints.get(arcSegments);
+		mc.drawLine(x, y, left[0], left[1]);
+		mc.drawLine(x, y, right[0], right[1]);
 
 		// Approximate the top arc
-		double angleStep = beamSpread / arcSegments;
-		double currentAngle = leftAngle;
-		double startArcX = leftX;
-		double startArcY = leftY;
-
-		beamPoints.add(new double[] { startArcX, startArcY });
-
-		for (int i = 0; i < arcSegments; i++) {
-			double nextAngle = currentAngle + angleStep;
-			double nextArcX = calcX(beamRadius, nextAngle);
-			double nextArcY = calcY(beamRadius, nextAngle);
-
-			mc.drawLine(startArcX, startArcY, nextArcX, nextArcY);
-			beamPoints.add(new double[] { nextArcX, nextArcY });
-
-			startArcX = nextArcX;
-			startArcY = nextArcY;
-			currentAngle = nextAngle;
+		for (int i = 1; i <= arcSegments; i++) {
+			double[] from = beamPoints.get(i - 1);
+			double[] to = beamPoints.get(i);
+			mc.drawLine(from[0], from[1], to[0], to[1]);
 		}
 
-		// Close the polygon by adding the final points
-		beamPoints.add(new double[] { rightX, rightY });
-		beamPoints.add(new double[] { x, y });
-
 		// Fill the polygon
 		mc.fillPolygon(beamPoints, col);
 	}
 
+	/**
+	 * Works out the corners of the beam for the current position and heading: the
+	 * points of the arc from left to right, then the robot's centre. The arrays
+	 * already in <code>beamPoints</code> are reused.
+	 */
+	protected void updateBeamPoints() {
+		updateArcOffsets();
+		int corners = arcSegments + 2;
+		while (beamPoints.size() < corners) {
+			beamPoints.add(new double[2]);
+		}
+		while (beamPoints.size() > corners) {
+			beamPoints.remove(beamPoints.size() - 1);
+		}
+		for (int i = 0; i <= arcSegments; i++) {
+			double[] p = beamPoints.get(i);
+			p[0] = calcXOffset(beamRadius, arcCos[i], arcSin[i]);
+			p[1] = calcYOffset(beamRadius, arcCos[i], arcSin[i]);
+		}
+		double[] centre = beamPoints.get(arcSegments + 1);
+		centre[0] = x;
+		centre[1] = y;
+	}
+
+	/**
+	 * Returns the corners of the beam for the current position and heading. The
+	 * beam senses with ray casts, not with this polygon, so it is only worked out
+	 * when asked for, such as when the beam is drawn.
+	 *
+	 * @return the points of the arc from left to right, then the robot's centre;
+	 *         the list and its arrays are reused by the next call
+	 */
+	public List<double[]> getBeamPoints() {
+		updateBeamPoints();
+		return beamPoints;
+	}
+
 	/**
 	 * Modified checkItem that also detects potential collisions with arena
 	 * boundaries (if using a bounding rectangle) or Wall items. Bouncing behavior
@@ -90,43 +110,75 @@ public class Beam extends Robot {
 		// 1) Check arena boundary if RobotArena exposes width/height
 		double arenaWidth = r.getXSize();
 		double arenaHeight = r.getYSize();
-		for (double[] pt : beamPoints) {
-			if (pt[0] < 0 || pt[1] < 0 || pt[0] > arenaWidth || pt[1] > arenaHeight) {
+		updateArcOffsets();
+		for (int i = 0; i <= arcSegments; i++) {
+			double px = calcXOffset(beamRadius, arcCos[i], arcSin[i]);
+			double py = calcYOffset(beamRadius, arcCos[i], arcSin[i]);
+			if (px < 0 || py < 0 || px > arenaWidth || py > arenaHeight) {
 				// Collision with boundary; randomize angle similar to Robot bounce
-				double randomOffset = (Math.random() * 90) - 45; // ±45° offset
+				double randomOffset = (random() * 90) - 45; // ±45° offset
 				rAngle = (rAngle + 180 + randomOffset) % 360;
 				return;
 			}
 		}
 
-		// 2) Check for collisions with items (walls, obstacles, lights, etc.)
-		for (ArenaItem item : r.items) {
-			if (item == this) {
-				continue; // skip self
-			}
-			for (double[] pt : beamPoints) {
-				double dist = distance(pt[0], pt[1], item.x, item.y);
-				if (dist < (item.rad + 1)) {
-					if (item instanceof Light) {
-						if (dist > item.rad * 2) {
-							// Turn to face the light
-							rAngle = angleToPoint(item.x, item.y);
-						} else {
-							// Reverse away with random offset
-							double randomOffset = (Math.random() * 90) - 45;
-							rAngle = (rAngle + 180 + randomOffset) % 360;
-						}
-					} else {
-						// Standard obstacle or wall; random offset for bounce
-						double randomOffset = (Math.random() * 90) - 45;
-						rAngle = (rAngle + 180 + randomOffset) % 360;
-					}
-					return; // Done reacting for this step
+		// 2) Check for collisions with items inside the beam (obstacles, lights, etc.)
+		ArenaItem item = castBeam(r, 1, null);
+		if (item != null) {
+			if (item instanceof Light) {
+				if (distance(x, y, item.x, item.y) > item.rad * 2) {
+					// Turn to face the light
+					rAngle = angleToPoint(item.x, item.y);
+				} else {
+					// Reverse away with random offset
+					double randomOffset = (random() * 90) - 45;
+					rAngle = (rAngle + 180 + randomOffset) % 360;
 				}
+			} else {
+				// Standard obstacle or wall; random offset for bounce
+				double randomOffset = (random() * 90) - 45;
+				rAngle = (rAngle + 180 + randomOffset) % 360;
 			}
 		}
 	}
 
+	/**
+	 * Casts the beam as a fan of rays from the robot's centre, one through each
+	 * point of its arc, and finds the nearest item it reaches. The result is also
+	 * left in <code>beamHit</code>.
+	 *
+	 * @param r       the arena to look in
+	 * @param inflate how close the beam must pass to an item's edge to detect it
+	 * @param type    the type of item to look for, or <code>null</code> for any
+	 * @return the nearest item detected, or <code>null</code> if none
+	 */
+	protected ArenaItem castBeam(RobotArena r, double inflate, Class<? extends ArenaItem> type) {
+		updateArcOffsets();
+		r.getRaycaster().castSector(x, y, headingCos(), headingSin(), arcCos, arcSin, beamRadius, inflate, this, type,
+				beamHit);
+		return beamHit.item;
+	}
+
+	/**
+	 * Computes the angle of each arc point relative to the heading, as a cosine
+	 * and sine, whenever the spread or segment count changes. The arc then moves
+	 * with the robot without any trigonometry per frame.
+	 */
+	private void updateArcOffsets() {
+		if (beamSpread == arcSpread && arcCos != null && arcCos.length == arcSegments + 1) {
+			return;
+		}
+		arcCos = new double[arcSegments + 1];
+		arcSin = new double[arcSegments + 1];
+		double angleStep = beamSpread / arcSegments;
+		for (int i = 0; i <= arcSegments; i++) {
+			double a = Math.toRadians(-beamSpread / 2.0 + i * angleStep);
+			arcCos[i] = StrictMath.cos(a);
+			arcSin[i] = StrictMath.sin(a);
+		}
+		arcSpread = beamSpread;
+	}
+
 	/**
 	 * Overriding adjustItem to improve general movement randomness. Adds a slightly
 	 * higher chance and broader range for random angle changes to reduce long,
@@ -134,17 +186,15 @@ public class Beam extends Robot {
 	 */
 	@Override
 	public void adjustItem() {
-		double radAngle = Math.toRadians(rAngle);
-
 		// Move forward by rSpeed
-		x += rSpeed * Math.cos(radAngle);
-		y += rSpeed * Math.sin(radAngle);
+		x += rSpeed * headingCos();
+		y += rSpeed * headingSin();
 
 		// Increase randomness: up to 10% chance to change direction each move
 		double changeProbability = 0.10;
-		if (Math.random() < changeProbability) {
+		if (random() < changeProbability) {
 			// Random offset between -30 and +30 degrees
-			double randomOffset = (Math.random() * 60) - 30;
+			double randomOffset = (random() * 60) - 30;
 			rAngle = (rAngle + randomOffset) % 360;
 		}
 	};
@@ -155,7 +205,7 @@ public class Beam extends Robot {
 	protected double angleToPoint(double tx, double ty) {
 		double dx = tx - x;
 		double dy = ty - y;
-		double radians = Math.atan2(dy, dx);
+		double radians = StrictMath.atan2(dy, dx);
 		return (Math.toDegrees(radians) + 360) % 360;
 	}
 
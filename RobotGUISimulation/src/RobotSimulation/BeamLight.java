@@ -50,8 +50,8 @@ public class BeamLight extends Beam {
 	 * In addition to the standard collision checks inherited from
 	 * <code>Beam</code>, this method checks whether any of the beam’s points
 	 * intersect with a <code>Light</code>. If a light is detected, the beam will
-	 * stop moving and track that light. Otherwise, the beam continues at normal
-	 * speed.
+	 * stop moving, track that light and go to sleep until the arena wakes it.
+	 * Otherwise, the beam continues at normal speed.
 	 * </p>
 	 *
 	 * @param r the <code>RobotArena</code> containing all items
@@ -61,29 +61,9 @@ public class BeamLight extends Beam {
 		// Retain standard collision logic from the parent Beam class
 		super.checkItem(r);
 
-		// Check if any beam points intersect with a light
-		boolean beamDetectsLight = false;
-		Light nearestLight = null;
-		double closestDist = Double.MAX_VALUE;
-
-		// 'beamPoints' is presumably defined in the parent Beam class,
-		// representing discrete points along the beam.
-		for (double[] pt : beamPoints) {
-			for (ArenaItem item : r.items) {
-				if (item instanceof Light) {
-					double dist = distance(pt[0], pt[1], item.x, item.y);
-					// Add a small buffer around the light radius for intersection
-					if (dist < item.rad + 5) {
-						beamDetectsLight = true;
-						// Keep track of the closest light
-						if (dist < closestDist) {
-							closestDist = dist;
-							nearestLight = (Light) item;
-						}
-					}
-				}
-			}
-		}
+		// Cast the beam for lights, with a small buffer around the light radius
+		Light nearestLight = (Light) castBeam(r, 5, Light.class);
+		boolean beamDetectsLight = nearestLight != null;
 
 		// Update tracking state based on detection
 		if (beamDetectsLight) {
@@ -95,6 +75,11 @@ public class BeamLight extends Beam {
 			isAtLight = false;
 			rSpeed = 1; // Resume normal speed if no light is detected
 		}
+
+		// Parked at a light there is nothing to do until something changes nearby
+		if (isAtLight && rSpeed == 0) {
+			r.sleep(this);
+		}
 	}
 
 	/**
@@ -112,36 +97,33 @@ public class BeamLight extends Beam {
 		if (!isAtLight) {
 			// 1. Randomly adjust the angle slightly (drift)
 			// -0.5 to +0.5 range multiplied by a drift factor
-			double drift = (Math.random() - 0.5) * 2.0; // range: -1 to +1
+			double drift = (random() - 0.5) * 2.0; // range: -1 to +1
 			double driftFactor = 0.3; // how strongly to apply the drift
 			rAngle += driftFactor * drift; // add a small deviation to rAngle
 
 			// 2. Randomly vary the speed a bit
 			// E.g. ±5% variation around the original speed
-			double speedVariation = 1.0 + ((Math.random() - 0.5) * 0.1);
+			double speedVariation = 1.0 + ((random() - 0.5) * 0.1);
 			double currentSpeed = rSpeed * speedVariation;
 
-			// 3. Convert the angle to radians for the movement calculation
-			double radAngle = Math.toRadians(rAngle);
+			// 3. Update x and y coordinates based on the adjusted speed and heading
+			x += currentSpeed * headingCos();
+			y += currentSpeed * headingSin();
 
-			// 4. Update x and y coordinates based on the adjusted speed and angle
-			x += currentSpeed * Math.cos(radAngle);
-			y += currentSpeed * Math.sin(radAngle);
-
-			// 5. (Optional) Adding a small damping/friction so that speed gradually
+			// 4. (Optional) Adding a small damping/friction so that speed gradually
 			// decreases:
 			// rSpeed *= 0.99;
 		}
 	}
 
 	/**
-	 * Draws this beam on the specified <code>MyCanvas</code>, along with a line to
+	 * Draws this beam on the specified <code>Renderer</code>, along with a line to
 	 * the detected light (if any).
 	 *
-	 * @param mc the <code>MyCanvas</code> object used for drawing shapes
+	 * @param mc the <code>Renderer</code> object used for drawing shapes
 	 */
 	@Override
-	public void drawItem(MyCanvas mc) {
+	public void drawItem(Renderer mc) {
 		// Draw the beam as defined in the parent Beam class
 		super.drawItem(mc);
 
@@ -175,4 +157,17 @@ public class BeamLight extends Beam {
 		// Example format: "Beam Light x y radius col angle speed"
 		return String.format("Beam Light %.1f %.1f %.1f %c %.1f %.1f", x, y, rad, col, rAngle, rSpeed);
 	}
+
+	@Override
+	void writeState(StringBuilder sb) {
+		super.writeState(sb);
+		sb.append(' ').append(isAtLight);
+	}
+
+	@Override
+	int readState(String[] f, int i) {
+		i = super.readState(f, i);
+		isAtLight = Boolean.parseBoolean(f[i++]);
+		return i;
+	}
 }
@@ -1,7 +1,5 @@
 package RobotSimulation;
 
-import java.util.Random;
-
 import javafx.scene.paint.Color;
 
 /**
@@ -42,14 +40,14 @@ public class BounceObstacle extends Obstacle {
 	/** Flag to indicate whether the obstacle is still active. */
 	private boolean active = true;
 
-	/** Random generator for bounce direction and spawn locations. */
-	private Random rand = new Random();
-
-	/** Tracks the time of the last collision for chain bounce detection. */
-	private long lastCollisionTime = 0;
+	/**
+	 * Time threshold (in ticks) for detecting chain collisions; 90 ticks is 1.5
+	 * seconds at 60 frames per second.
+	 */
+	private final long chainThresholdTicks = 90;
 
-	/** Time threshold (in milliseconds) for detecting chain collisions. */
-	private final long chainThresholdMillis = 1500;
+	/** Tracks the tick of the last collision for chain bounce detection. */
+	private long lastCollisionTick = -chainThresholdTicks;
 
 	/**
 	 * Constructs a BounceObstacle with the specified position and radius.
@@ -70,7 +68,7 @@ public class BounceObstacle extends Obstacle {
 	 * @param mc The canvas used for drawing the obstacle.
 	 */
 	@Override
-	public void drawItem(MyCanvas mc) {
+	public void drawItem(Renderer mc) {
 		if (!active) {
 			// Draw a grey circle to represent a broken obstacle.
 			mc.showCircle(x, y, rad, 'g');
@@ -83,59 +81,46 @@ public class BounceObstacle extends Obstacle {
 	}
 
 	/**
-	 * Checks for collisions with robots in the arena and responds accordingly.
+	 * Handles the collision with a robot, applying random deflection, size change,
+	 * color cycling, chain detection, and breaking behavior. Called by the arena's
+	 * collision pass.
 	 * 
-	 * @param arena The arena containing the obstacle and robots.
+	 * @param arena The arena containing the robot and obstacle.
+	 * @param robot The robot colliding with this obstacle.
 	 */
-	@Override
-	public void checkItem(RobotArena arena) {
+	void handleCollision(RobotArena arena, Robot robot) {
 		if (!active) {
 			// Skip processing if the obstacle is broken.
 			return;
 		}
 
-		// Check for collisions with each robot in the arena.
-		for (Robot robot : arena.getRobots()) {
-			double dx = robot.getX() - x;
-			double dy = robot.getY() - y;
-			double dist = Math.sqrt(dx * dx + dy * dy);
-
-			if (dist < robot.getRad() + this.rad) {
-				// Handle collision when a robot is within range.
-				handleCollision(arena, robot);
-			}
-		}
-	}
-
-	/**
-	 * Handles the collision with a robot, applying random deflection, size change,
-	 * color cycling, chain detection, and breaking behavior.
-	 * 
-	 * @param arena The arena containing the robot and obstacle.
-	 * @param robot The robot colliding with this obstacle.
-	 */
-	private void handleCollision(RobotArena arena, Robot robot) {
 		// Deflect the robot in a random direction.
-		calculateBounceDirection(robot);
+		calculateBounceDirection(arena, robot);
+		robot.hitObstacle();
 
 		// Adjust the size of the obstacle.
+		double oldRad = rad;
 		rad += sizeChangePerHit;
 		if (rad < 5) {
 			rad = 5; // Ensure the radius does not go below a minimum value.
 		}
+		if (rad != oldRad) {
+			arena.staticResized(this);
+		}
 
 		// Cycle to the next color.
 		cycleColor();
 
 		// Check for chain collisions and trigger additional effects if detected.
-		long now = System.currentTimeMillis();
-		if (now - lastCollisionTime < chainThresholdMillis) {
+		// Time is counted in arena ticks so that runs are repeatable.
+		long now = arena.getTick();
+		if (now - lastCollisionTick < chainThresholdTicks) {
 			System.out.println("Chain collision! Spawning mini-obstacle...");
-			double spawnX = x + rand.nextInt(40) - 20;
-			double spawnY = y + rand.nextInt(40) - 20;
-			arena.items.add(new Obstacle(spawnX, spawnY, 5));
+			double spawnX = x + arena.getRandom().nextInt(40) - 20;
+			double spawnY = y + arena.getRandom().nextInt(40) - 20;
+			arena.addItem(new Obstacle(spawnX, spawnY, 5));
 		}
-		lastCollisionTime = now;
+		lastCollisionTick = now;
 
 		// Increment hit count and check if the obstacle should break.
 		hitCount++;
@@ -156,23 +141,24 @@ public class BounceObstacle extends Obstacle {
 		// Spawn several mini-obstacles as a result of breaking.
 		int miniCount = 3;
 		for (int i = 0; i < miniCount; i++) {
-			double spawnX = x + rand.nextInt(30) - 15;
-			double spawnY = y + rand.nextInt(30) - 15;
+			double spawnX = x + arena.getRandom().nextInt(30) - 15;
+			double spawnY = y + arena.getRandom().nextInt(30) - 15;
 			miniObstacleXP mini = new miniObstacleXP(spawnX, spawnY, 5);
-			arena.items.add(mini);
+			arena.addItem(mini);
 		}
 
 		// Remove the obstacle from the arena's item list.
-		arena.items.remove(this);
+		arena.removeItem(this);
 	}
 
 	/**
 	 * Deflects the robot in a random direction by altering its angle.
 	 * 
+	 * @param arena The arena providing the random direction.
 	 * @param robot The robot to deflect.
 	 */
-	private void calculateBounceDirection(Robot robot) {
-		double randomAngle = rand.nextDouble() * 360.0;
+	private void calculateBounceDirection(RobotArena arena, Robot robot) {
+		double randomAngle = arena.random() * 360.0;
 		robot.setAngle(randomAngle);
 	}
 
@@ -0,0 +1,59 @@
+package RobotSimulation;
+
+import java.util.List;
+
+/**
+ * The <code>BroadPhase</code> interface is implemented by the spatial
+ * structures that <code>CollisionPass</code> uses to find items which might be
+ * touching.
+ *
+ * <p>
+ * A broad phase only has to be conservative: it reports every pair whose
+ * bounding boxes overlap, each exactly once, and leaves the exact circle test
+ * to the narrow phase. Different implementations trade rebuild cost against
+ * query cost for different mixes of item sizes.
+ * </p>
+ *
+ * @author Ahmed Elamari
+ * @version 1.0
+ *
+ * @see CollisionPass
+ */
+public interface BroadPhase {
+
+	/**
+	 * Receives each candidate pair reported by a broad phase.
+	 */
+	interface PairSink {
+		/**
+		 * Receives one candidate pair.
+		 *
+		 * @param a the first item
+		 * @param b the second item
+		 */
+		void candidate(ArenaItem a, ArenaItem b);
+	}
+
+	/**
+	 * Brings the structure up to date with the current positions and radii of the
+	 * given items. Called once per tick before {@link #findPairs(PairSink)}.
+	 *
+	 * @param items the items taking part in collision detection
+	 */
+	void update(List<? extends ArenaItem> items);
+
+	/**
+	 * Reports every pair of items whose bounding boxes overlap, each pair exactly
+	 * once.
+	 *
+	 * @param sink the receiver of the candidate pairs
+	 */
+	void findPairs(PairSink sink);
+
+	/**
+	 * Returns a short name for this backend, used when selecting it by name.
+	 *
+	 * @return the backend name
+	 */
+	String getName();
+}
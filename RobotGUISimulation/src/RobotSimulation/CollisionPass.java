@@ -0,0 +1,179 @@
+package RobotSimulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The <code>CollisionPass</code> class detects and resolves all collisions in
+ * the arena in one pass per tick.
+ *
+ * <p>
+ * A <code>BroadPhase</code> first reports pairs of items whose bounding boxes
+ * overlap. The narrow phase then computes the exact centre distance of each
+ * candidate pair and, if the circles overlap, hands the pair to the handler
+ * registered for the two item types in the <code>CollisionTable</code>. Every
+ * colliding pair is therefore found and resolved exactly once, instead of once
+ * by each of the two items involved.
+ * </p>
+ *
+ * <p>
+ * Only items whose type appears in the table take part, so lights and other
+ * items without collision behaviour cost nothing here.
+ * </p>
+ *
+ * <p>
+ * Each broad phase reports pairs in its own order, and handlers can move items
+ * or draw random numbers, so the order can change the outcome. In ordered mode
+ * the candidates are collected first and resolved sorted by the items'
+ * positions in the item list, so every broad phase gives the same result.
+ * </p>
+ *
+ * @author Ahmed Elamari
+ * @version 1.0
+ *
+ * @see BroadPhase
+ * @see CollisionTable
+ */
+public class CollisionPass {
+
+	/** The broad phase used to find candidate pairs. */
+	private BroadPhase broadPhase = new UniformGridBroadPhase();
+	/** The handlers for each pair of item types. */
+	private final CollisionTable table = new CollisionTable();
+	/** The items taking part this tick, reused between ticks. */
+	private final ArrayList<ArenaItem> colliders = new ArrayList<>();
+	/** The arena being processed by the current run. */
+	private RobotArena current;
+
+	/** Number of candidate pairs tested in the last run. */
+	private int candidateCount;
+	/** Number of colliding pairs dispatched in the last run. */
+	private int collisionCount;
+
+	/** Whether candidate pairs are sorted before the narrow phase. */
+	private boolean ordered = false;
+	/** Candidate pairs collected in ordered mode, as two packed pass indices. */
+	private long[] pairKeys = new long[64];
+	/** Number of entries used in <code>pairKeys</code>. */
+	private int pairCount;
+
+	/** Collects candidate pairs in ordered mode, lower pass index first. */
+	private final BroadPhase.PairSink collector = (a, b) -> {
+		int i = Math.min(a.passIndex, b.passIndex);
+		int j = Math.max(a.passIndex, b.passIndex);
+		if (pairCount == pairKeys.length) {
+			pairKeys = Arrays.copyOf(pairKeys, pairCount * 2);
+		}
+		pairKeys[pairCount++] = ((long) i << 32) | j;
+	};
+
+	/** The narrow phase: exact circle test and dispatch of each candidate. */
+	private final BroadPhase.PairSink narrowPhase = (a, b) -> {
+		candidateCount++;
+		// Positions may have been changed by earlier handlers this pass
+		double dx = b.x - a.x;
+		double dy = b.y - a.y;
+		double dist = Math.sqrt(dx * dx + dy * dy);
+		if (dist < a.rad + b.rad) {
+			collisionCount++;
+			table.dispatch(a, b, dist, current);
+		}
+	};
+
+	/**
+	 * Returns the table of collision handlers, so that handlers can be added or
+	 * replaced.
+	 *
+	 * @return the collision table
+	 */
+	public CollisionTable getTable() {
+		return table;
+	}
+
+	/**
+	 * Returns the broad phase currently in use.
+	 *
+	 * @return the broad phase
+	 */
+	public BroadPhase getBroadPhase() {
+		return broadPhase;
+	}
+
+	/**
+	 * Replaces the broad phase used to find candidate pairs.
+	 *
+	 * @param bp the new broad phase
+	 */
+	public void setBroadPhase(BroadPhase bp) {
+		if (bp == null) {
+			throw new IllegalArgumentException("Broad phase must not be null");
+		}
+		broadPhase = bp;
+	}
+
+	/**
+	 * Detects and resolves every collision among the given items.
+	 *
+	 * @param arena the arena containing the items
+	 * @param items the items to check
+	 */
+	public void run(RobotArena arena, List<ArenaItem> items) {
+		colliders.clear();
+		for (int i = 0; i < items.size(); i++) {
+			ArenaItem item = items.get(i);
+			if (table.involves(item.getClass())) {
+				colliders.add(item);
+			}
+		}
+
+		candidateCount = 0;
+		collisionCount = 0;
+		current = arena;
+		broadPhase.update(colliders);
+		if (ordered) {
+			for (int i = 0; i < colliders.size(); i++) {
+				colliders.get(i).passIndex = i;
+			}
+			pairCount = 0;
+			broadPhase.findPairs(collector);
+			Arrays.sort(pairKeys, 0, pairCount);
+			for (int k = 0; k < pairCount; k++) {
+				long key = pairKeys[k];
+				narrowPhase.candidate(colliders.get((int) (key >>> 32)), colliders.get((int) key));
+			}
+		} else {
+			broadPhase.findPairs(narrowPhase);
+		}
+		current = null;
+	}
+
+	/**
+	 * Turns ordered mode on or off. In ordered mode colliding pairs are resolved
+	 * in a fixed order that does not depend on the broad phase, at the cost of
+	 * collecting and sorting the candidates each tick.
+	 *
+	 * @param on <code>true</code> to resolve pairs in a fixed order
+	 */
+	public void setOrdered(boolean on) {
+		ordered = on;
+	}
+
+	/**
+	 * Returns the number of candidate pairs tested by the last run.
+	 *
+	 * @return the candidate pair count
+	 */
+	public int getCandidateCount() {
+		return candidateCount;
+	}
+
+	/**
+	 * Returns the number of colliding pairs resolved by the last run.
+	 *
+	 * @return the collision count
+	 */
+	public int getCollisionCount() {
+		return collisionCount;
+	}
+}
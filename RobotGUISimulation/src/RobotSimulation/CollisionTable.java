@@ -0,0 +1,215 @@
+package RobotSimulation;
+
+import java.util.HashMap;
+
+/**
+ * The <code>CollisionTable</code> class maps pairs of item types to the code
+ * that resolves a collision between them.
+ *
+ * <p>
+ * Handlers are registered for a pair of classes and apply to subclasses too.
+ * When a pair of items collides, the most specific registered pair is chosen:
+ * the one whose classes are fewest inheritance steps away from the items'
+ * actual classes. For example a <code>triRobot</code> hitting a
+ * <code>Prey</code> uses a <code>(triRobot, Robot)</code> handler in preference
+ * to a <code>(Robot, Robot)</code> one. The order of the two items does not
+ * matter; a handler always receives them in the order it was registered with.
+ * </p>
+ *
+ * <p>
+ * Resolved lookups are cached per pair of concrete classes, so dispatch costs
+ * two hash lookups once the simulation has seen each combination.
+ * </p>
+ *
+ * @author Ahmed Elamari
+ * @version 1.0
+ *
+ * @see CollisionPass
+ */
+public class CollisionTable {
+
+	/**
+	 * Resolves a collision between two items of known types.
+	 *
+	 * @param <A> the type of the first item
+	 * @param <B> the type of the second item
+	 */
+	public interface Handler<A extends ArenaItem, B extends ArenaItem> {
+		/**
+		 * Resolves one collision.
+		 *
+		 * @param a     the first item
+		 * @param b     the second item
+		 * @param dist  the centre-to-centre distance between the items
+		 * @param arena the arena containing both items
+		 */
+		void collide(A a, B b, double dist, RobotArena arena);
+	}
+
+	/**
+	 * A resolved table entry: the handler to call and whether the two items must
+	 * be swapped to match its registered order.
+	 */
+	private static final class Entry {
+		/** The handler to call, or <code>null</code> if the pair is ignored. */
+		final Handler<ArenaItem, ArenaItem> handler;
+		/** Whether the items are passed in reverse order. */
+		final boolean swap;
+
+		Entry(Handler<ArenaItem, ArenaItem> handler, boolean swap) {
+			this.handler = handler;
+			this.swap = swap;
+		}
+	}
+
+	/** Entry used for pairs with no registered handler. */
+	private static final Entry NONE = new Entry(null, false);
+
+	/** Handlers exactly as registered, keyed by first then second class. */
+	private final HashMap<Class<?>, HashMap<Class<?>, Handler<ArenaItem, ArenaItem>>> registered = new HashMap<>();
+	/** Resolved entries for concrete class pairs seen so far. */
+	private final HashMap<Class<?>, HashMap<Class<?>, Entry>> resolved = new HashMap<>();
+	/** Whether each concrete class seen so far appears in any registered pair. */
+	private final HashMap<Class<?>, Boolean> involved = new HashMap<>();
+
+	/**
+	 * Registers the handler for collisions between items of the two given types
+	 * (or their subclasses), replacing any handler registered for exactly that
+	 * pair.
+	 *
+	 * @param <A>     the type of the first item
+	 * @param <B>     the type of the second item
+	 * @param a       the class of the first item
+	 * @param b       the class of the second item
+	 * @param handler the code resolving the collision
+	 */
+	@SuppressWarnings("unchecked")
+	public <A extends ArenaItem, B extends ArenaItem> void register(Class<A> a, Class<B> b, Handler<A, B> handler) {
+		registered.computeIfAbsent(a, k -> new HashMap<>()).put(b, (Handler<ArenaItem, ArenaItem>) handler);
+		// Registrations change how existing pairs resolve
+		resolved.clear();
+		involved.clear();
+	}
+
+	/**
+	 * Returns whether items of the given class can take part in any registered
+	 * collision, so that other items can be left out of collision detection.
+	 *
+	 * @param c the concrete class of an item
+	 * @return <code>true</code> if some handler applies to this class or one of
+	 *         its superclasses
+	 */
+	public boolean involves(Class<?> c) {
+		Boolean known = involved.get(c);
+		if (known == null) {
+			known = false;
+			for (Class<?> k = c; k != null && !known; k = k.getSuperclass()) {
+				if (registered.containsKey(k)) {
+					known = true;
+				}
+				for (HashMap<Class<?>, Handler<ArenaItem, ArenaItem>> row : registered.values()) {
+					if (row.containsKey(k)) {
+						known = true;
+					}
+				}
+			}
+			involved.put(c, known);
+		}
+		return known;
+	}
+
+	/**
+	 * Returns whether any handler applies to a pair of items of the given classes.
+	 *
+	 * @param a the class of one item
+	 * @param b the class of the other item
+	 * @return <code>true</code> if colliding items of these classes are handled
+	 */
+	public boolean handles(Class<?> a, Class<?> b) {
+		return lookup(a, b).handler != null;
+	}
+
+	/**
+	 * Calls the handler for a colliding pair of items, if one is registered.
+	 *
+	 * @param a     one of the colliding items
+	 * @param b     the other colliding item
+	 * @param dist  the centre-to-centre distance between the items
+	 * @param arena the arena containing both items
+	 */
+	public void dispatch(ArenaItem a, ArenaItem b, double dist, RobotArena arena) {
+		Entry e = lookup(a.getClass(), b.getClass());
+		if (e.handler == null) {
+			return;
+		}
+		if (e.swap) {
+			e.handler.collide(b, a, dist, arena);
+		} else {
+			e.handler.collide(a, b, dist, arena);
+		}
+	}
+
+	/**
+	 * Finds (and caches) the entry for a pair of concrete classes.
+	 *
+	 * @param a the class of the first item
+	 * @param b the class of the second item
+	 * @return the resolved entry, never <code>null</code>
+	 */
+	private Entry lookup(Class<?> a, Class<?> b) {
+		HashMap<Class<?>, Entry> row = resolved.computeIfAbsent(a, k -> new HashMap<>());
+		Entry e = row.get(b);
+		if (e == null) {
+			e = resolve(a, b);
+			row.put(b, e);
+		}
+		return e;
+	}
+
+	/**
+	 * Searches the registered handlers for the pair closest to the given classes
+	 * in either order.
+	 *
+	 * @param a the class of the first item
+	 * @param b the class of the second item
+	 * @return the best entry, or <code>NONE</code> if nothing applies
+	 */
+	private Entry resolve(Class<?> a, Class<?> b) {
+		Entry best = NONE;
+		int bestSteps = Integer.MAX_VALUE;
+		int stepsA = 0;
+		for (Class<?> ca = a; ca != null && ca != Object.class; ca = ca.getSuperclass(), stepsA++) {
+			int stepsB = 0;
+			for (Class<?> cb = b; cb != null && cb != Object.class; cb = cb.getSuperclass(), stepsB++) {
+				int steps = stepsA + stepsB;
+				if (steps >= bestSteps) {
+					continue;
+				}
+				Handler<ArenaItem, ArenaItem> h = find(ca, cb);
+				if (h != null) {
+					best = new Entry(h, false);
+					bestSteps = steps;
+					continue;
+				}
+				h = find(cb, ca);
+				if (h != null) {
+					best = new Entry(h, true);
+					bestSteps = steps;
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Returns the handler registered for exactly the given pair.
+	 *
+	 * @param a the first class
+	 * @param b the second class
+	 * @return the handler, or <code>null</code> if none is registered
+	 */
+	private Handler<ArenaItem, ArenaItem> find(Class<?> a, Class<?> b) {
+		HashMap<Class<?>, Handler<ArenaItem, ArenaItem>> row = registered.get(a);
+		return row == null ? null : row.get(b);
+	}
+}
@@ -0,0 +1,438 @@
+package RobotSimulation;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The <code>FlowField</code> class tells a robot anywhere in the arena which
+ * way to head to reach the nearest light without running into obstacles.
+ *
+ * <p>
+ * The arena is covered by a grid of square cells. Cells within
+ * {@link #CLEARANCE} of an obstacle, or outside a circular arena, are blocked.
+ * A Dijkstra search spreads outwards from every light over the free cells,
+ * moving to the eight neighbouring cells at a cost of their distance, which
+ * gives each cell the length of its shortest path to a light. The direction
+ * down the slope of those lengths is then stored per cell, so a robot finds
+ * its heading with one array lookup however many robots and lights there are.
+ * </p>
+ *
+ * <p>
+ * Lights and obstacles never move, so the field only needs rebuilding when one
+ * is added or removed or the arena changes shape. The arena does this at the
+ * start of the next tick, before any robot reads it.
+ * </p>
+ *
+ * @author Ahmed Elamari
+ * @version 1.0
+ *
+ * @see RobotArena#getFlowField()
+ */
+public class FlowField {
+
+	/** Side length of each cell, unless the arena is too large for it. */
+	public static final double CELL_SIZE = 10;
+	/** Largest number of cells; larger arenas get larger cells. */
+	static final int MAX_CELLS = 1 << 20;
+	/** Distance kept from obstacles, about the radius of a robot. */
+	public static final double CLEARANCE = 10;
+	/** Cost of a diagonal step, in cells. */
+	private static final float DIAGONAL = (float) Math.sqrt(2);
+
+	/** Column offsets of the eight neighbouring cells. */
+	private static final int[] STEP_COL = { 1, -1, 0, 0, 1, 1, -1, -1 };
+	/** Row offsets of the eight neighbouring cells. */
+	private static final int[] STEP_ROW = { 0, 0, 1, -1, 1, -1, 1, -1 };
+
+	/** Side length of the cells of the current build. */
+	private double cellSize = CELL_SIZE;
+	/** Number of cell columns. */
+	private int cols = 0;
+	/** Number of cell rows. */
+	private int rows = 0;
+	/** Whether each cell is blocked. */
+	private boolean[] blocked = new boolean[0];
+	/** Path length from each cell to the nearest light, in cells, or infinity. */
+	private float[] dist = new float[0];
+	/** Heading from each cell towards the nearest light in degrees, or NaN. */
+	private float[] angle = new float[0];
+	/** Search queue: a binary heap of cell numbers, ordered by their distance. */
+	private int[] heap = new int[0];
+	/** Distance each queued cell had when queued; stale entries are skipped. */
+	private float[] heapKey = new float[0];
+	/** Number of entries in the heap. */
+	private int heapSize;
+	/** Number of times the field has been built. */
+	private int builds = 0;
+
+	/**
+	 * Rebuilds the field for an arena's current lights and obstacles. The arrays
+	 * are reused while the arena keeps its size.
+	 *
+	 * @param width     the width of the arena
+	 * @param height    the height of the arena
+	 * @param circle    whether the arena is the largest circle in that rectangle
+	 * @param lights    the lights to head for
+	 * @param obstacles the obstacles to route around
+	 */
+	public void build(double width, double height, boolean circle, List<Light> lights, List<Obstacle> obstacles) {
+		builds++;
+		cellSize = CELL_SIZE;
+		while ((width / cellSize + 1) * (height / cellSize + 1) > MAX_CELLS) {
+			cellSize *= 2;
+		}
+		cols = Math.max(1, (int) Math.ceil(width / cellSize));
+		rows = Math.max(1, (int) Math.ceil(height / cellSize));
+		int n = cols * rows;
+		if (dist.length < n) {
+			blocked = new boolean[n];
+			dist = new float[n];
+			angle = new float[n];
+		}
+		Arrays.fill(blocked, 0, n, false);
+		Arrays.fill(dist, 0, n, Float.POSITIVE_INFINITY);
+		Arrays.fill(angle, 0, n, Float.NaN);
+		if (lights.isEmpty()) {
+			return;
+		}
+
+		markBlocked(width, height, circle, obstacles);
+		seed(lights);
+		search();
+		computeAngles(lights);
+	}
+
+	/**
+	 * Blocks the cells near obstacles and, for a circular arena, outside the
+	 * circle.
+	 *
+	 * @param width     the width of the arena
+	 * @param height    the height of the arena
+	 * @param circle    whether the arena is circular
+	 * @param obstacles the obstacles
+	 */
+	private void markBlocked(double width, double height, boolean circle, List<Obstacle> obstacles) {
+		for (int k = 0; k < obstacles.size(); k++) {
+			Obstacle o = obstacles.get(k);
+			double reach = o.getRad() + CLEARANCE;
+			int c0 = column(o.getX() - reach);
+			int c1 = column(o.getX() + reach);
+			int r0 = row(o.getY() - reach);
+			int r1 = row(o.getY() + reach);
+			for (int r = r0; r <= r1; r++) {
+				double dy = (r + 0.5) * cellSize - o.getY();
+				for (int c = c0; c <= c1; c++) {
+					double dx = (c + 0.5) * cellSize - o.getX();
+					if (dx * dx + dy * dy <= reach * reach) {
+						blocked[r * cols + c] = true;
+					}
+				}
+			}
+		}
+		if (circle) {
+			double cx = width / 2;
+			double cy = height / 2;
+			double radius = Math.min(width, height) / 2;
+			for (int r = 0; r < rows; r++) {
+				double dy = (r + 0.5) * cellSize - cy;
+				for (int c = 0; c < cols; c++) {
+					double dx = (c + 0.5) * cellSize - cx;
+					if (dx * dx + dy * dy > radius * radius) {
+						blocked[r * cols + c] = true;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Starts the search from every free cell inside a light, at the distance of
+	 * the cell's centre from the light's centre.
+	 *
+	 * @param lights the lights
+	 */
+	private void seed(List<Light> lights) {
+		if (heap.length < 2 * dist.length) {
+			heap = new int[2 * dist.length];
+			heapKey = new float[2 * dist.length];
+		}
+		heapSize = 0;
+		for (int k = 0; k < lights.size(); k++) {
+			Light l = lights.get(k);
+			// At least the cell holding the light's centre is seeded
+			double reach = Math.max(l.getRad(), cellSize / 2);
+			int c0 = column(l.getX() - reach);
+			int c1 = column(l.getX() + reach);
+			int r0 = row(l.getY() - reach);
+			int r1 = row(l.getY() + reach);
+			for (int r = r0; r <= r1; r++) {
+				double dy = (r + 0.5) * cellSize - l.getY();
+				for (int c = c0; c <= c1; c++) {
+					double dx = (c + 0.5) * cellSize - l.getX();
+					float d = (float) (Math.sqrt(dx * dx + dy * dy) / cellSize);
+					int cell = r * cols + c;
+					if (!blocked[cell] && (d * cellSize <= reach || cell == cellAt(l.getX(), l.getY()))
+							&& d < dist[cell]) {
+						dist[cell] = d;
+						push(cell, d);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Spreads the distances from the seeded cells over every free cell that can
+	 * reach them. A diagonal step is only taken when both cells beside it are
+	 * free, so paths never cut the corner of an obstacle.
+	 */
+	private void search() {
+		while (heapSize > 0) {
+			float key = heapKey[0];
+			int cell = pop();
+			if (key > dist[cell]) {
+				continue; // already reached by a shorter path
+			}
+			int c = cell % cols;
+			int r = cell / cols;
+			for (int s = 0; s < 8; s++) {
+				int nc = c + STEP_COL[s];
+				int nr = r + STEP_ROW[s];
+				if (nc < 0 || nc >= cols || nr < 0 || nr >= rows) {
+					continue;
+				}
+				int next = nr * cols + nc;
+				if (blocked[next]) {
+					continue;
+				}
+				float step = 1;
+				if (s >= 4) {
+					if (blocked[r * cols + nc] || blocked[nr * cols + c]) {
+						continue;
+					}
+					step = DIAGONAL;
+				}
+				float d = key + step;
+				if (d < dist[next]) {
+					dist[next] = d;
+					push(next, d);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Works out the heading of every reached cell. Cells in the open follow the
+	 * slope of the distances across their four sides, which points along the
+	 * path more smoothly than the eight grid directions. Cells next to a blocked
+	 * or unreached cell, and cells on a ridge between two lights where the slope
+	 * vanishes, head for their nearest neighbour instead. Cells inside a light
+	 * head for its centre.
+	 *
+	 * @param lights the lights
+	 */
+	private void computeAngles(List<Light> lights) {
+		for (int r = 0; r < rows; r++) {
+			for (int c = 0; c < cols; c++) {
+				int cell = r * cols + c;
+				if (dist[cell] == Float.POSITIVE_INFINITY) {
+					continue;
+				}
+				double gx = 0;
+				double gy = 0;
+				if (c > 0 && c < cols - 1 && r > 0 && r < rows - 1) {
+					gx = dist[cell + 1] - dist[cell - 1];
+					gy = dist[cell + cols] - dist[cell - cols];
+				}
+				if (Double.isFinite(gx) && Double.isFinite(gy) && gx * gx + gy * gy > 0.25) {
+					angle[cell] = (float) Math.toDegrees(StrictMath.atan2(-gy, -gx));
+				} else {
+					angle[cell] = steepestStep(c, r);
+				}
+			}
+		}
+		// Inside a light the field has no slope to follow
+		for (int k = 0; k < lights.size(); k++) {
+			Light l = lights.get(k);
+			int cell = cellAt(l.getX(), l.getY());
+			for (int r = row(l.getY() - l.getRad()); r <= row(l.getY() + l.getRad()); r++) {
+				for (int c = column(l.getX() - l.getRad()); c <= column(l.getX() + l.getRad()); c++) {
+					int inside = r * cols + c;
+					double dx = l.getX() - (c + 0.5) * cellSize;
+					double dy = l.getY() - (r + 0.5) * cellSize;
+					if (inside != cell && dx * dx + dy * dy <= l.getRad() * l.getRad()
+							&& dist[inside] != Float.POSITIVE_INFINITY) {
+						angle[inside] = (float) Math.toDegrees(StrictMath.atan2(dy, dx));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Finds the heading of the step from a cell to its neighbour with the
+	 * shortest path, or NaN if no neighbour is closer.
+	 *
+	 * @param c the cell's column
+	 * @param r the cell's row
+	 * @return the heading in degrees, or NaN
+	 */
+	private float steepestStep(int c, int r) {
+		float best = dist[r * cols + c];
+		int bestStep = -1;
+		for (int s = 0; s < 8; s++) {
+			int nc = c + STEP_COL[s];
+			int nr = r + STEP_ROW[s];
+			if (nc < 0 || nc >= cols || nr < 0 || nr >= rows) {
+				continue;
+			}
+			if (s >= 4 && (blocked[r * cols + nc] || blocked[nr * cols + c])) {
+				continue;
+			}
+			float d = dist[nr * cols + nc];
+			if (d < best) {
+				best = d;
+				bestStep = s;
+			}
+		}
+		if (bestStep < 0) {
+			return Float.NaN;
+		}
+		return (float) Math.toDegrees(StrictMath.atan2(STEP_ROW[bestStep], STEP_COL[bestStep]));
+	}
+
+	/**
+	 * Adds a cell to the search queue.
+	 *
+	 * @param cell the cell
+	 * @param key  its distance
+	 */
+	private void push(int cell, float key) {
+		if (heapSize == heap.length) {
+			heap = Arrays.copyOf(heap, heapSize * 2);
+			heapKey = Arrays.copyOf(heapKey, heapSize * 2);
+		}
+		int i = heapSize++;
+		while (i > 0) {
+			int parent = (i - 1) >> 1;
+			if (heapKey[parent] <= key) {
+				break;
+			}
+			heap[i] = heap[parent];
+			heapKey[i] = heapKey[parent];
+			i = parent;
+		}
+		heap[i] = cell;
+		heapKey[i] = key;
+	}
+
+	/**
+	 * Removes the cell with the shortest distance from the search queue.
+	 *
+	 * @return the cell
+	 */
+	private int pop() {
+		int top = heap[0];
+		int last = heap[--heapSize];
+		float key = heapKey[heapSize];
+		int i = 0;
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= heapSize) {
+				break;
+			}
+			if (child + 1 < heapSize && heapKey[child + 1] < heapKey[child]) {
+				child++;
+			}
+			if (heapKey[child] >= key) {
+				break;
+			}
+			heap[i] = heap[child];
+			heapKey[i] = heapKey[child];
+			i = child;
+		}
+		heap[i] = last;
+		heapKey[i] = key;
+		return top;
+	}
+
+	/**
+	 * Returns the column containing an X coordinate, clamped to the grid.
+	 *
+	 * @param x the X coordinate
+	 * @return the column
+	 */
+	private int column(double x) {
+		return Math.max(0, Math.min(cols - 1, (int) (x / cellSize)));
+	}
+
+	/**
+	 * Returns the row containing a Y coordinate, clamped to the grid.
+	 *
+	 * @param y the Y coordinate
+	 * @return the row
+	 */
+	private int row(double y) {
+		return Math.max(0, Math.min(rows - 1, (int) (y / cellSize)));
+	}
+
+	/**
+	 * Returns the cell containing a point, clamped to the grid.
+	 *
+	 * @param x the X coordinate
+	 * @param y the Y coordinate
+	 * @return the cell number
+	 */
+	private int cellAt(double x, double y) {
+		return row(y) * cols + column(x);
+	}
+
+	/**
+	 * Returns the heading to take from a point to reach the nearest light.
+	 *
+	 * @param x the X coordinate
+	 * @param y the Y coordinate
+	 * @return the heading in degrees, or NaN if there are no lights, the point is
+	 *         too close to an obstacle or no light can be reached from it
+	 */
+	public double angleAt(double x, double y) {
+		if (cols == 0) {
+			return Double.NaN;
+		}
+		return angle[cellAt(x, y)];
+	}
+
+	/**
+	 * Returns the length of the shortest path from a point to the nearest light,
+	 * measured between cell centres.
+	 *
+	 * @param x the X coordinate
+	 * @param y the Y coordinate
+	 * @return the path length, or infinity if no light can be reached
+	 */
+	public double distanceAt(double x, double y) {
+		if (cols == 0) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return dist[cellAt(x, y)] * cellSize;
+	}
+
+	/**
+	 * Returns the side length of the cells.
+	 *
+	 * @return the cell size
+	 */
+	public double getCellSize() {
+		return cellSize;
+	}
+
+	/**
+	 * Returns the number of times the field has been built, which only grows when
+	 * lights or obstacles change.
+	 *
+	 * @return the build count
+	 */
+	public int getBuildCount() {
+		return builds;
+	}
+}
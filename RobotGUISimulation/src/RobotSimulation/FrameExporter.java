@@ -0,0 +1,469 @@
+package RobotSimulation;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import javax.imageio.ImageIO;
+
+/**
+ * The <code>FrameExporter</code> class turns a run into a numbered sequence of
+ * PNG images, one every {@link #getInterval()} ticks.
+ *
+ * <p>
+ * Capturing a frame on the simulation thread only records the arena's drawing
+ * calls on a <code>RecordingCanvas</code> and puts it on a bounded queue. A
+ * pool of worker threads takes frames from the queue, draws them on their own
+ * <code>SoftwareCanvas</code>, encodes them as PNG and writes them through a
+ * <code>FileChannel</code>, so several frames are drawn and encoded at once.
+ * </p>
+ *
+ * <p>
+ * The recordings are reused, and there are only as many as the queue holds plus
+ * one per worker. When the workers fall behind and every recording is in use,
+ * the frame is dropped rather than making the simulation wait for the disk,
+ * unless {@link #setWaitWhenFull(boolean)} asks for every frame.
+ * Frame <code>n</code> is written to <code>base-n.png</code> whether or not
+ * earlier frames were dropped, so the gaps show where frames are missing, and
+ * closing the exporter writes <code>base-frames.txt</code> listing the tick and
+ * outcome of every frame in order.
+ * </p>
+ *
+ * @author Ahmed Elamari
+ * @version 1.0
+ *
+ * @see RobotArena#setFrameExporter(FrameExporter)
+ */
+public class FrameExporter implements AutoCloseable {
+
+	/** Default number of frames that may wait for a worker. */
+	public static final int DEFAULT_QUEUE_SIZE = 8;
+
+	// Outcome of each frame
+	private static final byte PENDING = 0;
+	private static final byte WRITTEN = 1;
+	private static final byte DROPPED = 2;
+	private static final byte FAILED = 3;
+
+	/**
+	 * A captured frame waiting to be drawn, or the marker telling a worker to
+	 * stop.
+	 */
+	private static final class Frame {
+		/** The recorded drawing calls. */
+		final RecordingCanvas canvas;
+		/** The number of the frame in the sequence. */
+		int number;
+
+		Frame(RecordingCanvas canvas) {
+			this.canvas = canvas;
+		}
+	}
+
+	/**
+	 * A byte stream whose contents can be written without copying them.
+	 */
+	private static final class Bytes extends ByteArrayOutputStream {
+		Bytes() {
+			super(1 << 16);
+		}
+
+		ByteBuffer buffer() {
+			return ByteBuffer.wrap(buf, 0, count);
+		}
+	}
+
+	/** The marker telling a worker to stop. */
+	private static final Frame STOP = new Frame(null);
+
+	/** The directory receiving the images. */
+	private final Path dir;
+	/** The file name prefix of each image. */
+	private final String baseName;
+	/** The width of each image in pixels. */
+	private final int width;
+	/** The height of each image in pixels. */
+	private final int height;
+	/** Number of ticks from one frame to the next. */
+	private final int interval;
+	/** Recordings free to capture a frame into. */
+	private final ArrayBlockingQueue<Frame> free;
+	/** Captured frames waiting for a worker. */
+	private final ArrayBlockingQueue<Frame> queue;
+	/** The worker threads. */
+	private final List<Thread> workers = new ArrayList<>();
+
+	/** Number of frames captured or dropped so far, used by the next frame. */
+	private int frameCount = 0;
+	/** Number of frames dropped because every recording was in use. */
+	private int dropped = 0;
+	/** The tick of each frame, by number. */
+	private long[] ticks = new long[64];
+	/** The outcome of each frame, by number. */
+	private byte[] outcomes = new byte[64];
+	/** Number of frames written. */
+	private int written = 0;
+	/** Number of frames that could not be written. */
+	private int failed = 0;
+	/** Number of frames finished after a later frame. */
+	private int outOfOrder = 0;
+	/** The highest frame number finished so far. */
+	private int highestFinished = -1;
+	/** Whether the exporter has been closed. */
+	private boolean closed = false;
+	/** Whether a capture waits for a free recording instead of dropping the frame. */
+	private volatile boolean waitWhenFull = false;
+
+	/**
+	 * Constructs an exporter for the whole of an arena, with one worker per core
+	 * and a queue of {@link #DEFAULT_QUEUE_SIZE} frames.
+	 *
+	 * @param dir      the directory receiving the images (created if necessary)
+	 * @param baseName the file name prefix of each image
+	 * @param arena    the arena, giving the size of the images
+	 * @param interval the number of ticks from one frame to the next
+	 * @throws IOException if the directory cannot be created
+	 */
+	public FrameExporter(Path dir, String baseName, RobotArena arena, int interval) throws IOException {
+		this(dir, baseName, (int) Math.ceil(arena.getXSize()), (int) Math.ceil(arena.getYSize()), interval,
+				DEFAULT_QUEUE_SIZE, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructs an exporter and starts its workers.
+	 *
+	 * @param dir         the directory receiving the images (created if
+	 *                    necessary)
+	 * @param baseName    the file name prefix of each image
+	 * @param width       the width of each image in pixels
+	 * @param height      the height of each image in pixels
+	 * @param interval    the number of ticks from one frame to the next
+	 * @param queueSize   the number of frames that may wait for a worker before
+	 *                    new frames are dropped
+	 * @param workerCount the number of worker threads
+	 * @throws IOException if the directory cannot be created
+	 */
+	public FrameExporter(Path dir, String baseName, int width, int height, int interval, int queueSize,
+			int workerCount) throws IOException {
+		if (width <= 0 || height <= 0) {
+			throw new IllegalArgumentException("Frame size must be positive: " + width + " x " + height);
+		}
+		if (interval < 1) {
+			throw new IllegalArgumentException("Frame interval must be at least 1: " + interval);
+		}
+		if (queueSize < 1 || workerCount < 1) {
+			throw new IllegalArgumentException("Need a queue and at least one worker: " + queueSize + ", "
+					+ workerCount);
+		}
+		this.dir = dir;
+		this.baseName = baseName;
+		this.width = width;
+		this.height = height;
+		this.interval = interval;
+		Files.createDirectories(dir);
+		ImageIO.setUseCache(false); // encode in memory, not through temporary files
+
+		int frames = queueSize + workerCount;
+		free = new ArrayBlockingQueue<>(frames);
+		queue = new ArrayBlockingQueue<>(frames + workerCount); // room for the stop markers
+		for (int i = 0; i < frames; i++) {
+			free.add(new Frame(new RecordingCanvas(width, height)));
+		}
+		for (int i = 0; i < workerCount; i++) {
+			Thread t = new Thread(this::workLoop, "frame-export-" + i);
+			t.setDaemon(true);
+			workers.add(t);
+			t.start();
+		}
+	}
+
+	/**
+	 * Returns the path of a frame's image.
+	 *
+	 * @param dir      the directory holding the images
+	 * @param baseName the file name prefix of each image
+	 * @param number   the frame number
+	 * @return the path of that image
+	 */
+	public static Path framePath(Path dir, String baseName, int number) {
+		return dir.resolve(String.format("%s-%06d.png", baseName, number));
+	}
+
+	/**
+	 * Captures a frame of the arena if its tick is due, without waiting. Called by
+	 * the arena after each tick.
+	 *
+	 * @param arena the arena to capture
+	 */
+	public void capture(RobotArena arena) {
+		long tick = arena.getTick();
+		if (tick % interval != 0) {
+			return;
+		}
+		Frame f = free.poll();
+		if (f == null && waitWhenFull) {
+			try {
+				f = free.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt(); // drop the frame
+			}
+		}
+		synchronized (this) {
+			if (closed) {
+				if (f != null) {
+					free.add(f);
+				}
+				return;
+			}
+			if (frameCount == ticks.length) {
+				ticks = Arrays.copyOf(ticks, frameCount * 2);
+				outcomes = Arrays.copyOf(outcomes, frameCount * 2);
+			}
+			ticks[frameCount] = tick;
+			if (f == null) {
+				outcomes[frameCount++] = DROPPED;
+				dropped++;
+				return;
+			}
+			f.number = frameCount++;
+		}
+		f.canvas.reset();
+		arena.drawArena(f.canvas);
+		queue.add(f); // never full: it holds every recording
+	}
+
+	/**
+	 * Draws, encodes and writes frames until told to stop.
+	 */
+	private void workLoop() {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		SoftwareCanvas sc = new SoftwareCanvas(width, height, pixels);
+		Bytes png = new Bytes();
+		while (true) {
+			Frame f;
+			try {
+				f = queue.take();
+			} catch (InterruptedException e) {
+				return;
+			}
+			if (f == STOP) {
+				return;
+			}
+			int number = f.number;
+			sc.clearCanvas();
+			f.canvas.replay(sc);
+			free.add(f); // the recording can take the next frame while this one is encoded
+
+			boolean ok = true;
+			try {
+				png.reset();
+				ImageIO.write(image, "png", png);
+				try (FileChannel out = FileChannel.open(framePath(dir, baseName, number), StandardOpenOption.CREATE,
+						StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+					ByteBuffer b = png.buffer();
+					while (b.hasRemaining()) {
+						out.write(b);
+					}
+				}
+			} catch (IOException e) {
+				System.out.println("Frame " + number + " not written: " + e.getMessage());
+				ok = false;
+			}
+			finished(number, ok);
+		}
+	}
+
+	/**
+	 * Records the outcome of a frame.
+	 *
+	 * @param number the frame number
+	 * @param ok     whether the frame was written
+	 */
+	private synchronized void finished(int number, boolean ok) {
+		outcomes[number] = ok ? WRITTEN : FAILED;
+		if (ok) {
+			written++;
+		} else {
+			failed++;
+		}
+		if (number < highestFinished) {
+			outOfOrder++;
+		} else {
+			highestFinished = number;
+		}
+	}
+
+	/**
+	 * Sets what happens when a frame is due while every recording is in use. By
+	 * default the frame is dropped so the simulation keeps its pace; a batch run
+	 * that needs every frame can instead wait for a worker to free a recording.
+	 *
+	 * @param wait <code>true</code> to wait, <code>false</code> to drop the frame
+	 */
+	public void setWaitWhenFull(boolean wait) {
+		waitWhenFull = wait;
+	}
+
+	/**
+	 * Returns the number of ticks from one frame to the next.
+	 *
+	 * @return the frame interval
+	 */
+	public int getInterval() {
+		return interval;
+	}
+
+	/**
+	 * Returns the number of frames due so far, whether captured or dropped.
+	 *
+	 * @return the frame count
+	 */
+	public synchronized int getFrameCount() {
+		return frameCount;
+	}
+
+	/**
+	 * Returns the number of frames dropped because the workers were behind.
+	 *
+	 * @return the dropped frame count
+	 */
+	public synchronized int getDroppedCount() {
+		return dropped;
+	}
+
+	/**
+	 * Returns the number of frames written so far.
+	 *
+	 * @return the written frame count
+	 */
+	public synchronized int getWrittenCount() {
+		return written;
+	}
+
+	/**
+	 * Returns the number of frames that could not be written.
+	 *
+	 * @return the failed frame count
+	 */
+	public synchronized int getFailedCount() {
+		return failed;
+	}
+
+	/**
+	 * Returns the number of frames that finished after a later frame. The files
+	 * are numbered in order whatever the order they are written in.
+	 *
+	 * @return the out of order frame count
+	 */
+	public synchronized int getOutOfOrderCount() {
+		return outOfOrder;
+	}
+
+	/**
+	 * Stops capturing, waits for the workers to write every captured frame, and
+	 * writes the list of frames.
+	 *
+	 * @throws IOException if the list of frames cannot be written
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+		}
+		for (int i = 0; i < workers.size(); i++) {
+			try {
+				queue.put(STOP);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		for (Thread t : workers) {
+			try {
+				t.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+
+		StringBuilder sb = new StringBuilder();
+		synchronized (this) {
+			for (int i = 0; i < frameCount; i++) {
+				sb.append(i).append(' ').append(ticks[i]).append(' ');
+				switch (outcomes[i]) {
+				case WRITTEN:
+					sb.append(framePath(dir, baseName, i).getFileName());
+					break;
+				case DROPPED:
+					sb.append("dropped");
+					break;
+				case FAILED:
+					sb.append("failed");
+					break;
+				case PENDING:
+					sb.append("unfinished");
+					break;
+				}
+				sb.append('\n');
+			}
+			System.out.println("Exported " + written + " of " + frameCount + " frames (" + dropped + " dropped, "
+					+ failed + " failed, " + outOfOrder + " finished out of order)");
+		}
+		Files.writeString(dir.resolve(baseName + "-frames.txt"), sb);
+	}
+
+	/**
+	 * Runs a saved arena headless and exports its frames.
+	 *
+	 * <p>
+	 * Unlike the viewer, which drops frames to keep the simulation smooth, a
+	 * headless run waits for the workers so that every frame is written, unless
+	 * <code>drop</code> is given.
+	 * </p>
+	 *
+	 * @param args the save file, then optionally the number of ticks, the frame
+	 *             interval, the output directory, the number of workers and
+	 *             <code>drop</code>
+	 * @throws IOException if the save file cannot be read or the frames cannot be
+	 *                     written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: FrameExporter <save file> [ticks] [interval] [dir] [workers] [drop]");
+			return;
+		}
+		RobotArena arena = new RobotArena(Files.readString(Path.of(args[0])));
+		int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+		int interval = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+		Path dir = Path.of(args.length > 3 ? args[3] : "frames");
+		int workerCount = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+		long start = System.nanoTime();
+		try (FrameExporter exporter = new FrameExporter(dir, "frame", (int) Math.ceil(arena.getXSize()),
+				(int) Math.ceil(arena.getYSize()), interval, DEFAULT_QUEUE_SIZE, workerCount)) {
+			exporter.setWaitWhenFull(!(args.length > 5 && args[5].equals("drop")));
+			arena.setFrameExporter(exporter);
+			for (int t = 0; t < ticks; t++) {
+				arena.checkItems();
+				arena.adjustItems();
+			}
+			System.out.printf("Simulated %d ticks in %.2f s%n", ticks, (System.nanoTime() - start) / 1e9);
+		}
+		System.out.printf("Done after %.2f s%n", (System.nanoTime() - start) / 1e9);
+	}
+}
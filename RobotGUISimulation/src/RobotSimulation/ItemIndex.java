@@ -0,0 +1,151 @@
+package RobotSimulation;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * The <code>ItemIndex</code> class holds the arena items of one type (for
+ * example every <code>Robot</code>, including subclasses) so that code
+ * interested in one type does not have to filter the whole item list.
+ *
+ * <p>
+ * The index is kept up to date by <code>RobotArena</code> as items are added
+ * and removed. Each item remembers its slot in every index it belongs to, so
+ * removal swaps the last item into the freed slot and costs O(1); the order of
+ * the index is therefore not the order items were added in.
+ * </p>
+ *
+ * <p>
+ * To everyone else the index is a read-only <code>List</code> view over its
+ * backing array: reading it copies nothing, and an indexed loop allocates
+ * nothing. Methods that would modify it throw
+ * <code>UnsupportedOperationException</code>.
+ * </p>
+ *
+ * @param <T> the type of item held in the index
+ *
+ * @author Ahmed Elamari
+ * @version 1.0
+ */
+public class ItemIndex<T extends ArenaItem> extends AbstractList<T> implements RandomAccess {
+
+	/** Slot array shared by items not yet in any index. */
+	static final int[] NO_SLOTS = new int[0];
+
+	/** The type of item accepted by this index. */
+	private final Class<T> type;
+	/** Which entry of each item's <code>indexSlots</code> belongs to this index. */
+	private final int id;
+	/** The items, packed at the start of the array. */
+	private ArenaItem[] slots = new ArenaItem[8];
+	/** Number of items in the index. */
+	private int count = 0;
+
+	/**
+	 * Constructs an empty index.
+	 *
+	 * @param type the type of item held (subclasses are accepted too)
+	 * @param id   a number unique among the indices of one arena, used to find the
+	 *             item's slot
+	 */
+	ItemIndex(Class<T> type, int id) {
+		this.type = type;
+		this.id = id;
+	}
+
+	/**
+	 * Returns whether the given item belongs in this index.
+	 *
+	 * @param item the item to test
+	 * @return <code>true</code> if the item is of this index's type
+	 */
+	boolean accepts(ArenaItem item) {
+		return type.isInstance(item);
+	}
+
+	/**
+	 * Adds an item to the end of the index and records its slot.
+	 *
+	 * @param item the item to add, which must be of this index's type
+	 */
+	void insert(ArenaItem item) {
+		if (item.indexSlots.length <= id) {
+			int old = item.indexSlots.length;
+			item.indexSlots = Arrays.copyOf(item.indexSlots, id + 1);
+			Arrays.fill(item.indexSlots, old, id + 1, -1);
+		}
+		if (count == slots.length) {
+			slots = Arrays.copyOf(slots, count * 2);
+		}
+		item.indexSlots[id] = count;
+		slots[count++] = item;
+	}
+
+	/**
+	 * Removes an item by moving the last item into its slot.
+	 *
+	 * @param item the item to remove
+	 * @return <code>true</code> if the item was in this index
+	 */
+	boolean delete(ArenaItem item) {
+		if (item.indexSlots.length <= id) {
+			return false;
+		}
+		int slot = item.indexSlots[id];
+		if (slot < 0 || slot >= count || slots[slot] != item) {
+			return false;
+		}
+		ArenaItem last = slots[--count];
+		slots[slot] = last;
+		last.indexSlots[id] = slot;
+		slots[count] = null;
+		item.indexSlots[id] = -1;
+		return true;
+	}
+
+	/**
+	 * Returns the item in the given slot.
+	 *
+	 * @param i the slot, in the range [0, size)
+	 * @return the item
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public T get(int i) {
+		if (i >= count) {
+			throw new IndexOutOfBoundsException("Index " + i + " out of bounds for size " + count);
+		}
+		// Only items accepted by this index are ever inserted
+		return (T) slots[i];
+	}
+
+	/**
+	 * Returns the number of items in the index.
+	 *
+	 * @return the item count
+	 */
+	@Override
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Checks membership through the item's stored slot rather than by scanning.
+	 *
+	 * @param o the object to look for
+	 * @return <code>true</code> if the object is in this index
+	 */
+	@Override
+	public boolean contains(Object o) {
+		if (!(o instanceof ArenaItem)) {
+			return false;
+		}
+		ArenaItem item = (ArenaItem) o;
+		if (item.indexSlots.length <= id) {
+			return false;
+		}
+		int slot = item.indexSlots[id];
+		return slot >= 0 && slot < count && slots[slot] == item;
+	}
+}
@@ -0,0 +1,89 @@
+package RobotSimulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The <code>LidarBenchmark</code> class measures how many lidar rays the
+ * simulation casts per second.
+ *
+ * <p>
+ * A large arena is filled with lidar robots and obstacles. The benchmark first
+ * times the scans alone on one thread, which gives the rays per second of one
+ * core, and then times full ticks with the checks spread over a number of
+ * threads.
+ * </p>
+ *
+ * @author Ahmed Elamari
+ * @version 1.0
+ *
+ * @see LidarRobot
+ */
+public class LidarBenchmark {
+
+	/**
+	 * Runs the benchmark.
+	 *
+	 * @param args optionally the number of robots, rays per robot, ticks and
+	 *             threads
+	 */
+	public static void main(String[] args) {
+		int robots = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		int rays = args.length > 1 ? Integer.parseInt(args[1]) : 360;
+		int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+		// Keep the density of the default arena whatever the robot count
+		double side = Math.sqrt(robots * 4000.0);
+		RobotArena arena = new RobotArena(side + " " + side + "\n");
+		Random rnd = new Random(1);
+		List<LidarRobot> lidars = new ArrayList<>();
+		for (int i = 0; i < robots; i++) {
+			LidarRobot l = new LidarRobot(20 + rnd.nextDouble() * (side - 40), 20 + rnd.nextDouble() * (side - 40),
+					10, rnd.nextDouble() * 360, 2, arena, rays, LidarRobot.DEFAULT_RANGE);
+			lidars.add(l);
+			arena.addItem(l);
+		}
+		for (int i = 0; i < robots / 4; i++) {
+			arena.addItem(new Obstacle(rnd.nextDouble() * side, rnd.nextDouble() * side, 5 + rnd.nextDouble() * 15));
+		}
+		arena.checkItems();
+		arena.adjustItems();
+
+		// Scans alone on this thread
+		for (int warm = 0; warm < 3; warm++) {
+			for (LidarRobot l : lidars) {
+				l.scan(arena);
+			}
+		}
+		long start = System.nanoTime();
+		for (int t = 0; t < ticks; t++) {
+			for (LidarRobot l : lidars) {
+				l.scan(arena);
+			}
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		double perCore = (double) robots * rays * ticks / seconds;
+		System.out.printf("%d robots x %d rays, range %.0f: %.1f M rays/s on one core (%.1f us per scan)%n", robots,
+				rays, LidarRobot.DEFAULT_RANGE, perCore / 1e6, seconds * 1e6 / ((double) robots * ticks));
+
+		// Full ticks, checks on several threads
+		arena.setParallelChecks(threads);
+		for (int t = 0; t < 5; t++) {
+			arena.checkItems();
+			arena.adjustItems();
+		}
+		start = System.nanoTime();
+		for (int t = 0; t < ticks; t++) {
+			arena.checkItems();
+			arena.adjustItems();
+		}
+		seconds = (System.nanoTime() - start) / 1e9;
+		int alive = arena.getRobots().size();
+		double total = (double) alive * rays * ticks / seconds;
+		System.out.printf("Full ticks on %d threads: %.1f ticks/s, %.1f M rays/s, %.1f M rays/s per core%n", threads,
+				ticks / seconds, total / 1e6, total / 1e6 / threads);
+		arena.setParallelChecks(0);
+	}
+}
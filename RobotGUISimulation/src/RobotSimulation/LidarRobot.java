@@ -0,0 +1,225 @@
+package RobotSimulation;
+
+import java.util.Arrays;
+
+/**
+ * The <code>LidarRobot</code> class is a robot that sees with a 360 degree
+ * scanning range finder. Every tick it casts a ring of evenly spaced rays
+ * against the arena walls, obstacles and other robots, and steers towards the
+ * most open direction when something is close ahead.
+ *
+ * <p>
+ * The rays are cast through the arena's <code>RaycastService</code>, so a scan
+ * costs roughly the number of items within range rather than the number of
+ * items in the arena, and reuses the same arrays every tick.
+ * </p>
+ *
+ * @author Ahmed Elamari
+ * @version 1.0
+ *
+ * @see RaycastService#castRing
+ */
+public class LidarRobot extends Robot {
+
+	/** Number of rays in a scan unless given. */
+	public static final int DEFAULT_RAYS = 90;
+	/** Range of the rays unless given. */
+	public static final double DEFAULT_RANGE = 150;
+	/** Half the width of the cone ahead checked for clearance, in degrees. */
+	private static final double FRONT_ANGLE = 30;
+	/** Clearance ahead, beyond the robot's radius, below which it turns. */
+	private static final double SAFE_DISTANCE = 30;
+	/** Largest number of rays drawn, so dense scans stay readable. */
+	private static final int DRAWN_RAYS = 64;
+
+	/** Number of rays in each scan. */
+	private final int rayCount;
+	/** Range of the rays. */
+	private final double range;
+	/** Cosine of each ray's angle from the heading. */
+	private final double[] offCos;
+	/** Sine of each ray's angle from the heading. */
+	private final double[] offSin;
+	/** Distance measured by each ray in the last scan, at most the range. */
+	private final double[] ranges;
+	/** Item seen by each ray in the last scan, or <code>null</code>. */
+	private final ArenaItem[] seen;
+	/** Scratch space for the scan's ray casts. */
+	private final RaycastService.RayHit scanHit = new RaycastService.RayHit();
+
+	/**
+	 * Creates a lidar robot with the default number of rays and range.
+	 *
+	 * @param ix    Initial x position
+	 * @param iy    Initial y position
+	 * @param ir    Robot's radius
+	 * @param ia    Initial angle (in degrees)
+	 * @param is    Initial speed
+	 * @param arena The arena where the robot will roam
+	 */
+	public LidarRobot(double ix, double iy, double ir, double ia, double is, RobotArena arena) {
+		this(ix, iy, ir, ia, is, arena, DEFAULT_RAYS, DEFAULT_RANGE);
+	}
+
+	/**
+	 * Creates a lidar robot.
+	 *
+	 * @param ix    Initial x position
+	 * @param iy    Initial y position
+	 * @param ir    Robot's radius
+	 * @param ia    Initial angle (in degrees)
+	 * @param is    Initial speed
+	 * @param arena The arena where the robot will roam
+	 * @param rays  Number of rays per scan, at least 4
+	 * @param range Range of the rays
+	 */
+	public LidarRobot(double ix, double iy, double ir, double ia, double is, RobotArena arena, int rays,
+			double range) {
+		super(ix, iy, ir, ia, is, arena);
+		if (rays < 4) {
+			throw new IllegalArgumentException("A lidar needs at least 4 rays: " + rays);
+		}
+		col = 'o';
+		rayCount = rays;
+		this.range = range;
+		offCos = new double[rays];
+		offSin = new double[rays];
+		for (int j = 0; j < rays; j++) {
+			double a = 2 * Math.PI * j / rays;
+			offCos[j] = StrictMath.cos(a);
+			offSin[j] = StrictMath.sin(a);
+		}
+		ranges = new double[rays];
+		seen = new ArenaItem[rays];
+		Arrays.fill(ranges, range);
+	}
+
+	/**
+	 * Bounces off walls like any robot, then scans and steers away from anything
+	 * close ahead.
+	 *
+	 * @param r the arena
+	 */
+	@Override
+	public void checkItem(RobotArena r) {
+		super.checkItem(r);
+		scan(r);
+		steer();
+	}
+
+	/**
+	 * Casts the ring of rays from the robot's centre. Lights do not block the
+	 * rays; robots, obstacles and the arena wall do.
+	 *
+	 * @param r the arena
+	 */
+	void scan(RobotArena r) {
+		double hc = headingCos();
+		double hs = headingSin();
+		RaycastService rays = r.getRaycaster();
+		rays.castRing(x, y, hc, hs, offCos, offSin, range, 0, this, null, Light.class, scanHit, seen, ranges);
+		for (int j = 0; j < rayCount; j++) {
+			double dx = hc * offCos[j] - hs * offSin[j];
+			double dy = hs * offCos[j] + hc * offSin[j];
+			double wall = r.wallDistance(x, y, dx, dy);
+			if (wall < ranges[j]) {
+				ranges[j] = wall;
+				seen[j] = null;
+			}
+			if (ranges[j] > range) {
+				ranges[j] = range; // nothing within range
+			}
+		}
+	}
+
+	/**
+	 * Turns towards the longest ray when the cone ahead is not clear.
+	 */
+	private void steer() {
+		int cone = (int) (rayCount * FRONT_ANGLE / 360);
+		double front = range;
+		for (int j = -cone; j <= cone; j++) {
+			front = Math.min(front, ranges[Math.floorMod(j, rayCount)]);
+		}
+		if (front >= rad + SAFE_DISTANCE) {
+			return;
+		}
+		int best = 0;
+		for (int j = 1; j < rayCount; j++) {
+			if (ranges[j] > ranges[best]) {
+				best = j;
+			}
+		}
+		rAngle = (rAngle + 360.0 * best / rayCount) % 360;
+	}
+
+	/**
+	 * Draws the robot and its rays, thinned out for dense scans.
+	 *
+	 * @param mc The canvas to draw on
+	 */
+	@Override
+	public void drawItem(Renderer mc) {
+		super.drawItem(mc);
+		mc.setLineWidth(1);
+		mc.setStrokeColour('o');
+		double hc = headingCos();
+		double hs = headingSin();
+		int stride = Math.max(1, rayCount / DRAWN_RAYS);
+		for (int j = 0; j < rayCount; j += stride) {
+			double dx = hc * offCos[j] - hs * offSin[j];
+			double dy = hs * offCos[j] + hc * offSin[j];
+			mc.drawLine(x, y, x + ranges[j] * dx, y + ranges[j] * dy);
+		}
+	}
+
+	/**
+	 * Returns the number of rays in each scan.
+	 *
+	 * @return the ray count
+	 */
+	public int getRayCount() {
+		return rayCount;
+	}
+
+	/**
+	 * Returns the range of the rays.
+	 *
+	 * @return the range
+	 */
+	public double getRange() {
+		return range;
+	}
+
+	/**
+	 * Returns the distances measured by the last scan, ray <code>j</code> at
+	 * <code>j</code> times a full turn divided by the ray count clockwise from the
+	 * heading. The array is reused by the next scan and must not be changed.
+	 *
+	 * @return the measured distances, at most the range
+	 */
+	public double[] getRanges() {
+		return ranges;
+	}
+
+	/**
+	 * Returns the item seen by a ray in the last scan.
+	 *
+	 * @param j the ray
+	 * @return the item, or <code>null</code> if the ray reached a wall or nothing
+	 */
+	public ArenaItem getSeen(int j) {
+		return seen[j];
+	}
+
+	@Override
+	protected String getStrType() {
+		return "Lidar Robot";
+	}
+
+	@Override
+	public String fileString() {
+		return String.format("LidarRobot %.1f %.1f %.1f %c %.1f %.1f %d %.1f", x, y, rad, col, rAngle, rSpeed,
+				rayCount, range);
+	}
+}
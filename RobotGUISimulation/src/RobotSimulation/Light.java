@@ -37,109 +37,90 @@ public class Light extends ArenaItem {
 	}
 
 	/**
-	 * Draws this light on the specified <code>MyCanvas</code>.
+	 * Draws this light on the specified <code>Renderer</code>.
 	 *
 	 * <p>
 	 * By default, the light is represented as a circle with a yellow colour
 	 * (character 'y').
 	 * </p>
 	 *
-	 * @param mc the <code>MyCanvas</code> object used for drawing shapes
+	 * @param mc the <code>Renderer</code> object used for drawing shapes
 	 */
 	@Override
-	public void drawItem(MyCanvas mc) {
+	public void drawItem(Renderer mc) {
 		mc.showCircle(x, y, rad, col);
 	}
 
 	/**
-	 * Checks interactions between this light and all robots in the
-	 * <code>RobotArena</code>.
+	 * Lights never move, so the arena leaves them out of its per-tick loops.
+	 * Robots look up their closest light instead and call
+	 * {@link #steer(Robot, double, RobotArena)}.
+	 *
+	 * @return <code>true</code>
+	 */
+	@Override
+	public boolean isStatic() {
+		return true;
+	}
+
+	/**
+	 * A light has no behaviour of its own each tick; robots steer by it from their
+	 * own <code>checkItem</code>.
+	 *
+	 * @param r the <code>RobotArena</code> containing all arena items
+	 */
+	@Override
+	public void checkItem(RobotArena r) {
+		// Robots query their closest light themselves
+	}
+
+	/**
+	 * Steers a robot for which this light is the closest (or tied for closest).
 	 *
 	 * <p>
-	 * The robots may move toward this light if they are beyond
-	 * <code>approachRange</code>, or move away if they are within
-	 * <code>avoidRange</code>. Only the closest light (or one among multiple lights
-	 * that are equally close) will attract or repel a robot at a time, to avoid
-	 * conflicting movements.
+	 * The robot moves toward this light if it is beyond <code>approachRange</code>,
+	 * following the arena's {@link FlowField} so that it goes around obstacles
+	 * rather than into them, or moves away if it is within <code>avoidRange</code>. Only the closest light
+	 * attracts or repels a robot at a time, to avoid conflicting movements.
 	 * </p>
 	 *
 	 * <ul>
-	 * <li>If a robot is physically overlapping with the light (distance less than
+	 * <li>If the robot is physically overlapping with the light (distance less than
 	 * the sum of radii), collision logic from <code>RobotArena</code> is invoked to
 	 * adjust the robot's angle.</li>
 	 * <li>If a tie occurs between multiple lights, a small random tie offset is
 	 * added to the robot's angle, preventing it from getting stuck.</li>
 	 * </ul>
 	 *
-	 * @param r the <code>RobotArena</code> containing all arena items
+	 * @param rob      the robot being steered
+	 * @param distance the distance between the robot and this light
+	 * @param r        the <code>RobotArena</code> containing both items
 	 */
-	@Override
-	public void checkItem(RobotArena r) {
+	void steer(Robot rob, double distance, RobotArena r) {
 		// Define approach and avoidance thresholds
 		double approachRange = 150;
 		double avoidRange = 30;
 
-		// Loop through each item in the arena
-		for (ArenaItem item : r.items) {
-			if (item instanceof Robot) {
-				Robot rob = (Robot) item;
-
-				// Calculate distance between this light and the robot
-				double distX = rob.getX() - x;
-				double distY = rob.getY() - y;
-				double distance = Math.sqrt(distX * distX + distY * distY);
-
-				// 1) Find the closest light distance to this robot
-				double myDistance = distance;
-				double closestDistance = myDistance; // Assume this light is closest initially
-				int tieCount = 1;
-
-				// Compare distance to other lights
-				for (ArenaItem other : r.items) {
-					if (other instanceof Light && other != this) {
-						double ox = other.getX();
-						double oy = other.getY();
-						double d = Math.sqrt(Math.pow(ox - rob.getX(), 2) + Math.pow(oy - rob.getY(), 2));
-
-						// Update the closest light distance and tie count
-						if (d < closestDistance) {
-							closestDistance = d;
-							tieCount = 1;
-						} else if (Math.abs(d - closestDistance) < 1e-5) {
-							tieCount++;
-						}
-					}
-				}
-
-				// 2) If this light is not the single closest (within a tiny epsilon), skip
-				if (Math.abs(myDistance - closestDistance) > 1e-5) {
-					continue;
-				}
-
-				// 3) If there is a tie, add a small random angle offset to break it
-				double tieOffset = 0;
-				if (tieCount > 1) {
-					tieOffset = (Math.random() * 30) - 15; // e.g., a random ±15° offset
-				}
+		// If there is a tie, add a small random angle offset to break it
+		double tieOffset = 0;
+		if (rob.nearestLightTies > 1) {
+			tieOffset = (r.random() * 30) - 15; // e.g., a random ±15° offset
+		}
 
-				// 4) Apply approach/avoid logic
-				if (distance > approachRange) {
-					// Robot is far -> move towards the light
-					double angleToLight = Math.toDegrees(Math.atan2(y - rob.getY(), x - rob.getX()));
-					rob.setAngle((angleToLight + tieOffset) % 360);
-				} else if (distance < avoidRange) {
-					// Robot is too close -> move away from the light
-					double angleAway = Math.toDegrees(Math.atan2(rob.getY() - y, rob.getX() - x));
-					rob.setAngle((angleAway + tieOffset) % 360);
-				}
+		// Apply approach/avoid logic
+		if (distance > approachRange) {
+			// Robot is far -> follow the arena's flow field, around any obstacles
+			rob.setAngle((rob.headingToLight(this) + tieOffset) % 360);
+		} else if (distance < avoidRange) {
+			// Robot is too close -> move away from the light
+			double angleAway = Math.toDegrees(StrictMath.atan2(rob.getY() - y, rob.getX() - x));
+			rob.setAngle((angleAway + tieOffset) % 360);
+		}
 
-				// 5) If physically overlapping, adjust the robot's angle
-				if (distance < (rob.getRad() + rad)) {
-					double newAngle = r.CheckRobotAngle(rob.getX(), rob.getY(), rob.getRad(), rob.getAngle(),
-							rob.getID());
-					rob.setAngle(newAngle);
-				}
-			}
+		// If physically overlapping, adjust the robot's angle
+		if (distance < (rob.getRad() + rad)) {
+			double newAngle = r.CheckRobotAngle(rob);
+			rob.setAngle(newAngle);
 		}
 	}
 
@@ -326,11 +326,11 @@ public class Line {
 	}
 
 	/**
-	 * Draws the line on the provided <code>MyCanvas</code> using its current color.
+	 * Draws the line on the provided <code>Renderer</code> using its current color.
 	 *
-	 * @param mc the <code>MyCanvas</code> object on which to draw the line
+	 * @param mc the <code>Renderer</code> object on which to draw the line
 	 */
-	public void drawLine(MyCanvas mc) {
+	public void drawLine(Renderer mc) {
 		mc.setStrokeColour(lineColour);
 		mc.drawLine(coords[0], coords[1], coords[2], coords[3]);
 	}
@@ -0,0 +1,178 @@
+package RobotSimulation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The <code>LockstepComparator</code> class runs two deterministic arenas side
+ * by side and reports the first tick and item at which they differ.
+ *
+ * <p>
+ * Both arenas must start from the same state with the same seed, typically
+ * loaded from the same save file, and differ only in the code path under test
+ * (for example the collision backend). After every tick the arenas' rolling
+ * state hashes are compared. Because each hash covers every earlier tick, the
+ * first mismatch is the first divergent tick, and only then are the items
+ * compared one by one to find which one differs.
+ * </p>
+ *
+ * @author Ahmed Elamari
+ * @version 1.0
+ *
+ * @see RobotArena#setDeterministic(long)
+ */
+public class LockstepComparator {
+
+	/** The reference arena. */
+	private final RobotArena first;
+	/** The arena compared against it. */
+	private final RobotArena second;
+	/** The first tick at which the arenas differed, or -1. */
+	private long divergentTick = -1;
+	/** Index in the item list of the first differing item, or -1. */
+	private int divergentItem = -1;
+
+	/**
+	 * Constructs a comparator for two arenas in deterministic mode.
+	 *
+	 * @param first  the reference arena
+	 * @param second the arena to compare against it
+	 * @throws IllegalArgumentException if either arena is not deterministic
+	 */
+	public LockstepComparator(RobotArena first, RobotArena second) {
+		if (!first.isDeterministic() || !second.isDeterministic()) {
+			throw new IllegalArgumentException("Both arenas must be in deterministic mode");
+		}
+		this.first = first;
+		this.second = second;
+	}
+
+	/**
+	 * Advances both arenas tick by tick until they differ or the given number of
+	 * ticks has run. A divergence is reported on standard output.
+	 *
+	 * @param ticks the maximum number of ticks to run
+	 * @return the first tick at which the arenas differ, or -1 if they agreed
+	 *         throughout
+	 */
+	public long run(int ticks) {
+		for (int t = 0; t < ticks; t++) {
+			step(first);
+			step(second);
+			if (first.getStateHash() != second.getStateHash()) {
+				divergentTick = first.getTick();
+				locate();
+				System.out.println(report());
+				return divergentTick;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Runs one full tick of an arena.
+	 *
+	 * @param arena the arena to advance
+	 */
+	private static void step(RobotArena arena) {
+		arena.checkItems();
+		arena.adjustItems();
+	}
+
+	/**
+	 * Finds the first item whose state differs between the arenas.
+	 */
+	private void locate() {
+		int n = Math.min(first.items.size(), second.items.size());
+		for (int i = 0; i < n; i++) {
+			ArenaItem a = first.items.get(i);
+			ArenaItem b = second.items.get(i);
+			if (a.getClass() != b.getClass() || a.stateHash() != b.stateHash()) {
+				divergentItem = i;
+				return;
+			}
+		}
+		// Same items so far, so one arena has more of them
+		divergentItem = n;
+	}
+
+	/**
+	 * Describes the divergence found by the last run.
+	 *
+	 * @return a readable report, naming the tick and the state of the differing
+	 *         item in both arenas
+	 */
+	public String report() {
+		if (divergentTick < 0) {
+			return "No divergence found";
+		}
+		StringBuilder sb = new StringBuilder();
+		sb.append("Divergence at tick ").append(divergentTick).append(", item ").append(divergentItem);
+		sb.append("\n  first:  ").append(describe(first, divergentItem));
+		sb.append("\n  second: ").append(describe(second, divergentItem));
+		return sb.toString();
+	}
+
+	/**
+	 * Describes one item of an arena.
+	 *
+	 * @param arena the arena
+	 * @param i     the index of the item
+	 * @return the item's saved form, or a note that the arena has fewer items
+	 */
+	private static String describe(RobotArena arena, int i) {
+		if (i >= arena.items.size()) {
+			return "(none; " + arena.items.size() + " items)";
+		}
+		return arena.items.get(i).fileString();
+	}
+
+	/**
+	 * Returns the first tick at which the arenas differed.
+	 *
+	 * @return the tick, or -1 if no divergence has been found
+	 */
+	public long getDivergentTick() {
+		return divergentTick;
+	}
+
+	/**
+	 * Returns the position in the item list of the first differing item.
+	 *
+	 * @return the item index, or -1 if no divergence has been found
+	 */
+	public int getDivergentItem() {
+		return divergentItem;
+	}
+
+	/**
+	 * Loads a saved arena twice, runs one copy with the grid collision backend and
+	 * the other with sweep and prune, and reports where they first differ.
+	 *
+	 * @param args the save file, then optionally the seed and the number of ticks
+	 * @throws IOException if the save file cannot be read
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: LockstepComparator <save file> [seed] [ticks]");
+			return;
+		}
+		String data = Files.readString(Path.of(args[0]));
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+		int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+
+		RobotArena grid = new RobotArena(data);
+		grid.setDeterministic(seed);
+		grid.setCollisionBackend("grid");
+		RobotArena sap = new RobotArena(data);
+		sap.setDeterministic(seed);
+		sap.setCollisionBackend("sap");
+
+		LockstepComparator cmp = new LockstepComparator(grid, sap);
+		if (cmp.run(ticks) < 0) {
+			System.out.println("Identical for " + ticks + " ticks, final hash "
+					+ Long.toHexString(grid.getStateHash()));
+		}
+	}
+}
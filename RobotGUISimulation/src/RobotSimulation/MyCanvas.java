@@ -1,6 +1,6 @@
 package RobotSimulation;
 
-import java.util.ArrayList;
+import java.util.List;
 
 import javafx.geometry.VPos;
 import javafx.scene.canvas.GraphicsContext;
@@ -23,7 +23,7 @@ import javafx.scene.text.TextAlignment;
  * @author Ahmed Elamari
  * @version 2.0
  */
-public class MyCanvas {
+public class MyCanvas implements Renderer {
 
 	/** The width of the canvas in pixels. */
 	int xCanvasSize = 512;
@@ -108,7 +108,7 @@ public class MyCanvas {
 	 * @param c the color code character
 	 * @return the corresponding Color object
 	 */
-	Color colFromChar(char c) {
+	static Color colFromChar(char c) {
 		Color ans = Color.BLACK;
 		switch (c) {
 		case 'y':
@@ -173,6 +173,18 @@ public class MyCanvas {
 		gc.fillArc(x - rad, y - rad, rad * 2, rad * 2, 0, 360, ArcType.ROUND);
 	}
 
+	/**
+	 * Draws the outline of a circle using the current stroke color and line
+	 * width.
+	 *
+	 * @param x   the X coordinate of the circle's center
+	 * @param y   the Y coordinate of the circle's center
+	 * @param rad the radius of the circle
+	 */
+	public void strokeCircle(double x, double y, double rad) {
+		gc.strokeOval(x - rad, y - rad, rad * 2, rad * 2);
+	}
+
 	/**
 	 * Draws a filled triangle at the specified coordinates with the given radius
 	 * and color.
@@ -296,7 +308,7 @@ public class MyCanvas {
 	 * @param beamPoints a list of points defining the polygon vertices
 	 * @param col        the character representing the fill color for the polygon
 	 */
-	public void fillPolygon(ArrayList<double[]> beamPoints, char col) {
+	public void fillPolygon(List<double[]> beamPoints, char col) {
 		setFillColour(colFromChar(col));
 		double[] xpoints = new double[beamPoints.size()];
 		double[] ypoints = new double[beamPoints.size()];
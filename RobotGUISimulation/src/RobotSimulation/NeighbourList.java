@@ -0,0 +1,88 @@
+package RobotSimulation;
+
+import java.util.Arrays;
+
+/**
+ * The <code>NeighbourList</code> class holds the items found near an
+ * <code>ArenaItem</code> during the current simulation tick, together with the
+ * centre-to-centre distance to each of them.
+ *
+ * <p>
+ * The list is filled once per tick by <code>RobotArena</code> and then read by
+ * every behaviour of the owning item, so each pair distance is computed only
+ * once. The backing arrays are reused from tick to tick and only grow, which
+ * keeps the per-tick rebuild free of allocations once the simulation has
+ * warmed up.
+ * </p>
+ *
+ * @author Ahmed Elamari
+ * @version 1.0
+ *
+ * @see RobotArena#buildNeighbours()
+ */
+public class NeighbourList {
+
+	/** The neighbouring items, valid in the range [0, size). */
+	private ArenaItem[] items = new ArenaItem[8];
+	/** The distance from the owning item to each neighbour. */
+	private double[] dists = new double[8];
+	/** The number of neighbours currently stored. */
+	private int size = 0;
+
+	/**
+	 * Removes all neighbours, keeping the backing arrays for reuse.
+	 */
+	public void clear() {
+		// Drop references so removed items can be collected
+		for (int i = 0; i < size; i++) {
+			items[i] = null;
+		}
+		size = 0;
+	}
+
+	/**
+	 * Appends a neighbour and its distance, growing the backing arrays if needed.
+	 *
+	 * @param item the neighbouring item
+	 * @param dist the centre-to-centre distance to the neighbour
+	 */
+	public void add(ArenaItem item, double dist) {
+		if (size == items.length) {
+			int newLength = items.length * 2;
+			items = Arrays.copyOf(items, newLength);
+			dists = Arrays.copyOf(dists, newLength);
+		}
+		items[size] = item;
+		dists[size] = dist;
+		size++;
+	}
+
+	/**
+	 * Returns the number of neighbours found this tick.
+	 *
+	 * @return the neighbour count
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the neighbour at the given position.
+	 *
+	 * @param i the position in the range [0, size)
+	 * @return the neighbouring item
+	 */
+	public ArenaItem get(int i) {
+		return items[i];
+	}
+
+	/**
+	 * Returns the distance to the neighbour at the given position.
+	 *
+	 * @param i the position in the range [0, size)
+	 * @return the centre-to-centre distance to that neighbour
+	 */
+	public double distance(int i) {
+		return dists[i];
+	}
+}
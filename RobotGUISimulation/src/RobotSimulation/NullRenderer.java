@@ -0,0 +1,107 @@
+package RobotSimulation;
+
+import java.util.List;
+
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+
+/**
+ * The <code>NullRenderer</code> class is a <code>Renderer</code> that draws
+ * nothing, for headless runs and benchmarks that must call drawing code but do
+ * not want its output.
+ *
+ * <p>
+ * {@link RobotArena#drawArena(Renderer)} recognises the shared instance and
+ * returns at once, so drawing the arena on it costs nothing. Nothing the
+ * simulation senses is worked out while drawing, so skipping it changes no
+ * results.
+ * </p>
+ *
+ * @author Ahmed Elamari
+ * @version 1.0
+ */
+public final class NullRenderer implements Renderer {
+
+	/** The shared instance. */
+	public static final NullRenderer INSTANCE = new NullRenderer();
+
+	/**
+	 * Use {@link #INSTANCE}.
+	 */
+	private NullRenderer() {
+	}
+
+	@Override
+	public int getXCanvasSize() {
+		return 0;
+	}
+
+	@Override
+	public int getYCanvasSize() {
+		return 0;
+	}
+
+	@Override
+	public void clearCanvas() {
+	}
+
+	@Override
+	public void drawImage(Image i, double x, double y, double sz) {
+	}
+
+	@Override
+	public void setFillColour(Color c) {
+	}
+
+	@Override
+	public void showCircle(double x, double y, double rad, char col) {
+	}
+
+	@Override
+	public void showCircle(double x, double y, double rad) {
+	}
+
+	@Override
+	public void showCircle(double x, double y, double rad, Color fxColor) {
+	}
+
+	@Override
+	public void strokeCircle(double x, double y, double rad) {
+	}
+
+	@Override
+	public void showTriangle(double x, double y, double rad, char col) {
+	}
+
+	@Override
+	public void showText(double x, double y, String s) {
+	}
+
+	@Override
+	public void showInt(double x, double y, int i) {
+	}
+
+	@Override
+	public void drawLine(double d, double e, double f, double g) {
+	}
+
+	@Override
+	public void setBackgroundColor(char c) {
+	}
+
+	@Override
+	public void drawRect(double x, double y, double width, double height, char c) {
+	}
+
+	@Override
+	public void setLineWidth(int i) {
+	}
+
+	@Override
+	public void setStrokeColour(char c) {
+	}
+
+	@Override
+	public void fillPolygon(List<double[]> points, char col) {
+	}
+}
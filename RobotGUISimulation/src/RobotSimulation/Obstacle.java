@@ -31,55 +31,62 @@ public class Obstacle extends ArenaItem {
 	}
 
 	/**
-	 * Draws this obstacle on the specified <code>MyCanvas</code>.
+	 * Draws this obstacle on the specified <code>Renderer</code>.
 	 *
 	 * <p>
 	 * By default, this obstacle is represented as a simple circle.
 	 * </p>
 	 *
-	 * @param mc the <code>MyCanvas</code> object used for drawing shapes
+	 * @param mc the <code>Renderer</code> object used for drawing shapes
 	 */
 	@Override
-	public void drawItem(MyCanvas mc) {
+	public void drawItem(Renderer mc) {
 		mc.showCircle(x, y, rad, col);
 	}
 
 	/**
-	 * Checks for collisions between any robots and this obstacle.
+	 * Obstacles never move, so the arena leaves them out of its per-tick loops.
 	 *
-	 * <p>
-	 * If a collision occurs, the <code>RobotArena</code>'s collision logic is
-	 * invoked to update the robot’s angle. The robot may also be nudged outward
-	 * slightly to prevent it from getting stuck inside the obstacle.
-	 * </p>
+	 * @return <code>true</code>
+	 */
+	@Override
+	public boolean isStatic() {
+		return true;
+	}
+
+	/**
+	 * Obstacles have no behaviour of their own each tick. Collisions with robots
+	 * are found by the arena's collision pass, which calls
+	 * {@link #deflect(Robot, RobotArena)}.
 	 *
 	 * @param r the <code>RobotArena</code> containing all arena items
 	 */
 	@Override
 	public void checkItem(RobotArena r) {
-		// Loop through all items in the arena
-		for (ArenaItem item : r.items) {
-			if (item instanceof Robot) {
-				Robot rob = (Robot) item;
-
-				// Calculate the distance between the robot's center and this obstacle's center
-				double distX = rob.getX() - x;
-				double distY = rob.getY() - y;
-				double distance = Math.sqrt(distX * distX + distY * distY);
+		// Collisions are resolved by RobotArena's collision pass
+	}
 
-				// Check if they collide (distance < sum of radii)
-				if (distance < (rob.getRad() + rad)) {
-					// Use RobotArena's collision logic to randomize the bounce angle
-					double newAngle = r.CheckRobotAngle(rob.getX(), rob.getY(), rob.getRad(), rob.getAngle(),
-							rob.getID());
-					rob.setAngle(newAngle);
+	/**
+	 * Handles a robot that has collided with this obstacle.
+	 *
+	 * <p>
+	 * The <code>RobotArena</code>'s collision logic is invoked to update the
+	 * robot’s angle. The robot is also nudged outward slightly to prevent it from
+	 * getting stuck inside the obstacle.
+	 * </p>
+	 *
+	 * @param rob the robot touching this obstacle
+	 * @param r   the <code>RobotArena</code> containing both items
+	 */
+	void deflect(Robot rob, RobotArena r) {
+		// Use RobotArena's collision logic to randomize the bounce angle
+		double newAngle = r.collisionAngle(rob);
+		rob.setAngle(newAngle);
 
-					// Nudge the robot outward slightly so it doesn't remain stuck
-					double angleRad = Math.toRadians(newAngle);
-					rob.setXY(rob.getX() + Math.cos(angleRad), rob.getY() + Math.sin(angleRad));
-				}
-			}
-		}
+		// Nudge the robot outward slightly so it doesn't remain stuck
+		double angleRad = Math.toRadians(newAngle);
+		rob.setXY(rob.getX() + StrictMath.cos(angleRad), rob.getY() + StrictMath.sin(angleRad));
+		rob.hitObstacle();
 	}
 
 	/**
@@ -0,0 +1,341 @@
+package RobotSimulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The <code>ParallelCheckPhase</code> class runs the <code>checkItem</code>
+ * step of every awake moving item on a <code>ForkJoinPool</code>.
+ *
+ * <p>
+ * The cost of a check varies greatly between item types: a plain robot only
+ * looks at the walls, while a predator scans its beam against every neighbour
+ * twice. Splitting the items into equal-sized chunks would leave most threads
+ * idle waiting for the chunk with the predators. Instead the phase keeps an
+ * estimate of each type's cost per check, a moving average of timings measured
+ * every {@link #SAMPLE_EVERY} ticks, and splits the items recursively at the
+ * middle of their estimated cost. The pieces are small enough that work
+ * stealing evens out whatever the estimate gets wrong.
+ * </p>
+ *
+ * <p>
+ * A check may only change its own item. Anything else it asks of the arena
+ * while the phase is running (adding or removing items, sleeping, marking
+ * prey as eaten, scoring, recruiting predators to a hunt) is recorded with
+ * {@link #defer(Runnable)} and carried out after all checks have finished, in
+ * the order of the items that asked.
+ * </p>
+ *
+ * @author Ahmed Elamari
+ * @version 1.0
+ *
+ * @see RobotArena#setParallelChecks(int)
+ */
+public class ParallelCheckPhase {
+
+	/** Checks are timed on one tick in this many. */
+	public static final int SAMPLE_EVERY = 8;
+	/** Below this many awake items the checks run on the calling thread. */
+	static final int MIN_PARALLEL_ITEMS = 256;
+	/** Weight of the newest timing in each type's moving average. */
+	private static final double ALPHA = 0.3;
+	/** Number of pieces per thread the work is split into, for stealing. */
+	private static final int PIECES_PER_THREAD = 8;
+
+	/**
+	 * The <code>Cost</code> class holds the estimated cost of checking one item
+	 * type.
+	 */
+	private static final class Cost {
+		/** Moving average of the nanoseconds per check, or -1 before a sample. */
+		double nanos = -1;
+		/** Time measured for this type on the current sampling tick. */
+		long sampleNanos;
+		/** Number of checks measured on the current sampling tick. */
+		int sampleCount;
+	}
+
+	/**
+	 * The <code>Deferred</code> class holds the arena changes requested by checks
+	 * running on one thread.
+	 */
+	private static final class Deferred {
+		/** Position in the work of the item being checked on this thread. */
+		int current;
+		/** The requested changes, in the order they were asked for. */
+		final ArrayList<Runnable> actions = new ArrayList<>();
+		/** The position of the item that asked for each change. */
+		int[] owners = new int[16];
+	}
+
+	/**
+	 * The <code>Slice</code> class checks a range of the work, splitting it in two
+	 * by estimated cost while it is larger than the grain.
+	 */
+	private final class Slice extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		/** First position in the range. */
+		private final int lo;
+		/** Position after the last in the range. */
+		private final int hi;
+
+		/**
+		 * Constructs a task for a range of the work.
+		 *
+		 * @param lo the first position
+		 * @param hi the position after the last
+		 */
+		Slice(int lo, int hi) {
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo < 2 || prefix[hi] - prefix[lo] <= grain) {
+				checkRange(lo, hi);
+				return;
+			}
+			int mid = Arrays.binarySearch(prefix, lo, hi + 1, (prefix[lo] + prefix[hi]) / 2);
+			mid = Math.max(lo + 1, Math.min(hi - 1, mid < 0 ? -mid - 1 : mid));
+			invokeAll(new Slice(lo, mid), new Slice(mid, hi));
+		}
+	}
+
+	/** The threads running the checks. */
+	private final ForkJoinPool pool;
+	/** Estimated cost per check of each item type. */
+	private final HashMap<Class<?>, Cost> costs = new HashMap<>();
+	/** Changes deferred by each thread that has run checks. */
+	private final ConcurrentLinkedQueue<Deferred> allDeferred = new ConcurrentLinkedQueue<>();
+	/** The changes deferred on the current thread. */
+	private final ThreadLocal<Deferred> deferred = ThreadLocal.withInitial(() -> {
+		Deferred d = new Deferred();
+		allDeferred.add(d);
+		return d;
+	});
+
+	/** The arena being checked. */
+	private RobotArena arena;
+	/** The awake moving items being checked this tick. */
+	private ArenaItem[] work = new ArenaItem[64];
+	/** The type cost of each item in <code>work</code>. */
+	private Cost[] workCost = new Cost[64];
+	/** Running total of estimated cost before each position in the work. */
+	private double[] prefix = new double[65];
+	/** Measured time of each check on a sampling tick. */
+	private long[] measured = new long[64];
+	/** Number of items in the work. */
+	private int count;
+	/** Largest estimated cost of a piece that is not split further. */
+	private double grain;
+	/** Whether this tick's checks are being timed. */
+	private boolean sampling;
+	/** Ticks until the next sampling tick. */
+	private int untilSample = 0;
+	/** Whether checks are running, so changes to the arena must be deferred. */
+	private boolean running = false;
+
+	/**
+	 * Constructs a phase with its own pool of threads.
+	 *
+	 * @param parallelism the number of threads
+	 */
+	public ParallelCheckPhase(int parallelism) {
+		pool = new ForkJoinPool(parallelism);
+	}
+
+	/**
+	 * Checks every awake item in a list, then carries out the changes the checks
+	 * deferred.
+	 *
+	 * @param arena the arena the items belong to
+	 * @param items the moving items
+	 */
+	public void run(RobotArena arena, List<ArenaItem> items) {
+		this.arena = arena;
+		gather(items);
+		sampling = untilSample-- == 0;
+		if (sampling) {
+			untilSample = SAMPLE_EVERY - 1;
+		}
+
+		running = true;
+		try {
+			if (count < MIN_PARALLEL_ITEMS || pool.getParallelism() < 2) {
+				checkRange(0, count);
+			} else {
+				grain = prefix[count] / (pool.getParallelism() * PIECES_PER_THREAD);
+				pool.invoke(new Slice(0, count));
+			}
+		} finally {
+			running = false;
+		}
+
+		applyDeferred();
+		if (sampling) {
+			updateCosts();
+		}
+		Arrays.fill(work, 0, count, null);
+		this.arena = null;
+	}
+
+	/**
+	 * Collects the awake items with their estimated costs.
+	 *
+	 * @param items the moving items
+	 */
+	private void gather(List<ArenaItem> items) {
+		if (work.length < items.size()) {
+			int n = Math.max(items.size(), work.length * 2);
+			work = new ArenaItem[n];
+			workCost = new Cost[n];
+			prefix = new double[n + 1];
+			measured = new long[n];
+		}
+		count = 0;
+		for (int i = 0; i < items.size(); i++) {
+			ArenaItem item = items.get(i);
+			if (item.sleeping) {
+				continue;
+			}
+			Cost c = costs.get(item.getClass());
+			if (c == null) {
+				c = new Cost();
+				costs.put(item.getClass(), c);
+			}
+			work[count] = item;
+			workCost[count] = c;
+			// Types not yet timed count as one nanosecond each
+			prefix[count + 1] = prefix[count] + (c.nanos > 0 ? c.nanos : 1);
+			count++;
+		}
+	}
+
+	/**
+	 * Checks a range of the work on the current thread.
+	 *
+	 * @param lo the first position
+	 * @param hi the position after the last
+	 */
+	private void checkRange(int lo, int hi) {
+		Deferred d = deferred.get();
+		for (int i = lo; i < hi; i++) {
+			d.current = i;
+			if (sampling) {
+				long start = System.nanoTime();
+				work[i].checkItem(arena);
+				measured[i] = System.nanoTime() - start;
+			} else {
+				work[i].checkItem(arena);
+			}
+		}
+	}
+
+	/**
+	 * Records a change to the arena asked for by the check running on this
+	 * thread, to be carried out once every check has finished.
+	 *
+	 * @param action the change
+	 */
+	public void defer(Runnable action) {
+		Deferred d = deferred.get();
+		int n = d.actions.size();
+		if (n == d.owners.length) {
+			d.owners = Arrays.copyOf(d.owners, n * 2);
+		}
+		d.owners[n] = d.current;
+		d.actions.add(action);
+	}
+
+	/**
+	 * Returns whether checks are running, in which case changes to the arena must
+	 * be passed to {@link #defer(Runnable)}.
+	 *
+	 * @return <code>true</code> during the checks
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Carries out the deferred changes in the order of the items that asked for
+	 * them, as if the items had been checked one after another.
+	 */
+	private void applyDeferred() {
+		int total = 0;
+		for (Deferred d : allDeferred) {
+			total += d.actions.size();
+		}
+		if (total == 0) {
+			return;
+		}
+		// Each key is the asking item's position, then where the change is kept
+		long[] keys = new long[total];
+		Runnable[] actions = new Runnable[total];
+		int k = 0;
+		for (Deferred d : allDeferred) {
+			for (int j = 0; j < d.actions.size(); j++) {
+				keys[k] = ((long) d.owners[j] << 32) | k;
+				actions[k] = d.actions.get(j);
+				k++;
+			}
+			d.actions.clear();
+		}
+		Arrays.sort(keys);
+		for (long key : keys) {
+			actions[(int) key].run();
+		}
+	}
+
+	/**
+	 * Folds the timings of a sampling tick into each type's moving average.
+	 */
+	private void updateCosts() {
+		for (int i = 0; i < count; i++) {
+			Cost c = workCost[i];
+			c.sampleNanos += measured[i];
+			c.sampleCount++;
+		}
+		for (Cost c : costs.values()) {
+			if (c.sampleCount > 0) {
+				double perCheck = Math.max(1, (double) c.sampleNanos / c.sampleCount);
+				c.nanos = c.nanos < 0 ? perCheck : c.nanos + ALPHA * (perCheck - c.nanos);
+				c.sampleNanos = 0;
+				c.sampleCount = 0;
+			}
+		}
+	}
+
+	/**
+	 * Returns the estimated time to check one item of a type.
+	 *
+	 * @param type the item type
+	 * @return the estimate in nanoseconds, or -1 if the type has not been timed
+	 */
+	public double getEstimatedCost(Class<? extends ArenaItem> type) {
+		Cost c = costs.get(type);
+		return c == null ? -1 : c.nanos;
+	}
+
+	/**
+	 * Returns the number of threads running the checks.
+	 *
+	 * @return the parallelism of the pool
+	 */
+	public int getParallelism() {
+		return pool.getParallelism();
+	}
+
+	/**
+	 * Stops the pool's threads.
+	 */
+	public void close() {
+		pool.shutdown();
+	}
+}
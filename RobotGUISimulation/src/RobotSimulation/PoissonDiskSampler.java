@@ -0,0 +1,390 @@
+package RobotSimulation;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+/**
+ * The <code>PoissonDiskSampler</code> class scatters points over a region so
+ * that no two are closer than a given spacing, using Bridson's algorithm.
+ *
+ * <p>
+ * Each accepted point is kept in an active list. Points are drawn from the
+ * ring between one and two spacings around a random active point, and a draw
+ * is accepted if no earlier point lies within the spacing; an active point
+ * with no accepted draw after {@link #TRIES} attempts is retired. A background
+ * grid with cells of the spacing divided by the square root of two holds at
+ * most one point per cell, so each draw is checked against a handful of cells
+ * and the whole region is filled in time proportional to the number of points.
+ * </p>
+ *
+ * <p>
+ * Points must also keep clear of the items already in the arena and lie
+ * wholly inside it. Those items are bucketed into a second grid once, so that
+ * check is constant time as well.
+ * </p>
+ *
+ * @author Ahmed Elamari
+ * @version 1.0
+ *
+ * @see RobotArena#spawn(String, int, SpawnParams)
+ */
+public class PoissonDiskSampler {
+
+	/** Draws around an active point before it is retired. */
+	public static final int TRIES = 30;
+	/** Random throws used to start a new patch when the active list empties. */
+	private static final int SEED_THROWS = 100;
+
+	/** The left edge of the region. */
+	private final double x0;
+	/** The top edge of the region. */
+	private final double y0;
+	/** The right edge of the region. */
+	private final double x1;
+	/** The bottom edge of the region. */
+	private final double y1;
+	/** Whether points must also lie inside a circle. */
+	private boolean circle = false;
+	/** The X coordinate of the circle's centre. */
+	private double circleX;
+	/** The Y coordinate of the circle's centre. */
+	private double circleY;
+	/** The radius of the circle. */
+	private double circleR;
+	/** Radius of the items the points are for. */
+	private final double radius;
+	/** Space to leave between the items and anything else. */
+	private final double gap;
+	/** Source of random numbers. */
+	private final DoubleSupplier random;
+
+	/** Side length of the cells of the existing items' grid. */
+	private double blockCell;
+	/** Number of columns of the existing items' grid. */
+	private int blockCols;
+	/** Number of rows of the existing items' grid. */
+	private int blockRows;
+	/** Start of each cell's entries in the existing items' arrays, plus one end. */
+	private int[] blockStart;
+	/** X coordinate of each existing item, cell by cell. */
+	private double[] blockX;
+	/** Y coordinate of each existing item, cell by cell. */
+	private double[] blockY;
+	/** Radius of each existing item, cell by cell. */
+	private double[] blockR;
+
+	/** X coordinate of each point found. */
+	private double[] xs = new double[64];
+	/** Y coordinate of each point found. */
+	private double[] ys = new double[64];
+	/** Number of points found. */
+	private int count;
+
+	/**
+	 * Constructs a sampler for items of one size over a rectangle, inset so that
+	 * the items lie wholly inside it.
+	 *
+	 * @param x0     the left edge
+	 * @param y0     the top edge
+	 * @param x1     the right edge
+	 * @param y1     the bottom edge
+	 * @param radius the radius of the items
+	 * @param gap    the space to leave between items
+	 * @param random the source of random numbers in [0, 1)
+	 */
+	public PoissonDiskSampler(double x0, double y0, double x1, double y1, double radius, double gap,
+			DoubleSupplier random) {
+		this.x0 = x0 + radius;
+		this.y0 = y0 + radius;
+		this.x1 = x1 - radius;
+		this.y1 = y1 - radius;
+		this.radius = radius;
+		this.gap = gap;
+		this.random = random;
+		indexObstacles(List.of());
+	}
+
+	/**
+	 * Restricts the points to those whose items lie wholly inside a circle.
+	 *
+	 * @param cx the X coordinate of the circle's centre
+	 * @param cy the Y coordinate of the circle's centre
+	 * @param r  the radius of the circle
+	 */
+	public void setCircle(double cx, double cy, double r) {
+		circle = true;
+		circleX = cx;
+		circleY = cy;
+		circleR = r - radius;
+	}
+
+	/**
+	 * Sets the items the points must keep clear of.
+	 *
+	 * @param items the items already in the arena
+	 */
+	public void setObstacles(List<ArenaItem> items) {
+		indexObstacles(items);
+	}
+
+	/**
+	 * Buckets the items the points must keep clear of into the block grid.
+	 *
+	 * @param items the items already in the arena
+	 */
+	private void indexObstacles(List<ArenaItem> items) {
+		double maxR = 0;
+		for (int i = 0; i < items.size(); i++) {
+			maxR = Math.max(maxR, items.get(i).getRad());
+		}
+		// An item in a cell beyond the neighbouring ones is too far to overlap.
+		// Cells may be larger than that, so a sparse arena needs fewer of them
+		blockCell = Math.max(1, radius + gap + maxR);
+		long limit = Math.max(4L * items.size(), 1 << 16);
+		do {
+			blockCols = (int) Math.ceil((x1 - x0 + 2 * radius) / blockCell) + 1;
+			blockRows = (int) Math.ceil((y1 - y0 + 2 * radius) / blockCell) + 1;
+			blockCell *= 2;
+		} while ((long) blockCols * blockRows > limit);
+		blockCell /= 2;
+		blockCols = Math.max(1, blockCols);
+		blockRows = Math.max(1, blockRows);
+		blockStart = new int[blockCols * blockRows + 1];
+		int[] cellOf = new int[items.size()];
+		for (int i = 0; i < items.size(); i++) {
+			ArenaItem it = items.get(i);
+			cellOf[i] = blockCellAt(it.getX(), it.getY());
+			blockStart[cellOf[i] + 1]++;
+		}
+		for (int c = 0; c < blockCols * blockRows; c++) {
+			blockStart[c + 1] += blockStart[c];
+		}
+		int[] fill = Arrays.copyOf(blockStart, blockStart.length - 1);
+		blockX = new double[items.size()];
+		blockY = new double[items.size()];
+		blockR = new double[items.size()];
+		for (int i = 0; i < items.size(); i++) {
+			ArenaItem it = items.get(i);
+			int k = fill[cellOf[i]]++;
+			blockX[k] = it.getX();
+			blockY[k] = it.getY();
+			blockR[k] = it.getRad();
+		}
+	}
+
+	/**
+	 * Returns the cell of the existing items' grid containing a point, clamped
+	 * to the grid.
+	 *
+	 * @param x the X coordinate
+	 * @param y the Y coordinate
+	 * @return the cell number
+	 */
+	private int blockCellAt(double x, double y) {
+		int c = Math.max(0, Math.min(blockCols - 1, (int) ((x - x0 + radius) / blockCell)));
+		int r = Math.max(0, Math.min(blockRows - 1, (int) ((y - y0 + radius) / blockCell)));
+		return r * blockCols + c;
+	}
+
+	/**
+	 * Returns whether an item centred on a point would lie inside the region and
+	 * clear of every existing item.
+	 *
+	 * @param x the X coordinate
+	 * @param y the Y coordinate
+	 * @return <code>true</code> if the point can be used
+	 */
+	private boolean allowed(double x, double y) {
+		if (x < x0 || x > x1 || y < y0 || y > y1) {
+			return false;
+		}
+		if (circle) {
+			double dx = x - circleX;
+			double dy = y - circleY;
+			if (dx * dx + dy * dy > circleR * circleR) {
+				return false;
+			}
+		}
+		int cell = blockCellAt(x, y);
+		int bc = cell % blockCols;
+		int br = cell / blockCols;
+		for (int r = Math.max(0, br - 1); r <= Math.min(blockRows - 1, br + 1); r++) {
+			for (int c = Math.max(0, bc - 1); c <= Math.min(blockCols - 1, bc + 1); c++) {
+				int cc = r * blockCols + c;
+				for (int k = blockStart[cc]; k < blockStart[cc + 1]; k++) {
+					double dx = x - blockX[k];
+					double dy = y - blockY[k];
+					double reach = radius + gap + blockR[k];
+					if (dx * dx + dy * dy < reach * reach) {
+						return false;
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Fills the region with points at least a spacing apart, replacing any points
+	 * found before. The fill is maximal in practice: no further point fits
+	 * anywhere near the points found.
+	 *
+	 * @param spacing the smallest distance between points, at least the items'
+	 *                diameter plus the gap
+	 * @return the number of points found
+	 */
+	public int fill(double spacing) {
+		count = 0;
+		if (x1 < x0 || y1 < y0) {
+			return 0;
+		}
+		double cell = spacing / Math.sqrt(2);
+		int cols = (int) Math.ceil((x1 - x0) / cell) + 1;
+		int rows = (int) Math.ceil((y1 - y0) / cell) + 1;
+		// Number of the point in each cell plus one, or 0 when empty
+		int[] grid = new int[cols * rows];
+		int[] active = new int[64];
+		int activeCount = 0;
+
+		while (true) {
+			// Start a patch at a random free spot; a region split up by existing
+			// items may need several
+			int seed = -1;
+			for (int t = 0; t < SEED_THROWS && seed < 0; t++) {
+				double x = x0 + random.getAsDouble() * (x1 - x0);
+				double y = y0 + random.getAsDouble() * (y1 - y0);
+				if (allowed(x, y) && isFar(grid, cols, rows, cell, spacing, x, y)) {
+					seed = add(grid, cols, cell, x, y);
+				}
+			}
+			if (seed < 0) {
+				return count;
+			}
+			active[activeCount++] = seed;
+
+			while (activeCount > 0) {
+				int a = (int) (random.getAsDouble() * activeCount);
+				int p = active[a];
+				boolean found = false;
+				for (int t = 0; t < TRIES; t++) {
+					// Uniform over the ring between one and two spacings
+					double d = spacing * Math.sqrt(1 + 3 * random.getAsDouble());
+					double theta = 2 * Math.PI * random.getAsDouble();
+					double x = xs[p] + d * StrictMath.cos(theta);
+					double y = ys[p] + d * StrictMath.sin(theta);
+					if (allowed(x, y) && isFar(grid, cols, rows, cell, spacing, x, y)) {
+						if (activeCount == active.length) {
+							active = Arrays.copyOf(active, activeCount * 2);
+						}
+						active[activeCount++] = add(grid, cols, cell, x, y);
+						found = true;
+						break;
+					}
+				}
+				if (!found) {
+					active[a] = active[--activeCount];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns whether a point is at least the spacing from every point found.
+	 *
+	 * @param grid    the background grid
+	 * @param cols    the grid's columns
+	 * @param rows    the grid's rows
+	 * @param cell    the grid's cell size
+	 * @param spacing the spacing
+	 * @param x       the X coordinate
+	 * @param y       the Y coordinate
+	 * @return <code>true</code> if no point is too close
+	 */
+	private boolean isFar(int[] grid, int cols, int rows, double cell, double spacing, double x, double y) {
+		int gc = (int) ((x - x0) / cell);
+		int gr = (int) ((y - y0) / cell);
+		for (int r = Math.max(0, gr - 2); r <= Math.min(rows - 1, gr + 2); r++) {
+			for (int c = Math.max(0, gc - 2); c <= Math.min(cols - 1, gc + 2); c++) {
+				int q = grid[r * cols + c] - 1;
+				if (q >= 0) {
+					double dx = x - xs[q];
+					double dy = y - ys[q];
+					if (dx * dx + dy * dy < spacing * spacing) {
+						return false;
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Records a point and marks its cell.
+	 *
+	 * @param grid the background grid
+	 * @param cols the grid's columns
+	 * @param cell the grid's cell size
+	 * @param x    the X coordinate
+	 * @param y    the Y coordinate
+	 * @return the point's number
+	 */
+	private int add(int[] grid, int cols, double cell, double x, double y) {
+		if (count == xs.length) {
+			xs = Arrays.copyOf(xs, count * 2);
+			ys = Arrays.copyOf(ys, count * 2);
+		}
+		xs[count] = x;
+		ys[count] = y;
+		grid[(int) ((y - y0) / cell) * cols + (int) ((x - x0) / cell)] = count + 1;
+		return count++;
+	}
+
+	/**
+	 * Puts a random selection of the points found first, so that taking the first
+	 * few spreads them over the whole region rather than around where the fill
+	 * started.
+	 *
+	 * @param n the number of points wanted
+	 */
+	public void shuffle(int n) {
+		for (int i = 0; i < Math.min(n, count); i++) {
+			int j = i + (int) (random.getAsDouble() * (count - i));
+			double tx = xs[i];
+			double ty = ys[i];
+			xs[i] = xs[j];
+			ys[i] = ys[j];
+			xs[j] = tx;
+			ys[j] = ty;
+		}
+	}
+
+	/**
+	 * Returns the number of points found by the last fill.
+	 *
+	 * @return the point count
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the X coordinate of a point.
+	 *
+	 * @param i the point's number
+	 * @return the X coordinate
+	 */
+	public double getX(int i) {
+		return xs[i];
+	}
+
+	/**
+	 * Returns the Y coordinate of a point.
+	 *
+	 * @param i the point's number
+	 * @return the Y coordinate
+	 */
+	public double getY(int i) {
+		return ys[i];
+	}
+}
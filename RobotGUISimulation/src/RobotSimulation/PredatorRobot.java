@@ -1,7 +1,6 @@
 package RobotSimulation;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Map;
 
 /**
  * A PredatorRobot class that extends Beam and demonstrates advanced predator
@@ -14,6 +13,9 @@ public class PredatorRobot extends Beam {
 
 	// Reference to the tracked Prey or Predator
 	private Robot trackedPrey = null;
+	// Shard key of the tracked prey after a hand-over between shards, until
+	// relinkPrey finds the prey in the new shard; -1 otherwise
+	private int trackedKey = -1;
 	// Indicates if this predator is actively chasing
 	private boolean isChasing = false;
 	// Slightly enlarged buffer for detection
@@ -47,18 +49,8 @@ public class PredatorRobot extends Beam {
 	@Override
 	public void checkItem(RobotArena r) {
 		super.checkItem(r);
-		isDetecting = false; // Reset detection flag
-
-		for (double[] pt : beamPoints) {
-			for (ArenaItem item : r.items) {
-				if (item != this) {
-					double dist = distance(pt[0], pt[1], item.getX(), item.getY());
-					if (dist < item.getRad() + DETECTION_BUFFER) {
-						isDetecting = true; // Set detection flag
-					}
-				}
-			}
-		}
+		// Set the detection flag if anything is within the beam
+		isDetecting = castBeam(r, DETECTION_BUFFER, null) != null;
 
 		// Check if we can eat currently tracked prey
 		if (isChasing && trackedPrey != null) {
@@ -68,44 +60,17 @@ public class PredatorRobot extends Beam {
 				return; // Exit after eating
 			}
 		}
-		// Track whether we find any new or existing prey in range
-		boolean preyDetectedThisFrame = false;
-		Robot nearestPrey = null;
-		double closestDistance = Double.MAX_VALUE;
-
-		// Attempt to form or join a “hunting pack” if other Predator is chasing
-		// something
-		List<PredatorRobot> packPredators = new ArrayList<>();
-
-		// Iterate over the beamPoints to see if we detect a Prey
-		for (double[] pt : beamPoints) {
-			for (ArenaItem item : r.items) {
-				// Check only for Prey (or a specific class if needed)
-				if (item instanceof Prey && item != this) {
-					double dist = distance(pt[0], pt[1], item.getX(), item.getY());
-					if (dist < item.rad + DETECTION_BUFFER) {
-						preyDetectedThisFrame = true;
-
-						// Keep track of the nearest Prey
-						if (dist < closestDistance) {
-							closestDistance = dist;
-							nearestPrey = (Robot) item;
-						}
-					}
-				}
-				// Identify other PredatorRobots for potential pack behavior
-				if (item instanceof PredatorRobot && item != this) {
-					packPredators.add((PredatorRobot) item);
-				}
-			}
-		}
+		// Cast the beam again for Prey only; the nearest one in the beam is the target
+		Robot nearestPrey = (Robot) castBeam(r, DETECTION_BUFFER, Prey.class);
+		boolean preyDetectedThisFrame = nearestPrey != null;
 
 		// If we found a Prey in this frame, update the locked-on logic
 		if (preyDetectedThisFrame) {
 			trackedPrey = nearestPrey;
 			isChasing = true;
 			isStealth = false; // No stealth when actively hunting
-			coordinatePack(packPredators);
+			// Attempt to form or join a “hunting pack” with nearby Predators
+			coordinatePack(r);
 		} else {
 			// If no new prey is detected this frame, check if an old target is still in
 			// range
@@ -162,14 +127,14 @@ public class PredatorRobot extends Beam {
 		if (isChasing && trackedPrey != null) {
 			double dx = trackedPrey.x - x;
 			double dy = trackedPrey.y - y;
-			double chaseAngle = Math.toDegrees(Math.atan2(dy, dx));
+			double chaseAngle = Math.toDegrees(StrictMath.atan2(dy, dx));
 			rAngle = chaseAngle;
 			rSpeed = 2.5; // Increase speed when chasing
 		} else if (isStealth) {
 			rSpeed = 1.0; // Slow speed in stealth mode
 			// Optional: random drifting
-			if (Math.random() < 0.05) {
-				rAngle = (rAngle + (Math.random() * 40 - 20)) % 360;
+			if (random() < 0.05) {
+				rAngle = (rAngle + (random() * 40 - 20)) % 360;
 			}
 		} else {
 			// Default movement
@@ -181,16 +146,15 @@ public class PredatorRobot extends Beam {
 			roarCooldown--;
 		} else {
 			// Attempt to roar with a small chance each tick
-			if (Math.random() < 0.02) {
+			if (random() < 0.02) {
 				performRoar(arena);
 				roarCooldown = ROAR_INTERVAL;
 			}
 		}
 
 		// Standard movement update
-		double radAngle = Math.toRadians(rAngle);
-		x += rSpeed * Math.cos(radAngle);
-		y += rSpeed * Math.sin(radAngle);
+		x += rSpeed * headingCos();
+		y += rSpeed * headingSin();
 	}
 
 	/**
@@ -198,7 +162,7 @@ public class PredatorRobot extends Beam {
 	 * chasing.
 	 */
 	@Override
-	public void drawItem(MyCanvas mc) {
+	public void drawItem(Renderer mc) {
 		char originalColor = col; // Save the original color
 
 		if (isDetecting) {
@@ -228,19 +192,34 @@ public class PredatorRobot extends Beam {
 	}
 
 	/**
-	 * Coordinates with nearby Predators to focus on a single Prey.
+	 * Coordinates with nearby Predators (those in the neighbour list) to focus on
+	 * a single Prey. The other predators are changed through the arena, which
+	 * holds the change back while checks run in parallel.
+	 *
+	 * @param r the arena
 	 */
-	private void coordinatePack(List<PredatorRobot> packPredators) {
+	private void coordinatePack(RobotArena r) {
 		// Example logic: update each pack member to chase the same Prey
-		for (PredatorRobot predator : packPredators) {
-			if (!predator.isChasing && predator.trackedPrey == null) {
-				predator.trackedPrey = this.trackedPrey;
-				predator.isChasing = true;
-				predator.isStealth = false;
+		for (int n = 0; n < neighbours.size(); n++) {
+			if (neighbours.get(n) instanceof PredatorRobot) {
+				r.joinHunt((PredatorRobot) neighbours.get(n), trackedPrey);
 			}
 		}
 	}
 
+	/**
+	 * Starts chasing the given prey, unless this predator already has a target.
+	 *
+	 * @param prey the prey a pack mate is chasing
+	 */
+	void joinHunt(Robot prey) {
+		if (!isChasing && trackedPrey == null) {
+			trackedPrey = prey;
+			isChasing = true;
+			isStealth = false;
+		}
+	}
+
 	/**
 	 * Perform a roar that affects nearby Prey. This can reduce speed or trigger
 	 * another effect.
@@ -248,9 +227,10 @@ public class PredatorRobot extends Beam {
 
 	private void performRoar(RobotArena r) {
 		final double ROAR_RANGE = 100.0; // Radius of impact
-		for (ArenaItem item : r.items) {
-			if (item instanceof Prey prey) {
-				double dist = distance(x, y, prey.getX(), prey.getY());
+		for (int n = 0; n < neighbours.size(); n++) {
+			ArenaItem item = neighbours.get(n);
+			if (item instanceof Prey) {
+				double dist = neighbours.distance(n);
 				if (dist <= ROAR_RANGE) {
 					// slow down prey speed
 					if (dist < ROAR_RANGE) {
@@ -269,6 +249,56 @@ public class PredatorRobot extends Beam {
 		return String.format("Predator (Prey Eaten: %d)", preyEaten);
 	}
 
+	/**
+	 * Adds the prey count and roar cooldown to the hash of the robot's state.
+	 *
+	 * @return a 64-bit hash of the predator's state
+	 */
+	@Override
+	public long stateHash() {
+		return mix(mix(super.stateHash(), (long) preyEaten), (long) roarCooldown);
+	}
+
+	@Override
+	void writeState(StringBuilder sb) {
+		super.writeState(sb);
+		sb.append(' ').append(trackedPrey != null ? trackedPrey.getShardKey() : trackedKey);
+		sb.append(' ').append(isChasing).append(' ').append(isStealth).append(' ').append(isEating).append(' ')
+				.append(isDetecting).append(' ').append(roarCooldown);
+	}
+
+	@Override
+	int readState(String[] f, int i) {
+		i = super.readState(f, i);
+		trackedKey = Integer.parseInt(f[i++]);
+		isChasing = Boolean.parseBoolean(f[i++]);
+		isStealth = Boolean.parseBoolean(f[i++]);
+		isEating = Boolean.parseBoolean(f[i++]);
+		isDetecting = Boolean.parseBoolean(f[i++]);
+		roarCooldown = Integer.parseInt(f[i++]);
+		return i;
+	}
+
+	/**
+	 * Points the tracked prey at the current copy of that prey in a sharded
+	 * simulation. A predator that has just arrived from another shard only knows
+	 * its prey's shard key, and a prey seen as a ghost is replaced by a new copy
+	 * every tick. If the prey is nowhere in the shard the predator loses it.
+	 *
+	 * @param byKey the shard's items by shard key
+	 */
+	void relinkPrey(Map<Integer, ArenaItem> byKey) {
+		int key = trackedKey;
+		if (key < 0 && trackedPrey != null && (trackedPrey.ghost || !trackedPrey.inArena)) {
+			key = trackedPrey.getShardKey();
+		}
+		if (key >= 0) {
+			ArenaItem prey = byKey.get(key);
+			trackedPrey = prey instanceof Robot ? (Robot) prey : null;
+			trackedKey = -1;
+		}
+	}
+
 	/**
 	 * Save this Predator's state to a file string if needed.
 	 */
@@ -278,6 +308,15 @@ public class PredatorRobot extends Beam {
 				roarCooldown);
 	}
 
+	/**
+	 * Returns the number of prey this predator has eaten.
+	 *
+	 * @return the prey count
+	 */
+	public int getPreysEaten() {
+		return preyEaten;
+	}
+
 	/**
 	 * Getter for preyEaten
 	 * 
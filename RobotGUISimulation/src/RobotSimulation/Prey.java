@@ -1,8 +1,5 @@
 package RobotSimulation;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public class Prey extends Robot {
 	// Time counter to manage temporary state changes (e.g., camouflage or panic
 	// sprint)
@@ -12,6 +9,37 @@ public class Prey extends Robot {
 	private boolean isPanicMode = false;
 	private boolean isBeingEaten = false;
 
+	// Flocking: prey within FLOCK_DISTANCE steer apart when closer than
+	// SEPARATION_DISTANCE, towards their mates' average heading and towards
+	// their mates' centre, turning at most MAX_FLOCK_TURN degrees per tick
+	static final double FLOCK_DISTANCE = 80.0;
+	static final double SEPARATION_DISTANCE = 25.0;
+	private static final double SEPARATION_WEIGHT = 1.5;
+	private static final double ALIGNMENT_WEIGHT = 1.0;
+	private static final double COHESION_WEIGHT = 0.8;
+	private static final double MAX_FLOCK_TURN = 8.0;
+	// Distance within which a predator makes prey camouflage or panic
+	private static final double PANIC_DISTANCE = 100.0;
+	// Heading the flock steers this prey towards, worked out in checkItem and
+	// applied before the next move, or NaN when there are no flock mates
+	private double flockAngle = Double.NaN;
+	// Direction of this prey's last move, read by its flock mates. It is only
+	// written in adjustItem, never during checks, so every check of a tick sees
+	// the same value whatever order or thread the checks run in
+	private double moveX;
+	private double moveY;
+	// Sums over this tick's neighbours, taken as the arena finds them: whether a
+	// predator is close, the separation push, the mates' move directions and the
+	// offsets to the mates
+	private boolean predatorNearby = false;
+	private double sepX;
+	private double sepY;
+	private double alignX;
+	private double alignY;
+	private double cohX;
+	private double cohY;
+	private int mates = 0;
+
 	/**
 	 * Constructs a new Prey item in the arena, using the Robot class as a base.
 	 * 
@@ -26,6 +54,9 @@ public class Prey extends Robot {
 		super(ix, iy, ir, ia, is, arena);
 		// Choose a default color for the Prey
 		this.col = 'g'; // e.g., 'g' for green
+		double radians = Math.toRadians(ia);
+		moveX = StrictMath.cos(radians);
+		moveY = StrictMath.sin(radians);
 	}
 
 	@Override
@@ -38,45 +69,89 @@ public class Prey extends Robot {
 		return String.format("Prey %.1f %.1f %.1f %c %.1f %.1f", x, y, rad, col, rAngle, rSpeed);
 	}
 
-	/**
-	 * In checkItem, we look for nearby predators to see if we should enter panic
-	 * mode or camouflage, and also optionally look for fellow Prey to flock with.
-	 */
 	@Override
-	public void checkItem(RobotArena r) {
-		super.checkItem(r);
-
-		boolean predatorNearby = false;
-		double panicDistance = 100.0; // Distance threshold for panic
+	void writeState(StringBuilder sb) {
+		super.writeState(sb);
+		sb.append(' ').append(stateTimer).append(' ').append(isCamouflaged).append(' ').append(isPanicMode)
+				.append(' ').append(isBeingEaten).append(' ').append(flockAngle).append(' ').append(moveX)
+				.append(' ').append(moveY);
+	}
 
-		boolean preyNearby = false;
-		double flockDistance = 80.0; // Distance threshold for flocking
+	@Override
+	int readState(String[] f, int i) {
+		i = super.readState(f, i);
+		stateTimer = Integer.parseInt(f[i++]);
+		isCamouflaged = Boolean.parseBoolean(f[i++]);
+		isPanicMode = Boolean.parseBoolean(f[i++]);
+		isBeingEaten = Boolean.parseBoolean(f[i++]);
+		flockAngle = Double.parseDouble(f[i++]);
+		moveX = Double.parseDouble(f[i++]);
+		moveY = Double.parseDouble(f[i++]);
+		return i;
+	}
 
-		List<Prey> flockMates = new ArrayList<>();
+	@Override
+	void clearNeighbours() {
+		super.clearNeighbours();
+		predatorNearby = false;
+		sepX = 0;
+		sepY = 0;
+		alignX = 0;
+		alignY = 0;
+		cohX = 0;
+		cohY = 0;
+		mates = 0;
+	}
 
-		for (ArenaItem item : r.items) {
-			// Detect predators (example: Predator class from earlier)
-			if (item instanceof PredatorRobot) {
-				double distToPredator = distance(x, y, item.getX(), item.getY());
-				if (distToPredator < panicDistance) {
-					predatorNearby = true;
-				}
-			}
-			// Look for other Prey to flock with
-			if (item instanceof Prey && item != this) {
-				double distToPrey = distance(x, y, item.getX(), item.getY());
-				if (distToPrey < flockDistance) {
-					preyNearby = true;
-					flockMates.add((Prey) item);
-				}
+	/**
+	 * Takes a neighbour into this tick's sums instead of listing it. Nothing else
+	 * a prey does reads its neighbours, so the sums are all it needs, and taking
+	 * them here saves walking a list of up to a hundred items again in
+	 * checkItem. The arena finds neighbours before any check runs, and mates only
+	 * change their move direction in adjustItem, so the sums are the same
+	 * whatever order the checks run in.
+	 */
+	@Override
+	void neighbourFound(ArenaItem item, double dist) {
+		// Detect predators (example: Predator class from earlier)
+		if (item instanceof PredatorRobot && dist < PANIC_DISTANCE) {
+			predatorNearby = true;
+		}
+		// Other Prey within flockDistance are flock mates
+		if (item instanceof Prey && dist < FLOCK_DISTANCE) {
+			Prey mate = (Prey) item;
+			double dx = mate.x - x;
+			double dy = mate.y - y;
+			if (dist < SEPARATION_DISTANCE && dist > 0) {
+				// Push away harder the closer the mate is
+				double push = (SEPARATION_DISTANCE - dist) / (SEPARATION_DISTANCE * dist);
+				sepX -= dx * push;
+				sepY -= dy * push;
 			}
+			alignX += mate.moveX;
+			alignY += mate.moveY;
+			cohX += dx;
+			cohY += dy;
+			mates++;
 		}
+	}
+
+	/**
+	 * In checkItem, we use the sums taken from this tick's neighbours to see if
+	 * we should enter panic mode or camouflage, and work out where the fellow
+	 * Prey within FLOCK_DISTANCE want us to steer. The flock is limited to the
+	 * arena's interaction radius and nothing is allocated. Only this prey's own
+	 * fields change, so checks may run in parallel.
+	 */
+	@Override
+	public void checkItem(RobotArena r) {
+		super.checkItem(r);
 
 		// If a predator is in range, either camouflage or panic
 		if (predatorNearby) {
 			if (!isCamouflaged && !isPanicMode) {
 				// Randomly choose to camouflage or to panic
-				if (Math.random() < 0.5) {
+				if (random() < 0.5) {
 					isCamouflaged = true;
 					col = 'c'; // e.g., 'c' for camouflage color
 					rSpeed = 0.5 * rSpeed; // Slow down or become harder to detect
@@ -88,10 +163,18 @@ public class Prey extends Robot {
 			}
 		}
 
-		// If we found other Prey nearby, note that we may want to group
-		if (preyNearby) {
-			// Optionally store references in a list for flock movement in adjustItem
+		// Panicking prey scatter instead of keeping with the flock
+		if (mates == 0 || isPanicMode) {
+			flockAngle = Double.NaN;
+			return;
 		}
+		// Each rule is scaled to at most about one heading's length
+		double scale = 1.0 / (mates * FLOCK_DISTANCE);
+		double wantX = headingCos() + SEPARATION_WEIGHT * sepX + ALIGNMENT_WEIGHT * alignX / mates
+				+ COHESION_WEIGHT * cohX * scale;
+		double wantY = headingSin() + SEPARATION_WEIGHT * sepY + ALIGNMENT_WEIGHT * alignY / mates
+				+ COHESION_WEIGHT * cohY * scale;
+		flockAngle = wantX == 0 && wantY == 0 ? Double.NaN : Math.toDegrees(StrictMath.atan2(wantY, wantX));
 	}
 
 	@Override
@@ -107,21 +190,33 @@ public class Prey extends Robot {
 			rSpeed = 2.0; // Example normal speed
 		}
 
-		// Incorporate flocking logic: nudge angle towards center of close Prey
-		// (optional)
-		// Example placeholder: if you store a list of close Prey, average their
-		// positions
-		// to steer or slightly adjust angle, etc.
+		// Turn towards the heading the flock wants, a little at a time
+		if (!Double.isNaN(flockAngle)) {
+			double turn = flockAngle - rAngle;
+			turn -= 360 * Math.floor((turn + 180) / 360); // into [-180, 180)
+			rAngle = (rAngle + Math.max(-MAX_FLOCK_TURN, Math.min(MAX_FLOCK_TURN, turn))) % 360;
+			flockAngle = Double.NaN;
+		}
 
 		// Incorporate random evasive maneuver
-		if (Math.random() < 0.02) {
-			double randomOffset = (Math.random() * 180) - 90; // -90 to +90 degrees
+		if (random() < 0.02) {
+			double randomOffset = (random() * 180) - 90; // -90 to +90 degrees
 			rAngle = (rAngle + randomOffset) % 360;
 		}
+		publishMove();
 
 		super.adjustItem();
 	}
 
+	/**
+	 * Records the heading this prey is about to move along, for its flock mates
+	 * to align with on the next tick.
+	 */
+	private void publishMove() {
+		moveX = headingCos();
+		moveY = headingSin();
+	}
+
 	/**
 	 * Calculates distance between two points.
 	 */
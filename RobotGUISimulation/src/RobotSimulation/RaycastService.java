@@ -0,0 +1,682 @@
+package RobotSimulation;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The <code>RaycastService</code> class answers ray queries against every item
+ * in an arena: along a ray, which item is hit first and how far away.
+ *
+ * <p>
+ * Items are bucketed into a uniform grid stored in a compressed layout (one
+ * start offset per cell plus a flat array of item numbers), with the items'
+ * positions and radii copied into primitive arrays. A ray walks the grid cell
+ * by cell in order of distance (a DDA traversal) and tests only the items in
+ * the cells it crosses, stopping at the first cell beyond its nearest hit. The
+ * cost of a ray therefore depends on its length and on how crowded its path
+ * is, not on the number of items in the arena.
+ * </p>
+ *
+ * <p>
+ * Sensors often want to notice items that the ray passes close to, not only
+ * items it strikes. Each query takes an inflation distance that is added to
+ * every item's radius. Items are bucketed with a margin of
+ * {@link #getPadding()} around them so that inflated items are still found in
+ * the cells a ray crosses; a query with a larger inflation widens the margin.
+ * </p>
+ *
+ * <p>
+ * The grid is rebuilt lazily, on the first query after the arena invalidates
+ * it at the start of each tick, and then describes the items as they were at
+ * that moment. Queries only read it, so they may run on several threads.
+ * </p>
+ *
+ * @author Ahmed Elamari
+ * @version 1.0
+ *
+ * @see RobotArena#getRaycaster()
+ */
+public class RaycastService {
+
+	/** Side length of each grid cell. */
+	public static final double CELL_SIZE = 64;
+	/** Margin added around items when bucketing them, unless widened. */
+	public static final double DEFAULT_PADDING = 16;
+
+	/**
+	 * The <code>RayHit</code> class receives the result of a query, and serves as
+	 * scratch space for queries reporting into arrays. Each sensor keeps its own
+	 * so that queries allocate nothing.
+	 */
+	public static final class RayHit {
+		/** The item hit first, or <code>null</code> if nothing was hit. */
+		public ArenaItem item;
+		/** Distance along the ray to the hit, or infinity if nothing was hit. */
+		public double distance = Double.POSITIVE_INFINITY;
+		/** For sector casts, the number of the ray that hit. */
+		public int ray = -1;
+
+		/**
+		 * Clears the result before a query.
+		 */
+		void reset() {
+			item = null;
+			distance = Double.POSITIVE_INFINITY;
+			ray = -1;
+		}
+	}
+
+	/**
+	 * The <code>Grid</code> class holds one build of the grid. A query reads a
+	 * single build throughout, so a rebuild with a wider padding can replace it
+	 * while other threads are still casting.
+	 */
+	private static final class Grid {
+		/** Margin around items when bucketing them. */
+		final double padding;
+		/** The X coordinate of the left edge of the grid. */
+		double originX;
+		/** The Y coordinate of the top edge of the grid. */
+		double originY;
+		/** Number of cell columns. */
+		int cols = 1;
+		/** Number of cell rows. */
+		int rows = 1;
+		/** Start of each cell's entries in <code>cellItems</code>, plus one end. */
+		int[] cellStart = new int[2];
+		/** Item numbers, cell by cell. */
+		int[] cellItems = new int[16];
+		/** X coordinate of each item. */
+		double[] itemX = new double[16];
+		/** Y coordinate of each item. */
+		double[] itemY = new double[16];
+		/** Radius of each item. */
+		double[] itemR = new double[16];
+		/** The items by number. */
+		ArenaItem[] itemRef = new ArenaItem[16];
+		/** Number of items in the grid. */
+		int count;
+
+		/**
+		 * Constructs an empty grid.
+		 *
+		 * @param padding the margin around items
+		 */
+		Grid(double padding) {
+			this.padding = padding;
+		}
+
+		/**
+		 * Returns the column containing an X coordinate, clamped to the grid.
+		 *
+		 * @param x the X coordinate
+		 * @return the column
+		 */
+		int column(double x) {
+			return Math.max(0, Math.min(cols - 1, (int) ((x - originX) / CELL_SIZE)));
+		}
+
+		/**
+		 * Returns the row containing a Y coordinate, clamped to the grid.
+		 *
+		 * @param y the Y coordinate
+		 * @return the row
+		 */
+		int row(double y) {
+			return Math.max(0, Math.min(rows - 1, (int) ((y - originY) / CELL_SIZE)));
+		}
+	}
+
+	/** The items the grid is built from. */
+	private final List<ArenaItem> source;
+	/** The current build of the grid. */
+	private volatile Grid grid = new Grid(DEFAULT_PADDING);
+	/** Whether the grid describes the current positions of the items. */
+	private volatile boolean valid = false;
+
+	/**
+	 * Constructs a service over a list of items.
+	 *
+	 * @param source the items to cast against, normally all items of an arena
+	 */
+	public RaycastService(List<ArenaItem> source) {
+		this.source = source;
+	}
+
+	/**
+	 * Marks the grid out of date, so that the next query rebuilds it. Must not be
+	 * called while queries are running.
+	 */
+	public void invalidate() {
+		valid = false;
+	}
+
+	/**
+	 * Returns the margin by which items are widened when bucketed, the largest
+	 * inflation a query can use without widening it.
+	 *
+	 * @return the padding
+	 */
+	public double getPadding() {
+		return grid.padding;
+	}
+
+	/**
+	 * Returns the grid, first rebuilding it if it is out of date or too narrow for
+	 * an inflation.
+	 *
+	 * @param inflate the inflation the caller is about to use
+	 * @return the grid to query
+	 */
+	private Grid ensureBuilt(double inflate) {
+		Grid g = grid;
+		if (!valid || inflate > g.padding) {
+			g = build(inflate);
+		}
+		return g;
+	}
+
+	/**
+	 * Buckets every item into the grid cells its padded bounding box overlaps.
+	 * The arrays of the current build are reused unless the padding must grow, in
+	 * which case a new build replaces it.
+	 *
+	 * @param inflate the inflation the caller is about to use
+	 * @return the new build
+	 */
+	private synchronized Grid build(double inflate) {
+		Grid g = grid;
+		if (valid && inflate <= g.padding) {
+			return g; // another thread got here first
+		}
+		if (inflate > g.padding) {
+			// Other threads may still be casting through the old build
+			g = new Grid(inflate);
+		}
+		double pad = g.padding;
+
+		int n = source.size();
+		if (g.itemX.length < n) {
+			int cap = Math.max(n, g.itemX.length * 2);
+			g.itemX = new double[cap];
+			g.itemY = new double[cap];
+			g.itemR = new double[cap];
+			g.itemRef = new ArenaItem[cap];
+		}
+		double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+		double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+		for (int i = 0; i < n; i++) {
+			ArenaItem item = source.get(i);
+			g.itemRef[i] = item;
+			g.itemX[i] = item.x;
+			g.itemY[i] = item.y;
+			g.itemR[i] = item.rad;
+			minX = Math.min(minX, item.x - item.rad);
+			minY = Math.min(minY, item.y - item.rad);
+			maxX = Math.max(maxX, item.x + item.rad);
+			maxY = Math.max(maxY, item.y + item.rad);
+		}
+		// Drop references to items left over from a larger build
+		Arrays.fill(g.itemRef, n, g.count > n ? g.count : n, null);
+		g.count = n;
+		if (n == 0) {
+			minX = minY = maxX = maxY = 0;
+		}
+		g.originX = minX - pad;
+		g.originY = minY - pad;
+		g.cols = Math.max(1, (int) Math.ceil((maxX + pad - g.originX) / CELL_SIZE));
+		g.rows = Math.max(1, (int) Math.ceil((maxY + pad - g.originY) / CELL_SIZE));
+
+		int cells = g.cols * g.rows;
+		int[] start = g.cellStart;
+		if (start.length < cells + 1) {
+			start = g.cellStart = new int[cells + 1];
+		} else {
+			Arrays.fill(start, 0, cells + 1, 0);
+		}
+		// First pass counts each cell's entries, second pass places them
+		for (int i = 0; i < n; i++) {
+			double x = g.itemX[i], y = g.itemY[i], reach = g.itemR[i] + pad;
+			int c0 = g.column(x - reach), c1 = g.column(x + reach);
+			int r0 = g.row(y - reach), r1 = g.row(y + reach);
+			for (int r = r0; r <= r1; r++) {
+				for (int c = c0; c <= c1; c++) {
+					start[r * g.cols + c + 1]++;
+				}
+			}
+		}
+		for (int c = 0; c < cells; c++) {
+			start[c + 1] += start[c];
+		}
+		if (g.cellItems.length < start[cells]) {
+			g.cellItems = new int[Math.max(start[cells], g.cellItems.length * 2)];
+		}
+		int[] entries = g.cellItems;
+		for (int i = 0; i < n; i++) {
+			double x = g.itemX[i], y = g.itemY[i], reach = g.itemR[i] + pad;
+			int c0 = g.column(x - reach), c1 = g.column(x + reach);
+			int r0 = g.row(y - reach), r1 = g.row(y + reach);
+			for (int r = r0; r <= r1; r++) {
+				for (int c = c0; c <= c1; c++) {
+					entries[start[r * g.cols + c]++] = i;
+				}
+			}
+		}
+		// The placing pass moved each start to the next cell's; shift them back
+		for (int c = cells; c > 0; c--) {
+			start[c] = start[c - 1];
+		}
+		start[0] = 0;
+		grid = g;
+		valid = true;
+		return g;
+	}
+
+	/**
+	 * Casts one ray and reports the first item it hits.
+	 *
+	 * @param ox      the X coordinate of the ray's start
+	 * @param oy      the Y coordinate of the ray's start
+	 * @param dx      the X component of the ray's unit direction
+	 * @param dy      the Y component of the ray's unit direction
+	 * @param maxDist the length of the ray
+	 * @param inflate distance added to every item's radius
+	 * @param ignore  an item to pass through, normally the caster itself, or
+	 *                <code>null</code>
+	 * @param type    the type of item to look for, or <code>null</code> for any
+	 * @param hit     receives the item hit and its distance
+	 * @return the distance to the hit, or infinity if nothing was hit
+	 */
+	public double cast(double ox, double oy, double dx, double dy, double maxDist, double inflate, ArenaItem ignore,
+			Class<? extends ArenaItem> type, RayHit hit) {
+		hit.reset();
+		castInto(ensureBuilt(inflate), ox, oy, dx, dy, maxDist, inflate, ignore, type, null, hit);
+		return hit.distance;
+	}
+
+	/**
+	 * Casts a batch of rays from one point, for example every sensor of a robot,
+	 * reporting each ray's first hit.
+	 *
+	 * @param ox       the X coordinate of the rays' start
+	 * @param oy       the Y coordinate of the rays' start
+	 * @param dirX     the X component of each ray's unit direction
+	 * @param dirY     the Y component of each ray's unit direction
+	 * @param n        the number of rays
+	 * @param maxDist  the length of the rays
+	 * @param inflate  distance added to every item's radius
+	 * @param ignore   an item to pass through, or <code>null</code>
+	 * @param type     the type of item to look for, or <code>null</code> for any
+	 * @param hit      scratch space for each ray in turn
+	 * @param hitItems receives the item hit by each ray, or <code>null</code>
+	 * @param hitDists receives each ray's hit distance, infinity for a miss
+	 * @return the number of rays that hit something
+	 */
+	public int castBatch(double ox, double oy, double[] dirX, double[] dirY, int n, double maxDist, double inflate,
+			ArenaItem ignore, Class<? extends ArenaItem> type, RayHit hit, ArenaItem[] hitItems, double[] hitDists) {
+		Grid g = ensureBuilt(inflate);
+		int hits = 0;
+		for (int i = 0; i < n; i++) {
+			hit.reset();
+			castInto(g, ox, oy, dirX[i], dirY[i], maxDist, inflate, ignore, type, null, hit);
+			hitItems[i] = hit.item;
+			hitDists[i] = hit.distance;
+			if (hit.item != null) {
+				hits++;
+			}
+		}
+		return hits;
+	}
+
+	/**
+	 * Casts a fan of rays spread around a heading, as a beam or cone sensor sees,
+	 * and reports the nearest hit of any of them.
+	 *
+	 * @param ox         the X coordinate of the rays' start
+	 * @param oy         the Y coordinate of the rays' start
+	 * @param headingCos the X component of the fan's centre direction
+	 * @param headingSin the Y component of the fan's centre direction
+	 * @param offCos     the cosine of each ray's angle from the heading
+	 * @param offSin     the sine of each ray's angle from the heading
+	 * @param maxDist    the length of the rays
+	 * @param inflate    distance added to every item's radius
+	 * @param ignore     an item to pass through, or <code>null</code>
+	 * @param type       the type of item to look for, or <code>null</code> for any
+	 * @param hit        receives the nearest item hit, its distance and the ray
+	 * @return the distance to the nearest hit, or infinity if nothing was hit
+	 */
+	public double castSector(double ox, double oy, double headingCos, double headingSin, double[] offCos,
+			double[] offSin, double maxDist, double inflate, ArenaItem ignore, Class<? extends ArenaItem> type,
+			RayHit hit) {
+		hit.reset();
+		Grid g = ensureBuilt(inflate);
+		if (maxDist <= 2 * CELL_SIZE) {
+			// The rays of a short fan cross the same few cells, so visit them once
+			castShortSector(g, ox, oy, headingCos, headingSin, offCos, offSin, maxDist, inflate, ignore, type, hit);
+			return hit.distance;
+		}
+		for (int i = 0; i < offCos.length; i++) {
+			// Rotate the heading by the ray's offset
+			double dx = headingCos * offCos[i] - headingSin * offSin[i];
+			double dy = headingSin * offCos[i] + headingCos * offSin[i];
+			ArenaItem before = hit.item;
+			// Nothing beyond the nearest hit so far can change the answer
+			castInto(g, ox, oy, dx, dy, Math.min(maxDist, hit.distance), inflate, ignore, type, null, hit);
+			if (hit.item != before) {
+				hit.ray = i;
+			}
+		}
+		return hit.distance;
+	}
+
+	/**
+	 * Casts a full ring of evenly spaced rays, as a scanning range finder sees,
+	 * reporting each ray's first hit.
+	 *
+	 * <p>
+	 * When the rays would cross more cells one by one than the ring's bounding
+	 * box holds, the items in the box are instead visited once each, and each is
+	 * tested only against the few rays inside the angle it covers as seen from
+	 * the centre. Either way the results are the same.
+	 * </p>
+	 *
+	 * @param ox         the X coordinate of the rays' start
+	 * @param oy         the Y coordinate of the rays' start
+	 * @param headingCos the X component of the first ray's direction
+	 * @param headingSin the Y component of the first ray's direction
+	 * @param offCos     the cosine of each ray's angle from the first; ray
+	 *                   <code>j</code> must be at <code>j</code> times a full
+	 *                   turn divided by the number of rays
+	 * @param offSin     the sine of each ray's angle from the first
+	 * @param maxDist    the length of the rays
+	 * @param inflate    distance added to every item's radius
+	 * @param ignore     an item to pass through, or <code>null</code>
+	 * @param type       the type of item to look for, or <code>null</code> for any
+	 * @param exclude    a type of item to pass through, or <code>null</code>
+	 * @param hit        scratch space for each ray in turn
+	 * @param hitItems   receives the item hit by each ray, or <code>null</code>
+	 * @param hitDists   receives each ray's hit distance, infinity for a miss
+	 * @return the number of rays that hit something
+	 */
+	public int castRing(double ox, double oy, double headingCos, double headingSin, double[] offCos,
+			double[] offSin, double maxDist, double inflate, ArenaItem ignore, Class<? extends ArenaItem> type,
+			Class<? extends ArenaItem> exclude, RayHit hit, ArenaItem[] hitItems, double[] hitDists) {
+		Grid g = ensureBuilt(inflate);
+		int n = offCos.length;
+		Arrays.fill(hitItems, 0, n, null);
+		Arrays.fill(hitDists, 0, n, Double.POSITIVE_INFINITY);
+		double span = 2 * maxDist / CELL_SIZE + 1;
+		if (n * (maxDist / CELL_SIZE + 1) < span * span) {
+			// Few long rays: walk each through the grid
+			for (int j = 0; j < n; j++) {
+				hit.reset();
+				double dx = headingCos * offCos[j] - headingSin * offSin[j];
+				double dy = headingSin * offCos[j] + headingCos * offSin[j];
+				castInto(g, ox, oy, dx, dy, maxDist, inflate, ignore, type, exclude, hit);
+				hitItems[j] = hit.item;
+				hitDists[j] = hit.distance;
+			}
+		} else {
+			castRingByItem(g, ox, oy, headingCos, headingSin, offCos, offSin, maxDist, inflate, ignore, type,
+					exclude, hitItems, hitDists);
+		}
+		int hits = 0;
+		for (int j = 0; j < n; j++) {
+			if (hitItems[j] != null) {
+				hits++;
+			}
+		}
+		return hits;
+	}
+
+	/**
+	 * Casts a ring of rays by visiting each item within range once and updating
+	 * the rays that pass through it. The parameters are as for
+	 * {@link #castRing}.
+	 */
+	private static void castRingByItem(Grid g, double ox, double oy, double headingCos, double headingSin,
+			double[] offCos, double[] offSin, double maxDist, double inflate, ArenaItem ignore,
+			Class<? extends ArenaItem> type, Class<? extends ArenaItem> exclude, ArenaItem[] hitItems,
+			double[] hitDists) {
+		int n = offCos.length;
+		double step = 2 * Math.PI / n;
+		int[] cellStart = g.cellStart, cellItems = g.cellItems;
+		double[] itemX = g.itemX, itemY = g.itemY, itemR = g.itemR;
+		int c0 = g.column(ox - maxDist), c1 = g.column(ox + maxDist);
+		int r0 = g.row(oy - maxDist), r1 = g.row(oy + maxDist);
+		for (int r = r0; r <= r1; r++) {
+			for (int c = c0; c <= c1; c++) {
+				int cell = r * g.cols + c;
+				for (int k = cellStart[cell], end = cellStart[cell + 1]; k < end; k++) {
+					int i = cellItems[k];
+					double mx = itemX[i] - ox;
+					double my = itemY[i] - oy;
+					double reach = itemR[i] + inflate;
+					double d2 = mx * mx + my * my;
+					double limit = maxDist + reach;
+					if (d2 > limit * limit) {
+						continue;
+					}
+					ArenaItem item = g.itemRef[i];
+					if (!matches(item, ignore, type, exclude)) {
+						continue;
+					}
+					// Angle of the item's centre from the first ray, and the half angle
+					// it covers; a ray starting inside it hits it at once whatever its
+					// direction
+					double centre = Math.atan2(my * headingCos - mx * headingSin, mx * headingCos + my * headingSin);
+					double half = d2 <= reach * reach ? Math.PI : Math.asin(reach / Math.sqrt(d2));
+					// One ray of slack each side; the exact test below decides
+					int lo = (int) Math.ceil((centre - half) / step) - 1;
+					int hi = (int) Math.floor((centre + half) / step) + 1;
+					if (hi - lo >= n) {
+						lo = 0;
+						hi = n - 1;
+					}
+					for (int jj = lo; jj <= hi; jj++) {
+						int j = Math.floorMod(jj, n);
+						double dx = headingCos * offCos[j] - headingSin * offSin[j];
+						double dy = headingSin * offCos[j] + headingCos * offSin[j];
+						double t = intersect(ox, oy, dx, dy, itemX[i], itemY[i], reach);
+						if (t <= maxDist && t < hitDists[j]) {
+							hitDists[j] = t;
+							hitItems[j] = item;
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Casts a short fan of rays by collecting the items in the cells covering the
+	 * fan's bounding box and testing each one that could be nearer than the best
+	 * hit so far against every ray. The parameters are as for
+	 * {@link #castSector}.
+	 */
+	private static void castShortSector(Grid g, double ox, double oy, double headingCos, double headingSin,
+			double[] offCos, double[] offSin, double maxDist, double inflate, ArenaItem ignore,
+			Class<? extends ArenaItem> type, RayHit hit) {
+		int n = offCos.length;
+		// Bounding box of the origin and the tips of the rays
+		double minX = ox, maxX = ox, minY = oy, maxY = oy;
+		boolean forward = true;
+		for (int j = 0; j < n; j++) {
+			double tx = ox + maxDist * (headingCos * offCos[j] - headingSin * offSin[j]);
+			double ty = oy + maxDist * (headingSin * offCos[j] + headingCos * offSin[j]);
+			minX = Math.min(minX, tx);
+			maxX = Math.max(maxX, tx);
+			minY = Math.min(minY, ty);
+			maxY = Math.max(maxY, ty);
+			forward &= offCos[j] >= 0;
+		}
+		if (!forward) {
+			// A fan wider than a half turn bulges beyond its tips
+			minX = ox - maxDist;
+			maxX = ox + maxDist;
+			minY = oy - maxDist;
+			maxY = oy + maxDist;
+		}
+
+		int[] cellStart = g.cellStart, cellItems = g.cellItems;
+		double[] itemX = g.itemX, itemY = g.itemY, itemR = g.itemR;
+		int c0 = g.column(minX), c1 = g.column(maxX);
+		int r0 = g.row(minY), r1 = g.row(maxY);
+		for (int r = r0; r <= r1; r++) {
+			for (int c = c0; c <= c1; c++) {
+				int cell = r * g.cols + c;
+				for (int k = cellStart[cell], end = cellStart[cell + 1]; k < end; k++) {
+					int i = cellItems[k];
+					double mx = itemX[i] - ox;
+					double my = itemY[i] - oy;
+					double reach = itemR[i] + inflate;
+					if (forward && mx * headingCos + my * headingSin < -reach) {
+						continue; // behind the fan
+					}
+					double d = Math.sqrt(mx * mx + my * my);
+					if (d - reach > Math.min(maxDist, hit.distance)) {
+						continue; // cannot beat the nearest hit so far
+					}
+					ArenaItem item = g.itemRef[i];
+					if (!matches(item, ignore, type, null)) {
+						continue;
+					}
+					for (int j = 0; j < n; j++) {
+						double dx = headingCos * offCos[j] - headingSin * offSin[j];
+						double dy = headingSin * offCos[j] + headingCos * offSin[j];
+						double t = intersect(ox, oy, dx, dy, itemX[i], itemY[i], reach);
+						if (t <= maxDist && t < hit.distance) {
+							hit.distance = t;
+							hit.item = item;
+							hit.ray = j;
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns whether a query looks for an item.
+	 *
+	 * @param item    the item
+	 * @param ignore  an item to pass through, or <code>null</code>
+	 * @param type    the type of item to look for, or <code>null</code> for any
+	 * @param exclude a type of item to pass through, or <code>null</code>
+	 * @return <code>true</code> if the item can be hit
+	 */
+	private static boolean matches(ArenaItem item, ArenaItem ignore, Class<? extends ArenaItem> type,
+			Class<? extends ArenaItem> exclude) {
+		return item != ignore && (type == null || type.isInstance(item))
+				&& (exclude == null || !exclude.isInstance(item));
+	}
+
+	/**
+	 * Walks one ray through a grid, keeping in <code>hit</code> the nearest item
+	 * found that is closer than the hit it already holds. The parameters are as
+	 * for {@link #cast}, with the <code>exclude</code> of {@link #castRing}.
+	 */
+	private static void castInto(Grid g, double ox, double oy, double dx, double dy, double maxDist,
+			double inflate, ArenaItem ignore, Class<? extends ArenaItem> type, Class<? extends ArenaItem> exclude,
+			RayHit hit) {
+		int cols = g.cols, rows = g.rows;
+		int[] cellStart = g.cellStart, cellItems = g.cellItems;
+		double[] itemX = g.itemX, itemY = g.itemY, itemR = g.itemR;
+		ArenaItem[] itemRef = g.itemRef;
+
+		// Clip the ray to the grid's rectangle
+		double gx0 = g.originX, gy0 = g.originY;
+		double gx1 = gx0 + cols * CELL_SIZE, gy1 = gy0 + rows * CELL_SIZE;
+		double tEnter = 0, tLeave = maxDist;
+		if (dx != 0) {
+			double ta = (gx0 - ox) / dx, tb = (gx1 - ox) / dx;
+			tEnter = Math.max(tEnter, Math.min(ta, tb));
+			tLeave = Math.min(tLeave, Math.max(ta, tb));
+		} else if (ox < gx0 || ox >= gx1) {
+			return;
+		}
+		if (dy != 0) {
+			double ta = (gy0 - oy) / dy, tb = (gy1 - oy) / dy;
+			tEnter = Math.max(tEnter, Math.min(ta, tb));
+			tLeave = Math.min(tLeave, Math.max(ta, tb));
+		} else if (oy < gy0 || oy >= gy1) {
+			return;
+		}
+		if (tEnter > tLeave) {
+			return;
+		}
+
+		int c = g.column(ox + dx * tEnter);
+		int r = g.row(oy + dy * tEnter);
+		int stepC = dx > 0 ? 1 : -1;
+		int stepR = dy > 0 ? 1 : -1;
+		// Distance along the ray to the next column and row boundaries, and between them
+		double deltaC = dx != 0 ? CELL_SIZE / Math.abs(dx) : Double.POSITIVE_INFINITY;
+		double deltaR = dy != 0 ? CELL_SIZE / Math.abs(dy) : Double.POSITIVE_INFINITY;
+		double nextC = dx != 0 ? (gx0 + (c + (dx > 0 ? 1 : 0)) * CELL_SIZE - ox) / dx : Double.POSITIVE_INFINITY;
+		double nextR = dy != 0 ? (gy0 + (r + (dy > 0 ? 1 : 0)) * CELL_SIZE - oy) / dy : Double.POSITIVE_INFINITY;
+
+		while (true) {
+			int cell = r * cols + c;
+			for (int k = cellStart[cell], end = cellStart[cell + 1]; k < end; k++) {
+				int i = cellItems[k];
+				// The geometry only touches the primitive arrays, so test it first
+				double t = intersect(ox, oy, dx, dy, itemX[i], itemY[i], itemR[i] + inflate);
+				if (t <= maxDist && t < hit.distance) {
+					ArenaItem item = itemRef[i];
+					if (matches(item, ignore, type, exclude)) {
+						hit.distance = t;
+						hit.item = item;
+					}
+				}
+			}
+			double exit = Math.min(nextC, nextR);
+			if (exit >= tLeave || exit >= hit.distance) {
+				return;
+			}
+			if (nextC < nextR) {
+				c += stepC;
+				nextC += deltaC;
+			} else {
+				r += stepR;
+				nextR += deltaR;
+			}
+			if (c < 0 || c >= cols || r < 0 || r >= rows) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Intersects a ray with a circle.
+	 *
+	 * @return the distance along the ray to the circle, 0 if the ray starts
+	 *         inside it, or infinity if the ray misses it
+	 */
+	private static double intersect(double ox, double oy, double dx, double dy, double cx, double cy, double radius) {
+		double mx = ox - cx;
+		double my = oy - cy;
+		double b = mx * dx + my * dy;
+		double c = mx * mx + my * my - radius * radius;
+		if (c <= 0) {
+			return 0; // starts inside
+		}
+		if (b > 0) {
+			return Double.POSITIVE_INFINITY; // pointing away
+		}
+		double disc = b * b - c;
+		if (disc < 0) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return -b - Math.sqrt(disc);
+	}
+
+	/**
+	 * Returns the number of items in the grid as last built.
+	 *
+	 * @return the item count
+	 */
+	public int getItemCount() {
+		return grid.count;
+	}
+}
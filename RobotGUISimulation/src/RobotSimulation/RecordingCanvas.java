@@ -0,0 +1,318 @@
+package RobotSimulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+
+/**
+ * The <code>RecordingCanvas</code> class is a <code>MyCanvas</code> that draws
+ * nothing but remembers every drawing call, so a frame can be captured quickly
+ * on the simulation thread and drawn later, elsewhere, with
+ * {@link #replay(Renderer)}.
+ *
+ * <p>
+ * Calls are stored in growing primitive arrays: one opcode per call, then its
+ * numbers and colour codes, with colours, images and text kept as references.
+ * {@link #reset()} empties the recording but keeps the arrays, so a canvas
+ * reused frame after frame stops allocating once it has grown to the size of a
+ * frame.
+ * </p>
+ *
+ * @author Ahmed Elamari
+ * @version 1.0
+ *
+ * @see FrameExporter
+ */
+public class RecordingCanvas extends MyCanvas {
+
+	// Opcodes of the recorded calls
+	private static final int CLEAR = 0;
+	private static final int IMAGE = 1;
+	private static final int FILL_COLOUR = 2;
+	private static final int CIRCLE_CODE = 3;
+	private static final int CIRCLE = 4;
+	private static final int CIRCLE_COLOUR = 5;
+	private static final int STROKE_CIRCLE = 6;
+	private static final int TRIANGLE = 7;
+	private static final int TEXT = 8;
+	private static final int LINE = 9;
+	private static final int BACKGROUND = 10;
+	private static final int RECT = 11;
+	private static final int LINE_WIDTH = 12;
+	private static final int STROKE_COLOUR = 13;
+	private static final int POLYGON = 14;
+
+	/** Opcode of each call. */
+	private int[] ops = new int[256];
+	/** Number of calls recorded. */
+	private int opCount = 0;
+	/** Numbers given to the calls, in order. */
+	private double[] nums = new double[1024];
+	/** Number of numbers recorded. */
+	private int numCount = 0;
+	/** Colour codes, widths and corner counts given to the calls, in order. */
+	private int[] ints = new int[256];
+	/** Number of ints recorded. */
+	private int intCount = 0;
+	/** Colours, images and text given to the calls, in order. */
+	private final ArrayList<Object> refs = new ArrayList<>();
+
+	/**
+	 * Constructs an empty recording for a canvas of the given size.
+	 *
+	 * @param xcs the width of the canvas in pixels
+	 * @param ycs the height of the canvas in pixels
+	 */
+	public RecordingCanvas(int xcs, int ycs) {
+		super(null, xcs, ycs);
+	}
+
+	/**
+	 * Empties the recording, keeping its arrays for the next frame.
+	 */
+	public void reset() {
+		opCount = 0;
+		numCount = 0;
+		intCount = 0;
+		refs.clear();
+	}
+
+	/**
+	 * Returns the number of drawing calls recorded.
+	 *
+	 * @return the call count
+	 */
+	public int getOpCount() {
+		return opCount;
+	}
+
+	/**
+	 * Makes every recorded call again, in order, on another renderer.
+	 *
+	 * @param mc the renderer to draw on
+	 */
+	public void replay(Renderer mc) {
+		int n = 0;
+		int k = 0;
+		int ref = 0;
+		for (int op = 0; op < opCount; op++) {
+			switch (ops[op]) {
+			case CLEAR:
+				mc.clearCanvas();
+				break;
+			case IMAGE:
+				mc.drawImage((Image) refs.get(ref++), nums[n], nums[n + 1], nums[n + 2]);
+				n += 3;
+				break;
+			case FILL_COLOUR:
+				mc.setFillColour((Color) refs.get(ref++));
+				break;
+			case CIRCLE_CODE:
+				mc.showCircle(nums[n], nums[n + 1], nums[n + 2], (char) ints[k++]);
+				n += 3;
+				break;
+			case CIRCLE:
+				mc.showCircle(nums[n], nums[n + 1], nums[n + 2]);
+				n += 3;
+				break;
+			case CIRCLE_COLOUR:
+				mc.showCircle(nums[n], nums[n + 1], nums[n + 2], (Color) refs.get(ref++));
+				n += 3;
+				break;
+			case STROKE_CIRCLE:
+				mc.strokeCircle(nums[n], nums[n + 1], nums[n + 2]);
+				n += 3;
+				break;
+			case TRIANGLE:
+				mc.showTriangle(nums[n], nums[n + 1], nums[n + 2], (char) ints[k++]);
+				n += 3;
+				break;
+			case TEXT:
+				mc.showText(nums[n], nums[n + 1], (String) refs.get(ref++));
+				n += 2;
+				break;
+			case LINE:
+				mc.drawLine(nums[n], nums[n + 1], nums[n + 2], nums[n + 3]);
+				n += 4;
+				break;
+			case BACKGROUND:
+				mc.setBackgroundColor((char) ints[k++]);
+				break;
+			case RECT:
+				mc.drawRect(nums[n], nums[n + 1], nums[n + 2], nums[n + 3], (char) ints[k++]);
+				n += 4;
+				break;
+			case LINE_WIDTH:
+				mc.setLineWidth(ints[k++]);
+				break;
+			case STROKE_COLOUR:
+				mc.setStrokeColour((char) ints[k++]);
+				break;
+			case POLYGON:
+				int corners = ints[k++];
+				ArrayList<double[]> points = new ArrayList<>(corners);
+				for (int i = 0; i < corners; i++) {
+					points.add(new double[] { nums[n], nums[n + 1] });
+					n += 2;
+				}
+				mc.fillPolygon(points, (char) ints[k++]);
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Records a call with no arguments besides those added after it.
+	 *
+	 * @param op the opcode
+	 */
+	private void op(int op) {
+		if (opCount == ops.length) {
+			ops = Arrays.copyOf(ops, opCount * 2);
+		}
+		ops[opCount++] = op;
+	}
+
+	/**
+	 * Records a number given to the last call.
+	 *
+	 * @param v the number
+	 */
+	private void num(double v) {
+		if (numCount == nums.length) {
+			nums = Arrays.copyOf(nums, numCount * 2);
+		}
+		nums[numCount++] = v;
+	}
+
+	/**
+	 * Records a colour code, width or count given to the last call.
+	 *
+	 * @param v the value
+	 */
+	private void integer(int v) {
+		if (intCount == ints.length) {
+			ints = Arrays.copyOf(ints, intCount * 2);
+		}
+		ints[intCount++] = v;
+	}
+
+	/**
+	 * Records a call taking a position and a size.
+	 *
+	 * @param op the opcode
+	 * @param x  the x coordinate
+	 * @param y  the y coordinate
+	 * @param s  the size
+	 */
+	private void op(int op, double x, double y, double s) {
+		op(op);
+		num(x);
+		num(y);
+		num(s);
+	}
+
+	@Override
+	public void clearCanvas() {
+		op(CLEAR);
+	}
+
+	@Override
+	public void drawImage(Image i, double x, double y, double sz) {
+		op(IMAGE, x, y, sz);
+		refs.add(i);
+	}
+
+	@Override
+	public void setFillColour(Color c) {
+		op(FILL_COLOUR);
+		refs.add(c);
+	}
+
+	@Override
+	public void showCircle(double x, double y, double rad, char col) {
+		op(CIRCLE_CODE, x, y, rad);
+		integer(col);
+	}
+
+	@Override
+	public void showCircle(double x, double y, double rad) {
+		op(CIRCLE, x, y, rad);
+	}
+
+	@Override
+	public void showCircle(double x, double y, double rad, Color fxColor) {
+		op(CIRCLE_COLOUR, x, y, rad);
+		refs.add(fxColor);
+	}
+
+	@Override
+	public void strokeCircle(double x, double y, double rad) {
+		op(STROKE_CIRCLE, x, y, rad);
+	}
+
+	@Override
+	public void showTriangle(double x, double y, double rad, char col) {
+		op(TRIANGLE, x, y, rad);
+		integer(col);
+	}
+
+	@Override
+	public void showText(double x, double y, String s) {
+		op(TEXT);
+		num(x);
+		num(y);
+		refs.add(s);
+	}
+
+	@Override
+	public void drawLine(double d, double e, double f, double g) {
+		op(LINE);
+		num(d);
+		num(e);
+		num(f);
+		num(g);
+	}
+
+	@Override
+	public void setBackgroundColor(char c) {
+		op(BACKGROUND);
+		integer(c);
+	}
+
+	@Override
+	public void drawRect(double x, double y, double width, double height, char c) {
+		op(RECT);
+		num(x);
+		num(y);
+		num(width);
+		num(height);
+		integer(c);
+	}
+
+	@Override
+	public void setLineWidth(int i) {
+		op(LINE_WIDTH);
+		integer(i);
+	}
+
+	@Override
+	public void setStrokeColour(char c) {
+		op(STROKE_COLOUR);
+		integer(c);
+	}
+
+	@Override
+	public void fillPolygon(List<double[]> beamPoints, char col) {
+		op(POLYGON);
+		integer(beamPoints.size());
+		for (double[] p : beamPoints) {
+			num(p[0]);
+			num(p[1]);
+		}
+		integer(col);
+	}
+}
@@ -0,0 +1,180 @@
+package RobotSimulation;
+
+import java.util.List;
+
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+
+/**
+ * The <code>Renderer</code> interface is what arena items draw themselves on.
+ * It has the drawing methods of <code>MyCanvas</code>, so an item can be drawn
+ * on the JavaFX canvas, into an image, into a recording, or nowhere at all
+ * without knowing which.
+ *
+ * <p>
+ * Colours are given as the character codes of <code>MyCanvas</code>. The fill
+ * colour, stroke colour and line width set by one call are used by the calls
+ * after it.
+ * </p>
+ *
+ * @author Ahmed Elamari
+ * @version 1.0
+ *
+ * @see MyCanvas
+ * @see NullRenderer
+ */
+public interface Renderer {
+
+	/**
+	 * Returns the width of the drawing area.
+	 *
+	 * @return the width in pixels
+	 */
+	int getXCanvasSize();
+
+	/**
+	 * Returns the height of the drawing area.
+	 *
+	 * @return the height in pixels
+	 */
+	int getYCanvasSize();
+
+	/**
+	 * Clears the whole drawing area.
+	 */
+	void clearCanvas();
+
+	/**
+	 * Draws an image centred at the given position.
+	 *
+	 * @param i  the image
+	 * @param x  the x coordinate of the image centre
+	 * @param y  the y coordinate of the image centre
+	 * @param sz the width and height of the image
+	 */
+	void drawImage(Image i, double x, double y, double sz);
+
+	/**
+	 * Sets the fill colour.
+	 *
+	 * @param c the colour
+	 */
+	void setFillColour(Color c);
+
+	/**
+	 * Draws a filled circle in the given colour.
+	 *
+	 * @param x   the x coordinate of the centre
+	 * @param y   the y coordinate of the centre
+	 * @param rad the radius
+	 * @param col the colour code
+	 */
+	void showCircle(double x, double y, double rad, char col);
+
+	/**
+	 * Draws a filled circle in the current fill colour.
+	 *
+	 * @param x   the x coordinate of the centre
+	 * @param y   the y coordinate of the centre
+	 * @param rad the radius
+	 */
+	void showCircle(double x, double y, double rad);
+
+	/**
+	 * Draws a filled circle in the given colour.
+	 *
+	 * @param x       the x coordinate of the centre
+	 * @param y       the y coordinate of the centre
+	 * @param rad     the radius
+	 * @param fxColor the colour
+	 */
+	void showCircle(double x, double y, double rad, Color fxColor);
+
+	/**
+	 * Draws the outline of a circle in the current stroke colour and line width.
+	 *
+	 * @param x   the x coordinate of the centre
+	 * @param y   the y coordinate of the centre
+	 * @param rad the radius
+	 */
+	void strokeCircle(double x, double y, double rad);
+
+	/**
+	 * Draws a filled triangle pointing up, fitting in the square of the given
+	 * radius around its position.
+	 *
+	 * @param x   the x coordinate of the centre
+	 * @param y   the y coordinate of the centre
+	 * @param rad the half width of the triangle
+	 * @param col the colour code
+	 */
+	void showTriangle(double x, double y, double rad, char col);
+
+	/**
+	 * Draws white text centred at the given position.
+	 *
+	 * @param x the x coordinate of the text centre
+	 * @param y the y coordinate of the text centre
+	 * @param s the text
+	 */
+	void showText(double x, double y, String s);
+
+	/**
+	 * Draws an integer as text centred at the given position.
+	 *
+	 * @param x the x coordinate of the text centre
+	 * @param y the y coordinate of the text centre
+	 * @param i the integer
+	 */
+	void showInt(double x, double y, int i);
+
+	/**
+	 * Draws a line in the current stroke colour and line width.
+	 *
+	 * @param d the starting x coordinate
+	 * @param e the starting y coordinate
+	 * @param f the ending x coordinate
+	 * @param g the ending y coordinate
+	 */
+	void drawLine(double d, double e, double f, double g);
+
+	/**
+	 * Fills the whole drawing area with a colour.
+	 *
+	 * @param c the colour code
+	 */
+	void setBackgroundColor(char c);
+
+	/**
+	 * Draws a filled rectangle.
+	 *
+	 * @param x      the x coordinate of the upper left corner
+	 * @param y      the y coordinate of the upper left corner
+	 * @param width  the width
+	 * @param height the height
+	 * @param c      the colour code
+	 */
+	void drawRect(double x, double y, double width, double height, char c);
+
+	/**
+	 * Sets the line width.
+	 *
+	 * @param i the width
+	 */
+	void setLineWidth(int i);
+
+	/**
+	 * Sets the stroke colour.
+	 *
+	 * @param c the colour code
+	 */
+	void setStrokeColour(char c);
+
+	/**
+	 * Draws a filled polygon.
+	 *
+	 * @param points the corners, each an array of its x and y coordinates
+	 * @param col    the colour code
+	 */
+	void fillPolygon(List<double[]> points, char col);
+}
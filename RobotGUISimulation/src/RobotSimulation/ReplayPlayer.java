@@ -0,0 +1,234 @@
+package RobotSimulation;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The <code>ReplayPlayer</code> class plays back a trajectory recording at any
+ * speed, forwards or in reverse, decoding frames on a background thread.
+ *
+ * <p>
+ * Frames are decoded a keyframe block at a time (a keyframe and the deltas
+ * that follow it) and kept in a small cache. While the viewer shows frames from
+ * one block, the decoder thread prepares the neighbouring block in the
+ * direction of playback, so the drawing thread only ever looks frames up. If a
+ * block is not ready yet, for example just after a seek, the last frame shown
+ * is returned until it is.
+ * </p>
+ *
+ * @author Ahmed Elamari
+ * @version 1.0
+ *
+ * @see TrajectoryReader
+ */
+public class ReplayPlayer implements AutoCloseable {
+
+	/** Number of recorded frames played per second at speed 1. */
+	public static final double FRAMES_PER_SECOND = 60;
+	/** Number of decoded blocks kept in the cache. */
+	private static final int CACHED_BLOCKS = 6;
+
+	/** The recording being played. */
+	private final TrajectoryReader reader;
+	/** Decoded blocks by keyframe number, least recently used first. */
+	private final LinkedHashMap<Integer, TrajectoryFrame[]> blocks = new LinkedHashMap<Integer, TrajectoryFrame[]>(16,
+			0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, TrajectoryFrame[]> eldest) {
+			return size() > CACHED_BLOCKS;
+		}
+	};
+	/** The thread decoding blocks ahead of playback. */
+	private final Thread decoder;
+	/** Whether the decoder thread should keep running. */
+	private volatile boolean running = true;
+
+	/** The current position in frames; fractional between frames. */
+	private double position = 0;
+	/** Playback speed: 1 is normal, negative plays in reverse, 0 is paused. */
+	private double speed = 1;
+	/** The frame most recently wanted by the viewer, read by the decoder. */
+	private int wanted = 0;
+	/** The last frame returned, shown while the wanted block is decoded. */
+	private TrajectoryFrame shown = null;
+
+	/**
+	 * Constructs a player for an open recording and starts its decoder thread.
+	 *
+	 * @param reader the recording to play; closed when the player is closed
+	 */
+	public ReplayPlayer(TrajectoryReader reader) {
+		this.reader = reader;
+		decoder = new Thread(this::decodeLoop, "replay-decoder");
+		decoder.setDaemon(true);
+		decoder.start();
+	}
+
+	/**
+	 * Moves the playback position on by the given amount of wall-clock time at the
+	 * current speed. Playback pauses when it reaches either end of the recording.
+	 *
+	 * @param seconds the time elapsed since the last call
+	 */
+	public synchronized void advance(double seconds) {
+		position += speed * FRAMES_PER_SECOND * seconds;
+		int last = reader.getFrameCount() - 1;
+		if (position <= 0 || position >= last) {
+			position = Math.max(0, Math.min(last, position));
+			speed = 0;
+		}
+		want((int) Math.round(position));
+	}
+
+	/**
+	 * Jumps to the frame recorded at or just before the given tick.
+	 *
+	 * @param tick the tick to show
+	 */
+	public synchronized void seekTick(long tick) {
+		position = reader.frameAtTick(tick);
+		want((int) position);
+	}
+
+	/**
+	 * Sets the playback speed.
+	 *
+	 * @param s the speed: 1 is normal, 2 twice as fast, negative values play in
+	 *          reverse and 0 pauses
+	 */
+	public synchronized void setSpeed(double s) {
+		speed = s;
+		notifyAll();
+	}
+
+	/**
+	 * Returns the playback speed.
+	 *
+	 * @return the speed; negative when playing in reverse
+	 */
+	public synchronized double getSpeed() {
+		return speed;
+	}
+
+	/**
+	 * Returns the frame at the current position, or the last frame shown if its
+	 * block has not been decoded yet.
+	 *
+	 * @return the frame to draw, or <code>null</code> before the first block is
+	 *         ready
+	 */
+	public synchronized TrajectoryFrame currentFrame() {
+		int frame = (int) Math.round(position);
+		int key = reader.getKeyframe(frame);
+		TrajectoryFrame[] block = blocks.get(key);
+		if (block != null) {
+			shown = block[frame - key];
+		}
+		return shown;
+	}
+
+	/**
+	 * Returns the tick of the current position.
+	 *
+	 * @return the recorded tick
+	 */
+	public synchronized long currentTick() {
+		return reader.getTick((int) Math.round(position));
+	}
+
+	/**
+	 * Records the frame the viewer wants and wakes the decoder if its block, or
+	 * the next one in the direction of play, is missing.
+	 *
+	 * @param frame the wanted frame
+	 */
+	private void want(int frame) {
+		wanted = frame;
+		if (nextMissingBlock() >= 0) {
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Finds the keyframe of a block that should be decoded next: the one holding
+	 * the wanted frame, then its neighbour in the direction of play.
+	 *
+	 * @return the keyframe number, or -1 if nothing needs decoding
+	 */
+	private int nextMissingBlock() {
+		int key = reader.getKeyframe(wanted);
+		if (!blocks.containsKey(key)) {
+			return key;
+		}
+		int neighbour = -1;
+		if (speed >= 0) {
+			int end = key + blocks.get(key).length;
+			if (end < reader.getFrameCount()) {
+				neighbour = reader.getKeyframe(end);
+			}
+		} else if (key > 0) {
+			neighbour = reader.getKeyframe(key - 1);
+		}
+		return neighbour >= 0 && !blocks.containsKey(neighbour) ? neighbour : -1;
+	}
+
+	/**
+	 * Body of the decoder thread: waits for a missing block, decodes it outside
+	 * the lock and adds it to the cache.
+	 */
+	private void decodeLoop() {
+		ArrayList<TrajectoryFrame> out = new ArrayList<>();
+		while (running) {
+			int key;
+			synchronized (this) {
+				key = nextMissingBlock();
+				while (running && key < 0) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						return;
+					}
+					key = nextMissingBlock();
+				}
+				if (!running) {
+					return;
+				}
+			}
+			out.clear();
+			reader.decodeBlock(key, out);
+			TrajectoryFrame[] block = out.toArray(new TrajectoryFrame[0]);
+			synchronized (this) {
+				blocks.put(key, block);
+			}
+		}
+	}
+
+	/**
+	 * Returns the recording being played.
+	 *
+	 * @return the reader
+	 */
+	public TrajectoryReader getReader() {
+		return reader;
+	}
+
+	/**
+	 * Stops the decoder thread and closes the recording.
+	 */
+	@Override
+	public void close() {
+		running = false;
+		synchronized (this) {
+			notifyAll();
+		}
+		try {
+			decoder.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		reader.close();
+	}
+}
@@ -29,6 +29,22 @@ public class Robot extends ArenaItem {
 	/** Current rotation angle of the robot in degrees. */
 	protected double rAngle;
 
+	/** Cosine and sine of 45°, used to place the wheels without trigonometry. */
+	static final double COS_45 = Math.sqrt(0.5);
+
+	/**
+	 * The angle <code>headingCos</code> and <code>headingSin</code> were last
+	 * computed for. Starts as NaN, which never equals any angle, so the first use
+	 * computes them.
+	 */
+	private double headingAngle = Double.NaN;
+
+	/** Cosine of <code>rAngle</code>, valid while it equals headingAngle. */
+	private double headingCos;
+
+	/** Sine of <code>rAngle</code>, valid while it equals headingAngle. */
+	private double headingSin;
+
 	/** Speed at which the robot moves (units per simulation step). */
 	protected double rSpeed;
 
@@ -40,6 +56,21 @@ public class Robot extends ArenaItem {
 	 */
 	protected char wheelLineColour = 'l';
 
+	/**
+	 * The light closest to this robot, or <code>null</code> if there are no
+	 * lights. Set by the arena each tick when it looks up the closest light.
+	 */
+	Light nearestLight = null;
+
+	/** The distance to <code>nearestLight</code>. */
+	double nearestLightDist = 0;
+
+	/**
+	 * Number of lights equally close to this robot, set by the arena each tick
+	 * when it looks up the closest light.
+	 */
+	int nearestLightTies = 0;
+
 	/**
 	 * Constructs a <code>Robot</code> object with the specified coordinates,
 	 * radius, angle, speed, and arena reference.
@@ -81,7 +112,7 @@ public class Robot extends ArenaItem {
 	}
 
 	/**
-	 * Draws this robot on the specified <code>MyCanvas</code>.
+	 * Draws this robot on the specified <code>Renderer</code>.
 	 * 
 	 * <p>
 	 * In addition to the main body, this robot has two wheels drawn as thick lines
@@ -89,10 +120,10 @@ public class Robot extends ArenaItem {
 	 * (<code>rAngle</code>).
 	 * </p>
 	 * 
-	 * @param mc the <code>MyCanvas</code> object used for drawing shapes
+	 * @param mc the <code>Renderer</code> object used for drawing shapes
 	 */
 	@Override
-	public void drawItem(MyCanvas mc) {
+	public void drawItem(Renderer mc) {
 		// Draw the main robot body
 		mc.showCircle(x, y, rad, col);
 
@@ -105,11 +136,11 @@ public class Robot extends ArenaItem {
 		// Right-side wheel
 		// -------------------------
 		// Start point at (rAngle + 45°) from the robot center
-		double startX1 = calcX(rad, rAngle + 45);
-		double startY1 = calcY(rad, rAngle + 45);
+		double startX1 = calcXOffset(rad, COS_45, COS_45);
+		double startY1 = calcYOffset(rad, COS_45, COS_45);
 		// End point at (rAngle + 135°) from the robot center
-		double endX1 = calcX(rad, rAngle + 135);
-		double endY1 = calcY(rad, rAngle + 135);
+		double endX1 = calcXOffset(rad, -COS_45, COS_45);
+		double endY1 = calcYOffset(rad, -COS_45, COS_45);
 
 		// Draw the right-side wheel
 		mc.drawLine(startX1, startY1, endX1, endY1);
@@ -118,16 +149,16 @@ public class Robot extends ArenaItem {
 		// Left-side wheel
 		// -------------------------
 		// Start point at (rAngle - 45°) from the robot center
-		double startX2 = calcX(rad, rAngle - 45);
-		double startY2 = calcY(rad, rAngle - 45);
+		double startX2 = calcXOffset(rad, COS_45, -COS_45);
+		double startY2 = calcYOffset(rad, COS_45, -COS_45);
 		// End point at (rAngle - 135°) from the robot center
-		double endX2 = calcX(rad, rAngle - 135);
-		double endY2 = calcY(rad, rAngle - 135);
+		double endX2 = calcXOffset(rad, -COS_45, -COS_45);
+		double endY2 = calcYOffset(rad, -COS_45, -COS_45);
 
 		// Draw the left-side wheel
 		mc.drawLine(startX2, startY2, endX2, endY2);
 
-		// Reset line width if desired (depends on your MyCanvas implementation)
+		// Reset line width if desired (depends on your Renderer implementation)
 		mc.setLineWidth(1);
 	}
 
@@ -142,7 +173,7 @@ public class Robot extends ArenaItem {
 	 */
 	public double calcX(double s, double deg) {
 		double radians = Math.toRadians(deg);
-		return x + s * Math.cos(radians);
+		return x + s * StrictMath.cos(radians);
 	}
 
 	/**
@@ -156,41 +187,185 @@ public class Robot extends ArenaItem {
 	 */
 	public double calcY(double s, double deg) {
 		double radians = Math.toRadians(deg);
-		return y + s * Math.sin(radians);
+		return y + s * StrictMath.sin(radians);
+	}
+
+	/**
+	 * Brings the cached heading vector up to date with <code>rAngle</code>. The
+	 * angle is still the field subclasses read and write; the trigonometry is only
+	 * redone on the first use after it changes.
+	 */
+	protected final void updateHeading() {
+		if (rAngle != headingAngle) {
+			headingCos = cosDeg(rAngle);
+			headingSin = sinDeg(rAngle);
+			headingAngle = rAngle;
+		}
+	}
+
+	/**
+	 * Returns the cosine of an angle given in degrees, without allocating.
+	 *
+	 * @param deg the angle in degrees
+	 * @return its cosine
+	 * @see #trigDeg(double, int)
+	 */
+	static double cosDeg(double deg) {
+		return trigDeg(deg, 0);
+	}
+
+	/**
+	 * Returns the sine of an angle given in degrees, without allocating.
+	 *
+	 * @param deg the angle in degrees
+	 * @return its sine
+	 * @see #trigDeg(double, int)
+	 */
+	static double sinDeg(double deg) {
+		// sin(a) is cos(a - 90°): the same remainder, one quadrant back
+		return trigDeg(deg, 3);
+	}
+
+	/**
+	 * Shared body of <code>cosDeg</code> and <code>sinDeg</code>. StrictMath.sin
+	 * and cos allocate a scratch array on every call, and a steering robot turns
+	 * every tick, so this reduces the angle to within 45° of an axis in degrees
+	 * and evaluates the fdlibm kernel polynomials directly. It is plain
+	 * arithmetic, so it gives the same result on every machine, and it agrees with
+	 * StrictMath to within a few units in the last place.
+	 *
+	 * @param deg   the angle in degrees
+	 * @param shift quarter turns to subtract before taking the cosine
+	 * @return the cosine of <code>deg - 90 * shift</code>
+	 */
+	private static double trigDeg(double deg, int shift) {
+		deg %= 360;
+		if (deg < 0) {
+			deg += 360;
+		}
+		int quadrant = (int) Math.floor((deg + 45) / 90);
+		double r = Math.toRadians(deg - 90 * quadrant);
+		double z = r * r;
+		switch ((quadrant + shift) & 3) {
+		case 0:
+			return kernelCos(z);
+		case 1:
+			return -kernelSin(r, z);
+		case 2:
+			return -kernelCos(z);
+		default:
+			return kernelSin(r, z);
+		}
+	}
+
+	/** fdlibm's sine polynomial, for |r| at most π/4 and z = r². */
+	private static double kernelSin(double r, double z) {
+		return r + z * r * (-1.66666666666666324348e-01 + z * (8.33333333332248946124e-03
+				+ z * (-1.98412698298579493134e-04 + z * (2.75573137070700676789e-06
+				+ z * (-2.50507602534068634195e-08 + z * 1.58969099521155010221e-10)))));
+	}
+
+	/** fdlibm's cosine polynomial, for |r| at most π/4 and z = r². */
+	private static double kernelCos(double z) {
+		return 1.0 - 0.5 * z + z * z * (4.16666666666666019037e-02 + z * (-1.38888888888741095749e-03
+				+ z * (2.48015872894767294178e-05 + z * (-2.75573143513906633035e-07
+				+ z * (2.08757232129817482790e-09 + z * -1.13596475577881948265e-11)))));
+	}
+
+	/**
+	 * Returns the X component of the unit vector along the robot's heading.
+	 *
+	 * @return the cosine of <code>rAngle</code>
+	 */
+	public double headingCos() {
+		updateHeading();
+		return headingCos;
 	}
 
 	/**
-	 * Checks for collisions with obstacles and other robots in the arena, and
-	 * adjusts the robot’s angle accordingly.
+	 * Returns the Y component of the unit vector along the robot's heading.
+	 *
+	 * @return the sine of <code>rAngle</code>
+	 */
+	public double headingSin() {
+		updateHeading();
+		return headingSin;
+	}
+
+	/**
+	 * Calculates the X coordinate offset by distance <code>s</code> at a fixed
+	 * angle relative to the robot's heading. The relative angle is given as its
+	 * cosine and sine, which callers precompute once, so no trigonometry is done
+	 * per call.
+	 *
+	 * @param s      the distance from the robot's center
+	 * @param cosOff the cosine of the angle relative to the heading
+	 * @param sinOff the sine of the angle relative to the heading
+	 * @return the computed X coordinate
+	 */
+	public double calcXOffset(double s, double cosOff, double sinOff) {
+		updateHeading();
+		return x + s * (headingCos * cosOff - headingSin * sinOff);
+	}
+
+	/**
+	 * Calculates the Y coordinate offset by distance <code>s</code> at a fixed
+	 * angle relative to the robot's heading.
+	 *
+	 * @param s      the distance from the robot's center
+	 * @param cosOff the cosine of the angle relative to the heading
+	 * @param sinOff the sine of the angle relative to the heading
+	 * @return the computed Y coordinate
+	 * @see #calcXOffset(double, double, double)
+	 */
+	public double calcYOffset(double s, double cosOff, double sinOff) {
+		updateHeading();
+		return y + s * (headingSin * cosOff + headingCos * sinOff);
+	}
+
+	/**
+	 * Checks whether the robot has reached the arena walls and adjusts its angle
+	 * accordingly, then steers by its closest light. Collisions with obstacles and
+	 * other robots are resolved once per pair by the arena's collision pass.
 	 *
 	 * @param r the <code>RobotArena</code> that contains this robot and other items
 	 */
 	@Override
 	public void checkItem(RobotArena r) {
-		// Check for collisions with obstacles
-		for (ArenaItem i : r.items) {
-			if (i instanceof Obstacle) {
-				Obstacle o = (Obstacle) i;
-				if (hitting(o)) {
-					// Request a new angle from the arena upon collision
-					rAngle = r.CheckRobotAngle(x, y, rad, rAngle, itemID);
-				}
-			}
+		// Check if the robot is near the arena walls and adjust angle if needed
+		// (bounce off walls)
+		rAngle = r.CheckRobotAngle(this);
+
+		// Lights are static, so the robot applies its closest light's pull itself
+		if (nearestLight != null) {
+			nearestLight.steer(this, nearestLightDist, r);
 		}
+	}
 
-		// Check collisions with other robots
-		for (ArenaItem i : r.items) {
-			if (i instanceof Robot && i.getID() != this.itemID) {
-				if (hitting(i)) {
-					// Request a new angle if robots collide
-					rAngle = r.CheckRobotAngle(x, y, rad, rAngle, itemID);
-				}
-			}
+	/**
+	 * Returns the heading that takes this robot to a light. The arena's flow
+	 * field routes around obstacles to the nearest light; where it has no heading
+	 * (the robot is pressed against an obstacle, or has no arena) the robot heads
+	 * straight for the given light instead.
+	 *
+	 * @param light the light to fall back on
+	 * @return the heading in degrees
+	 */
+	double headingToLight(Light light) {
+		double a = arena != null ? arena.getFlowField().angleAt(x, y) : Double.NaN;
+		if (Double.isNaN(a)) {
+			a = Math.toDegrees(StrictMath.atan2(light.getY() - y, light.getX() - x));
 		}
+		return a;
+	}
 
-		// Finally, check if the robot is near the arena walls and adjust angle if
-		// needed (bounce off walls)
-		rAngle = r.CheckRobotAngle(x, y, rad, rAngle, itemID);
+	/**
+	 * Called by the collision handlers when this robot has hit an obstacle.
+	 * Plain robots need nothing beyond the new angle they are given; subclasses
+	 * with their own physics can react here.
+	 */
+	void hitObstacle() {
+		// Nothing extra for a plain robot
 	}
 
 	/**
@@ -199,22 +374,30 @@ public class Robot extends ArenaItem {
 	 */
 	@Override
 	public void adjustItem() {
-		// Convert angle to radians for movement
-		double radAngle = Math.toRadians(rAngle);
-
-		// Update position by speed along the current angle
-		x += rSpeed * Math.cos(radAngle);
-		y += rSpeed * Math.sin(radAngle);
+		// Update position by speed along the current heading
+		updateHeading();
+		x += rSpeed * headingCos;
+		y += rSpeed * headingSin;
 
 		// Introduce a small (5%) chance to change direction randomly
 		double changeProbability = 0.05; // 5% chance
-		if (Math.random() < changeProbability) {
+		if (random() < changeProbability) {
 			// Random offset between -20 and +20 degrees
-			double randomOffset = (Math.random() * 40) - 20;
+			double randomOffset = (random() * 40) - 20;
 			rAngle = (rAngle + randomOffset) % 360;
 		}
 	}
 
+	/**
+	 * Returns a random number from the arena's generator, so that the robot's
+	 * random decisions follow the arena's seed in deterministic mode.
+	 *
+	 * @return a uniformly distributed value in [0, 1)
+	 */
+	double random() {
+		return arena != null ? arena.random() : Math.random();
+	}
+
 	/**
 	 * Returns a string representing the type of this item.
 	 *
@@ -246,6 +429,30 @@ public class Robot extends ArenaItem {
 		return rAngle;
 	}
 
+	/**
+	 * Adds the heading and speed to the hash of the item's state.
+	 *
+	 * @return a 64-bit hash of the robot's state
+	 */
+	@Override
+	public long stateHash() {
+		return mix(mix(super.stateHash(), rAngle), rSpeed);
+	}
+
+	@Override
+	void writeState(StringBuilder sb) {
+		super.writeState(sb);
+		sb.append(' ').append(rAngle).append(' ').append(rSpeed);
+	}
+
+	@Override
+	int readState(String[] f, int i) {
+		i = super.readState(f, i);
+		rAngle = Double.parseDouble(f[i++]);
+		rSpeed = Double.parseDouble(f[i++]);
+		return i;
+	}
+
 	/**
 	 * Returns a formatted string to represent this robot for file output.
 	 *
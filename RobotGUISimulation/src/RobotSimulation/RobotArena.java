@@ -1,6 +1,11 @@
 package RobotSimulation;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
@@ -32,24 +37,105 @@ public class RobotArena {
 
 	/** List containing all arena items (robots, lights, obstacles, etc.). */
 	protected ArrayList<ArenaItem> items;
-	/** List of obstacles in the arena (for quick access, if needed). */
-	protected ArrayList<Obstacle> obstacles;
-	/** List of robots in the arena. */
-	protected ArrayList<Robot> robots;
-	/** List of lights in the arena. */
-	protected ArrayList<Light> lights;
-	/** List of whiskers in the arena. */
-	protected ArrayList<Whisker> whiskers;
-	/** List of beams in the arena. */
-	protected ArrayList<Beam> beams;
-	/** List of triangular robots in the arena. */
-	protected ArrayList<triRobot> triRobots;
+	/** The items that move or act each tick, in the order they were added. */
+	protected final ArrayList<ArenaItem> dynamicItems = new ArrayList<>();
+	/** The items that never move (obstacles and lights). */
+	protected final ArrayList<ArenaItem> staticItems = new ArrayList<>();
+	/** Index of the obstacles in the arena, including bounce and mini obstacles. */
+	protected final ItemIndex<Obstacle> obstacles = new ItemIndex<>(Obstacle.class, 0);
+	/** Index of the robots in the arena, including every kind of robot. */
+	protected final ItemIndex<Robot> robots = new ItemIndex<>(Robot.class, 1);
+	/** Index of the lights in the arena. */
+	protected final ItemIndex<Light> lights = new ItemIndex<>(Light.class, 2);
+	/** Index of the whiskers in the arena. */
+	protected final ItemIndex<Whisker> whiskers = new ItemIndex<>(Whisker.class, 3);
+	/** Index of the beams in the arena, including beam lights and predators. */
+	protected final ItemIndex<Beam> beams = new ItemIndex<>(Beam.class, 4);
+	/** Index of the triangular robots in the arena. */
+	protected final ItemIndex<triRobot> triRobots = new ItemIndex<>(triRobot.class, 5);
+	/** Every typed index, updated together as items are added and removed. */
+	private final ItemIndex<?>[] indices = { obstacles, robots, lights, whiskers, beams, triRobots };
 
 	/** Indicates whether the arena is in blackout mode. */
 	boolean isBlackOut = false;
 	/** The shape of the arena (rectangle, circle, etc.). */
 	private String arenaShape = "rectangle"; // default is "rectangle"
 
+	/**
+	 * Maximum distance at which items see each other through their neighbour
+	 * lists. The default covers the longest built-in sensor: a predator beam (80)
+	 * plus its detection buffer (15) plus the radius of the detected item.
+	 */
+	private double interactionRadius = 120;
+	/** Grid used to find neighbouring items once per tick. */
+	private final SpatialGrid neighbourGrid = new SpatialGrid();
+	/**
+	 * Hands each pair of moving items found by the grid to both items. A sleeping
+	 * item with an awake item close by is woken up.
+	 */
+	private final SpatialGrid.PairVisitor neighbourLinker = (a, b, dist) -> {
+		a.neighbourFound(b, dist);
+		b.neighbourFound(a, dist);
+		if (a.sleeping != b.sleeping) {
+			wake(a.sleeping ? a : b);
+		}
+	};
+	/**
+	 * Grid over the static items only. It is rebuilt when a static item is added
+	 * or removed rather than every tick.
+	 */
+	private final SpatialGrid staticGrid = new SpatialGrid();
+	/** Whether <code>staticGrid</code> needs rebuilding before its next query. */
+	private boolean staticsChanged = true;
+	/** Hands a static item found near a moving item to the moving item. */
+	private final SpatialGrid.PairVisitor staticLinker = (a, b, dist) -> a.neighbourFound(b, dist);
+	/** The items currently asleep. */
+	private final ArrayList<ArenaItem> sleepers = new ArrayList<>();
+	/** Ghost copies of items owned by neighbouring shards, for this tick only. */
+	private final ArrayList<ArenaItem> ghosts = new ArrayList<>();
+	/** Ghost prey eaten this tick, for the shards that own them. */
+	private final ArrayList<ArenaItem> eatenGhosts = new ArrayList<>();
+
+	/**
+	 * The ID given to the next item added. IDs are allocated per arena so that
+	 * arenas sharing a JVM do not affect each other's numbering.
+	 */
+	private int nextItemID = 0;
+
+	/** Number of ticks completed by <code>adjustItems</code>. */
+	private long tick = 0;
+	/** Receives a frame of robot state after every tick, if set. */
+	private TrajectoryRecorder recorder = null;
+	/** Captures a frame for export every few ticks, if set. */
+	private FrameExporter frameExporter = null;
+	/** Runs the items' checks on several threads, or <code>null</code> if off. */
+	private ParallelCheckPhase checkPhase = null;
+	/** Source of every random decision made by the arena and its items. */
+	private Random rng = new Random();
+	/** Whether the arena runs in deterministic mode. */
+	private boolean deterministic = false;
+	/** Rolling hash of the item states after every tick, in deterministic mode. */
+	private long stateHash = 0;
+	/** Answers ray queries from the items' sensors. */
+	private final RaycastService raycaster;
+	/** Headings towards the nearest light, shared by every light-seeking robot. */
+	private final FlowField flowField = new FlowField();
+	/** Whether <code>flowField</code> needs rebuilding before the next checks. */
+	private boolean flowChanged = true;
+	/** Detects and resolves collisions between items once per tick. */
+	private final CollisionPass collisionPass = new CollisionPass();
+
+	/**
+	 * Whether a tick is in progress. Items added or removed while it is are
+	 * queued until the tick's item loops have finished.
+	 */
+	private boolean updating = false;
+	/** Items waiting to be added once the current tick's loops finish. */
+	private final ArrayList<ArenaItem> pendingAdds = new ArrayList<>();
+	/** Items waiting to be removed once the current tick's loops finish. */
+	private final ArrayList<ArenaItem> pendingRemovals = new ArrayList<>();
+
+
 	/**
 	 * Default constructor that initializes the arena with predefined dimensions.
 	 * The default dimensions are 500 (width) by 400 (height).
@@ -68,18 +154,327 @@ public class RobotArena {
 		xMax = xS;
 		yMax = yS;
 		items = new ArrayList<ArenaItem>();
-		triRobots = new ArrayList<>();
+		raycaster = new RaycastService(items);
+		registerDefaultCollisions();
 
 		// Add sample items to the arena.
 		// Example initial items include various types of robots, whiskers, lights,
 		// beams, and obstacles.
-		items.add(new PredatorRobot(300, 300, 10, 45, 2, this));
-		items.add(new Prey(200, 200, 10, 45, 2, this));
-		items.add(new Robot(100, 100, 10, 45, 2, this));
-		items.add(new Whisker(100, 50, 10, 45, 1, this));
-		items.add(new Obstacle(350, 100, 10));
-		items.add(new Obstacle(100, 300, 10));
+		addItem(new PredatorRobot(300, 300, 10, 45, 2, this));
+		addItem(new Prey(200, 200, 10, 45, 2, this));
+		addItem(new Robot(100, 100, 10, 45, 2, this));
+		addItem(new Whisker(100, 50, 10, 45, 1, this));
+		addItem(new Obstacle(350, 100, 10));
+		addItem(new Obstacle(100, 300, 10));
+
+	}
+
+	/**
+	 * Fills the collision table with the built-in handlers. Each handler resolves
+	 * one colliding pair, replacing the separate scans that each item used to do
+	 * for itself.
+	 */
+	private void registerDefaultCollisions() {
+		CollisionTable table = collisionPass.getTable();
+		// Robots bounce off obstacles and are nudged clear of them
+		table.register(Robot.class, Obstacle.class, (rob, o, dist, arena) -> o.deflect(rob, arena));
+		// Two robots both pick a new direction
+		table.register(Robot.class, Robot.class, (a, b, dist, arena) -> arena.bounceApart(a, b));
+		// A triRobot also exchanges momentum with the robot it hits
+		table.register(triRobot.class, Robot.class, (tr, rob, dist, arena) -> {
+			arena.bounceApart(tr, rob);
+			tr.handleRobotCollision(arena, rob);
+		});
+		// Bounce obstacles deflect randomly, shrink and eventually break
+		table.register(Robot.class, BounceObstacle.class, (rob, bo, dist, arena) -> bo.handleCollision(arena, rob));
+		// Mini obstacles are absorbed for points
+		table.register(Robot.class, miniObstacleXP.class, (rob, mo, dist, arena) -> mo.absorb(arena, rob));
+	}
+
+	/**
+	 * Returns the collision pass, for access to its handler table and broad phase.
+	 *
+	 * @return the collision pass used by this arena
+	 */
+	public CollisionPass getCollisionPass() {
+		return collisionPass;
+	}
+
+	/**
+	 * Selects the broad phase used to find candidate collision pairs.
+	 *
+	 * <p>
+	 * Supported backends are <code>"grid"</code> (a uniform grid sized to the
+	 * largest item, the default) and <code>"sap"</code> (sweep and prune on the X
+	 * axis, better suited to arenas mixing very small and very large items).
+	 * </p>
+	 *
+	 * @param name the name of the backend
+	 * @throws IllegalArgumentException if the name is not recognised
+	 */
+	public void setCollisionBackend(String name) {
+		switch (name.toLowerCase().trim()) {
+		case "grid":
+			collisionPass.setBroadPhase(new UniformGridBroadPhase());
+			break;
+		case "sap":
+		case "sweep":
+			collisionPass.setBroadPhase(new SweepAndPruneBroadPhase());
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown collision backend: " + name);
+		}
+		System.out.println("Collision backend set to: " + collisionPass.getBroadPhase().getName());
+	}
+
+	/**
+	 * Returns the name of the broad phase currently used for collisions.
+	 *
+	 * @return the backend name, e.g. <code>"grid"</code> or <code>"sap"</code>
+	 */
+	public String getCollisionBackend() {
+		return collisionPass.getBroadPhase().getName();
+	}
+
+	/**
+	 * Adds an item to the arena. If called during a tick (for example by an item
+	 * spawning others), the item is added once the tick's loops have finished.
+	 *
+	 * @param item the item to add
+	 */
+	public void addItem(ArenaItem item) {
+		if (deferring()) {
+			checkPhase.defer(() -> addItem(item));
+		} else if (updating) {
+			pendingAdds.add(item);
+		} else {
+			insertItem(item);
+		}
+	}
+
+	/**
+	 * Removes an item from the arena. If called during a tick, the item is
+	 * removed once the tick's loops have finished.
+	 *
+	 * @param item the item to remove
+	 */
+	public void removeItem(ArenaItem item) {
+		if (deferring()) {
+			checkPhase.defer(() -> removeItem(item));
+		} else if (updating) {
+			pendingRemovals.add(item);
+		} else {
+			deleteItem(item);
+		}
+	}
+
+	/**
+	 * Applies the additions and removals queued during the last tick.
+	 */
+	private void flushPending() {
+		if (!pendingRemovals.isEmpty()) {
+			// Unlink them all, then sweep each list once rather than once per item
+			boolean removed = false;
+			for (ArenaItem item : pendingRemovals) {
+				removed |= unlinkItem(item);
+			}
+			if (removed) {
+				purgeRemoved();
+			}
+			pendingRemovals.clear();
+		}
+		if (!pendingAdds.isEmpty()) {
+			for (ArenaItem item : pendingAdds) {
+				insertItem(item);
+			}
+			pendingAdds.clear();
+		}
+	}
+
+	/**
+	 * Adds an item to the full list and to its static or dynamic list, giving it
+	 * the arena's next item ID. A new static item wakes any sleeping items near
+	 * it.
+	 *
+	 * @param item the item to add
+	 */
+	private void insertItem(ArenaItem item) {
+		item.itemID = nextItemID++;
+		item.inArena = true;
+		items.add(item);
+		for (ItemIndex<?> index : indices) {
+			if (index.accepts(item)) {
+				index.insert(item);
+			}
+		}
+		if (item.isStatic()) {
+			staticItems.add(item);
+			staticsChanged = true;
+			flowChanged = true;
+			wakeNear(item);
+		} else {
+			dynamicItems.add(item);
+			if (item.sleeping && !item.ghost) {
+				sleepers.add(item);
+			}
+		}
+	}
+
+	/**
+	 * Removes an item from the full list and from its static or dynamic list. A
+	 * removed static item wakes any sleeping items near it.
+	 *
+	 * @param item the item to remove
+	 */
+	private void deleteItem(ArenaItem item) {
+		if (unlinkItem(item)) {
+			purgeRemoved();
+		}
+	}
+
+	/**
+	 * Takes an item out of the typed indices and marks it as removed, leaving it
+	 * in the item lists until {@link #purgeRemoved()}. A removed static item wakes
+	 * any sleeping items near it.
+	 *
+	 * @param item the item to remove
+	 * @return <code>true</code> if the item was in the arena
+	 */
+	private boolean unlinkItem(ArenaItem item) {
+		if (!item.inArena) {
+			return false;
+		}
+		item.inArena = false;
+		for (ItemIndex<?> index : indices) {
+			index.delete(item);
+		}
+		if (item.isStatic()) {
+			staticsChanged = true;
+			flowChanged = true;
+			wakeNear(item);
+		}
+		return true;
+	}
+
+	/**
+	 * Drops every item marked as removed from the item lists, keeping the order of
+	 * the rest. Costs one pass over each list however many items are removed.
+	 */
+	private void purgeRemoved() {
+		items.removeIf(i -> !i.inArena);
+		staticItems.removeIf(i -> !i.inArena);
+		dynamicItems.removeIf(i -> !i.inArena);
+		sleepers.removeIf(i -> !i.inArena);
+	}
+
+	/**
+	 * Puts an item to sleep: it is skipped by <code>checkItems</code> and
+	 * <code>adjustItems</code> until an awake moving item comes within the
+	 * interaction radius, a static item is added or removed nearby, or the arena
+	 * itself changes.
+	 *
+	 * @param item the item to put to sleep
+	 */
+	public void sleep(ArenaItem item) {
+		if (deferring()) {
+			checkPhase.defer(() -> sleep(item));
+		} else if (!item.sleeping && !item.isStatic()) {
+			item.sleeping = true;
+			sleepers.add(item);
+		}
+	}
+
+	/**
+	 * Wakes a sleeping item so that it is updated again from the next loop.
+	 *
+	 * @param item the item to wake
+	 */
+	public void wake(ArenaItem item) {
+		if (deferring()) {
+			checkPhase.defer(() -> wake(item));
+		} else if (item.sleeping && !item.ghost) {
+			item.sleeping = false;
+			sleepers.remove(item);
+		}
+	}
+
+	/**
+	 * Adds a ghost: a read-only copy of a moving item owned by another shard of a
+	 * sharded arena. The ghost takes part in neighbour searches, sensing and
+	 * collisions like any item, but is never checked or moved, can never be
+	 * woken, and stays only until {@link #clearGhosts()}.
+	 *
+	 * @param item the copy to add
+	 */
+	public void addGhost(ArenaItem item) {
+		item.ghost = true;
+		item.sleeping = true;
+		ghosts.add(item);
+		addItem(item);
+	}
 
+	/**
+	 * Returns the ghost prey eaten since the last {@link #clearGhosts()}. The
+	 * ghosts themselves are thrown away, so the shard that owns each prey has to
+	 * be told to remove it.
+	 *
+	 * @return the eaten ghosts
+	 */
+	public List<ArenaItem> getEatenGhosts() {
+		return eatenGhosts;
+	}
+
+	/**
+	 * Removes every ghost added since the last call, discarding anything that
+	 * happened to them. Must not be called during a tick.
+	 */
+	public void clearGhosts() {
+		eatenGhosts.clear();
+		if (ghosts.isEmpty()) {
+			return;
+		}
+		// One sweep of each list rather than a linear search per ghost
+		items.removeIf(i -> i.ghost);
+		dynamicItems.removeIf(i -> i.ghost);
+		for (ArenaItem g : ghosts) {
+			g.inArena = false;
+			for (ItemIndex<?> index : indices) {
+				index.delete(g);
+			}
+		}
+		ghosts.clear();
+	}
+
+	/**
+	 * Wakes every sleeping item.
+	 */
+	public void wakeAll() {
+		wakeSleepers();
+	}
+
+	/**
+	 * Wakes every sleeping item. Private so that the constructor can use it.
+	 */
+	private void wakeSleepers() {
+		for (ArenaItem s : sleepers) {
+			s.sleeping = false;
+		}
+		sleepers.clear();
+	}
+
+	/**
+	 * Wakes the sleeping items within the interaction radius of the given item.
+	 *
+	 * @param item the item whose surroundings changed
+	 */
+	private void wakeNear(ArenaItem item) {
+		for (int i = sleepers.size() - 1; i >= 0; i--) {
+			ArenaItem s = sleepers.get(i);
+			if (distanceBetween(s.x, s.y, item.x, item.y) <= interactionRadius + item.rad) {
+				s.sleeping = false;
+				sleepers.remove(i);
+			}
+		}
 	}
 
 	/**
@@ -87,6 +482,16 @@ public class RobotArena {
 	 * "rectangle"
 	 */
 	public void setArenaShape(String shape) {
+		applyShape(shape);
+	}
+
+	/**
+	 * Sets the arena shape as {@link #setArenaShape(String)} does. Private so
+	 * that the constructor can use it while loading a saved arena.
+	 *
+	 * @param shape the new shape
+	 */
+	private void applyShape(String shape) {
 		shape = shape.toLowerCase().trim();
 
 		// If switching FROM something else TO "circle", do the "halving" for
@@ -113,8 +518,11 @@ public class RobotArena {
 			}
 		}
 
-		// Finally, store the new shape
+		// Finally, store the new shape; items may now be touching a different wall
 		arenaShape = shape;
+		staticsChanged = true;
+		flowChanged = true;
+		wakeSleepers();
 		System.out.println("Arena shape set to: " + arenaShape);
 	}
 
@@ -122,7 +530,8 @@ public class RobotArena {
 	 * Generates a file string representing the current state of the arena.
 	 *
 	 * <p>
-	 * The output includes the arena dimensions on the first line, followed by a
+	 * The output includes the arena dimensions on the first line, a
+	 * <code>Shape</code> line if the arena is not rectangular, followed by a
 	 * properly formatted string for each item.
 	 * </p>
 	 *
@@ -131,8 +540,11 @@ public class RobotArena {
 	public String filestring() {
 		StringBuilder sb = new StringBuilder();
 
-		// First line: arena dimensions
+		// First line: arena dimensions, then the shape unless it is the default
 		sb.append(xMax).append(" ").append(yMax).append("\n");
+		if (!arenaShape.equals("rectangle")) {
+			sb.append("Shape ").append(arenaShape).append("\n");
+		}
 
 		// Add each item's file string, one per line.
 		for (ArenaItem item : items) {
@@ -156,7 +568,8 @@ public class RobotArena {
 	 */
 	public RobotArena(String savedData) {
 		items = new ArrayList<>();
-		triRobots = new ArrayList<>();
+		raycaster = new RaycastService(items);
+		registerDefaultCollisions();
 		String[] lines = savedData.split("\n");
 
 		if (lines.length > 0) {
@@ -188,224 +601,35 @@ public class RobotArena {
 				}
 
 				try {
-					switch (parts[0]) {
-
-					// -------------------------
-					// NEW: Score line
-					// Format: "Score <integerValue>"
-					// -------------------------
-					case "Score":
+					if (parts[0].equals("Score")) {
+						// -------------------------
+						// NEW: Score line
+						// Format: "Score <integerValue>"
+						// -------------------------
 						if (parts.length >= 2) {
 							int sc = Integer.parseInt(parts[1]);
 							totalScore.set(sc); // sets the arena's current score
 							System.out.println("Set Arena Score to: " + sc);
 						}
-						break;
-
-					case "Robot":
-						if (parts.length >= 7) {
-							double x = Double.parseDouble(parts[1]);
-							double y = Double.parseDouble(parts[2]);
-							double rad = Double.parseDouble(parts[3]);
-							char col = parts[4].charAt(0);
-							double angle = Double.parseDouble(parts[5]);
-							double speed = Double.parseDouble(parts[6]);
-							Robot r = new Robot(x, y, rad, angle, speed, this);
-							r.col = col;
-							items.add(r);
-							itemsLoaded++;
-							System.out.println("Added Robot");
-						}
-						break;
-
-					case "Whisker":
-						if (parts.length >= 7) {
-							double x = Double.parseDouble(parts[1]);
-							double y = Double.parseDouble(parts[2]);
-							double rad = Double.parseDouble(parts[3]);
-							char col = parts[4].charAt(0);
-							double angle = Double.parseDouble(parts[5]);
-							double speed = Double.parseDouble(parts[6]);
-							Whisker w = new Whisker(x, y, rad, angle, speed, this);
-							w.col = col;
-							items.add(w);
-							itemsLoaded++;
-							System.out.println("Added Whisker");
-						}
-						break;
-
-					case "Beam":
-						if (parts.length >= 8) {
-							String type = parts[1]; // "Robot" or "Light"
-							double x = Double.parseDouble(parts[2]);
-							double y = Double.parseDouble(parts[3]);
-							double rad = Double.parseDouble(parts[4]);
-							char col = parts[5].charAt(0);
-							double angle = Double.parseDouble(parts[6]);
-							double speed = Double.parseDouble(parts[7]);
-
-							if (type.equals("Light")) {
-								BeamLight bl = new BeamLight(x, y, rad, angle, speed, this);
-								bl.col = col;
-								items.add(bl);
-								itemsLoaded++;
-								System.out.println("Added Beam Light");
-							} else if (type.equals("Robot")) {
-								Beam b = new Beam(x, y, rad, angle, speed, this);
-								b.col = col;
-								items.add(b);
-								itemsLoaded++;
-								System.out.println("Added Beam Robot");
-							}
-						}
-						break;
-
-					case "Light":
-						if (parts.length >= 5) {
-							double x = Double.parseDouble(parts[1]);
-							double y = Double.parseDouble(parts[2]);
-							double rad = Double.parseDouble(parts[3]);
-							char col = parts[4].charAt(0);
-							Light l = new Light(x, y, rad);
-							l.col = col;
-							items.add(l);
-							itemsLoaded++;
-							System.out.println("Added Light");
-						}
-						break;
-
-					case "Obstacle":
-						if (parts.length >= 5) {
-							double x = Double.parseDouble(parts[1]);
-							double y = Double.parseDouble(parts[2]);
-							double rad = Double.parseDouble(parts[3]);
-							char col = parts[4].charAt(0);
-							Obstacle o = new Obstacle(x, y, rad);
-							o.col = col;
-							items.add(o);
-							itemsLoaded++;
-							System.out.println("Added Obstacle");
-						}
-						break;
-
-					case "Prey":
-						if (parts.length >= 7) {
-							double x = Double.parseDouble(parts[1]);
-							double y = Double.parseDouble(parts[2]);
-							double rad = Double.parseDouble(parts[3]);
-							char col = parts[4].charAt(0);
-							double angle = Double.parseDouble(parts[5]);
-							double speed = Double.parseDouble(parts[6]);
-							Prey p = new Prey(x, y, rad, angle, speed, this);
-							p.col = col;
-							items.add(p);
-							itemsLoaded++;
-							System.out.println("Added Prey");
-						}
-						break;
-
-					// --------------------------------------------
-					// UPDATED Predator: parse preysEaten
-					// Format example:
-					// Predator x y rad col angle speed preysEaten
-					// --------------------------------------------
-					case "Predator":
-						if (parts.length >= 8) {
-							double x = Double.parseDouble(parts[1]);
-							double y = Double.parseDouble(parts[2]);
-							double rad = Double.parseDouble(parts[3]);
-							char col = parts[4].charAt(0);
-							double angle = Double.parseDouble(parts[5]);
-							double speed = Double.parseDouble(parts[6]);
-							int preysEaten = Integer.parseInt(parts[7]);
-
-							PredatorRobot pr = new PredatorRobot(x, y, rad, angle, speed, this);
-							pr.col = col;
-							// If PredatorRobot has a setter: pr.setPreysEaten(preysEaten);
-							pr.setPreysEaten(preysEaten);
-
-							items.add(pr);
-							itemsLoaded++;
-							System.out.println("Added Predator, preysEaten=" + preysEaten);
-						}
-						break;
-
-					case "triRobot":
-						// Expected minimum format:
-						// triRobot x y rad col angle speed
-						// Optional extra fields if your triRobot uses them
-						if (parts.length >= 7) {
-							double x = Double.parseDouble(parts[1]);
-							double y = Double.parseDouble(parts[2]);
-							double rad = Double.parseDouble(parts[3]);
-							char col = parts[4].charAt(0);
-							double angle = Double.parseDouble(parts[5]);
-							double speed = Double.parseDouble(parts[6]);
-
-							// 1) Create the triRobot using your advanced constructor
-							triRobot tr = new triRobot(x, y, rad, angle, speed, this);
-							tr.col = col; // set color from the char
-
-							// 2) If you have additional fields (like frictionFactor or velocityX),
-							// you can parse them if they exist. For example:
-							// Format example with extra fields:
-							// triRobot x y rad col angle speed frictionFactor velocityX velocityY
-							if (parts.length >= 10) {
-								double frictionFactor = Double.parseDouble(parts[7]);
-								double vx = Double.parseDouble(parts[8]);
-								double vy = Double.parseDouble(parts[9]);
-								// If your triRobot has these setters:
-								tr.setFrictionFactor(frictionFactor);
-								tr.setVelocity(vx, vy);
-							}
-
-							// 3) Finally add triRobot to items
-							items.add(tr);
-							itemsLoaded++;
-							System.out.println("Added triRobot");
-						}
-						break;
-
-					// ------------------------------------------------
-					// MiniObstacle:
-					// MiniObstacle x y rad col
-					// ------------------------------------------------
-					case "MiniObstacle":
-						if (parts.length >= 5) {
-							double x = Double.parseDouble(parts[1]);
-							double y = Double.parseDouble(parts[2]);
-							double rad = Double.parseDouble(parts[3]);
-							char col = parts[4].charAt(0);
-
-							// Suppose your MiniObstacle constructor is (x,y,rad)
-							miniObstacleXP mo = new miniObstacleXP(x, y, rad);
-							mo.col = col;
-							items.add(mo);
-							itemsLoaded++;
-							System.out.println("Added MiniObstacle");
+						continue;
+					}
+					if (parts[0].equals("Shape")) {
+						// Format: "Shape <rectangle|circle>"
+						if (parts.length >= 2) {
+							applyShape(parts[1]);
 						}
-						break;
-
-					// ------------------------------------------------
-					// BounceObstacle:
-					// BounceObstacle x y rad col
-					// ------------------------------------------------
-					case "BounceObstacle":
-						if (parts.length >= 5) {
-							double x = Double.parseDouble(parts[1]);
-							double y = Double.parseDouble(parts[2]);
-							double rad = Double.parseDouble(parts[3]);
-							char col = parts[4].charAt(0);
-
-							BounceObstacle bo = new BounceObstacle(x, y, rad);
-							bo.col = col;
-							items.add(bo);
-							itemsLoaded++;
-							System.out.println("Added BounceObstacle");
+						continue;
+					}
+					ArenaItem item = parseItem(line);
+					if (item != null) {
+						addItem(item);
+						itemsLoaded++;
+						String added = parts[0].equals("Beam") ? "Beam " + parts[1] : parts[0];
+						if (item instanceof PredatorRobot) {
+							added += ", preysEaten=" + ((PredatorRobot) item).getPreysEaten();
 						}
-						break;
-
-					} // end switch
+						System.out.println("Added " + added);
+					}
 				} catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
 					System.out.println("Error parsing line: " + line);
 					e.printStackTrace();
@@ -415,6 +639,220 @@ public class RobotArena {
 		}
 	}
 
+	/**
+	 * Creates an item from one line of saved data, in the format written by the
+	 * item's <code>fileString</code> method. The item belongs to this arena but is
+	 * not added to it.
+	 *
+	 * @param line a saved item, e.g. <code>"Robot 100.0 50.0 10.0 r 45.0 2.0"</code>
+	 * @return the item, or <code>null</code> if the line is not a known item or
+	 *         has too few fields
+	 * @throws NumberFormatException if a number field cannot be parsed
+	 */
+	ArenaItem parseItem(String line) {
+		String[] parts = line.trim().split("\\s+");
+		switch (parts[0]) {
+		case "Robot":
+			if (parts.length >= 7) {
+				double x = Double.parseDouble(parts[1]);
+				double y = Double.parseDouble(parts[2]);
+				double rad = Double.parseDouble(parts[3]);
+				char col = parts[4].charAt(0);
+				double angle = Double.parseDouble(parts[5]);
+				double speed = Double.parseDouble(parts[6]);
+				Robot r = new Robot(x, y, rad, angle, speed, this);
+				r.col = col;
+				return r;
+			}
+			break;
+
+		case "Whisker":
+			if (parts.length >= 7) {
+				double x = Double.parseDouble(parts[1]);
+				double y = Double.parseDouble(parts[2]);
+				double rad = Double.parseDouble(parts[3]);
+				char col = parts[4].charAt(0);
+				double angle = Double.parseDouble(parts[5]);
+				double speed = Double.parseDouble(parts[6]);
+				Whisker w = new Whisker(x, y, rad, angle, speed, this);
+				w.col = col;
+				return w;
+			}
+			break;
+
+		case "LidarRobot":
+			// LidarRobot x y rad col angle speed rays range
+			if (parts.length >= 9) {
+				double x = Double.parseDouble(parts[1]);
+				double y = Double.parseDouble(parts[2]);
+				double rad = Double.parseDouble(parts[3]);
+				char col = parts[4].charAt(0);
+				double angle = Double.parseDouble(parts[5]);
+				double speed = Double.parseDouble(parts[6]);
+				int rays = Integer.parseInt(parts[7]);
+				double range = Double.parseDouble(parts[8]);
+				LidarRobot lr = new LidarRobot(x, y, rad, angle, speed, this, rays, range);
+				lr.col = col;
+				return lr;
+			}
+			break;
+
+		case "Beam":
+			if (parts.length >= 8) {
+				String type = parts[1]; // "Robot" or "Light"
+				double x = Double.parseDouble(parts[2]);
+				double y = Double.parseDouble(parts[3]);
+				double rad = Double.parseDouble(parts[4]);
+				char col = parts[5].charAt(0);
+				double angle = Double.parseDouble(parts[6]);
+				double speed = Double.parseDouble(parts[7]);
+
+				if (type.equals("Light")) {
+					BeamLight bl = new BeamLight(x, y, rad, angle, speed, this);
+					bl.col = col;
+					return bl;
+				} else if (type.equals("Robot")) {
+					Beam b = new Beam(x, y, rad, angle, speed, this);
+					b.col = col;
+					return b;
+				}
+			}
+			break;
+
+		case "Light":
+			if (parts.length >= 5) {
+				double x = Double.parseDouble(parts[1]);
+				double y = Double.parseDouble(parts[2]);
+				double rad = Double.parseDouble(parts[3]);
+				char col = parts[4].charAt(0);
+				Light l = new Light(x, y, rad);
+				l.col = col;
+				return l;
+			}
+			break;
+
+		case "Obstacle":
+			if (parts.length >= 5) {
+				double x = Double.parseDouble(parts[1]);
+				double y = Double.parseDouble(parts[2]);
+				double rad = Double.parseDouble(parts[3]);
+				char col = parts[4].charAt(0);
+				Obstacle o = new Obstacle(x, y, rad);
+				o.col = col;
+				return o;
+			}
+			break;
+
+		case "Prey":
+			if (parts.length >= 7) {
+				double x = Double.parseDouble(parts[1]);
+				double y = Double.parseDouble(parts[2]);
+				double rad = Double.parseDouble(parts[3]);
+				char col = parts[4].charAt(0);
+				double angle = Double.parseDouble(parts[5]);
+				double speed = Double.parseDouble(parts[6]);
+				Prey p = new Prey(x, y, rad, angle, speed, this);
+				p.col = col;
+				return p;
+			}
+			break;
+
+		// --------------------------------------------
+		// UPDATED Predator: parse preysEaten
+		// Format example:
+		// Predator x y rad col angle speed preysEaten
+		// --------------------------------------------
+		case "Predator":
+			if (parts.length >= 8) {
+				double x = Double.parseDouble(parts[1]);
+				double y = Double.parseDouble(parts[2]);
+				double rad = Double.parseDouble(parts[3]);
+				char col = parts[4].charAt(0);
+				double angle = Double.parseDouble(parts[5]);
+				double speed = Double.parseDouble(parts[6]);
+				int preysEaten = Integer.parseInt(parts[7]);
+
+				PredatorRobot pr = new PredatorRobot(x, y, rad, angle, speed, this);
+				pr.col = col;
+				// If PredatorRobot has a setter: pr.setPreysEaten(preysEaten);
+				pr.setPreysEaten(preysEaten);
+				return pr;
+			}
+			break;
+
+		case "triRobot":
+			// Expected minimum format:
+			// triRobot x y rad col angle speed
+			// Optional extra fields if your triRobot uses them
+			if (parts.length >= 7) {
+				double x = Double.parseDouble(parts[1]);
+				double y = Double.parseDouble(parts[2]);
+				double rad = Double.parseDouble(parts[3]);
+				char col = parts[4].charAt(0);
+				double angle = Double.parseDouble(parts[5]);
+				double speed = Double.parseDouble(parts[6]);
+
+				// 1) Create the triRobot using your advanced constructor
+				triRobot tr = new triRobot(x, y, rad, angle, speed, this);
+				tr.col = col; // set color from the char
+
+				// 2) If you have additional fields (like frictionFactor or velocityX),
+				// you can parse them if they exist. For example:
+				// Format example with extra fields:
+				// triRobot x y rad col angle speed frictionFactor velocityX velocityY
+				if (parts.length >= 10) {
+					double frictionFactor = Double.parseDouble(parts[7]);
+					double vx = Double.parseDouble(parts[8]);
+					double vy = Double.parseDouble(parts[9]);
+					// If your triRobot has these setters:
+					tr.setFrictionFactor(frictionFactor);
+					tr.setVelocity(vx, vy);
+				}
+
+				// 3) Finally hand the triRobot back to be added
+				return tr;
+			}
+			break;
+
+		// ------------------------------------------------
+		// MiniObstacle:
+		// MiniObstacle x y rad col
+		// ------------------------------------------------
+		case "MiniObstacle":
+			if (parts.length >= 5) {
+				double x = Double.parseDouble(parts[1]);
+				double y = Double.parseDouble(parts[2]);
+				double rad = Double.parseDouble(parts[3]);
+				char col = parts[4].charAt(0);
+
+				// Suppose your MiniObstacle constructor is (x,y,rad)
+				miniObstacleXP mo = new miniObstacleXP(x, y, rad);
+				mo.col = col;
+				return mo;
+			}
+			break;
+
+		// ------------------------------------------------
+		// BounceObstacle:
+		// BounceObstacle x y rad col
+		// ------------------------------------------------
+		case "BounceObstacle":
+			if (parts.length >= 5) {
+				double x = Double.parseDouble(parts[1]);
+				double y = Double.parseDouble(parts[2]);
+				double rad = Double.parseDouble(parts[3]);
+				char col = parts[4].charAt(0);
+
+				BounceObstacle bo = new BounceObstacle(x, y, rad);
+				bo.col = col;
+				return bo;
+			}
+			break;
+
+		} // end switch
+		return null;
+	}
+
 	/**
 	 * A public method that any item (e.g., a BounceObstacle or a Robot) can call to
 	 * increase the arena's total score.
@@ -422,6 +860,10 @@ public class RobotArena {
 	 * @param points the number of points to add
 	 */
 	public void addScore(int points) {
+		if (deferring()) {
+			checkPhase.defer(() -> addScore(points));
+			return;
+		}
 		totalScore.set(totalScore.get() + points);
 	}
 
@@ -451,16 +893,168 @@ public class RobotArena {
 		return yMax;
 	}
 
+	/**
+	 * Returns the shape of the arena's boundary.
+	 *
+	 * @return <code>"rectangle"</code> or <code>"circle"</code>
+	 */
+	public String getArenaShape() {
+		return arenaShape;
+	}
+
+	/**
+	 * Finds how far a ray travels before leaving the arena through its wall, for
+	 * whichever shape the arena has. A circular arena is the largest circle that
+	 * fits in the bounding rectangle.
+	 *
+	 * @param ox the X coordinate of the ray's start
+	 * @param oy the Y coordinate of the ray's start
+	 * @param dx the X component of the ray's unit direction
+	 * @param dy the Y component of the ray's unit direction
+	 * @return the distance to the wall, or 0 if the start is already outside
+	 */
+	public double wallDistance(double ox, double oy, double dx, double dy) {
+		if (arenaShape.equals("circle")) {
+			double mx = ox - xMax / 2;
+			double my = oy - yMax / 2;
+			double radius = Math.min(xMax, yMax) / 2;
+			double b = mx * dx + my * dy;
+			double disc = b * b - (mx * mx + my * my - radius * radius);
+			// The far intersection is where the ray leaves the circle
+			return disc < 0 ? 0 : Math.max(0, -b + Math.sqrt(disc));
+		}
+		double t = Double.POSITIVE_INFINITY;
+		if (dx > 0) {
+			t = (xMax - ox) / dx;
+		} else if (dx < 0) {
+			t = -ox / dx;
+		}
+		if (dy > 0) {
+			t = Math.min(t, (yMax - oy) / dy);
+		} else if (dy < 0) {
+			t = Math.min(t, -oy / dy);
+		}
+		return Math.max(0, t);
+	}
+
+	/**
+	 * Returns the maximum distance at which items see each other through their
+	 * neighbour lists.
+	 *
+	 * @return the interaction radius
+	 */
+	public double getInteractionRadius() {
+		return interactionRadius;
+	}
+
+	/**
+	 * Sets the maximum distance at which items see each other through their
+	 * neighbour lists. Behaviours whose range exceeds this radius will only react
+	 * to items inside it.
+	 *
+	 * @param radius the new interaction radius (must be positive)
+	 */
+	public void setInteractionRadius(double radius) {
+		if (radius <= 0) {
+			throw new IllegalArgumentException("Interaction radius must be positive: " + radius);
+		}
+		interactionRadius = radius;
+		staticsChanged = true;
+	}
+
+	/**
+	 * Tells the arena that a static item has changed size, so that the flow field
+	 * is rebuilt around its new radius before the next checks.
+	 *
+	 * @param item the resized item
+	 */
+	void staticResized(ArenaItem item) {
+		if (item.isStatic()) {
+			flowChanged = true;
+		}
+	}
+
+	/**
+	 * Rebuilds the neighbour list of every moving item for the current tick.
+	 *
+	 * <p>
+	 * Moving items are bucketed into a uniform grid whose cells are half the
+	 * interaction radius, and every pair closer than that radius is handed
+	 * to both items with its distance, which normally adds it to their lists.
+	 * Each pair distance is therefore computed once per tick, however many
+	 * behaviours read it. Static items are
+	 * kept in a separate grid, rebuilt only when they change, which each moving
+	 * item queries for the obstacles and lights around it. Static items have no
+	 * behaviour of their own, so their neighbour lists are left empty.
+	 * </p>
+	 *
+	 * <p>
+	 * Light attraction is not limited by the interaction radius, so each robot
+	 * also looks up its closest light (and how many lights are tied for closest).
+	 * </p>
+	 */
+	public void buildNeighbours() {
+		if (staticsChanged) {
+			staticGrid.build(staticItems, interactionRadius);
+			staticsChanged = false;
+		}
+
+		for (ArenaItem i : dynamicItems) {
+			i.clearNeighbours();
+		}
+		neighbourGrid.build(dynamicItems, interactionRadius / 2);
+		neighbourGrid.forEachPairWithin(interactionRadius, neighbourLinker);
+		for (ArenaItem i : dynamicItems) {
+			staticGrid.forEachWithin(i, interactionRadius, staticLinker);
+		}
+
+		assignLights();
+	}
+
+	/**
+	 * Records the closest light of every robot, and how many lights are tied for
+	 * closest.
+	 */
+	private void assignLights() {
+		int lightCount = lights.size();
+		for (int r = 0; r < robots.size(); r++) {
+			Robot rob = robots.get(r);
+
+			// Find the closest light distance and count ties
+			Light nearest = null;
+			double closest = Double.MAX_VALUE;
+			int ties = 0;
+			for (int k = 0; k < lightCount; k++) {
+				Light l = lights.get(k);
+				double d = distanceBetween(rob.x, rob.y, l.x, l.y);
+				if (d < closest - 1e-5) {
+					closest = d;
+					nearest = l;
+					ties = 1;
+				} else if (Math.abs(d - closest) < 1e-5) {
+					ties++;
+				}
+			}
+			rob.nearestLight = nearest;
+			rob.nearestLightDist = closest;
+			rob.nearestLightTies = ties;
+		}
+	}
+
 	/**
 	 * Draws the entire arena and its items on the specified canvas.
 	 *
 	 * <p>
 	 * The background color is set based on whether the arena is in blackout mode.
+	 * Nothing is done for the <code>NullRenderer</code>.
 	 * </p>
 	 *
-	 * @param mc the <code>MyCanvas</code> object used for drawing
+	 * @param mc the <code>Renderer</code> object used for drawing
 	 */
-	public void drawArena(MyCanvas mc) {
+	public void drawArena(Renderer mc) {
+		if (mc == NullRenderer.INSTANCE) {
+			return; // headless: nothing the simulation needs is computed while drawing
+		}
 		mc.setBackgroundColor(isBlackOut ? 'l' : 'w');
 		// Defined the largest circle that fits in xMax, yMax
 		// Center it at xMax/2, yMax/2 and radius = min(xMax, yMax)/2
@@ -472,7 +1066,7 @@ public class RobotArena {
 			// draw faint outline e.g. 'b' for blue ring
 			mc.setStrokeColour('b');
 			mc.setLineWidth(2);
-			mc.gc.strokeOval(centerX - radius, centerY - radius, radius * 2, radius * 2);
+			mc.strokeCircle(centerX, centerY, radius);
 		}
 		for (ArenaItem i : items) {
 			i.drawItem(mc);
@@ -483,45 +1077,309 @@ public class RobotArena {
 	 * Checks the state of all items in the arena.
 	 *
 	 * <p>
-	 * This method calls the <code>checkItem</code> method on each arena item.
-	 * Additionally, it removes any prey that are currently being eaten.
+	 * This method rebuilds the neighbour lists, resolves all collisions in a single
+	 * pass, and then calls the <code>checkItem</code> method on each moving item
+	 * that is awake. Additionally, it removes any prey that are currently being
+	 * eaten.
 	 * </p>
 	 */
 	public void checkItems() {
-		ArrayList<ArenaItem> itemsToRemove = new ArrayList<>();
+		updating = true;
+
+		// Share one neighbour search between all behaviours this tick
+		buildNeighbours();
+		raycaster.invalidate();
+		// The flow field only changes with the lights, obstacles and shape
+		if (flowChanged) {
+			flowField.build(xMax, yMax, arenaShape.equals("circle"), lights, obstacles);
+			flowChanged = false;
+		}
 
-		// First pass: Check each item and mark those that need to be removed.
-		for (ArenaItem i : items) {
-			i.checkItem(this);
-			if (i instanceof Prey && ((Prey) i).isBeingEaten()) {
-				itemsToRemove.add(i);
+		// Find each colliding pair once and let its type-pair handler resolve it
+		collisionPass.run(this, items);
+
+		// Check each awake moving item and mark those that need to be removed.
+		if (checkPhase != null && !deterministic) {
+			checkPhase.run(this, dynamicItems);
+			for (ArenaItem i : dynamicItems) {
+				if (!i.sleeping && i instanceof Prey && ((Prey) i).isBeingEaten()) {
+					removeItem(i);
+				}
+			}
+		} else {
+			for (ArenaItem i : dynamicItems) {
+				if (i.sleeping) {
+					continue;
+				}
+				i.checkItem(this);
+				if (i instanceof Prey && ((Prey) i).isBeingEaten()) {
+					removeItem(i);
+				}
 			}
 		}
 
-		// Remove all items marked for removal.
-		items.removeAll(itemsToRemove);
+		// Remove (and add) the items queued during the checks.
+		updating = false;
+		flushPending();
 	}
 
 	/**
-	 * Marks the specified prey as being eaten.
+	 * Marks the specified prey as being eaten. A ghost prey is also listed in
+	 * {@link #getEatenGhosts()}, since only the shard that owns it can remove it.
 	 *
 	 * @param prey the <code>ArenaItem</code> to mark as being eaten (if it is a
 	 *             prey)
 	 */
 	public void removePrey(ArenaItem prey) {
-		if (prey instanceof Prey) {
+		if (deferring()) {
+			checkPhase.defer(() -> removePrey(prey));
+		} else if (prey instanceof Prey) {
+			if (prey.ghost && !((Prey) prey).isBeingEaten()) {
+				eatenGhosts.add(prey);
+			}
 			((Prey) prey).beingEaten();
 		}
 	}
 
 	/**
-	 * Adjusts the state of all items in the arena by calling each item's
-	 * <code>adjustItem</code> method.
+	 * Asks a predator to join the hunt for a prey another predator has found.
+	 * During parallel checks this waits until every check has finished, as the
+	 * predator asked may be checking itself at the same time.
+	 *
+	 * @param predator the pack member to recruit
+	 * @param prey     the prey the pack is chasing
+	 */
+	public void joinHunt(PredatorRobot predator, Robot prey) {
+		if (deferring()) {
+			checkPhase.defer(() -> joinHunt(predator, prey));
+		} else {
+			predator.joinHunt(prey);
+		}
+	}
+
+	/**
+	 * Adjusts the state of the items in the arena by calling the
+	 * <code>adjustItem</code> method of each moving item that is awake.
 	 */
 	public void adjustItems() {
-		for (ArenaItem i : items) {
-			i.adjustItem();
+		updating = true;
+		for (ArenaItem i : dynamicItems) {
+			if (!i.sleeping) {
+				i.adjustItem();
+			}
+		}
+		updating = false;
+		flushPending();
+
+		tick++;
+		if (deterministic) {
+			stateHash = hashState(stateHash, tick);
+		}
+
+		if (recorder != null) {
+			try {
+				recorder.record(tick, robots);
+			} catch (IOException e) {
+				System.out.println("Trajectory recording stopped: " + e.getMessage());
+				recorder = null;
+			}
+		}
+		if (frameExporter != null) {
+			frameExporter.capture(this);
+		}
+	}
+
+	/**
+	 * Returns the number of ticks completed so far.
+	 *
+	 * @return the tick count
+	 */
+	public long getTick() {
+		return tick;
+	}
+
+	/**
+	 * Sets the recorder that receives the state of every robot after each tick.
+	 * The caller remains responsible for closing it.
+	 *
+	 * @param recorder the recorder, or <code>null</code> to stop recording
+	 */
+	public void setRecorder(TrajectoryRecorder recorder) {
+		this.recorder = recorder;
+	}
+
+	/**
+	 * Returns the recorder receiving the robots' state each tick.
+	 *
+	 * @return the recorder, or <code>null</code> if not recording
+	 */
+	public TrajectoryRecorder getRecorder() {
+		return recorder;
+	}
+
+	/**
+	 * Sets the exporter that captures a frame of the arena every few ticks. The
+	 * caller remains responsible for closing it.
+	 *
+	 * @param exporter the exporter, or <code>null</code> to stop exporting
+	 */
+	public void setFrameExporter(FrameExporter exporter) {
+		this.frameExporter = exporter;
+	}
+
+	/**
+	 * Returns the exporter capturing frames of the arena.
+	 *
+	 * @return the exporter, or <code>null</code> if not exporting
+	 */
+	public FrameExporter getFrameExporter() {
+		return frameExporter;
+	}
+
+	/**
+	 * Puts the arena into deterministic mode, so that two runs from the same state
+	 * and seed produce identical results tick for tick.
+	 *
+	 * <p>
+	 * In this mode every random decision comes from one generator seeded with
+	 * <code>seed</code>, colliding pairs are resolved in a fixed order whichever
+	 * broad phase found them, and a 64-bit rolling hash of every item's state is
+	 * updated after each tick (see {@link #getStateHash()}). The simulation
+	 * always uses <code>StrictMath</code> for trigonometry, so results also agree
+	 * across machines. Two runs or two backends can be compared with a
+	 * <code>LockstepComparator</code>.
+	 * </p>
+	 *
+	 * @param seed the seed for the arena's random numbers
+	 */
+	public void setDeterministic(long seed) {
+		rng = new Random(seed);
+		deterministic = true;
+		stateHash = seed;
+		collisionPass.setOrdered(true);
+	}
+
+	/**
+	 * Returns whether the arena is in deterministic mode.
+	 *
+	 * @return <code>true</code> if the arena is deterministic
+	 */
+	public boolean isDeterministic() {
+		return deterministic;
+	}
+
+	/**
+	 * Returns a random number from the arena's generator. Items use this instead
+	 * of <code>Math.random()</code> so that deterministic mode can seed every
+	 * random decision.
+	 *
+	 * @return a uniformly distributed value in [0, 1)
+	 */
+	public double random() {
+		if (deferring()) {
+			// Parallel checks only run outside deterministic mode
+			return ThreadLocalRandom.current().nextDouble();
 		}
+		return rng.nextDouble();
+	}
+
+	/**
+	 * Returns the arena's random generator.
+	 *
+	 * @return the generator behind {@link #random()}
+	 */
+	public Random getRandom() {
+		return rng;
+	}
+
+	/**
+	 * Returns the rolling hash of the arena's state. Each tick folds the tick
+	 * number and the state of every item, in item order, into the previous
+	 * value, so two runs have equal hashes at a tick only if (barring collisions)
+	 * they agreed at every tick up to it.
+	 *
+	 * @return the hash after the last tick, or the seed before the first; always
+	 *         0 outside deterministic mode
+	 */
+	public long getStateHash() {
+		return stateHash;
+	}
+
+	/**
+	 * Folds the tick number and every item's state into a hash.
+	 *
+	 * @param h    the hash to extend
+	 * @param tick the tick just completed
+	 * @return the new hash
+	 */
+	private long hashState(long h, long tick) {
+		h = ArenaItem.mix(h, tick);
+		h = ArenaItem.mix(h, items.size());
+		for (int i = 0; i < items.size(); i++) {
+			h = ArenaItem.mix(h, items.get(i).stateHash());
+		}
+		return h;
+	}
+
+	/**
+	 * Runs the items' checks on several threads, or turns this off again.
+	 *
+	 * <p>
+	 * While it is on, the <code>checkItem</code> step of each tick is handed to a
+	 * <code>ParallelCheckPhase</code>, which balances the threads' work using
+	 * measured costs per item type. Changes an item makes to the arena or to other
+	 * items during its check are deferred until every check has finished. In
+	 * deterministic mode the checks still run one after another, since random
+	 * numbers drawn on several threads cannot be reproduced.
+	 * </p>
+	 *
+	 * @param threads the number of threads, or 0 or 1 to check on the ticking
+	 *                thread
+	 */
+	public void setParallelChecks(int threads) {
+		if (checkPhase != null) {
+			checkPhase.close();
+		}
+		checkPhase = threads > 1 ? new ParallelCheckPhase(threads) : null;
+	}
+
+	/**
+	 * Returns the service answering ray queries against the arena's items. It
+	 * sees the items as they were at the start of the current tick's checks.
+	 *
+	 * @return the raycast service
+	 */
+	public RaycastService getRaycaster() {
+		return raycaster;
+	}
+
+	/**
+	 * Returns the flow field giving the heading towards the nearest light from
+	 * anywhere in the arena, as of the start of the current tick.
+	 *
+	 * @return the flow field
+	 */
+	public FlowField getFlowField() {
+		return flowField;
+	}
+
+	/**
+	 * Returns the parallel check phase.
+	 *
+	 * @return the phase, or <code>null</code> if checks run on the ticking thread
+	 */
+	public ParallelCheckPhase getCheckPhase() {
+		return checkPhase;
+	}
+
+	/**
+	 * Returns whether parallel checks are running, so that changes to the arena
+	 * must be deferred until they finish.
+	 *
+	 * @return <code>true</code> inside the parallel check phase
+	 */
+	private boolean deferring() {
+		return checkPhase != null && checkPhase.isRunning();
 	}
 
 	/**
@@ -531,11 +1389,10 @@ public class RobotArena {
 	 * @param y the new Y coordinate for all robots
 	 */
 	public void setRobots(double x, double y) {
-		for (ArenaItem i : items) {
-			if (i instanceof Robot) {
-				i.setXY(x, y);
-			}
+		for (int i = 0; i < robots.size(); i++) {
+			robots.get(i).setXY(x, y);
 		}
+		wakeAll();
 	}
 
 	/**
@@ -565,8 +1422,9 @@ public class RobotArena {
 	 */
 	public boolean checkRobot(double x, double y, double rad, int notID) {
 		boolean ans = true;
-		for (ArenaItem i : items) {
-			if (i instanceof Robot && i.getID() != notID && i.hitting(x, y, rad)) {
+		for (int i = 0; i < robots.size(); i++) {
+			Robot rob = robots.get(i);
+			if (rob.getID() != notID && rob.hitting(x, y, rad)) {
 				ans = false;
 			}
 		}
@@ -582,7 +1440,7 @@ public class RobotArena {
 	 */
 	public void addRobot() {
 		Robot newRobot = new Robot(xMax / 2, yMax / 2, 10, 45, 2, this);
-		items.add(newRobot);
+		addItem(newRobot);
 	}
 
 	/**
@@ -594,13 +1452,11 @@ public class RobotArena {
 	 *         <code>null</code> if none is found
 	 */
 	public Robot getRoboAt(double x, double y) {
-		for (ArenaItem item : items) {
-			if (item instanceof Robot) {
-				Robot r = (Robot) item;
-				double dist = distanceBetween(x, y, r.getX(), r.getY());
-				if (dist <= r.getRad()) {
-					return r;
-				}
+		for (int i = 0; i < robots.size(); i++) {
+			Robot r = robots.get(i);
+			double dist = distanceBetween(x, y, r.getX(), r.getY());
+			if (dist <= r.getRad()) {
+				return r;
 			}
 		}
 		return null;
@@ -616,18 +1472,94 @@ public class RobotArena {
 	 * @return the Euclidean distance between the two points
 	 */
 	private double distanceBetween(double x, double y, double x2, double y2) {
-		return Math.sqrt(Math.pow(x - x2, 2) + Math.pow(y - y2, 2));
+		double dx = x - x2;
+		double dy = y - y2;
+		return Math.sqrt(dx * dx + dy * dy);
 	}
 
 	/**
 	 * Modified to handle "circle" boundary if arenaShape = "circle".
 	 */
 	public double CheckRobotAngle(double x, double y, double rad, double ang, int notID) {
+		boolean itemCollision = overlapsRobotOrObstacle(x, y, rad, notID);
+		if (arenaShape.equals("circle")) {
+			return checkAngleCircleArena(x, y, rad, ang, itemCollision);
+		} else {
+			return checkAngleRectArena(x, y, rad, ang, itemCollision);
+		}
+	}
+
+	/**
+	 * Computes a new direction for the given robot if it has hit the arena wall.
+	 * Contact with other robots and obstacles is resolved by the collision pass.
+	 *
+	 * @param rob the robot to check
+	 * @return the new angle that avoids the wall, or the current angle
+	 */
+	public double CheckRobotAngle(Robot rob) {
+		return checkAngle(rob, false);
+	}
+
+	/**
+	 * Computes a new direction for a robot that is touching another item.
+	 *
+	 * @param rob the colliding robot
+	 * @return the new angle that moves away from the collision
+	 */
+	public double collisionAngle(Robot rob) {
+		return checkAngle(rob, true);
+	}
+
+	/**
+	 * Makes two colliding robots each pick a new direction.
+	 *
+	 * @param a the first robot
+	 * @param b the second robot
+	 */
+	void bounceApart(Robot a, Robot b) {
+		a.setAngle(collisionAngle(a));
+		b.setAngle(collisionAngle(b));
+	}
+
+	/**
+	 * Dispatches to the wall check for the current arena shape.
+	 *
+	 * @param rob           the robot to check
+	 * @param itemCollision whether the robot is known to touch another item
+	 * @return the resulting angle
+	 */
+	private double checkAngle(Robot rob, boolean itemCollision) {
 		if (arenaShape.equals("circle")) {
-			return checkAngleCircleArena(x, y, rad, ang, notID);
+			return checkAngleCircleArena(rob.x, rob.y, rob.rad, rob.rAngle, itemCollision);
 		} else {
-			return checkAngleRectArena(x, y, rad, ang, notID);
+			return checkAngleRectArena(rob.x, rob.y, rob.rad, rob.rAngle, itemCollision);
+		}
+	}
+
+	/**
+	 * Checks whether a circle overlaps any robot (other than <code>notID</code>)
+	 * or obstacle by scanning every item.
+	 *
+	 * @param x     the X coordinate of the circle
+	 * @param y     the Y coordinate of the circle
+	 * @param rad   the radius of the circle
+	 * @param notID the ID of the robot to exclude from the check
+	 * @return <code>true</code> if the circle overlaps a robot or obstacle
+	 */
+	private boolean overlapsRobotOrObstacle(double x, double y, double rad, int notID) {
+		for (int i = 0; i < robots.size(); i++) {
+			Robot rob = robots.get(i);
+			if (rob.getID() != notID && distanceBetween(rob.getX(), rob.getY(), x, y) < rob.getRad() + rad) {
+				return true;
+			}
 		}
+		for (int i = 0; i < obstacles.size(); i++) {
+			Obstacle o = obstacles.get(i);
+			if (distanceBetween(o.getX(), o.getY(), x, y) < o.getRad() + rad) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	/**
@@ -635,70 +1567,42 @@ public class RobotArena {
 	 * or another item.
 	 *
 	 * <p>
-	 * This method performs checks against arena boundaries, other robots, and
-	 * obstacles. If a collision is detected, it attempts multiple randomized
-	 * offsets to find a new valid angle.
+	 * This method performs checks against arena boundaries; contact with robots
+	 * (triangular ones included) and obstacles is supplied by the caller. If a
+	 * collision is detected, it attempts multiple randomized offsets to find a new
+	 * valid angle.
 	 * </p>
 	 *
 	 * @param x     the X coordinate of the robot
 	 * @param y     the Y coordinate of the robot
 	 * @param rad   the radius of the robot
 	 * @param ang   the current angle of the robot
-	 * @param notID the ID of the robot to exclude from collision checks
+	 * @param itemCollision whether the robot already overlaps another robot or an
+	 *                      obstacle
 	 * @return the new angle that avoids collisions
 	 */
-	public double checkAngleRectArena(double x, double y, double rad, double ang, int notID) {
+	public double checkAngleRectArena(double x, double y, double rad, double ang, boolean itemCollision) {
 		double ans = ang;
 		double randomOffset;
 		int maxAttempts = 5;
-		boolean collisionDetected = false;
+		boolean collisionDetected = itemCollision;
 
 		// Check collision with arena boundaries.
 		if (x - rad < 0 || x + rad > xMax || y - rad < 0 || y + rad > yMax) {
 			collisionDetected = true;
 		}
 
-		for (triRobot tr : triRobots) {
-			double dist = Math.sqrt(Math.pow(tr.getX() - x, 2) + Math.pow(tr.getY() - y, 2));
-			if (dist < tr.getRad() + rad) {
-				collisionDetected = true;
-				break;
-			}
-		}
-		// Check collision with other robots.
-		for (ArenaItem i : items) {
-			if (i instanceof Robot && i.getID() != notID) {
-				Robot ro = (Robot) i;
-				double dist = Math.sqrt(Math.pow(ro.getX() - x, 2) + Math.pow(ro.getY() - y, 2));
-				if (dist < ro.getRad() + rad) {
-					collisionDetected = true;
-					break;
-				}
-			}
-			// Check collision with obstacles.
-			if (i instanceof Obstacle) {
-				double ox = i.getX();
-				double oy = i.getY();
-				double od = Math.sqrt(Math.pow(ox - x, 2) + Math.pow(oy - y, 2));
-				if (od < i.getRad() + rad) {
-					collisionDetected = true;
-					break;
-				}
-			}
-		}
-
 		if (!collisionDetected) {
 			return ans;
 		}
 
 		// Attempt to find a new angle that avoids collisions.
 		for (int attempt = 0; attempt < maxAttempts; attempt++) {
-			randomOffset = (Math.random() * 90) - 45;
+			randomOffset = (random() * 90) - 45;
 			double candidateAngle = (ang + 180 + randomOffset) % 360;
-			double radAngle = Math.toRadians(candidateAngle);
 			double step = 2.0;
-			double newX = x + step * Math.cos(radAngle);
-			double newY = y + step * Math.sin(radAngle);
+			double newX = x + step * Robot.cosDeg(candidateAngle);
+			double newY = y + step * Robot.sinDeg(candidateAngle);
 			// Check if the new position is within arena boundaries.
 			if (newX - rad >= 0 && newX + rad <= xMax && newY - rad >= 0 && newY + rad <= yMax) {
 				ans = candidateAngle;
@@ -708,11 +1612,11 @@ public class RobotArena {
 		return ans;
 	}
 
-	private double checkAngleCircleArena(double x, double y, double rad, double ang, int notID) {
+	private double checkAngleCircleArena(double x, double y, double rad, double ang, boolean itemCollision) {
 		double ans = ang;
 		double randomOffset;
 		int maxAttempts = 5;
-		boolean collisionDetected = false;
+		boolean collisionDetected = itemCollision;
 
 		// Check collision with arena boundaries.
 		double centerX = xMax / 2;
@@ -728,39 +1632,19 @@ public class RobotArena {
 			collisionDetected = true;
 		}
 
-		// check collisions with items (same as rectangular appraoch)
-		for (ArenaItem i : items) {
-			if (i instanceof Robot && i.getID() != notID) {
-				Robot ro = (Robot) i;
-				double dist = Math.sqrt(Math.pow(ro.getX() - x, 2) + Math.pow(ro.getY() - y, 2));
-				if (dist < ro.getRad() + rad) {
-					collisionDetected = true;
-					break;
-				}
-			}
-			// Check collision with obstacles.
-			if (i instanceof Obstacle) {
-				double ox = i.getX();
-				double oy = i.getY();
-				double od = Math.sqrt(Math.pow(ox - x, 2) + Math.pow(oy - y, 2));
-				if (od < i.getRad() + rad) {
-					collisionDetected = true;
-					break;
-				}
-			}
-		}
+		// collisions with items were detected by the caller (same as rectangular
+		// approach)
 		if (!collisionDetected) {
 			return ans;
 		}
 
 		// attempt random offset as in rectangular arena
 		for (int attempt = 0; attempt < maxAttempts; attempt++) {
-			randomOffset = (Math.random() * 90) - 45;
+			randomOffset = (random() * 90) - 45;
 			double candidateAngle = (ang + 180 + randomOffset) % 360;
-			double radAngle = Math.toRadians(candidateAngle);
 			double step = 2.0;
-			double newX = x + step * Math.cos(radAngle);
-			double newY = y + step * Math.sin(radAngle);
+			double newX = x + step * Robot.cosDeg(candidateAngle);
+			double newY = y + step * Robot.sinDeg(candidateAngle);
 			// Check if the new position is within arena boundaries.
 			dx = newX - centerX;
 			dy = newY - centerY;
@@ -780,11 +1664,10 @@ public class RobotArena {
 	 * @param y the new Y coordinate for all robots
 	 */
 	public void setRobot(double x, double y) {
-		for (ArenaItem i : items) {
-			if (i instanceof Robot) {
-				i.setXY(x, y);
-			}
+		for (int i = 0; i < robots.size(); i++) {
+			robots.get(i).setXY(x, y);
 		}
+		wakeAll();
 	}
 
 	/**
@@ -803,8 +1686,8 @@ public class RobotArena {
 		double candidateY = 0;
 
 		for (int i = 0; i < maxTries && !foundSpot; i++) {
-			candidateX = obsRad + Math.random() * (xMax - 2 * obsRad);
-			candidateY = obsRad + Math.random() * (yMax - 2 * obsRad);
+			candidateX = obsRad + random() * (xMax - 2 * obsRad);
+			candidateY = obsRad + random() * (yMax - 2 * obsRad);
 
 			// Check if the candidate position overlaps any existing item.
 			if (!overlapsAnyItem(candidateX, candidateY, obsRad)) {
@@ -813,7 +1696,7 @@ public class RobotArena {
 		}
 		if (foundSpot) {
 			Obstacle newObstacle = new Obstacle(candidateX, candidateY, obsRad);
-			items.add(newObstacle);
+			addItem(newObstacle);
 			System.out.println("Added Obstacle at (" + candidateX + ", " + candidateY + ")");
 		} else {
 			System.out.println("Failed to place Obstacle after " + maxTries + " attempts.");
@@ -836,8 +1719,8 @@ public class RobotArena {
 		double candidateY = 0;
 
 		for (int i = 0; i < maxTries && !foundSpot; i++) {
-			candidateX = obsRad + Math.random() * (xMax - 2 * obsRad);
-			candidateY = obsRad + Math.random() * (yMax - 2 * obsRad);
+			candidateX = obsRad + random() * (xMax - 2 * obsRad);
+			candidateY = obsRad + random() * (yMax - 2 * obsRad);
 
 			// Check if the candidate position overlaps any existing item.
 			if (!overlapsAnyItem(candidateX, candidateY, obsRad)) {
@@ -846,7 +1729,7 @@ public class RobotArena {
 		}
 		if (foundSpot) {
 			BounceObstacle newBounceObstacle = new BounceObstacle(candidateX, candidateY, obsRad);
-			items.add(newBounceObstacle);
+			addItem(newBounceObstacle);
 			System.out.println("Added Bounce Obstacle at (" + candidateX + ", " + candidateY + ")");
 		} else {
 			System.out.println("Failed to place Bounce Obstacle after " + maxTries + " attempts.");
@@ -869,8 +1752,8 @@ public class RobotArena {
 		double candidateY = 0;
 
 		for (int i = 0; i < maxTries && !foundSpot; i++) {
-			candidateX = lightRadius + Math.random() * (xMax - 2 * lightRadius);
-			candidateY = lightRadius + Math.random() * (yMax - 2 * lightRadius);
+			candidateX = lightRadius + random() * (xMax - 2 * lightRadius);
+			candidateY = lightRadius + random() * (yMax - 2 * lightRadius);
 
 			if (!overlapsAnyItem(candidateX, candidateY, lightRadius)) {
 				foundSpot = true;
@@ -878,7 +1761,7 @@ public class RobotArena {
 		}
 		if (foundSpot) {
 			Light newLight = new Light(candidateX, candidateY, lightRadius);
-			items.add(newLight);
+			addItem(newLight);
 			System.out.println("Added Light at (" + candidateX + ", " + candidateY + ")");
 		} else {
 			System.out.println("Failed to place Light after " + maxTries + " attempts.");
@@ -907,64 +1790,222 @@ public class RobotArena {
 		return false;
 	}
 
+	/**
+	 * The type names <code>createItem</code> knows, so a name can be checked
+	 * without building an item. Kept in step with the cases there.
+	 */
+	private static final Set<String> ITEM_TYPES = Set.of("Robot", "Whisker", "Beam", "BeamLight", "Prey",
+			"Predator", "triRobot", "LidarRobot", "Light", "Obstacle", "BounceObstacle", "MiniObstacle");
+
+	/**
+	 * Returns whether <code>createItem</code> and <code>spawn</code> know a type
+	 * name.
+	 *
+	 * @param type the name of the type
+	 * @return <code>true</code> if items of the type can be created
+	 */
+	public static boolean isItemType(String type) {
+		return ITEM_TYPES.contains(type);
+	}
+
+	/**
+	 * Creates an item of a named type without adding it to the arena. The names
+	 * are those used by {@link #spawn(String, int, SpawnParams)}:
+	 * <code>Robot</code>, <code>Whisker</code>, <code>Beam</code>,
+	 * <code>BeamLight</code>, <code>Prey</code>, <code>Predator</code>,
+	 * <code>triRobot</code>, <code>LidarRobot</code>, <code>Light</code>,
+	 * <code>Obstacle</code>, <code>BounceObstacle</code> and
+	 * <code>MiniObstacle</code>.
+	 *
+	 * @param type  the name of the type
+	 * @param x     the X coordinate
+	 * @param y     the Y coordinate
+	 * @param rad   the radius
+	 * @param angle the heading in degrees, for robots
+	 * @param speed the speed, for robots
+	 * @return the item, or <code>null</code> if the type is unknown
+	 */
+	public ArenaItem createItem(String type, double x, double y, double rad, double angle, double speed) {
+		switch (type) {
+		case "Robot":
+			return new Robot(x, y, rad, angle, speed, this);
+		case "Whisker":
+			return new Whisker(x, y, rad, angle, speed, this);
+		case "Beam":
+			return new Beam(x, y, rad, angle, speed, this);
+		case "BeamLight":
+			return new BeamLight(x, y, rad, angle, speed, this);
+		case "Prey":
+			return new Prey(x, y, rad, angle, speed, this);
+		case "Predator":
+			return new PredatorRobot(x, y, rad, angle, speed, this);
+		case "triRobot":
+			return new triRobot(x, y, rad, angle, speed, this);
+		case "LidarRobot":
+			return new LidarRobot(x, y, rad, angle, speed, this);
+		case "Light":
+			return new Light(x, y, rad);
+		case "Obstacle":
+			return new Obstacle(x, y, rad);
+		case "BounceObstacle":
+			return new BounceObstacle(x, y, rad);
+		case "MiniObstacle":
+			return new miniObstacleXP(x, y, rad);
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Adds many items of one type at random positions where they overlap neither
+	 * each other nor any item already in the arena, with the default
+	 * {@link SpawnParams}.
+	 *
+	 * @param type  the name of the type, as for
+	 *              {@link #createItem(String, double, double, double, double, double)}
+	 * @param count the number of items wanted
+	 * @return the number of items that fitted and were added
+	 */
+	public int spawn(String type, int count) {
+		return spawn(type, count, new SpawnParams());
+	}
+
+	/**
+	 * Adds many items of one type at random positions where they overlap neither
+	 * each other nor any item already in the arena.
+	 *
+	 * <p>
+	 * Unlike <code>addObstacle</code> and the other single adds, which try random
+	 * spots and check each against every item, the positions come from one
+	 * {@link PoissonDiskSampler} fill of the arena, so placing <i>N</i> items takes
+	 * time proportional to <i>N</i> and the items are spread evenly. When fewer
+	 * items are wanted than could fit, the fill is made with a wider spacing and
+	 * a random selection of its points is used. When more are wanted, the arena
+	 * is filled as far as it will go and the shortfall is reported.
+	 * </p>
+	 *
+	 * @param type   the name of the type, as for
+	 *               {@link #createItem(String, double, double, double, double, double)}
+	 * @param count  the number of items wanted
+	 * @param params the size, spacing, motion and region of the items
+	 * @return the number of items that fitted and were added
+	 * @throws IllegalArgumentException if the type is unknown
+	 */
+	public int spawn(String type, int count, SpawnParams params) {
+		double rad = params.getRadius();
+		if (!isItemType(type)) {
+			throw new IllegalArgumentException("Unknown item type: " + type);
+		}
+		if (count <= 0) {
+			return 0;
+		}
+		double[] region = params.getRegion();
+		if (region == null) {
+			region = new double[] { 0, 0, xMax, yMax };
+		}
+		PoissonDiskSampler sampler = new PoissonDiskSampler(region[0], region[1], region[2], region[3], rad,
+				params.getGap(), this::random);
+		double area = (region[2] - region[0]) * (region[3] - region[1]);
+		if (arenaShape.equals("circle")) {
+			double arenaRadius = Math.min(xMax, yMax) / 2;
+			sampler.setCircle(xMax / 2, yMax / 2, arenaRadius);
+			area = Math.min(area, Math.PI * arenaRadius * arenaRadius);
+		}
+		sampler.setObstacles(items);
+
+		// A fill has about 0.65 points per spacing squared; aim a quarter over
+		double minSpacing = 2 * rad + params.getGap();
+		double target = 1.25 * count;
+		double spacing = Math.max(minSpacing, Math.sqrt(0.65 * area / target));
+		int found = sampler.fill(spacing);
+		for (int attempt = 0; attempt < 5 && found < count && spacing > minSpacing; attempt++) {
+			// Existing items took more room than expected; close up
+			spacing = Math.max(minSpacing, spacing * Math.sqrt(Math.max(found, 1) / target));
+			found = sampler.fill(spacing);
+		}
+
+		int placed = Math.min(count, found);
+		sampler.shuffle(placed);
+		for (int i = 0; i < placed; i++) {
+			double angle = Double.isNaN(params.getAngle()) ? random() * 360 : params.getAngle();
+			addItem(createItem(type, sampler.getX(i), sampler.getY(i), rad, angle, params.getSpeed()));
+		}
+		if (placed < count) {
+			System.out.println("Spawned " + placed + " of " + count + " " + type + " items; no room for the rest");
+		} else {
+			System.out.println("Spawned " + placed + " " + type + " items");
+		}
+		return placed;
+	}
+
 	/**
 	 * Adds a new whisker at a random position in the arena.
 	 */
 	public void addWhisker() {
-		double x = Math.random() * xMax;
-		double y = Math.random() * yMax;
+		double x = random() * xMax;
+		double y = random() * yMax;
 		Whisker newWhisker = new Whisker(x, y, 10, 45, 1, this);
-		items.add(newWhisker);
+		addItem(newWhisker);
 	}
 
 	/**
 	 * Adds a new beam at a random position in the arena.
 	 */
 	public void addBeam() {
-		double x = Math.random() * xMax;
-		double y = Math.random() * yMax;
+		double x = random() * xMax;
+		double y = random() * yMax;
 		Beam newBeam = new Beam(x, y, 10, 45, 2, this);
-		items.add(newBeam);
+		addItem(newBeam);
 	}
 
 	/**
 	 * Adds a new beam light at a random position in the arena.
 	 */
 	public void addBeamLight() {
-		double x = Math.random() * xMax;
-		double y = Math.random() * yMax;
+		double x = random() * xMax;
+		double y = random() * yMax;
 		BeamLight newBeamLight = new BeamLight(x, y, 10, 45, 2, this);
-		items.add(newBeamLight);
+		addItem(newBeamLight);
 	}
 
 	/**
 	 * Adds a new prey at a random position in the arena.
 	 */
 	public void addPrey() {
-		double x = Math.random() * xMax;
-		double y = Math.random() * yMax;
+		double x = random() * xMax;
+		double y = random() * yMax;
 		Prey newPrey = new Prey(x, y, 10, 45, 2, this);
-		items.add(newPrey);
+		addItem(newPrey);
 	}
 
 	/**
 	 * Adds a new predator at a random position in the arena.
 	 */
 	public void addPredator() {
-		double x = Math.random() * xMax;
-		double y = Math.random() * yMax;
+		double x = random() * xMax;
+		double y = random() * yMax;
 		PredatorRobot newPredator = new PredatorRobot(x, y, 10, 45, 2, this);
-		items.add(newPredator);
+		addItem(newPredator);
+	}
+
+	/**
+	 * Adds a new LidarRobot at a random position
+	 */
+	public void addLidar() {
+		double x = random() * xMax;
+		double y = random() * yMax;
+		LidarRobot newLidar = new LidarRobot(x, y, 10, 45, 2, this);
+		addItem(newLidar);
 	}
 
 	/**
 	 * Adds a new TriRobot at a random position
 	 */
 	public void addTriRobot() {
-		double x = Math.random() * xMax;
-		double y = Math.random() * yMax;
+		double x = random() * xMax;
+		double y = random() * yMax;
 		triRobot newTriRobot = new triRobot(x, y, 10, 45, 2, this);
-		items.add(newTriRobot);
+		addItem(newTriRobot);
 	}
 
 	/**
@@ -979,15 +2020,13 @@ public class RobotArena {
 	public void blackOut() {
 		isBlackOut = !isBlackOut;
 
-		for (ArenaItem item : items) {
-			// Toggle color for whiskers.
-			if (item instanceof Whisker) {
-				((Whisker) item).toggleWhiskerColor(isBlackOut);
-			}
-			// Toggle wheel color for robots.
-			if (item instanceof Robot) {
-				((Robot) item).toggleWheelColor(isBlackOut);
-			}
+		// Toggle color for whiskers.
+		for (int i = 0; i < whiskers.size(); i++) {
+			whiskers.get(i).toggleWhiskerColor(isBlackOut);
+		}
+		// Toggle wheel color for robots.
+		for (int i = 0; i < robots.size(); i++) {
+			robots.get(i).toggleWheelColor(isBlackOut);
 		}
 	}
 
@@ -997,16 +2036,64 @@ public class RobotArena {
 	 * @param robot the <code>Robot</code> to remove from the arena
 	 */
 	public void removeRobot(Robot robot) {
-		items.remove(robot);
+		removeItem(robot);
 	}
 
-	public Robot[] getRobots() {
-		ArrayList<Robot> robots = new ArrayList<>();
-		for (ArenaItem item : items) {
-			if (item instanceof Robot) {
-				robots.add((Robot) item);
-			}
-		}
-		return robots.toArray(new Robot[0]);
+	/**
+	 * Returns a read-only view of the robots in the arena (of every kind). The
+	 * view is live and is not copied, so it must not be held across ticks that
+	 * add or remove items if a stable snapshot is needed.
+	 *
+	 * @return the robots in the arena
+	 */
+	public List<Robot> getRobots() {
+		return robots;
+	}
+
+	/**
+	 * Returns a read-only view of the obstacles in the arena, including bounce and
+	 * mini obstacles.
+	 *
+	 * @return the obstacles in the arena
+	 */
+	public List<Obstacle> getObstacles() {
+		return obstacles;
+	}
+
+	/**
+	 * Returns a read-only view of the lights in the arena.
+	 *
+	 * @return the lights in the arena
+	 */
+	public List<Light> getLights() {
+		return lights;
+	}
+
+	/**
+	 * Returns a read-only view of the whisker robots in the arena.
+	 *
+	 * @return the whiskers in the arena
+	 */
+	public List<Whisker> getWhiskers() {
+		return whiskers;
+	}
+
+	/**
+	 * Returns a read-only view of the beam robots in the arena, including beam
+	 * lights and predators.
+	 *
+	 * @return the beams in the arena
+	 */
+	public List<Beam> getBeams() {
+		return beams;
+	}
+
+	/**
+	 * Returns a read-only view of the triangular robots in the arena.
+	 *
+	 * @return the triRobots in the arena
+	 */
+	public List<triRobot> getTriRobots() {
+		return triRobots;
 	}
 }
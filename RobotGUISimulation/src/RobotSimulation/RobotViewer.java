@@ -1,5 +1,8 @@
 package RobotSimulation;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 
 import javafx.animation.AnimationTimer;
@@ -22,12 +25,14 @@ import javafx.scene.control.Menu;
 import javafx.scene.control.MenuBar;
 import javafx.scene.control.MenuItem;
 import javafx.scene.control.ScrollPane;
+import javafx.scene.control.Slider;
 import javafx.scene.control.SplitMenuButton;
 import javafx.scene.control.Tooltip;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 import javafx.util.Duration;
@@ -62,6 +67,20 @@ public class RobotViewer extends Application {
 	private RobotArena arena;
 	/** Helper class for file operations on simulation data. */
 	private TextFile tf = new TextFile("Text Files", "txt");
+	/** Helper class for choosing trajectory recordings to replay. */
+	private TextFile trajFile = new TextFile("Trajectory Files", "traj");
+	/** Timer to drive replay of a recording, used instead of the simulation timer. */
+	private AnimationTimer replayTimer;
+	/** The recording being replayed, or <code>null</code> when not replaying. */
+	private ReplayPlayer player = null;
+	/** Time of the previous replay frame, or 0 at the start of replay. */
+	private long lastReplayNanos = 0;
+	/** Slider showing the tick being replayed; dragging it seeks to a tick. */
+	private Slider replaySlider;
+	/** Label showing the tick being replayed. */
+	private Label replayTickLabel;
+	/** Whether the replay itself is moving the slider, so that it is not a seek. */
+	private boolean followingReplay = false;
 	/** The currently selected robot (for example when context menu is shown). */
 	private Robot selectedRobot = null;
 	/** Example score property demonstrating data binding with UI controls. */
@@ -120,6 +139,7 @@ public class RobotViewer extends Application {
 			// If a robot is selected and the primary button is used, update its position.
 			if (selectedRobot != null && e.getButton() == MouseButton.PRIMARY) {
 				selectedRobot.setXY(e.getX(), e.getY());
+				arena.wake(selectedRobot); // it may have been parked at a light
 				drawWorld();
 			}
 		});
@@ -200,6 +220,8 @@ public class RobotViewer extends Application {
 		MenuItem mExit = new MenuItem("Exit");
 		mExit.setOnAction(e -> {
 			timer.stop();
+			stopRecording();
+			stopExport();
 			System.exit(0);
 		});
 
@@ -211,10 +233,225 @@ public class RobotViewer extends Application {
 		mAbout.setOnAction(e -> showAbout());
 		mHelp.getItems().addAll(mAbout);
 
-		menuBar.getMenus().addAll(mFile, mHelp);
+		menuBar.getMenus().addAll(mFile, setReplayMenu(), mHelp);
 		return menuBar;
 	}
 
+	/**
+	 * Creates the Replay menu for recording the simulation and playing recordings
+	 * back.
+	 *
+	 * <p>
+	 * Recording writes robot positions every tick to the <code>recordings</code>
+	 * folder. A replay stops the simulation and shows the recording instead; it
+	 * can be paused, reversed and sped up until it is closed.
+	 * </p>
+	 *
+	 * @return the configured Replay menu
+	 */
+	private Menu setReplayMenu() {
+		Menu mReplay = new Menu("Replay");
+
+		MenuItem mRecord = new MenuItem("Start Recording");
+		mRecord.setOnAction(e -> {
+			if (arena.getRecorder() == null) {
+				String base = "run-" + System.currentTimeMillis();
+				arena.setRecorder(new TrajectoryRecorder(Paths.get("recordings"), base));
+				System.out.println("Recording to recordings/" + base);
+			}
+		});
+
+		MenuItem mStopRecord = new MenuItem("Stop Recording");
+		mStopRecord.setOnAction(e -> stopRecording());
+
+		MenuItem mExport = new MenuItem("Start Frame Export");
+		mExport.setOnAction(e -> {
+			if (arena.getFrameExporter() == null) {
+				String base = "run-" + System.currentTimeMillis();
+				try {
+					arena.setFrameExporter(new FrameExporter(Paths.get("frames", base), "frame", arena, 10));
+					System.out.println("Exporting frames to frames/" + base);
+				} catch (IOException ex) {
+					System.out.println("Cannot export frames: " + ex.getMessage());
+				}
+			}
+		});
+
+		MenuItem mStopExport = new MenuItem("Stop Frame Export");
+		mStopExport.setOnAction(e -> stopExport());
+
+		MenuItem mOpen = new MenuItem("Open Recording...");
+		mOpen.setOnAction(e -> openReplay());
+
+		MenuItem mPlay = new MenuItem("Play/Pause");
+		mPlay.setOnAction(e -> {
+			if (player != null) {
+				player.setSpeed(player.getSpeed() == 0 ? 1 : 0);
+			}
+		});
+
+		MenuItem mReverse = new MenuItem("Reverse");
+		mReverse.setOnAction(e -> {
+			if (player != null) {
+				double s = player.getSpeed();
+				player.setSpeed(s == 0 ? -1 : -s);
+			}
+		});
+
+		MenuItem mFaster = new MenuItem("Faster");
+		mFaster.setOnAction(e -> {
+			if (player != null) {
+				player.setSpeed(player.getSpeed() * 2);
+			}
+		});
+
+		MenuItem mSlower = new MenuItem("Slower");
+		mSlower.setOnAction(e -> {
+			if (player != null) {
+				player.setSpeed(player.getSpeed() / 2);
+			}
+		});
+
+		MenuItem mClose = new MenuItem("Close Replay");
+		mClose.setOnAction(e -> closeReplay());
+
+		mReplay.getItems().addAll(mRecord, mStopRecord, mExport, mStopExport, mOpen, mPlay, mReverse, mFaster, mSlower, mClose);
+		return mReplay;
+	}
+
+	/**
+	 * Stops recording the simulation, if it is being recorded, and closes the
+	 * recording files.
+	 */
+	private void stopRecording() {
+		TrajectoryRecorder rec = arena.getRecorder();
+		if (rec != null) {
+			arena.setRecorder(null);
+			try {
+				rec.close();
+				System.out.println("Recorded " + rec.getFrameCount() + " frames");
+			} catch (IOException ex) {
+				System.out.println("Error closing recording: " + ex.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Stops exporting frames, if they are being exported, and waits for the
+	 * captured frames to be written.
+	 */
+	private void stopExport() {
+		FrameExporter exporter = arena.getFrameExporter();
+		if (exporter != null) {
+			arena.setFrameExporter(null);
+			try {
+				exporter.close();
+			} catch (IOException ex) {
+				System.out.println("Error closing frame export: " + ex.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Asks for a recording and starts replaying it in place of the simulation.
+	 */
+	private void openReplay() {
+		if (!trajFile.openFile()) {
+			System.out.println("Open recording cancelled");
+			return;
+		}
+		trajFile.closeFile(); // the recording is mapped, not read as text
+		stopRecording();
+		closeReplay();
+		try {
+			player = new ReplayPlayer(new TrajectoryReader(Path.of(trajFile.usedFileName())));
+		} catch (IOException ex) {
+			Alert alert = new Alert(AlertType.ERROR);
+			alert.setTitle("Error");
+			alert.setHeaderText("Replay Error");
+			alert.setContentText("Could not open the recording: " + ex.getMessage());
+			alert.showAndWait();
+			return;
+		}
+		timer.stop();
+		lastReplayNanos = 0;
+		TrajectoryReader reader = player.getReader();
+		followingReplay = true;
+		replaySlider.setMin(reader.getTick(0));
+		replaySlider.setMax(reader.getTick(Math.max(0, reader.getFrameCount() - 1)));
+		replaySlider.setValue(replaySlider.getMin());
+		followingReplay = false;
+		replaySlider.setDisable(false);
+		replayTimer.start();
+	}
+
+	/**
+	 * Stops any replay and shows the simulation again.
+	 */
+	private void closeReplay() {
+		if (player != null) {
+			replayTimer.stop();
+			player.close();
+			player = null;
+			replaySlider.setDisable(true);
+			replayTickLabel.setText("Tick: -");
+			drawWorld();
+		}
+	}
+
+	/**
+	 * Draws the current frame of the replay, advancing it by the time since the
+	 * previous frame.
+	 *
+	 * @param now the time of this frame in nanoseconds
+	 */
+	private void drawReplay(long now) {
+		if (lastReplayNanos != 0) {
+			player.advance((now - lastReplayNanos) / 1e9);
+		}
+		lastReplayNanos = now;
+		long tick = player.currentTick();
+		if (!replaySlider.isValueChanging()) {
+			followingReplay = true;
+			replaySlider.setValue(tick);
+			followingReplay = false;
+		}
+		replayTickLabel.setText("Tick: " + tick);
+		TrajectoryFrame frame = player.currentFrame();
+		if (frame != null) {
+			mc.clearCanvas();
+			frame.drawFrame(mc);
+		}
+	}
+
+	/**
+	 * Creates the bar for scrubbing through a replay: a label showing the tick
+	 * and a slider over every recorded tick. Moving the slider jumps the replay to
+	 * that tick, which only decodes the keyframe block holding it. The bar is
+	 * disabled while nothing is being replayed.
+	 *
+	 * @return an HBox containing the tick label and slider
+	 */
+	private HBox setReplayBar() {
+		replayTickLabel = new Label("Tick: -");
+		replayTickLabel.setMinWidth(90);
+		replaySlider = new Slider(0, 1, 0);
+		replaySlider.setDisable(true);
+		replaySlider.setTooltip(new Tooltip("Drag to jump to a tick of the replay"));
+		replaySlider.valueProperty().addListener((obs, oldValue, newValue) -> {
+			if (player != null && !followingReplay) {
+				long tick = Math.round(newValue.doubleValue());
+				player.seekTick(tick);
+				replayTickLabel.setText("Tick: " + tick);
+			}
+		});
+		HBox.setHgrow(replaySlider, Priority.ALWAYS);
+		HBox bar = new HBox(10, replayTickLabel, replaySlider);
+		bar.setAlignment(Pos.CENTER_LEFT);
+		bar.setPadding(new Insets(5, 0, 5, 0));
+		return bar;
+	}
+
 	/**
 	 * Creates the bottom button bar for controlling the simulation.
 	 *
@@ -230,7 +467,10 @@ public class RobotViewer extends Application {
 		Button btnStart = new Button("Start");
 		btnStart.setTooltip(new Tooltip("Start the simulation"));
 		btnStart.setStyle("-fx-background-color: #28a745; -fx-text-fill: white;");
-		btnStart.setOnAction(event -> timer.start());
+		btnStart.setOnAction(event -> {
+			closeReplay();
+			timer.start();
+		});
 
 		// Stop simulation button
 		Button btnStop = new Button("Stop");
@@ -296,9 +536,16 @@ public class RobotViewer extends Application {
 			playFadeAnimation(btnAddRobot);
 		});
 
+		MenuItem lidarRobotItem = new MenuItem("Lidar Robot");
+		lidarRobotItem.setOnAction(e -> {
+			arena.addLidar();
+			drawWorld();
+			playFadeAnimation(btnAddRobot);
+		});
+
 		// Add all robot-type items to the dropdown
 		btnAddRobot.getItems().addAll(normalRobotItem, whiskerRobotItem, beamRobotItem, lightRobotItem, preyRobotItem,
-				predatorRobotItem, triRobotItem);
+				predatorRobotItem, triRobotItem, lidarRobotItem);
 
 		// Add obstacle button
 		SplitMenuButton btnAddObstacle = new SplitMenuButton();
@@ -481,7 +728,7 @@ public class RobotViewer extends Application {
 		scoreLabel.setStyle("-fx-font-size: 14pt; -fx-font-weight: bold;");
 		// Bind score property to update the score label dynamically
 		scoreLabel.textProperty().bind(scoreProperty.asString("Score: %d"));
-		VBox topVBox = new VBox(menuBar, scoreLabel);
+		VBox topVBox = new VBox(menuBar, scoreLabel, setReplayBar());
 		bp.setTop(topVBox);
 
 		// ---- Left: Canvas for drawing ----
@@ -509,6 +756,14 @@ public class RobotViewer extends Application {
 			}
 		};
 
+		// ---- Animation Timer: Replay Loop ----
+		replayTimer = new AnimationTimer() {
+			@Override
+			public void handle(long currentNanoTime) {
+				drawReplay(currentNanoTime);
+			}
+		};
+
 		// ---- Right: Scrollable Status Panel ----
 		rtPane = new VBox(5);
 		rtPane.setAlignment(Pos.TOP_CENTER);
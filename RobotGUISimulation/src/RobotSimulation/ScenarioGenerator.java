@@ -0,0 +1,570 @@
+package RobotSimulation;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * The <code>ScenarioGenerator</code> class builds the contents of an arena from
+ * a short text spec, so large test worlds need not be written by hand.
+ *
+ * <p>
+ * A spec has one directive per line (or separated by <code>;</code>), with
+ * <code>#</code> starting a comment:
+ * </p>
+ *
+ * <pre>
+ * arena 4000 3000 circle
+ * seed 42
+ * Robot 10000
+ * Prey 50000 clusters 20 spread 150 speed 1..3
+ * Obstacle 2000 radius 5..20
+ * </pre>
+ *
+ * <p>
+ * <code>arena</code> gives the width, height and optionally the shape,
+ * <code>seed</code> the seed of the random numbers, and every other line a
+ * number of items of one type: <code>Robot</code>, <code>Whisker</code>,
+ * <code>Beam</code>, <code>BeamLight</code>, <code>Prey</code>,
+ * <code>Predator</code> (or <code>PredatorRobot</code>), <code>triRobot</code>,
+ * <code>LidarRobot</code>, <code>Obstacle</code>, <code>BounceObstacle</code>,
+ * <code>MiniObstacle</code> or <code>Light</code>. Items are spread uniformly
+ * unless <code>clusters</code> is given, in which case they gather in normally
+ * distributed clumps of the given <code>spread</code> around that many random
+ * centres. Radii and speeds are fixed or drawn uniformly from a range.
+ * </p>
+ *
+ * <p>
+ * Each group draws from its own stream split off the seed, so the same spec
+ * always gives the same world, and changing one group leaves the others as
+ * they were. Items are produced one at a time, either straight into an arena
+ * or as save file lines written to a <code>Writer</code> without building a
+ * string per item, so worlds of millions of items can be generated. Items may
+ * overlap; {@link RobotArena#spawn(String, int, SpawnParams)} places items that
+ * must not.
+ * </p>
+ *
+ * @author Ahmed Elamari
+ * @version 1.0
+ */
+public class ScenarioGenerator {
+
+	/**
+	 * The <code>Kind</code> class describes how one item type is created and
+	 * saved.
+	 */
+	private static final class Kind {
+		/** The name the arena's factory knows the type by. */
+		final String name;
+		/** The start of the type's save file lines. */
+		final String prefix;
+		/** The colour the type is created with. */
+		final char col;
+		/** Whether the type moves, with a heading and speed. */
+		final boolean moving;
+		/** Fields after the speed in the type's save file lines. */
+		final String suffix;
+		/** Speed of the type unless the spec gives one. */
+		final double speed;
+
+		/**
+		 * Constructs a type description.
+		 *
+		 * @param name   the factory name
+		 * @param prefix the start of save file lines
+		 * @param col    the colour
+		 * @param moving whether the type moves
+		 * @param suffix the fields after the speed
+		 * @param speed  the default speed
+		 */
+		Kind(String name, String prefix, char col, boolean moving, String suffix, double speed) {
+			this.name = name;
+			this.prefix = prefix;
+			this.col = col;
+			this.moving = moving;
+			this.suffix = suffix;
+			this.speed = speed;
+		}
+	}
+
+	/** The known types by the names a spec may use. */
+	private static final Map<String, Kind> KINDS = new LinkedHashMap<>();
+
+	static {
+		addKind(new Kind("Robot", "Robot", 'r', true, "", 2));
+		addKind(new Kind("Whisker", "Whisker", 'g', true, "", 1.5));
+		addKind(new Kind("Beam", "Beam Robot", 'r', true, "", 2));
+		addKind(new Kind("BeamLight", "Beam Light", 'y', true, "", 1));
+		addKind(new Kind("Prey", "Prey", 'g', true, "", 2));
+		addKind(new Kind("Predator", "Predator", 'r', true, " 0 0", 1));
+		addKind(new Kind("triRobot", "triRobot", 'p', true, "", 2));
+		addKind(new Kind("LidarRobot", "LidarRobot", 'o', true,
+				" " + LidarRobot.DEFAULT_RAYS + " " + LidarRobot.DEFAULT_RANGE, 2));
+		addKind(new Kind("Obstacle", "Obstacle", 'b', false, "", 0));
+		addKind(new Kind("BounceObstacle", "BounceObstacle", 'p', false, "", 0));
+		addKind(new Kind("MiniObstacle", "MiniObstacle", 'g', false, "", 0));
+		addKind(new Kind("Light", "Light", 'y', false, "", 0));
+		KINDS.put("PredatorRobot", KINDS.get("Predator"));
+	}
+
+	/**
+	 * Registers a type under its factory name.
+	 *
+	 * @param kind the type
+	 */
+	private static void addKind(Kind kind) {
+		KINDS.put(kind.name, kind);
+	}
+
+	/**
+	 * The <code>Group</code> class holds one item line of a spec.
+	 */
+	private static final class Group {
+		/** The type of the items. */
+		Kind kind;
+		/** The number of items. */
+		long count;
+		/** The smallest radius. */
+		double radMin = 10;
+		/** The largest radius. */
+		double radMax = 10;
+		/** The smallest speed. */
+		double speedMin;
+		/** The largest speed. */
+		double speedMax;
+		/** The number of clumps, or 0 for a uniform spread. */
+		int clusters = 0;
+		/** The standard deviation of the distance from a clump's centre. */
+		double spread = 100;
+	}
+
+	/**
+	 * The <code>Sink</code> interface receives the generated items one at a time.
+	 */
+	private interface Sink {
+		/**
+		 * Receives one item.
+		 *
+		 * @param kind  the type
+		 * @param x     the X coordinate
+		 * @param y     the Y coordinate
+		 * @param rad   the radius
+		 * @param angle the heading in degrees
+		 * @param speed the speed
+		 * @throws IOException if the item cannot be written
+		 */
+		void item(Kind kind, double x, double y, double rad, double angle, double speed) throws IOException;
+	}
+
+	/** The width of the arena. */
+	private double width = 400;
+	/** The height of the arena. */
+	private double height = 500;
+	/** The shape of the arena, <code>"rectangle"</code> or <code>"circle"</code>. */
+	private String shape = "rectangle";
+	/** The seed of the random numbers. */
+	private long seed = 0;
+	/** The item lines of the spec, in order. */
+	private final List<Group> groups = new ArrayList<>();
+	/** Line being assembled by {@link #write(Writer)}. */
+	private char[] line = new char[128];
+	/** Length of the line being assembled. */
+	private int lineLength;
+
+	/**
+	 * Reads a spec.
+	 *
+	 * @param spec the spec text
+	 * @return the generator for the spec
+	 * @throws IllegalArgumentException if the spec has an unknown directive or a
+	 *                                  malformed value
+	 */
+	public static ScenarioGenerator parse(String spec) {
+		ScenarioGenerator g = new ScenarioGenerator();
+		int number = 0;
+		for (String raw : spec.split("[\n;]")) {
+			number++;
+			int hash = raw.indexOf('#');
+			String directive = (hash < 0 ? raw : raw.substring(0, hash)).trim();
+			if (directive.isEmpty()) {
+				continue;
+			}
+			String[] parts = directive.split("\\s+");
+			try {
+				g.parseDirective(parts);
+			} catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+				throw new IllegalArgumentException("Bad scenario directive " + number + ": " + directive, e);
+			}
+		}
+		return g;
+	}
+
+	/**
+	 * Applies one directive of a spec.
+	 *
+	 * @param parts the directive split into words
+	 */
+	private void parseDirective(String[] parts) {
+		switch (parts[0]) {
+		case "arena":
+			width = Double.parseDouble(parts[1]);
+			height = Double.parseDouble(parts[2]);
+			if (parts.length > 3) {
+				shape = parts[3].toLowerCase();
+			}
+			return;
+		case "seed":
+			seed = Long.parseLong(parts[1]);
+			return;
+		default:
+			break;
+		}
+		Kind kind = KINDS.get(parts[0]);
+		if (kind == null) {
+			throw new IllegalArgumentException("Unknown scenario directive: " + parts[0]);
+		}
+		Group group = new Group();
+		group.kind = kind;
+		group.count = Long.parseLong(parts[1]);
+		group.speedMin = kind.speed;
+		group.speedMax = kind.speed;
+		for (int i = 2; i < parts.length; i += 2) {
+			String value = parts[i + 1];
+			switch (parts[i]) {
+			case "radius":
+				group.radMin = low(value);
+				group.radMax = high(value);
+				break;
+			case "speed":
+				group.speedMin = low(value);
+				group.speedMax = high(value);
+				break;
+			case "clusters":
+				group.clusters = Integer.parseInt(value);
+				break;
+			case "spread":
+				group.spread = Double.parseDouble(value);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option for " + parts[0] + ": " + parts[i]);
+			}
+		}
+		groups.add(group);
+	}
+
+	/**
+	 * Returns the low end of a value written as <code>a</code> or
+	 * <code>a..b</code>.
+	 *
+	 * @param value the value
+	 * @return <code>a</code>
+	 */
+	private static double low(String value) {
+		int dots = value.indexOf("..");
+		return Double.parseDouble(dots < 0 ? value : value.substring(0, dots));
+	}
+
+	/**
+	 * Returns the high end of a value written as <code>a</code> or
+	 * <code>a..b</code>.
+	 *
+	 * @param value the value
+	 * @return <code>b</code>, or <code>a</code> if there is no range
+	 */
+	private static double high(String value) {
+		int dots = value.indexOf("..");
+		return Double.parseDouble(dots < 0 ? value : value.substring(dots + 2));
+	}
+
+	/**
+	 * Builds a new arena holding the generated items.
+	 *
+	 * @return the arena
+	 */
+	public RobotArena build() {
+		RobotArena arena = new RobotArena(width + " " + height + "\n");
+		if (!shape.equals("rectangle")) {
+			arena.setArenaShape(shape);
+		}
+		generate(arena);
+		return arena;
+	}
+
+	/**
+	 * Adds the generated items to an arena. Its size and shape are left alone,
+	 * so the items are placed for the spec's arena.
+	 *
+	 * @param arena the arena to fill
+	 */
+	public void generate(RobotArena arena) {
+		try {
+			generate((kind, x, y, rad, angle, speed) -> arena
+					.addItem(arena.createItem(kind.name, x, y, rad, angle, speed)));
+		} catch (IOException e) {
+			throw new IllegalStateException(e); // nothing is written
+		}
+	}
+
+	/**
+	 * Writes the generated world in the save file format read by
+	 * {@link RobotArena#RobotArena(String)}. Each line is assembled in a reused
+	 * buffer and written directly, with positions to one decimal place like the
+	 * items' own <code>fileString</code> methods.
+	 *
+	 * @param out where the world is written
+	 * @throws IOException if writing fails
+	 */
+	public void write(Writer out) throws IOException {
+		out.write(width + " " + height + "\n");
+		if (!shape.equals("rectangle")) {
+			out.write("Shape " + shape + "\n");
+		}
+		generate((kind, x, y, rad, angle, speed) -> {
+			lineLength = 0;
+			put(kind.prefix);
+			put(' ');
+			put(x);
+			put(' ');
+			put(y);
+			put(' ');
+			put(rad);
+			put(' ');
+			put(kind.col);
+			if (kind.moving) {
+				put(' ');
+				put(angle);
+				put(' ');
+				put(speed);
+				put(kind.suffix);
+			}
+			put('\n');
+			out.write(line, 0, lineLength);
+		});
+		out.flush();
+	}
+
+	/**
+	 * Produces every item of the spec, group by group.
+	 *
+	 * @param sink receives the items
+	 * @throws IOException if the sink fails
+	 */
+	private void generate(Sink sink) throws IOException {
+		SplittableRandom root = new SplittableRandom(seed);
+		boolean circle = shape.equals("circle");
+		double cx = width / 2;
+		double cy = height / 2;
+		double arenaRadius = Math.min(width, height) / 2;
+		for (Group g : groups) {
+			SplittableRandom rnd = root.split();
+			double[] centreX = new double[g.clusters];
+			double[] centreY = new double[g.clusters];
+			for (int c = 0; c < g.clusters; c++) {
+				double[] p = uniformPoint(rnd, g.radMax, circle, cx, cy, arenaRadius);
+				centreX[c] = p[0];
+				centreY[c] = p[1];
+			}
+			double[] p = new double[2];
+			for (long i = 0; i < g.count; i++) {
+				double rad = g.radMin + rnd.nextDouble() * (g.radMax - g.radMin);
+				if (g.clusters == 0) {
+					uniformPoint(rnd, rad, circle, cx, cy, arenaRadius, p);
+				} else {
+					int c = rnd.nextInt(g.clusters);
+					clusterPoint(rnd, centreX[c], centreY[c], g.spread, rad, circle, cx, cy, arenaRadius, p);
+				}
+				double angle = rnd.nextDouble() * 360;
+				double speed = g.speedMin + rnd.nextDouble() * (g.speedMax - g.speedMin);
+				sink.item(g.kind, p[0], p[1], rad, angle, speed);
+			}
+		}
+	}
+
+	/**
+	 * Draws a point uniformly from the arena, far enough from the wall for an
+	 * item of the given radius.
+	 *
+	 * @param rnd         the random numbers
+	 * @param rad         the item's radius
+	 * @param circle      whether the arena is circular
+	 * @param cx          the X coordinate of the arena's centre
+	 * @param cy          the Y coordinate of the arena's centre
+	 * @param arenaRadius the radius of a circular arena
+	 * @return the point
+	 */
+	private double[] uniformPoint(SplittableRandom rnd, double rad, boolean circle, double cx, double cy,
+			double arenaRadius) {
+		double[] p = new double[2];
+		uniformPoint(rnd, rad, circle, cx, cy, arenaRadius, p);
+		return p;
+	}
+
+	/**
+	 * Draws a point uniformly from the arena, far enough from the wall for an
+	 * item of the given radius.
+	 *
+	 * @param rnd         the random numbers
+	 * @param rad         the item's radius
+	 * @param circle      whether the arena is circular
+	 * @param cx          the X coordinate of the arena's centre
+	 * @param cy          the Y coordinate of the arena's centre
+	 * @param arenaRadius the radius of a circular arena
+	 * @param p           receives the point
+	 */
+	private void uniformPoint(SplittableRandom rnd, double rad, boolean circle, double cx, double cy,
+			double arenaRadius, double[] p) {
+		if (circle) {
+			// Uniform over the disc the item's centre may be in
+			double r = Math.max(0, arenaRadius - rad) * Math.sqrt(rnd.nextDouble());
+			double theta = 2 * Math.PI * rnd.nextDouble();
+			p[0] = cx + r * StrictMath.cos(theta);
+			p[1] = cy + r * StrictMath.sin(theta);
+		} else {
+			p[0] = rad + rnd.nextDouble() * Math.max(0, width - 2 * rad);
+			p[1] = rad + rnd.nextDouble() * Math.max(0, height - 2 * rad);
+		}
+	}
+
+	/**
+	 * Draws a point normally distributed around a clump's centre, redrawing
+	 * points that fall outside the arena and pulling the last try inside.
+	 *
+	 * @param rnd         the random numbers
+	 * @param x           the X coordinate of the centre
+	 * @param y           the Y coordinate of the centre
+	 * @param spread      the standard deviation
+	 * @param rad         the item's radius
+	 * @param circle      whether the arena is circular
+	 * @param cx          the X coordinate of the arena's centre
+	 * @param cy          the Y coordinate of the arena's centre
+	 * @param arenaRadius the radius of a circular arena
+	 * @param p           receives the point
+	 */
+	private void clusterPoint(SplittableRandom rnd, double x, double y, double spread, double rad, boolean circle,
+			double cx, double cy, double arenaRadius, double[] p) {
+		for (int t = 0; t < 8; t++) {
+			p[0] = x + spread * rnd.nextGaussian();
+			p[1] = y + spread * rnd.nextGaussian();
+			if (inside(p[0], p[1], rad, circle, cx, cy, arenaRadius)) {
+				return;
+			}
+		}
+		// Give up on the draw and use the clump's centre instead
+		p[0] = x;
+		p[1] = y;
+	}
+
+	/**
+	 * Returns whether an item lies wholly inside the arena.
+	 *
+	 * @param x           the X coordinate
+	 * @param y           the Y coordinate
+	 * @param rad         the item's radius
+	 * @param circle      whether the arena is circular
+	 * @param cx          the X coordinate of the arena's centre
+	 * @param cy          the Y coordinate of the arena's centre
+	 * @param arenaRadius the radius of a circular arena
+	 * @return <code>true</code> if the item is inside
+	 */
+	private boolean inside(double x, double y, double rad, boolean circle, double cx, double cy,
+			double arenaRadius) {
+		if (circle) {
+			double dx = x - cx;
+			double dy = y - cy;
+			double r = arenaRadius - rad;
+			return dx * dx + dy * dy <= r * r;
+		}
+		return x >= rad && x <= width - rad && y >= rad && y <= height - rad;
+	}
+
+	/**
+	 * Appends a character to the line being assembled.
+	 *
+	 * @param c the character
+	 */
+	private void put(char c) {
+		if (lineLength == line.length) {
+			line = Arrays.copyOf(line, lineLength * 2);
+		}
+		line[lineLength++] = c;
+	}
+
+	/**
+	 * Appends text to the line being assembled.
+	 *
+	 * @param s the text
+	 */
+	private void put(String s) {
+		for (int i = 0; i < s.length(); i++) {
+			put(s.charAt(i));
+		}
+	}
+
+	/**
+	 * Appends a number to one decimal place to the line being assembled.
+	 *
+	 * @param v the number
+	 */
+	private void put(double v) {
+		long tenths = Math.round(Math.abs(v) * 10);
+		if (v < 0 && tenths != 0) {
+			put('-');
+		}
+		long whole = tenths / 10;
+		int start = lineLength;
+		do {
+			put((char) ('0' + whole % 10));
+			whole /= 10;
+		} while (whole > 0);
+		// The digits went in backwards
+		for (int i = start, j = lineLength - 1; i < j; i++, j--) {
+			char t = line[i];
+			line[i] = line[j];
+			line[j] = t;
+		}
+		put('.');
+		put((char) ('0' + tenths % 10));
+	}
+
+	/**
+	 * Returns the total number of items the spec asks for.
+	 *
+	 * @return the item count
+	 */
+	public long getItemCount() {
+		long n = 0;
+		for (Group g : groups) {
+			n += g.count;
+		}
+		return n;
+	}
+
+	/**
+	 * Generates a world from a spec file and writes it as a save file.
+	 *
+	 * @param args the spec file and the save file to write
+	 * @throws IOException if a file cannot be read or written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.out.println("Usage: ScenarioGenerator <spec file> <save file>");
+			return;
+		}
+		ScenarioGenerator g = parse(Files.readString(Path.of(args[0])));
+		long start = System.nanoTime();
+		try (BufferedWriter out = Files.newBufferedWriter(Path.of(args[1]), StandardCharsets.UTF_8)) {
+			g.write(out);
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("Wrote %d items to %s in %.2f s%n", g.getItemCount(), args[1], seconds);
+	}
+}
@@ -0,0 +1,405 @@
+package RobotSimulation;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The <code>ShardLauncher</code> class runs a sharded simulation on one machine.
+ * It splits an arena into tiles, starts one {@link ShardWorker} process per
+ * tile, and steps them together.
+ *
+ * <p>
+ * The launcher is the hub of the exchange: each tick it sends every worker the
+ * items migrating into its tile, the ghosts for its halo and the prey its
+ * neighbours ate as ghosts, then the <code>TICK</code> message, and collects
+ * each worker's migrations, ghosts and eaten prey for the next tick. It also
+ * keeps the arena's total score. Workers are connected over local sockets, so
+ * the same protocol would work with workers on other machines.
+ * </p>
+ *
+ * @author Ahmed Elamari
+ * @version 1.0
+ *
+ * @see ShardLayout
+ */
+public class ShardLauncher implements AutoCloseable {
+
+	/**
+	 * The <code>Shard</code> class holds the connection to one worker.
+	 */
+	private static final class Shard {
+		/** The worker process. */
+		Process process;
+		/** The worker's connection. */
+		Socket socket;
+		/** Messages from the worker. */
+		BufferedReader in;
+		/** Messages to the worker. */
+		Writer out;
+		/** Messages to send before the worker's next tick. */
+		final ArrayList<String> inbox = new ArrayList<>();
+		/** Moving items the worker owned after its last tick. */
+		int owned;
+		/** Time the worker spent on its last tick, in nanoseconds. */
+		long busyNanos;
+	}
+
+	/** How the arena is split. */
+	private final ShardLayout layout;
+	/** One connection per tile. */
+	private final Shard[] shards;
+	/** Ticks run so far. */
+	private long tick = 0;
+	/** Items handed from one tile to another so far. */
+	private long migrations = 0;
+	/** Ghosts sent so far. */
+	private long ghosts = 0;
+	/** The arena's total score. */
+	private int score;
+
+	/**
+	 * Starts one worker process per tile and hands each the part of the arena it
+	 * owns. Static items are copied to every worker; moving items go to the worker
+	 * of the tile they are in.
+	 *
+	 * @param arena the arena to split; must be rectangular
+	 * @param cols  the number of tile columns
+	 * @param rows  the number of tile rows
+	 * @throws IOException if a worker cannot be started or reached
+	 */
+	public ShardLauncher(RobotArena arena, int cols, int rows) throws IOException {
+		layout = new ShardLayout(arena.getXSize(), arena.getYSize(), cols, rows, arena.getInteractionRadius());
+		shards = new Shard[layout.getTileCount()];
+		score = arena.scoreProperty().get();
+
+		try (ServerSocket server = new ServerSocket(0, shards.length, InetAddress.getLoopbackAddress())) {
+			for (int t = 0; t < shards.length; t++) {
+				Shard s = new Shard();
+				s.process = startWorker(server.getLocalPort(), t);
+				shards[t] = s;
+			}
+			// Workers may connect in any order; each names its tile first
+			for (int n = 0; n < shards.length; n++) {
+				Socket socket = server.accept();
+				socket.setTcpNoDelay(true);
+				BufferedReader in = new BufferedReader(
+						new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+				String hello = in.readLine();
+				if (hello == null || !hello.startsWith("HELLO ")) {
+					throw new IOException("Unexpected greeting from worker: " + hello);
+				}
+				Shard s = shards[Integer.parseInt(hello.substring(6).trim())];
+				s.socket = socket;
+				s.in = in;
+				s.out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+			}
+		}
+
+		for (int t = 0; t < shards.length; t++) {
+			shards[t].inbox.add("ARENA " + layout.getWidth() + " " + layout.getHeight() + " " + cols + " " + rows
+					+ " " + layout.getHalo() + " " + t);
+		}
+		for (ArenaItem item : arena.items) {
+			String encoded = ShardWorker.encode(item);
+			if (item.isStatic()) {
+				for (Shard s : shards) {
+					s.inbox.add("STATIC " + encoded);
+				}
+			} else {
+				shards[layout.tileAt(item.getX(), item.getY())].inbox.add("ITEM " + encoded);
+			}
+		}
+	}
+
+	/**
+	 * Starts a worker process running on the same Java installation, class path
+	 * and JVM options as this one.
+	 *
+	 * @param port the port the worker connects back to
+	 * @param tile the worker's tile
+	 * @return the process
+	 * @throws IOException if the process cannot be started
+	 */
+	private static Process startWorker(int port, int tile) throws IOException {
+		List<String> cmd = new ArrayList<>();
+		cmd.add(ProcessHandle.current().info().command().orElse("java"));
+		cmd.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+		cmd.add("-cp");
+		cmd.add(System.getProperty("java.class.path"));
+		cmd.add(ShardWorker.class.getName());
+		cmd.add(InetAddress.getLoopbackAddress().getHostAddress());
+		cmd.add(Integer.toString(port));
+		cmd.add(Integer.toString(tile));
+		// Workers report problems on standard error; their loading messages are dropped
+		return new ProcessBuilder(cmd).redirectOutput(ProcessBuilder.Redirect.DISCARD)
+				.redirectError(ProcessBuilder.Redirect.INHERIT).start();
+	}
+
+	/**
+	 * Runs one tick on every worker. Each worker first receives the items and
+	 * ghosts sent to it during the previous tick, so all workers see the same
+	 * state of their neighbours.
+	 *
+	 * @throws IOException if a worker fails
+	 */
+	public void step() throws IOException {
+		for (Shard s : shards) {
+			for (String line : s.inbox) {
+				s.out.write(line);
+				s.out.write('\n');
+			}
+			s.inbox.clear();
+			s.out.write("TICK\n");
+			s.out.flush();
+		}
+		for (int t = 0; t < shards.length; t++) {
+			Shard s = shards[t];
+			String line;
+			while ((line = s.in.readLine()) != null && !line.startsWith("DONE ")) {
+				// "SCORE <points>", or "MIGRATE", "GHOST" or "EAT" then "<tile> <rest>"
+				int a = line.indexOf(' ');
+				if (line.startsWith("SCORE")) {
+					score += Integer.parseInt(line.substring(a + 1));
+					continue;
+				}
+				int b = line.indexOf(' ', a + 1);
+				Shard to = shards[Integer.parseInt(line.substring(a + 1, b))];
+				if (line.startsWith("MIGRATE")) {
+					to.inbox.add("ITEM " + line.substring(b + 1));
+					migrations++;
+				} else if (line.startsWith("GHOST")) {
+					to.inbox.add("GHOST " + t + " " + line.substring(b + 1));
+					ghosts++;
+				} else {
+					to.inbox.add("EAT " + line.substring(b + 1));
+				}
+			}
+			if (line == null) {
+				throw new IOException("Worker " + t + " stopped");
+			}
+			String[] done = line.split(" ");
+			s.owned = Integer.parseInt(done[1]);
+			s.busyNanos = Long.parseLong(done[2]);
+		}
+		tick++;
+	}
+
+	/**
+	 * Collects the moving items from every worker, including any still on their
+	 * way from one tile to another.
+	 *
+	 * @return the items in the save file format, one per line
+	 * @throws IOException if a worker fails
+	 */
+	public List<String> collect() throws IOException {
+		List<String> result = new ArrayList<>();
+		for (Shard s : shards) {
+			for (String line : s.inbox) {
+				// Ghosts are stale copies; only the migrants are delivered
+				if (!line.startsWith("GHOST ")) {
+					s.out.write(line);
+					s.out.write('\n');
+				}
+			}
+			s.inbox.clear();
+			s.out.write("DUMP\n");
+			s.out.flush();
+		}
+		for (int t = 0; t < shards.length; t++) {
+			String line;
+			while ((line = shards[t].in.readLine()) != null && !line.equals("END")) {
+				String encoded = line.substring(5);
+				int bar = encoded.lastIndexOf('|');
+				result.add(bar < 0 ? encoded : encoded.substring(0, bar));
+			}
+			if (line == null) {
+				throw new IOException("Worker " + t + " stopped");
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of moving items owned by the workers after the last tick,
+	 * not counting items between tiles.
+	 *
+	 * @return the owned item count
+	 */
+	public int getOwnedCount() {
+		int n = 0;
+		for (Shard s : shards) {
+			n += s.owned;
+		}
+		return n;
+	}
+
+	/**
+	 * Returns the longest time any worker spent on the last tick.
+	 *
+	 * @return the time in nanoseconds
+	 */
+	public long getSlowestTickNanos() {
+		long max = 0;
+		for (Shard s : shards) {
+			max = Math.max(max, s.busyNanos);
+		}
+		return max;
+	}
+
+	/**
+	 * Returns the arena's total score, added up from every worker.
+	 *
+	 * @return the score
+	 */
+	public int getScore() {
+		return score;
+	}
+
+	/**
+	 * Returns the number of ticks run.
+	 *
+	 * @return the tick count
+	 */
+	public long getTick() {
+		return tick;
+	}
+
+	/**
+	 * Returns the number of items handed between tiles so far.
+	 *
+	 * @return the migration count
+	 */
+	public long getMigrations() {
+		return migrations;
+	}
+
+	/**
+	 * Returns the number of ghosts sent so far.
+	 *
+	 * @return the ghost count
+	 */
+	public long getGhosts() {
+		return ghosts;
+	}
+
+	/**
+	 * Tells every worker to stop and waits for the processes to end.
+	 */
+	@Override
+	public void close() {
+		for (Shard s : shards) {
+			if (s == null) {
+				continue;
+			}
+			try {
+				if (s.out != null) {
+					s.out.write("QUIT\n");
+					s.out.flush();
+				}
+				if (s.socket != null) {
+					s.socket.close();
+				}
+			} catch (IOException e) {
+				// the worker has already gone
+			}
+		}
+		for (Shard s : shards) {
+			if (s == null) {
+				continue;
+			}
+			try {
+				s.process.waitFor();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				s.process.destroy();
+			}
+		}
+	}
+
+	/**
+	 * Builds a large test arena scattered with robots and prey.
+	 *
+	 * @param width  the width of the arena
+	 * @param height the height of the arena
+	 * @param count  the number of moving items
+	 * @return the arena
+	 */
+	private static RobotArena generate(double width, double height, int count) {
+		RobotArena arena = new RobotArena(width + " " + height + "\n");
+		Random rnd = new Random(1);
+		for (int i = 0; i < count; i++) {
+			double x = 20 + rnd.nextDouble() * (width - 40);
+			double y = 20 + rnd.nextDouble() * (height - 40);
+			double angle = rnd.nextDouble() * 360;
+			if (i % 4 == 3) {
+				arena.addItem(new Prey(x, y, 10, angle, 2, arena));
+			} else {
+				arena.addItem(new Robot(x, y, 10, angle, 2, arena));
+			}
+		}
+		return arena;
+	}
+
+	/**
+	 * Splits a saved (or generated) arena into tiles, runs it for a number of
+	 * ticks and reports the tick rate and how many items moved between tiles.
+	 *
+	 * @param args the save file, or <code>-</code> for a generated arena, then
+	 *             the tile columns and rows, the number of ticks and optionally a
+	 *             file to save the final arena to
+	 * @throws IOException if a file or worker fails
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 4) {
+			System.out.println("Usage: ShardLauncher <save file|-> <cols> <rows> <ticks> [out file]");
+			return;
+		}
+		RobotArena arena = args[0].equals("-") ? generate(4000, 4000, 4000)
+				: new RobotArena(Files.readString(Path.of(args[0])));
+		int cols = Integer.parseInt(args[1]);
+		int rows = Integer.parseInt(args[2]);
+		int ticks = Integer.parseInt(args[3]);
+		int moving = arena.dynamicItems.size();
+
+		try (ShardLauncher launcher = new ShardLauncher(arena, cols, rows)) {
+			long start = System.nanoTime();
+			for (int t = 0; t < ticks; t++) {
+				launcher.step();
+			}
+			double seconds = (System.nanoTime() - start) / 1e9;
+			List<String> items = launcher.collect();
+			System.out.printf("%d x %d shards: %d ticks in %.2f s (%.1f ticks/s), %d migrations, %d ghosts%n", cols,
+					rows, ticks, seconds, ticks / seconds, launcher.getMigrations(), launcher.getGhosts());
+			System.out.println("Moving items: " + moving + " at start, " + items.size() + " at end");
+			System.out.println("Score: " + launcher.getScore());
+
+			if (args.length > 4) {
+				StringBuilder sb = new StringBuilder();
+				sb.append(arena.getXSize()).append(" ").append(arena.getYSize()).append("\n");
+				sb.append("Score ").append(launcher.getScore()).append("\n");
+				for (ArenaItem item : arena.staticItems) {
+					sb.append(item.fileString()).append("\n");
+				}
+				for (String item : items) {
+					sb.append(item).append("\n");
+				}
+				Files.writeString(Path.of(args[4]), sb);
+				System.out.println("Saved to " + args[4]);
+			}
+		}
+	}
+}
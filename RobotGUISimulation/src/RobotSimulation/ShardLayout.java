@@ -0,0 +1,159 @@
+package RobotSimulation;
+
+/**
+ * The <code>ShardLayout</code> class splits a rectangular arena into a grid of
+ * equal tiles, one per shard of a sharded simulation, and answers which tile
+ * owns a position and which tiles need to see it.
+ *
+ * <p>
+ * Every tile is surrounded by a halo of width {@link #getHalo()}. A moving item
+ * inside a neighbouring tile's halo is sent to that tile each tick as a ghost,
+ * so that the items near the border can sense and collide with it. The halo
+ * should therefore be at least the arena's interaction radius.
+ * </p>
+ *
+ * @author Ahmed Elamari
+ * @version 1.0
+ *
+ * @see ShardLauncher
+ */
+public class ShardLayout {
+
+	/** Width of the whole arena. */
+	private final double width;
+	/** Height of the whole arena. */
+	private final double height;
+	/** Number of tile columns. */
+	private final int cols;
+	/** Number of tile rows. */
+	private final int rows;
+	/** Width of the halo around each tile. */
+	private final double halo;
+
+	/**
+	 * Constructs a layout.
+	 *
+	 * @param width  the width of the arena
+	 * @param height the height of the arena
+	 * @param cols   the number of tile columns
+	 * @param rows   the number of tile rows
+	 * @param halo   the width of the halo around each tile
+	 */
+	public ShardLayout(double width, double height, int cols, int rows, double halo) {
+		if (cols < 1 || rows < 1) {
+			throw new IllegalArgumentException("Need at least one tile: " + cols + " x " + rows);
+		}
+		this.width = width;
+		this.height = height;
+		this.cols = cols;
+		this.rows = rows;
+		this.halo = halo;
+	}
+
+	/**
+	 * Returns the number of tiles.
+	 *
+	 * @return columns times rows
+	 */
+	public int getTileCount() {
+		return cols * rows;
+	}
+
+	/**
+	 * Returns the tile owning a position. Positions outside the arena belong to
+	 * the nearest edge tile.
+	 *
+	 * @param x the X coordinate
+	 * @param y the Y coordinate
+	 * @return the tile number, row by row from the top left
+	 */
+	public int tileAt(double x, double y) {
+		int c = (int) (x / width * cols);
+		int r = (int) (y / height * rows);
+		c = Math.max(0, Math.min(cols - 1, c));
+		r = Math.max(0, Math.min(rows - 1, r));
+		return r * cols + c;
+	}
+
+	/**
+	 * Returns whether a position lies within a tile or its halo.
+	 *
+	 * @param tile the tile number
+	 * @param x    the X coordinate
+	 * @param y    the Y coordinate
+	 * @return <code>true</code> if the tile needs to see an item there
+	 */
+	public boolean inReach(int tile, double x, double y) {
+		double tw = width / cols;
+		double th = height / rows;
+		double minX = (tile % cols) * tw;
+		double minY = (tile / cols) * th;
+		return x >= minX - halo && x < minX + tw + halo && y >= minY - halo && y < minY + th + halo;
+	}
+
+	/**
+	 * Finds the tiles next to a tile, including diagonal neighbours.
+	 *
+	 * @param tile the tile number
+	 * @param out  an array of at least 8 entries receiving the neighbours
+	 * @return the number of neighbours written
+	 */
+	public int neighbours(int tile, int[] out) {
+		int c0 = tile % cols;
+		int r0 = tile / cols;
+		int n = 0;
+		for (int r = r0 - 1; r <= r0 + 1; r++) {
+			for (int c = c0 - 1; c <= c0 + 1; c++) {
+				if ((r != r0 || c != c0) && r >= 0 && r < rows && c >= 0 && c < cols) {
+					out[n++] = r * cols + c;
+				}
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Returns the width of the arena.
+	 *
+	 * @return the arena width
+	 */
+	public double getWidth() {
+		return width;
+	}
+
+	/**
+	 * Returns the height of the arena.
+	 *
+	 * @return the arena height
+	 */
+	public double getHeight() {
+		return height;
+	}
+
+	/**
+	 * Returns the number of tile columns.
+	 *
+	 * @return the column count
+	 */
+	public int getCols() {
+		return cols;
+	}
+
+	/**
+	 * Returns the number of tile rows.
+	 *
+	 * @return the row count
+	 */
+	public int getRows() {
+		return rows;
+	}
+
+	/**
+	 * Returns the width of the halo around each tile.
+	 *
+	 * @return the halo width
+	 */
+	public double getHalo() {
+		return halo;
+	}
+}
@@ -0,0 +1,284 @@
+package RobotSimulation;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * The <code>ShardWorker</code> class is one process of a sharded simulation. It
+ * owns the moving items of one tile of the arena and ticks them in a full-size
+ * {@link RobotArena} that holds only those items, a copy of every static item,
+ * and ghosts of the moving items near its border.
+ *
+ * <p>
+ * The worker is driven over a socket by a {@link ShardLauncher}, one text line
+ * per message:
+ * </p>
+ * <ul>
+ * <li><code>ARENA w h cols rows halo tile</code> sets up the arena and layout</li>
+ * <li><code>STATIC item</code> adds a static item</li>
+ * <li><code>ITEM item</code> adds an owned item, at start up or on migration</li>
+ * <li><code>GHOST from item</code> adds a ghost for the next tick, owned by tile
+ * <code>from</code></li>
+ * <li><code>EAT key</code> removes an owned prey eaten as a ghost by a
+ * neighbour</li>
+ * <li><code>TICK</code> runs one tick, replies with <code>MIGRATE tile item</code>
+ * for each item that left the tile, <code>GHOST tile item</code> for each item
+ * inside a neighbour's halo, <code>EAT tile key</code> for each ghost prey eaten
+ * here, <code>SCORE points</code> if the score went up, and finally
+ * <code>DONE owned nanos</code></li>
+ * <li><code>DUMP</code> replies with an <code>ITEM</code> line per owned item and
+ * <code>END</code></li>
+ * <li><code>QUIT</code> ends the process</li>
+ * </ul>
+ *
+ * @author Ahmed Elamari
+ * @version 1.0
+ *
+ * @see ShardLayout
+ */
+public class ShardWorker {
+
+	/** The worker's part of the arena. */
+	private RobotArena arena;
+	/** How the arena is split between workers. */
+	private ShardLayout layout;
+	/** The tile this worker owns. */
+	private int tile;
+	/** Neighbouring tiles, the first <code>neighbourCount</code> in use. */
+	private final int[] neighbours = new int[8];
+	/** Number of neighbouring tiles. */
+	private int neighbourCount;
+	/** Items that left the tile during the last tick. */
+	private final ArrayList<ArenaItem> leaving = new ArrayList<>();
+	/** Tile each item that left during the last tick went to, by shard key. */
+	private final HashMap<Integer, Integer> migrated = new HashMap<>();
+	/** Tile owning each of this tick's ghosts, by shard key. */
+	private final HashMap<Integer, Integer> ghostOwners = new HashMap<>();
+	/** <code>EAT</code> messages for prey that moved on before they arrived. */
+	private final ArrayList<String> forwards = new ArrayList<>();
+	/** The shard's items by shard key, rebuilt when a predator needs them. */
+	private final HashMap<Integer, ArenaItem> byKey = new HashMap<>();
+	/** Score already reported to the launcher. */
+	private int reportedScore = 0;
+
+	/**
+	 * Encodes an item for sending to another worker: its saved form followed by
+	 * its shard key and the state the saved form rounds or leaves out, such as a
+	 * prey's panic timer or a predator's target.
+	 *
+	 * @param item the item to encode
+	 * @return the item on one line
+	 */
+	static String encode(ArenaItem item) {
+		StringBuilder sb = new StringBuilder(item.fileString());
+		sb.append('|').append(item.getShardKey()).append(' ');
+		item.writeState(sb);
+		return sb.toString();
+	}
+
+	/**
+	 * Rebuilds an item encoded by {@link #encode(ArenaItem)}.
+	 *
+	 * @param arena the arena the item will belong to
+	 * @param line  the encoded item
+	 * @return the item, or <code>null</code> if its type is unknown
+	 */
+	static ArenaItem decode(RobotArena arena, String line) {
+		int bar = line.lastIndexOf('|');
+		ArenaItem item = arena.parseItem(bar < 0 ? line : line.substring(0, bar));
+		if (item == null || bar < 0) {
+			return item;
+		}
+		String[] state = line.substring(bar + 1).split(" ");
+		item.shardKey = Integer.parseInt(state[0]);
+		item.readState(state, 1);
+		return item;
+	}
+
+	/**
+	 * Handles one message from the launcher.
+	 *
+	 * @param line the message
+	 * @param out  where replies are written
+	 * @return <code>false</code> once the worker should stop
+	 * @throws IOException if a reply cannot be written
+	 */
+	private boolean handle(String line, Writer out) throws IOException {
+		int space = line.indexOf(' ');
+		String cmd = space < 0 ? line : line.substring(0, space);
+		String rest = space < 0 ? "" : line.substring(space + 1);
+		switch (cmd) {
+		case "ARENA":
+			String[] p = rest.split(" ");
+			double w = Double.parseDouble(p[0]);
+			double h = Double.parseDouble(p[1]);
+			layout = new ShardLayout(w, h, Integer.parseInt(p[2]), Integer.parseInt(p[3]), Double.parseDouble(p[4]));
+			tile = Integer.parseInt(p[5]);
+			neighbourCount = layout.neighbours(tile, neighbours);
+			arena = new RobotArena(w + " " + h + "\n");
+			break;
+		case "STATIC":
+		case "ITEM":
+			ArenaItem item = decode(arena, rest);
+			if (item != null) {
+				arena.addItem(item);
+			}
+			break;
+		case "GHOST":
+			int from = rest.indexOf(' ');
+			ArenaItem ghost = decode(arena, rest.substring(from + 1));
+			if (ghost != null) {
+				arena.addGhost(ghost);
+				ghostOwners.put(ghost.getShardKey(), Integer.valueOf(rest.substring(0, from)));
+			}
+			break;
+		case "EAT":
+			eat(Integer.parseInt(rest));
+			break;
+		case "TICK":
+			tick(out);
+			break;
+		case "DUMP":
+			for (ArenaItem i : arena.dynamicItems) {
+				if (!(i instanceof Prey && ((Prey) i).isBeingEaten())) {
+					out.write("ITEM " + encode(i) + "\n");
+				}
+			}
+			out.write("END\n");
+			out.flush();
+			break;
+		case "QUIT":
+			return false;
+		default:
+			System.err.println("Shard " + tile + ": unknown message " + line);
+		}
+		return true;
+	}
+
+	/**
+	 * Removes an owned prey that a neighbour's predator ate while it was a ghost
+	 * there. If the prey left the tile during the last tick the message is passed
+	 * on to the tile it went to.
+	 *
+	 * @param key the prey's shard key
+	 */
+	private void eat(int key) {
+		for (ArenaItem i : arena.dynamicItems) {
+			if (!i.ghost && i.getShardKey() == key) {
+				arena.removeItem(i);
+				return;
+			}
+		}
+		Integer to = migrated.get(key);
+		if (to != null) {
+			forwards.add("EAT " + to + " " + key);
+		}
+	}
+
+	/**
+	 * Points the predators' targets at this tick's copies of their prey.
+	 */
+	private void relinkPredators() {
+		byKey.clear();
+		for (ArenaItem i : arena.dynamicItems) {
+			if (i instanceof PredatorRobot && !i.ghost) {
+				if (byKey.isEmpty()) {
+					for (ArenaItem k : arena.items) {
+						byKey.put(k.getShardKey(), k);
+					}
+				}
+				((PredatorRobot) i).relinkPrey(byKey);
+			}
+		}
+	}
+
+	/**
+	 * Runs one tick, then tells the owners of any ghost prey eaten here, hands
+	 * over the items that left the tile and sends ghosts of those near its border.
+	 *
+	 * @param out where the results are written
+	 * @throws IOException if the results cannot be written
+	 */
+	private void tick(Writer out) throws IOException {
+		long start = System.nanoTime();
+		relinkPredators();
+		arena.checkItems();
+		arena.adjustItems();
+		for (ArenaItem g : arena.getEatenGhosts()) {
+			out.write("EAT " + ghostOwners.get(g.getShardKey()) + " " + g.getShardKey() + "\n");
+		}
+		arena.clearGhosts();
+		ghostOwners.clear();
+		for (String line : forwards) {
+			out.write(line + "\n");
+		}
+		forwards.clear();
+
+		leaving.clear();
+		migrated.clear();
+		for (ArenaItem i : arena.dynamicItems) {
+			double x = i.getX();
+			double y = i.getY();
+			int owner = layout.tileAt(x, y);
+			if (owner != tile) {
+				out.write("MIGRATE " + owner + " " + encode(i) + "\n");
+				leaving.add(i);
+				migrated.put(i.getShardKey(), owner);
+				continue;
+			}
+			String encoded = null;
+			for (int n = 0; n < neighbourCount; n++) {
+				if (layout.inReach(neighbours[n], x, y)) {
+					if (encoded == null) {
+						encoded = encode(i);
+					}
+					out.write("GHOST " + neighbours[n] + " " + encoded + "\n");
+				}
+			}
+		}
+		for (ArenaItem i : leaving) {
+			arena.removeItem(i);
+		}
+		int score = arena.scoreProperty().get();
+		if (score != reportedScore) {
+			out.write("SCORE " + (score - reportedScore) + "\n");
+			reportedScore = score;
+		}
+		out.write("DONE " + arena.dynamicItems.size() + " " + (System.nanoTime() - start) + "\n");
+		out.flush();
+	}
+
+	/**
+	 * Connects to a launcher and serves its messages until told to stop.
+	 *
+	 * @param args the launcher's host and port, and this worker's tile number
+	 * @throws IOException if the connection fails
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 3) {
+			System.err.println("Usage: ShardWorker <host> <port> <tile>");
+			return;
+		}
+		ShardWorker worker = new ShardWorker();
+		try (Socket socket = new Socket(args[0], Integer.parseInt(args[1]))) {
+			socket.setTcpNoDelay(true);
+			BufferedReader in = new BufferedReader(
+					new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+			Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+			out.write("HELLO " + args[2] + "\n");
+			out.flush();
+			String line;
+			while ((line = in.readLine()) != null && worker.handle(line, out)) {
+				// keep serving
+			}
+		}
+	}
+}
@@ -0,0 +1,509 @@
+package RobotSimulation;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelReader;
+import javafx.scene.paint.Color;
+
+/**
+ * The <code>SoftwareCanvas</code> class is a <code>MyCanvas</code> that draws
+ * into an <code>int[]</code> of ARGB pixels instead of a JavaFX canvas, so the
+ * arena can be drawn without a display, for example to export frames from a
+ * batch run.
+ *
+ * <p>
+ * Every drawing method of <code>MyCanvas</code> is supported and keeps the same
+ * state rules: the fill colour set by one call is used by the next, lines use
+ * the current stroke colour and width, and text is drawn in white, centred on
+ * its position. Shapes are filled with a scanline rasteriser that colours a
+ * pixel when its centre lies inside the shape; there is no anti-aliasing.
+ * Polygons use the non-zero winding rule and lines have square caps, as in
+ * JavaFX. Text is drawn with a built-in 5x7 bitmap font scaled up by
+ * {@link #TEXT_SCALE}; lower case letters are drawn in upper case.
+ * </p>
+ *
+ * <p>
+ * Each canvas holds only its own state, so separate canvases can draw separate
+ * frames on separate threads at the same time. A single canvas must not be
+ * shared between threads.
+ * </p>
+ *
+ * @author Ahmed Elamari
+ * @version 1.0
+ */
+public class SoftwareCanvas extends MyCanvas {
+
+	/** Number of pixels each font pixel is drawn as. */
+	public static final int TEXT_SCALE = 2;
+	/** Width of a glyph in font pixels. */
+	private static final int GLYPH_WIDTH = 5;
+	/** Height of a glyph in font pixels. */
+	private static final int GLYPH_HEIGHT = 7;
+	/** Characters of the built-in font. */
+	private static final String GLYPH_CHARS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ .,:-+/%()!?=";
+	/**
+	 * Bitmaps of the built-in font, one byte per row from the top, the lowest five
+	 * bits of each row from left to right.
+	 */
+	private static final long[] GLYPH_BITS = { 0x0E11131519110EL, 0x040C040404040EL, 0x0E11010204081FL,
+			0x1F02040201110EL, 0x02060A121F0202L, 0x1F101E0101110EL, 0x0608101E11110EL, 0x1F010204080808L,
+			0x0E11110E11110EL, 0x0E11110F01020CL, 0x0E11111F111111L, 0x1E11111E11111EL, 0x0E11101010110EL,
+			0x1C12111111121CL, 0x1F10101E10101FL, 0x1F10101E101010L, 0x0E11101711110FL, 0x1111111F111111L,
+			0x0E04040404040EL, 0x0702020202120CL, 0x11121418141211L, 0x1010101010101FL, 0x111B1515111111L,
+			0x11111915131111L, 0x0E11111111110EL, 0x1E11111E101010L, 0x0E11111115120DL, 0x1E11111E141211L,
+			0x0F10100E01011EL, 0x1F040404040404L, 0x1111111111110EL, 0x11111111110A04L, 0x1111111515150AL,
+			0x11110A040A1111L, 0x1111110A040404L, 0x1F01020408101FL, 0x00000000000000L, 0x00000000000C0CL,
+			0x000000000C0408L, 0x000C0C000C0C00L, 0x0000001F000000L, 0x0004041F040400L, 0x00010204081000L,
+			0x18190204081303L, 0x02040808080402L, 0x08040202020408L, 0x04040404040004L, 0x0E110102040004L,
+			0x00001F001F0000L };
+	/** Bitmap of each ASCII character, with '?' for characters not in the font. */
+	private static final long[] FONT = new long[128];
+
+	static {
+		Arrays.fill(FONT, GLYPH_BITS[GLYPH_CHARS.indexOf('?')]);
+		for (int i = 0; i < GLYPH_CHARS.length(); i++) {
+			FONT[GLYPH_CHARS.charAt(i)] = GLYPH_BITS[i];
+		}
+	}
+
+	/** The pixels, row by row from the top left, as ARGB. */
+	private final int[] pixels;
+	/** ARGB value of each colour code, indexed by the code. */
+	private final int[] palette = new int[128];
+	/** Current fill colour as ARGB. */
+	private int fill = 0xFF000000;
+	/** Current stroke colour as ARGB. */
+	private int stroke = 0xFF000000;
+	/** Current line width. */
+	private double lineWidth = 1;
+
+	/** Crossing points of the current scanline with a polygon's edges. */
+	private double[] crossX = new double[16];
+	/** Direction of each crossing, +1 for a downward edge and -1 for upward. */
+	private int[] crossDir = new int[16];
+	/** Corners of the quad drawn for a line. */
+	private final double[] quadX = new double[4];
+	/** Corners of the quad drawn for a line. */
+	private final double[] quadY = new double[4];
+
+	/**
+	 * Constructs a transparent canvas of the given size.
+	 *
+	 * @param xcs the width of the canvas in pixels
+	 * @param ycs the height of the canvas in pixels
+	 */
+	public SoftwareCanvas(int xcs, int ycs) {
+		this(xcs, ycs, new int[Math.max(0, xcs) * Math.max(0, ycs)]);
+	}
+
+	/**
+	 * Constructs a canvas drawing into an existing array, such as the pixels of an
+	 * image, so a finished frame need not be copied. The array is not cleared.
+	 *
+	 * @param xcs    the width of the canvas in pixels
+	 * @param ycs    the height of the canvas in pixels
+	 * @param pixels the pixels, row by row from the top left, as ARGB
+	 */
+	public SoftwareCanvas(int xcs, int ycs, int[] pixels) {
+		super(null, xcs, ycs);
+		if (xcs <= 0 || ycs <= 0) {
+			throw new IllegalArgumentException("Canvas size must be positive: " + xcs + " x " + ycs);
+		}
+		if (pixels.length != xcs * ycs) {
+			throw new IllegalArgumentException("Expected " + xcs * ycs + " pixels, not " + pixels.length);
+		}
+		this.pixels = pixels;
+		for (char c = 0; c < palette.length; c++) {
+			palette[c] = toArgb(colFromChar(c));
+		}
+	}
+
+	/**
+	 * Returns the pixels drawn so far, row by row from the top left, as ARGB. The
+	 * array is the canvas itself and changes with the next drawing call.
+	 *
+	 * @return the pixels
+	 */
+	public int[] getPixels() {
+		return pixels;
+	}
+
+	/**
+	 * Converts a JavaFX colour to an ARGB value.
+	 *
+	 * @param c the colour
+	 * @return the ARGB value
+	 */
+	static int toArgb(Color c) {
+		return (int) Math.round(c.getOpacity() * 255) << 24 | (int) Math.round(c.getRed() * 255) << 16
+				| (int) Math.round(c.getGreen() * 255) << 8 | (int) Math.round(c.getBlue() * 255);
+	}
+
+	/**
+	 * Returns the ARGB value of a colour code.
+	 *
+	 * @param c the colour code
+	 * @return the ARGB value
+	 */
+	private int argbFromChar(char c) {
+		return c < palette.length ? palette[c] : palette['l'];
+	}
+
+	@Override
+	public void clearCanvas() {
+		Arrays.fill(pixels, 0);
+	}
+
+	/**
+	 * Draws an image centred at the given position, sampling the nearest image
+	 * pixel for each canvas pixel. Images that cannot be read, such as those still
+	 * loading, are skipped.
+	 */
+	@Override
+	public void drawImage(Image i, double x, double y, double sz) {
+		PixelReader reader = i.getPixelReader();
+		int iw = (int) i.getWidth();
+		int ih = (int) i.getHeight();
+		if (reader == null || iw <= 0 || ih <= 0 || !(sz > 0)) {
+			return;
+		}
+		double left = x - sz / 2;
+		double top = y - sz / 2;
+		int c0 = Math.max(0, (int) Math.ceil(left - 0.5));
+		int c1 = Math.min(xCanvasSize - 1, (int) Math.ceil(left + sz - 0.5) - 1);
+		int r0 = Math.max(0, (int) Math.ceil(top - 0.5));
+		int r1 = Math.min(yCanvasSize - 1, (int) Math.ceil(top + sz - 0.5) - 1);
+		for (int r = r0; r <= r1; r++) {
+			int sy = Math.min(ih - 1, (int) ((r + 0.5 - top) * ih / sz));
+			for (int c = c0; c <= c1; c++) {
+				int sx = Math.min(iw - 1, (int) ((c + 0.5 - left) * iw / sz));
+				blend(r * xCanvasSize + c, reader.getArgb(sx, sy));
+			}
+		}
+	}
+
+	@Override
+	public void setFillColour(Color c) {
+		fill = toArgb(c);
+	}
+
+	@Override
+	public void showCircle(double x, double y, double rad, char col) {
+		fill = argbFromChar(col);
+		showCircle(x, y, rad);
+	}
+
+	@Override
+	public void showCircle(double x, double y, double rad) {
+		fillRing(x, y, rad, -1, fill);
+	}
+
+	@Override
+	public void showCircle(double x, double y, double rad, Color fxColor) {
+		fill = toArgb(fxColor);
+		showCircle(x, y, rad);
+	}
+
+	@Override
+	public void strokeCircle(double x, double y, double rad) {
+		double half = lineWidth / 2;
+		fillRing(x, y, rad + half, rad - half, stroke);
+	}
+
+	@Override
+	public void showTriangle(double x, double y, double rad, char col) {
+		fill = argbFromChar(col);
+		quadX[0] = x;
+		quadY[0] = y - rad;
+		quadX[1] = x - rad;
+		quadY[1] = y + rad;
+		quadX[2] = x + rad;
+		quadY[2] = y + rad;
+		fillPolygon(quadX, quadY, 3, fill);
+	}
+
+	/**
+	 * Draws text in the built-in font, white and centred on the given position.
+	 */
+	@Override
+	public void showText(double x, double y, String s) {
+		fill = 0xFFFFFFFF;
+		int advance = (GLYPH_WIDTH + 1) * TEXT_SCALE;
+		int left = (int) Math.round(x - (s.length() * advance - TEXT_SCALE) / 2.0);
+		int top = (int) Math.round(y - GLYPH_HEIGHT * TEXT_SCALE / 2.0);
+		for (int k = 0; k < s.length(); k++) {
+			char ch = Character.toUpperCase(s.charAt(k));
+			long bits = ch < FONT.length ? FONT[ch] : FONT['?'];
+			int gx = left + k * advance;
+			for (int row = 0; row < GLYPH_HEIGHT; row++) {
+				int line = (int) (bits >>> (8 * (GLYPH_HEIGHT - 1 - row))) & 0x1F;
+				for (int col = 0; col < GLYPH_WIDTH; col++) {
+					if ((line & (0x10 >>> col)) != 0) {
+						fillPixels(gx + col * TEXT_SCALE, top + row * TEXT_SCALE, TEXT_SCALE, TEXT_SCALE, fill);
+					}
+				}
+			}
+		}
+	}
+
+	@Override
+	public void drawLine(double d, double e, double f, double g) {
+		double half = Math.max(lineWidth, 1) / 2;
+		double dx = f - d;
+		double dy = g - e;
+		double len = Math.sqrt(dx * dx + dy * dy);
+		if (len == 0) {
+			dx = 1; // a point is drawn as a square
+			dy = 0;
+		} else {
+			dx /= len;
+			dy /= len;
+		}
+		double ax = dx * half;
+		double ay = dy * half;
+		// Extend each end by half the width for square caps, then offset both
+		// sides along the normal
+		quadX[0] = d - ax - ay;
+		quadY[0] = e - ay + ax;
+		quadX[1] = f + ax - ay;
+		quadY[1] = g + ay + ax;
+		quadX[2] = f + ax + ay;
+		quadY[2] = g + ay - ax;
+		quadX[3] = d - ax + ay;
+		quadY[3] = e - ay - ax;
+		fillPolygon(quadX, quadY, 4, stroke);
+	}
+
+	@Override
+	public void setBackgroundColor(char c) {
+		fill = argbFromChar(c);
+		if ((fill >>> 24) == 0xFF) {
+			Arrays.fill(pixels, fill);
+		} else {
+			fillRect(0, 0, xCanvasSize, yCanvasSize, fill);
+		}
+	}
+
+	@Override
+	public void drawRect(double x, double y, double width, double height, char c) {
+		fill = argbFromChar(c);
+		fillRect(x, y, width, height, fill);
+	}
+
+	@Override
+	public void setLineWidth(int i) {
+		lineWidth = i;
+	}
+
+	@Override
+	public void setStrokeColour(char c) {
+		stroke = argbFromChar(c);
+	}
+
+	@Override
+	public void fillPolygon(List<double[]> beamPoints, char col) {
+		fill = argbFromChar(col);
+		int n = beamPoints.size();
+		double[] xpoints = new double[n];
+		double[] ypoints = new double[n];
+		for (int i = 0; i < n; i++) {
+			xpoints[i] = beamPoints.get(i)[0];
+			ypoints[i] = beamPoints.get(i)[1];
+		}
+		fillPolygon(xpoints, ypoints, n, fill);
+	}
+
+	/**
+	 * Fills a polygon using the non-zero winding rule.
+	 *
+	 * @param xs   the x coordinates of the corners
+	 * @param ys   the y coordinates of the corners
+	 * @param n    the number of corners
+	 * @param argb the colour
+	 */
+	private void fillPolygon(double[] xs, double[] ys, int n, int argb) {
+		if (n < 3) {
+			return;
+		}
+		double yMin = ys[0];
+		double yMax = ys[0];
+		for (int i = 1; i < n; i++) {
+			yMin = Math.min(yMin, ys[i]);
+			yMax = Math.max(yMax, ys[i]);
+		}
+		if (!(yMin == yMin && yMax == yMax)) {
+			return; // NaN corner
+		}
+		if (crossX.length < n) {
+			crossX = new double[n];
+			crossDir = new int[n];
+		}
+		int r0 = (int) Math.max(0, Math.ceil(yMin - 0.5));
+		int r1 = (int) Math.min(yCanvasSize - 1, Math.ceil(yMax - 0.5) - 1);
+		for (int r = r0; r <= r1; r++) {
+			double cy = r + 0.5;
+			int m = 0;
+			for (int i = 0, j = n - 1; i < n; j = i++) {
+				double y0 = ys[j];
+				double y1 = ys[i];
+				int dir;
+				if (y0 <= cy && y1 > cy) {
+					dir = 1;
+				} else if (y1 <= cy && y0 > cy) {
+					dir = -1;
+				} else {
+					continue;
+				}
+				double cx = xs[j] + (cy - y0) * (xs[i] - xs[j]) / (y1 - y0);
+				// Insertion sort: polygons here have only a few edges
+				int k = m++;
+				while (k > 0 && crossX[k - 1] > cx) {
+					crossX[k] = crossX[k - 1];
+					crossDir[k] = crossDir[k - 1];
+					k--;
+				}
+				crossX[k] = cx;
+				crossDir[k] = dir;
+			}
+			int winding = 0;
+			double start = 0;
+			for (int k = 0; k < m; k++) {
+				int before = winding;
+				winding += crossDir[k];
+				if (before == 0) {
+					start = crossX[k];
+				} else if (winding == 0) {
+					fillSpan(r, Math.ceil(start - 0.5), Math.ceil(crossX[k] - 0.5) - 1, argb);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Fills a disc, or a ring when given an inner radius.
+	 *
+	 * @param x     the x coordinate of the centre
+	 * @param y     the y coordinate of the centre
+	 * @param outer the outer radius
+	 * @param inner the inner radius, or negative for a disc
+	 * @param argb  the colour
+	 */
+	private void fillRing(double x, double y, double outer, double inner, int argb) {
+		if (!(outer > 0)) {
+			return;
+		}
+		double o2 = outer * outer;
+		double i2 = inner > 0 ? inner * inner : -1;
+		int r0 = (int) Math.max(0, Math.ceil(y - outer - 0.5));
+		int r1 = (int) Math.min(yCanvasSize - 1, Math.floor(y + outer - 0.5));
+		for (int r = r0; r <= r1; r++) {
+			double dy = r + 0.5 - y;
+			double dy2 = dy * dy;
+			if (dy2 > o2) {
+				continue;
+			}
+			double ho = Math.sqrt(o2 - dy2);
+			double left = Math.ceil(x - ho - 0.5);
+			double right = Math.floor(x + ho - 0.5);
+			if (dy2 < i2) {
+				double hi = Math.sqrt(i2 - dy2);
+				fillSpan(r, left, Math.ceil(x - hi - 0.5) - 1, argb);
+				fillSpan(r, Math.floor(x + hi - 0.5) + 1, right, argb);
+			} else {
+				fillSpan(r, left, right, argb);
+			}
+		}
+	}
+
+	/**
+	 * Fills the pixels whose centres lie in a rectangle.
+	 *
+	 * @param x      the left edge
+	 * @param y      the top edge
+	 * @param width  the width
+	 * @param height the height
+	 * @param argb   the colour
+	 */
+	private void fillRect(double x, double y, double width, double height, int argb) {
+		int r0 = (int) Math.max(0, Math.ceil(y - 0.5));
+		int r1 = (int) Math.min(yCanvasSize - 1, Math.ceil(y + height - 0.5) - 1);
+		double c0 = Math.ceil(x - 0.5);
+		double c1 = Math.ceil(x + width - 0.5) - 1;
+		for (int r = r0; r <= r1; r++) {
+			fillSpan(r, c0, c1, argb);
+		}
+	}
+
+	/**
+	 * Fills a block of whole pixels.
+	 *
+	 * @param c    the left column
+	 * @param r    the top row
+	 * @param w    the width in pixels
+	 * @param h    the height in pixels
+	 * @param argb the colour
+	 */
+	private void fillPixels(int c, int r, int w, int h, int argb) {
+		for (int row = Math.max(0, r); row < Math.min(yCanvasSize, r + h); row++) {
+			fillSpan(row, c, c + w - 1, argb);
+		}
+	}
+
+	/**
+	 * Fills part of one row, clipped to the canvas.
+	 *
+	 * @param r    the row
+	 * @param c0   the first column
+	 * @param c1   the last column
+	 * @param argb the colour
+	 */
+	private void fillSpan(int r, double c0, double c1, int argb) {
+		int from = (int) Math.max(0, c0);
+		int to = (int) Math.min(xCanvasSize - 1, c1);
+		if (from > to) {
+			return;
+		}
+		int base = r * xCanvasSize;
+		if ((argb >>> 24) == 0xFF) {
+			Arrays.fill(pixels, base + from, base + to + 1, argb);
+		} else {
+			for (int c = from; c <= to; c++) {
+				blend(base + c, argb);
+			}
+		}
+	}
+
+	/**
+	 * Draws a colour over one pixel, mixing by the colour's opacity.
+	 *
+	 * @param p    the index of the pixel
+	 * @param argb the colour
+	 */
+	private void blend(int p, int argb) {
+		int sa = argb >>> 24;
+		if (sa == 0xFF) {
+			pixels[p] = argb;
+			return;
+		}
+		if (sa == 0) {
+			return;
+		}
+		int dst = pixels[p];
+		int da = dst >>> 24;
+		// Source over destination, on colours not premultiplied by alpha
+		int outA = sa + da * (255 - sa) / 255;
+		if (outA == 0) {
+			pixels[p] = 0;
+			return;
+		}
+		int result = outA << 24;
+		for (int shift = 0; shift < 24; shift += 8) {
+			int s = argb >> shift & 0xFF;
+			int d = dst >> shift & 0xFF;
+			result |= (s * sa + d * da * (255 - sa) / 255) / outA << shift;
+		}
+		pixels[p] = result;
+	}
+}
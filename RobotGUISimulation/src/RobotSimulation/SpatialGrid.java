@@ -0,0 +1,406 @@
+package RobotSimulation;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The <code>SpatialGrid</code> class is a uniform grid that buckets arena items
+ * by the cell containing their centre.
+ *
+ * <p>
+ * The grid is rebuilt from scratch each tick. Buckets are stored in a
+ * compressed layout (one start offset per cell plus a flat array of item
+ * indices) so that a rebuild is two linear passes and reuses the same arrays
+ * from tick to tick.
+ * </p>
+ *
+ * <p>
+ * With a cell size at least as large as the query radius, every pair of items
+ * closer than that radius lies in the same or in adjacent cells, so pair
+ * searches only need to visit a 3x3 block of cells around each item. The
+ * positions are also copied in cell order, so a pair search reads them from
+ * consecutive memory instead of from each item.
+ * </p>
+ *
+ * @author Ahmed Elamari
+ * @version 1.0
+ */
+public class SpatialGrid {
+
+	/**
+	 * Callback receiving each pair of items found by
+	 * {@link SpatialGrid#forEachPairWithin(double, PairVisitor)}.
+	 */
+	public interface PairVisitor {
+		/**
+		 * Visits a single pair of items.
+		 *
+		 * @param a    the first item
+		 * @param b    the second item
+		 * @param dist the centre-to-centre distance between the items
+		 */
+		void visit(ArenaItem a, ArenaItem b, double dist);
+	}
+
+	/** Upper bound on cells per item, so sparse worlds do not waste memory. */
+	private static final int MAX_CELLS_PER_ITEM = 4;
+
+	/** The side length of each square cell. */
+	private double cellSize = 1;
+	/** The X coordinate of the left edge of the grid. */
+	private double originX;
+	/** The Y coordinate of the top edge of the grid. */
+	private double originY;
+	/** Number of cell columns. */
+	private int cols = 1;
+	/** Number of cell rows. */
+	private int rows = 1;
+
+	/** The items in the grid, in the order they were supplied to the build. */
+	private ArenaItem[] entries = new ArenaItem[16];
+	/** The cell each entry falls in. */
+	private int[] entryCell = new int[16];
+	/** Number of entries in the grid. */
+	private int count = 0;
+
+	/** Start offset into <code>cellItems</code> for each cell (size cells + 1). */
+	private int[] cellStart = new int[2];
+	/** Entry indices grouped by cell. */
+	private int[] cellItems = new int[16];
+	/** Scratch write cursor per cell, reused by each build. */
+	private int[] cellFill = new int[2];
+	/** The items grouped by cell, in the same order as <code>cellItems</code>. */
+	private ArenaItem[] cellEntries = new ArenaItem[16];
+	/** The X coordinate of each item in <code>cellEntries</code>. */
+	private double[] cellX = new double[16];
+	/** The Y coordinate of each item in <code>cellEntries</code>. */
+	private double[] cellY = new double[16];
+
+	/**
+	 * Rebuilds the grid from the given items.
+	 *
+	 * <p>
+	 * The grid bounds are taken from the items themselves so that items drifting
+	 * outside the arena are still bucketed correctly. If the requested cell size
+	 * would produce far more cells than items, the cells are enlarged.
+	 * </p>
+	 *
+	 * @param source  the items to insert
+	 * @param minCell the minimum side length of a cell
+	 */
+	public void build(List<? extends ArenaItem> source, double minCell) {
+		count = source.size();
+		if (entries.length < count) {
+			int len = Math.max(count, entries.length * 2);
+			entries = new ArenaItem[len];
+			entryCell = new int[len];
+			cellItems = new int[len];
+			cellEntries = new ArenaItem[len];
+			cellX = new double[len];
+			cellY = new double[len];
+		} else {
+			// Drop stale references beyond the new count
+			Arrays.fill(entries, count, entries.length, null);
+			Arrays.fill(cellEntries, count, cellEntries.length, null);
+		}
+
+		// Find the bounds of all items
+		double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+		double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+		for (int i = 0; i < count; i++) {
+			ArenaItem item = source.get(i);
+			entries[i] = item;
+			minX = Math.min(minX, item.x);
+			minY = Math.min(minY, item.y);
+			maxX = Math.max(maxX, item.x);
+			maxY = Math.max(maxY, item.y);
+		}
+		if (count == 0) {
+			minX = minY = maxX = maxY = 0;
+		}
+
+		// Choose the cell size and grid dimensions
+		cellSize = Math.max(minCell, 1e-6);
+		double width = maxX - minX;
+		double height = maxY - minY;
+		long maxCells = Math.max(64L, (long) count * MAX_CELLS_PER_ITEM);
+		while ((long) (width / cellSize + 1) * (long) (height / cellSize + 1) > maxCells) {
+			cellSize *= 2;
+		}
+		originX = minX;
+		originY = minY;
+		cols = (int) (width / cellSize) + 1;
+		rows = (int) (height / cellSize) + 1;
+
+		int cells = cols * rows;
+		if (cellStart.length < cells + 1) {
+			cellStart = new int[cells + 1];
+			cellFill = new int[cells + 1];
+		} else {
+			Arrays.fill(cellStart, 0, cells + 1, 0);
+		}
+
+		// Counting pass: how many items per cell
+		for (int i = 0; i < count; i++) {
+			int cell = cellIndex(colOf(entries[i].x), rowOf(entries[i].y));
+			entryCell[i] = cell;
+			cellStart[cell + 1]++;
+		}
+		// Prefix sum turns counts into start offsets
+		for (int c = 0; c < cells; c++) {
+			cellStart[c + 1] += cellStart[c];
+		}
+		// Fill pass: place each item index in its cell's range
+		System.arraycopy(cellStart, 0, cellFill, 0, cells);
+		for (int i = 0; i < count; i++) {
+			int k = cellFill[entryCell[i]]++;
+			cellItems[k] = i;
+			cellEntries[k] = entries[i];
+			cellX[k] = entries[i].x;
+			cellY[k] = entries[i].y;
+		}
+	}
+
+	/**
+	 * Returns the number of items in the grid.
+	 *
+	 * @return the item count
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Returns the item stored at the given entry index.
+	 *
+	 * @param i the entry index in the range [0, size)
+	 * @return the item
+	 */
+	public ArenaItem get(int i) {
+		return entries[i];
+	}
+
+	/**
+	 * Returns the current side length of each cell.
+	 *
+	 * @return the cell size
+	 */
+	public double getCellSize() {
+		return cellSize;
+	}
+
+	/**
+	 * Returns the column containing the given X coordinate, clamped to the grid.
+	 *
+	 * @param px the X coordinate
+	 * @return the column index
+	 */
+	public int colOf(double px) {
+		int c = (int) ((px - originX) / cellSize);
+		return c < 0 ? 0 : (c >= cols ? cols - 1 : c);
+	}
+
+	/**
+	 * Returns the row containing the given Y coordinate, clamped to the grid.
+	 *
+	 * @param py the Y coordinate
+	 * @return the row index
+	 */
+	public int rowOf(double py) {
+		int r = (int) ((py - originY) / cellSize);
+		return r < 0 ? 0 : (r >= rows ? rows - 1 : r);
+	}
+
+	/**
+	 * Returns the number of columns in the grid.
+	 *
+	 * @return the column count
+	 */
+	public int getCols() {
+		return cols;
+	}
+
+	/**
+	 * Returns the number of rows in the grid.
+	 *
+	 * @return the row count
+	 */
+	public int getRows() {
+		return rows;
+	}
+
+	/**
+	 * Converts a column and row into a flat cell index.
+	 *
+	 * @param col the column
+	 * @param row the row
+	 * @return the cell index
+	 */
+	public int cellIndex(int col, int row) {
+		return row * cols + col;
+	}
+
+	/**
+	 * Returns the first position in the bucket of the given cell.
+	 *
+	 * @param cell the cell index
+	 * @return the start of the cell's range (inclusive)
+	 */
+	public int cellStart(int cell) {
+		return cellStart[cell];
+	}
+
+	/**
+	 * Returns the position just past the bucket of the given cell.
+	 *
+	 * @param cell the cell index
+	 * @return the end of the cell's range (exclusive)
+	 */
+	public int cellEnd(int cell) {
+		return cellStart[cell + 1];
+	}
+
+	/**
+	 * Returns the entry index stored at a bucket position.
+	 *
+	 * @param k a position between <code>cellStart</code> and
+	 *          <code>cellEnd</code> of some cell
+	 * @return the entry index of the item at that position
+	 */
+	public int entryAt(int k) {
+		return cellItems[k];
+	}
+
+	/**
+	 * Reports every unordered pair of items in the same or adjacent cells whose
+	 * bounding boxes overlap. Each pair is reported exactly once.
+	 *
+	 * <p>
+	 * The grid must have been built with a cell size of at least twice the
+	 * largest item radius, otherwise touching pairs may be missed.
+	 * </p>
+	 *
+	 * @param sink the receiver of the candidate pairs
+	 */
+	public void forEachCandidatePair(BroadPhase.PairSink sink) {
+		for (int i = 0; i < count; i++) {
+			ArenaItem a = entries[i];
+			int col = colOf(a.x);
+			int row = rowOf(a.y);
+			for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+				for (int c = Math.max(0, col - 1); c <= Math.min(cols - 1, col + 1); c++) {
+					int cell = cellIndex(c, r);
+					for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+						int j = cellItems[k];
+						if (j <= i) {
+							continue;
+						}
+						ArenaItem b = entries[j];
+						double reach = a.rad + b.rad;
+						if (Math.abs(b.x - a.x) < reach && Math.abs(b.y - a.y) < reach) {
+							sink.candidate(a, b);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Visits every item in the grid whose centre is at most <code>radius</code>
+	 * from the centre of <code>a</code>. The query item need not be in the grid;
+	 * if it is, it is not reported against itself. Each match is passed to the
+	 * visitor as <code>(a, match, dist)</code>.
+	 *
+	 * <p>
+	 * The grid must have been built with a cell size of at least
+	 * <code>radius</code>.
+	 * </p>
+	 *
+	 * @param a       the item at the centre of the query
+	 * @param radius  the maximum centre-to-centre distance
+	 * @param visitor the callback receiving each match
+	 */
+	public void forEachWithin(ArenaItem a, double radius, PairVisitor visitor) {
+		if (count == 0) {
+			return;
+		}
+		double r2 = radius * radius;
+		int col = colOf(a.x);
+		int row = rowOf(a.y);
+		for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+			for (int c = Math.max(0, col - 1); c <= Math.min(cols - 1, col + 1); c++) {
+				int cell = cellIndex(c, r);
+				for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+					ArenaItem b = entries[cellItems[k]];
+					if (b == a) {
+						continue;
+					}
+					double dx = b.x - a.x;
+					double dy = b.y - a.y;
+					double d2 = dx * dx + dy * dy;
+					if (d2 <= r2) {
+						visitor.visit(a, b, Math.sqrt(d2));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Visits every unordered pair of items whose centres are at most
+	 * <code>radius</code> apart. Each pair is visited exactly once and its
+	 * distance is computed exactly once.
+	 *
+	 * <p>
+	 * Cells smaller than <code>radius</code> are allowed: pairs are then looked
+	 * for as many cells away as the radius reaches. Cells of half the radius test
+	 * about a third fewer pairs than cells of the whole radius. Items are taken
+	 * cell by cell, and each is only paired with the items after it in its own
+	 * row of cells and with the rows below, so no pair is looked at twice. Since
+	 * cells are stored row by row, each row searched is one run of consecutive
+	 * positions.
+	 * </p>
+	 *
+	 * @param radius  the maximum centre-to-centre distance
+	 * @param visitor the callback receiving each pair
+	 */
+	public void forEachPairWithin(double radius, PairVisitor visitor) {
+		double r2 = radius * radius;
+		int reach = (int) Math.ceil(radius / cellSize);
+		for (int row = 0; row < rows; row++) {
+			int lastRow = Math.min(rows - 1, row + reach);
+			for (int col = 0; col < cols; col++) {
+				int cell = cellIndex(col, row);
+				int left = Math.max(0, col - reach);
+				int right = Math.min(cols - 1, col + reach);
+				// The end of the run through this cell and those to its right
+				int sameEnd = cellStart[cellIndex(right, row) + 1];
+				for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+					ArenaItem a = cellEntries[k];
+					double ax = cellX[k];
+					double ay = cellY[k];
+					for (int m = k + 1; m < sameEnd; m++) {
+						double dx = cellX[m] - ax;
+						double dy = cellY[m] - ay;
+						double d2 = dx * dx + dy * dy;
+						if (d2 <= r2) {
+							visitor.visit(a, cellEntries[m], Math.sqrt(d2));
+						}
+					}
+					for (int below = row + 1; below <= lastRow; below++) {
+						int end = cellStart[cellIndex(right, below) + 1];
+						for (int m = cellStart[cellIndex(left, below)]; m < end; m++) {
+							double dx = cellX[m] - ax;
+							double dy = cellY[m] - ay;
+							double d2 = dx * dx + dy * dy;
+							if (d2 <= r2) {
+								visitor.visit(a, cellEntries[m], Math.sqrt(d2));
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package RobotSimulation;
+
+/**
+ * The <code>SpawnParams</code> class holds the settings for placing many items
+ * at once with {@link RobotArena#spawn(String, int, SpawnParams)}: their size,
+ * the space to leave around them, how robots start moving, and the part of the
+ * arena to fill.
+ *
+ * @author Ahmed Elamari
+ * @version 1.0
+ */
+public class SpawnParams {
+
+	/** Radius of each item. */
+	private double radius = 10;
+	/** Space to leave between each item and anything else. */
+	private double gap = 0;
+	/** Heading of robots in degrees, or NaN for a random heading each. */
+	private double angle = Double.NaN;
+	/** Speed of robots. */
+	private double speed = 2;
+	/** The region to fill, or <code>null</code> for the whole arena. */
+	private double[] region = null;
+
+	/**
+	 * Constructs the default settings: items of radius 10 touching at most,
+	 * robots at speed 2 with random headings, anywhere in the arena.
+	 */
+	public SpawnParams() {
+	}
+
+	/**
+	 * Constructs settings for items of a given radius.
+	 *
+	 * @param radius the radius of each item
+	 */
+	public SpawnParams(double radius) {
+		if (radius <= 0) {
+			throw new IllegalArgumentException("Spawn radius must be positive: " + radius);
+		}
+		this.radius = radius;
+	}
+
+	/**
+	 * Sets the radius of each item.
+	 *
+	 * @param radius the radius (must be positive)
+	 */
+	public void setRadius(double radius) {
+		if (radius <= 0) {
+			throw new IllegalArgumentException("Spawn radius must be positive: " + radius);
+		}
+		this.radius = radius;
+	}
+
+	/**
+	 * Returns the radius of each item.
+	 *
+	 * @return the radius
+	 */
+	public double getRadius() {
+		return radius;
+	}
+
+	/**
+	 * Sets the space to leave between each item and the items around it.
+	 *
+	 * @param gap the gap (must not be negative)
+	 */
+	public void setGap(double gap) {
+		if (gap < 0) {
+			throw new IllegalArgumentException("Spawn gap must not be negative: " + gap);
+		}
+		this.gap = gap;
+	}
+
+	/**
+	 * Returns the space left between each item and the items around it.
+	 *
+	 * @return the gap
+	 */
+	public double getGap() {
+		return gap;
+	}
+
+	/**
+	 * Sets the heading robots start with.
+	 *
+	 * @param angle the heading in degrees, or NaN for a random heading each
+	 */
+	public void setAngle(double angle) {
+		this.angle = angle;
+	}
+
+	/**
+	 * Returns the heading robots start with.
+	 *
+	 * @return the heading in degrees, or NaN for a random heading each
+	 */
+	public double getAngle() {
+		return angle;
+	}
+
+	/**
+	 * Sets the speed robots start with.
+	 *
+	 * @param speed the speed
+	 */
+	public void setSpeed(double speed) {
+		this.speed = speed;
+	}
+
+	/**
+	 * Returns the speed robots start with.
+	 *
+	 * @return the speed
+	 */
+	public double getSpeed() {
+		return speed;
+	}
+
+	/**
+	 * Restricts the items to a rectangle within the arena.
+	 *
+	 * @param x0 the left edge
+	 * @param y0 the top edge
+	 * @param x1 the right edge
+	 * @param y1 the bottom edge
+	 */
+	public void setRegion(double x0, double y0, double x1, double y1) {
+		region = new double[] { Math.min(x0, x1), Math.min(y0, y1), Math.max(x0, x1), Math.max(y0, y1) };
+	}
+
+	/**
+	 * Returns the rectangle the items are restricted to.
+	 *
+	 * @return the left, top, right and bottom edges, or <code>null</code> for the
+	 *         whole arena
+	 */
+	public double[] getRegion() {
+		return region;
+	}
+}
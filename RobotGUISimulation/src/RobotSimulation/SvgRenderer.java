@@ -0,0 +1,603 @@
+package RobotSimulation;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+
+/**
+ * The <code>SvgRenderer</code> class is a <code>MyCanvas</code> that writes
+ * what is drawn on it to a <code>Writer</code> as SVG, for vector images of the
+ * arena that stay sharp at any zoom.
+ *
+ * <p>
+ * Each drawing call is written out as one SVG element as soon as it is made,
+ * through a fixed-size buffer, so memory use does not grow with the number of
+ * items or frames. Because of that, {@link #clearCanvas()} cannot remove what
+ * has already been written and does nothing; a frame starts afresh with
+ * {@link #startFrame(int, int, double)} instead.
+ * </p>
+ *
+ * <p>
+ * A still image is written between {@link #startDocument()} and
+ * {@link #endDocument()}. An animation puts each frame in a group between
+ * {@link #startFrame(int, int, double)} and {@link #endFrame()}; the group is
+ * shown for its share of the loop by an SVG <code>animate</code> element, so
+ * the file plays in a browser without scripts. {@link #writeAnimation} builds
+ * one from a trajectory recording.
+ * </p>
+ *
+ * <p>
+ * The drawing methods cannot throw <code>IOException</code>, so the first
+ * write error is kept, later output is skipped, and the error is thrown by
+ * {@link #endDocument()}.
+ * </p>
+ *
+ * @author Ahmed Elamari
+ * @version 1.0
+ */
+public class SvgRenderer extends MyCanvas {
+
+	/** Size of the output buffer in characters. */
+	private static final int BUFFER_SIZE = 8192;
+
+	/** Where the SVG is written. */
+	private final Writer out;
+	/** Output waiting to be written. */
+	private final char[] buffer = new char[BUFFER_SIZE];
+	/** Number of characters waiting in the buffer. */
+	private int buffered = 0;
+	/** The first write error, or <code>null</code>. */
+	private IOException error = null;
+
+	/** SVG colour of each colour code, indexed by the code. */
+	private final String[] palette = new String[128];
+	/** Current fill colour. */
+	private String fill = "#000000";
+	/** Opacity of the current fill colour. */
+	private double fillOpacity = 1;
+	/** Current stroke colour. */
+	private String stroke = "#000000";
+	/** Current line width. */
+	private int lineWidth = 1;
+
+	/**
+	 * Constructs a renderer writing SVG of the given size.
+	 *
+	 * @param out the writer receiving the SVG; it is flushed but not closed
+	 * @param xcs the width of the image
+	 * @param ycs the height of the image
+	 */
+	public SvgRenderer(Writer out, int xcs, int ycs) {
+		super(null, xcs, ycs);
+		this.out = out;
+		for (char c = 0; c < palette.length; c++) {
+			palette[c] = toHex(colFromChar(c));
+		}
+	}
+
+	/**
+	 * Converts a JavaFX colour to an SVG colour, ignoring its opacity.
+	 *
+	 * @param c the colour
+	 * @return the colour as <code>#rrggbb</code>
+	 */
+	private static String toHex(Color c) {
+		int rgb = (int) Math.round(c.getRed() * 255) << 16 | (int) Math.round(c.getGreen() * 255) << 8
+				| (int) Math.round(c.getBlue() * 255);
+		return "#" + Integer.toHexString(0x1000000 | rgb).substring(1);
+	}
+
+	/**
+	 * Returns the SVG colour of a colour code.
+	 *
+	 * @param c the colour code
+	 * @return the colour
+	 */
+	private String hexFromChar(char c) {
+		return c < palette.length ? palette[c] : palette['l'];
+	}
+
+	/**
+	 * Writes the start of the SVG document.
+	 */
+	public void startDocument() {
+		put("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		put("<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\" width=\"");
+		put(xCanvasSize);
+		put("\" height=\"");
+		put(yCanvasSize);
+		put("\" viewBox=\"0 0 ");
+		put(xCanvasSize);
+		put(' ');
+		put(yCanvasSize);
+		put("\">\n");
+	}
+
+	/**
+	 * Writes the end of the SVG document and flushes the writer.
+	 *
+	 * @throws IOException if any of the SVG could not be written
+	 */
+	public void endDocument() throws IOException {
+		put("</svg>\n");
+		writeBuffer();
+		if (error == null) {
+			try {
+				out.flush();
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+		if (error != null) {
+			throw error;
+		}
+	}
+
+	/**
+	 * Starts a frame of an animation. The frame is shown for
+	 * <code>frameSeconds</code> in a loop of <code>count</code> frames.
+	 *
+	 * @param index        the position of the frame in the loop
+	 * @param count        the number of frames in the loop
+	 * @param frameSeconds how long each frame is shown, in seconds
+	 */
+	public void startFrame(int index, int count, double frameSeconds) {
+		if (index < 0 || index >= count) {
+			throw new IllegalArgumentException("Frame " + index + " is not in a loop of " + count);
+		}
+		// Hidden except between its start and end times in each loop
+		put("<g display=\"none\"><animate attributeName=\"display\" calcMode=\"discrete\" dur=\"");
+		put(count * frameSeconds);
+		put("s\" repeatCount=\"indefinite\" values=\"");
+		double from = (double) index / count;
+		double to = (double) (index + 1) / count;
+		if (index > 0) {
+			put("none;");
+		}
+		put("inline");
+		if (index < count - 1) {
+			put(";none");
+		}
+		put("\" keyTimes=\"");
+		if (index > 0) {
+			put("0;");
+		}
+		put(from, 6);
+		if (index < count - 1) {
+			put(';');
+			put(to, 6);
+		}
+		put("\"/>\n");
+	}
+
+	/**
+	 * Ends the current frame of an animation.
+	 */
+	public void endFrame() {
+		put("</g>\n");
+	}
+
+	/**
+	 * Does nothing: what has been written cannot be taken back. Start a new frame
+	 * instead.
+	 */
+	@Override
+	public void clearCanvas() {
+	}
+
+	/**
+	 * Writes an image element linking to the image's URL. Images made in memory,
+	 * which have no URL, are left out.
+	 */
+	@Override
+	public void drawImage(Image i, double x, double y, double sz) {
+		String url = i.getUrl();
+		if (url == null) {
+			return;
+		}
+		put("<image x=\"");
+		put(x - sz / 2);
+		put("\" y=\"");
+		put(y - sz / 2);
+		put("\" width=\"");
+		put(sz);
+		put("\" height=\"");
+		put(sz);
+		put("\" xlink:href=\"");
+		putEscaped(url);
+		put("\"/>\n");
+	}
+
+	@Override
+	public void setFillColour(Color c) {
+		fill = toHex(c);
+		fillOpacity = c.getOpacity();
+	}
+
+	@Override
+	public void showCircle(double x, double y, double rad, char col) {
+		fill = hexFromChar(col);
+		fillOpacity = 1;
+		showCircle(x, y, rad);
+	}
+
+	@Override
+	public void showCircle(double x, double y, double rad) {
+		put("<circle cx=\"");
+		put(x);
+		put("\" cy=\"");
+		put(y);
+		put("\" r=\"");
+		put(rad);
+		putFill();
+		put("/>\n");
+	}
+
+	@Override
+	public void showCircle(double x, double y, double rad, Color fxColor) {
+		setFillColour(fxColor);
+		showCircle(x, y, rad);
+	}
+
+	@Override
+	public void strokeCircle(double x, double y, double rad) {
+		put("<circle cx=\"");
+		put(x);
+		put("\" cy=\"");
+		put(y);
+		put("\" r=\"");
+		put(rad);
+		put("\" fill=\"none\"");
+		putStroke();
+		put("/>\n");
+	}
+
+	@Override
+	public void showTriangle(double x, double y, double rad, char col) {
+		fill = hexFromChar(col);
+		fillOpacity = 1;
+		put("<polygon points=\"");
+		putPoint(x, y - rad);
+		put(' ');
+		putPoint(x - rad, y + rad);
+		put(' ');
+		putPoint(x + rad, y + rad);
+		putFill();
+		put("/>\n");
+	}
+
+	@Override
+	public void showText(double x, double y, String s) {
+		fill = "#ffffff";
+		fillOpacity = 1;
+		put("<text x=\"");
+		put(x);
+		put("\" y=\"");
+		put(y);
+		put("\" text-anchor=\"middle\" dominant-baseline=\"central");
+		putFill();
+		put('>');
+		putEscaped(s);
+		put("</text>\n");
+	}
+
+	@Override
+	public void drawLine(double d, double e, double f, double g) {
+		put("<line x1=\"");
+		put(d);
+		put("\" y1=\"");
+		put(e);
+		put("\" x2=\"");
+		put(f);
+		put("\" y2=\"");
+		put(g);
+		put('"');
+		putStroke();
+		put(" stroke-linecap=\"square\"/>\n");
+	}
+
+	@Override
+	public void setBackgroundColor(char c) {
+		drawRect(0, 0, xCanvasSize, yCanvasSize, c);
+	}
+
+	@Override
+	public void drawRect(double x, double y, double width, double height, char c) {
+		fill = hexFromChar(c);
+		fillOpacity = 1;
+		put("<rect x=\"");
+		put(x);
+		put("\" y=\"");
+		put(y);
+		put("\" width=\"");
+		put(width);
+		put("\" height=\"");
+		put(height);
+		putFill();
+		put("/>\n");
+	}
+
+	@Override
+	public void setLineWidth(int i) {
+		lineWidth = i;
+	}
+
+	@Override
+	public void setStrokeColour(char c) {
+		stroke = hexFromChar(c);
+	}
+
+	@Override
+	public void fillPolygon(List<double[]> beamPoints, char col) {
+		fill = hexFromChar(col);
+		fillOpacity = 1;
+		put("<polygon points=\"");
+		for (int i = 0; i < beamPoints.size(); i++) {
+			if (i > 0) {
+				put(' ');
+			}
+			double[] p = beamPoints.get(i);
+			putPoint(p[0], p[1]);
+		}
+		putFill();
+		put("/>\n");
+	}
+
+	/**
+	 * Closes the attribute being written and adds the fill colour.
+	 */
+	private void putFill() {
+		put("\" fill=\"");
+		put(fill);
+		put('"');
+		if (fillOpacity < 1) {
+			put(" fill-opacity=\"");
+			put(fillOpacity);
+			put('"');
+		}
+	}
+
+	/**
+	 * Adds the stroke colour and width.
+	 */
+	private void putStroke() {
+		put(" stroke=\"");
+		put(stroke);
+		put("\" stroke-width=\"");
+		put(lineWidth);
+		put('"');
+	}
+
+	/**
+	 * Adds a point as <code>x,y</code>.
+	 *
+	 * @param x the x coordinate
+	 * @param y the y coordinate
+	 */
+	private void putPoint(double x, double y) {
+		put(x);
+		put(',');
+		put(y);
+	}
+
+	/**
+	 * Adds text with the characters special to XML escaped.
+	 *
+	 * @param s the text
+	 */
+	private void putEscaped(String s) {
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			switch (c) {
+			case '&':
+				put("&amp;");
+				break;
+			case '<':
+				put("&lt;");
+				break;
+			case '>':
+				put("&gt;");
+				break;
+			case '"':
+				put("&quot;");
+				break;
+			default:
+				put(c);
+			}
+		}
+	}
+
+	/**
+	 * Adds a character to the output.
+	 *
+	 * @param c the character
+	 */
+	private void put(char c) {
+		if (buffered == buffer.length) {
+			writeBuffer();
+		}
+		buffer[buffered++] = c;
+	}
+
+	/**
+	 * Adds text to the output.
+	 *
+	 * @param s the text
+	 */
+	private void put(String s) {
+		for (int i = 0; i < s.length(); i++) {
+			put(s.charAt(i));
+		}
+	}
+
+	/**
+	 * Adds a whole number to the output.
+	 *
+	 * @param v the number
+	 */
+	private void put(long v) {
+		if (v < 0) {
+			put('-');
+			v = -v;
+		}
+		long scale = 1;
+		while (scale <= v / 10) {
+			scale *= 10;
+		}
+		for (; scale > 0; scale /= 10) {
+			put((char) ('0' + v / scale % 10));
+		}
+	}
+
+	/**
+	 * Adds a number to two decimal places to the output, leaving out trailing
+	 * zeros.
+	 *
+	 * @param v the number
+	 */
+	private void put(double v) {
+		put(v, 2);
+	}
+
+	/**
+	 * Adds a number to the output, leaving out trailing zeros.
+	 *
+	 * @param v        the number
+	 * @param decimals the number of decimal places, at most 9
+	 */
+	private void put(double v, int decimals) {
+		if (!Double.isFinite(v)) {
+			put('0'); // SVG has no infinities
+			return;
+		}
+		long unit = 1;
+		for (int i = 0; i < decimals; i++) {
+			unit *= 10;
+		}
+		long scaled = Math.round(Math.abs(v) * unit);
+		if (v < 0 && scaled != 0) {
+			put('-');
+		}
+		put(scaled / unit);
+		long frac = scaled % unit;
+		if (frac != 0) {
+			put('.');
+			for (long digit = unit / 10; frac != 0; digit /= 10) {
+				put((char) ('0' + frac / digit));
+				frac %= digit;
+			}
+		}
+	}
+
+	/**
+	 * Writes out the buffered output, remembering the first error.
+	 */
+	private void writeBuffer() {
+		if (error == null && buffered > 0) {
+			try {
+				out.write(buffer, 0, buffered);
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+		buffered = 0;
+	}
+
+	/**
+	 * Writes a still image of an arena as SVG.
+	 *
+	 * @param arena the arena to draw
+	 * @param out   the writer receiving the SVG
+	 * @throws IOException if the SVG cannot be written
+	 */
+	public static void writeArena(RobotArena arena, Writer out) throws IOException {
+		SvgRenderer svg = new SvgRenderer(out, (int) Math.ceil(arena.getXSize()), (int) Math.ceil(arena.getYSize()));
+		svg.startDocument();
+		arena.drawArena(svg);
+		svg.endDocument();
+	}
+
+	/**
+	 * Writes a trajectory recording as a looping SVG animation, drawing each item
+	 * as the replay does. Frames are decoded one keyframe block at a time, so
+	 * memory use depends on the keyframe interval, not the length of the run.
+	 *
+	 * @param reader       the recording
+	 * @param out          the writer receiving the SVG
+	 * @param width        the width of the image
+	 * @param height       the height of the image
+	 * @param step         the number of recorded frames from one animation frame
+	 *                     to the next
+	 * @param frameSeconds how long each animation frame is shown, in seconds
+	 * @throws IOException if the SVG cannot be written
+	 */
+	public static void writeAnimation(TrajectoryReader reader, Writer out, int width, int height, int step,
+			double frameSeconds) throws IOException {
+		if (step < 1) {
+			throw new IllegalArgumentException("Frame step must be at least 1: " + step);
+		}
+		int frames = reader.getFrameCount();
+		int count = (frames + step - 1) / step;
+		SvgRenderer svg = new SvgRenderer(out, width, height);
+		svg.startDocument();
+		svg.setBackgroundColor('w');
+		List<TrajectoryFrame> block = new ArrayList<>();
+		int index = 0;
+		int f = 0;
+		while (f < frames) {
+			int key = reader.getKeyframe(f);
+			block.clear();
+			reader.decodeBlock(key, block);
+			for (; f < frames && f - key < block.size(); f += step) {
+				svg.startFrame(index++, count, frameSeconds);
+				block.get(f - key).drawFrame(svg);
+				svg.endFrame();
+			}
+		}
+		svg.endDocument();
+	}
+
+	/**
+	 * Writes SVG from a saved arena or a trajectory recording.
+	 *
+	 * @param args a save file or a <code>.traj</code> segment, the SVG file to
+	 *             write, then for a save file optionally the number of ticks to
+	 *             run first, or for a recording optionally the frame step, the
+	 *             seconds per frame, and the width and height
+	 * @throws IOException if a file cannot be read or written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.out.println("Usage: SvgRenderer <save file> <svg file> [ticks]");
+			System.out.println("       SvgRenderer <recording.traj> <svg file> [step] [seconds] [width] [height]");
+			return;
+		}
+		Path in = Path.of(args[0]);
+		try (Writer w = Files.newBufferedWriter(Path.of(args[1]), StandardCharsets.UTF_8)) {
+			if (args[0].endsWith(".traj")) {
+				int step = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+				double seconds = args.length > 3 ? Double.parseDouble(args[3]) : 1.0 / 30;
+				int width = args.length > 4 ? Integer.parseInt(args[4]) : 400;
+				int height = args.length > 5 ? Integer.parseInt(args[5]) : 500;
+				try (TrajectoryReader reader = new TrajectoryReader(in)) {
+					writeAnimation(reader, w, width, height, step, seconds);
+				}
+			} else {
+				RobotArena arena = new RobotArena(Files.readString(in));
+				int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+				for (int t = 0; t < ticks; t++) {
+					arena.checkItems();
+					arena.adjustItems();
+				}
+				writeArena(arena, w);
+			}
+		}
+	}
+}
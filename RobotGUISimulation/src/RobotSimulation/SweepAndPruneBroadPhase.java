@@ -0,0 +1,120 @@
+package RobotSimulation;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * The <code>SweepAndPruneBroadPhase</code> class finds candidate collision
+ * pairs by keeping every item's extent on the X axis in a list sorted by its
+ * left edge.
+ *
+ * <p>
+ * Unlike a uniform grid, it has no cell size, so a mix of tiny mini obstacles,
+ * ordinary robots and large bounce obstacles costs no more than items of one
+ * size. The list is kept from tick to tick and re-sorted with insertion sort:
+ * robots only move a few units per tick, so the order barely changes and the
+ * sort is close to linear. The sweep then only compares items whose X extents
+ * overlap.
+ * </p>
+ *
+ * @author Ahmed Elamari
+ * @version 1.0
+ */
+public class SweepAndPruneBroadPhase implements BroadPhase {
+
+	/**
+	 * One item's interval on the X axis, kept between ticks.
+	 */
+	private static final class Interval {
+		/** The item this interval belongs to. */
+		final ArenaItem item;
+		/** The left edge of the item's bounding box. */
+		double minX;
+		/** The right edge of the item's bounding box. */
+		double maxX;
+		/** The update in which this item was last seen. */
+		int stamp;
+
+		Interval(ArenaItem item) {
+			this.item = item;
+		}
+	}
+
+	/** The intervals, sorted by <code>minX</code> after each update. */
+	private Interval[] sorted = new Interval[16];
+	/** Number of intervals in use. */
+	private int count = 0;
+	/** Finds the interval of an item that was already present. */
+	private final IdentityHashMap<ArenaItem, Interval> byItem = new IdentityHashMap<>();
+	/** Counter identifying the current update. */
+	private int stamp = 0;
+
+	@Override
+	public void update(List<? extends ArenaItem> items) {
+		stamp++;
+
+		// Refresh the intervals of known items and append new ones
+		for (int i = 0; i < items.size(); i++) {
+			ArenaItem item = items.get(i);
+			Interval iv = byItem.get(item);
+			if (iv == null) {
+				iv = new Interval(item);
+				byItem.put(item, iv);
+				if (count == sorted.length) {
+					sorted = Arrays.copyOf(sorted, count * 2);
+				}
+				sorted[count++] = iv;
+			}
+			iv.stamp = stamp;
+			iv.minX = item.x - item.rad;
+			iv.maxX = item.x + item.rad;
+		}
+
+		// Drop intervals of items that have left the arena, keeping the order
+		int kept = 0;
+		for (int i = 0; i < count; i++) {
+			Interval iv = sorted[i];
+			if (iv.stamp == stamp) {
+				sorted[kept++] = iv;
+			} else {
+				byItem.remove(iv.item);
+			}
+		}
+		for (int i = kept; i < count; i++) {
+			sorted[i] = null;
+		}
+		count = kept;
+
+		// Insertion sort: nearly linear because the order changes little per tick
+		for (int i = 1; i < count; i++) {
+			Interval iv = sorted[i];
+			int j = i - 1;
+			while (j >= 0 && sorted[j].minX > iv.minX) {
+				sorted[j + 1] = sorted[j];
+				j--;
+			}
+			sorted[j + 1] = iv;
+		}
+	}
+
+	@Override
+	public void findPairs(PairSink sink) {
+		for (int i = 0; i < count; i++) {
+			Interval a = sorted[i];
+			// Later intervals start at or after a.minX; stop once they start past a.maxX
+			for (int j = i + 1; j < count && sorted[j].minX < a.maxX; j++) {
+				ArenaItem b = sorted[j].item;
+				// The X extents overlap; prune on the Y axis as well
+				if (Math.abs(b.y - a.item.y) < a.item.rad + b.rad) {
+					sink.candidate(a.item, b);
+				}
+			}
+		}
+	}
+
+	@Override
+	public String getName() {
+		return "sap";
+	}
+}
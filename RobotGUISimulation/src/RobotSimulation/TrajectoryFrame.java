@@ -0,0 +1,161 @@
+package RobotSimulation;
+
+/**
+ * The <code>TrajectoryFrame</code> class holds the decoded state of every
+ * recorded item at one tick of a trajectory recording.
+ *
+ * <p>
+ * The values are kept in parallel primitive arrays indexed by the item's
+ * position in the frame, in the order the recorder wrote them.
+ * </p>
+ *
+ * @author Ahmed Elamari
+ * @version 1.0
+ *
+ * @see TrajectoryReader
+ */
+public class TrajectoryFrame {
+
+	/** The tick this frame belongs to. */
+	final long tick;
+	/** Number of items in the frame. */
+	final int count;
+	/** X coordinate of each item. */
+	final double[] x;
+	/** Y coordinate of each item. */
+	final double[] y;
+	/** Heading of each item, in degrees. */
+	final double[] angle;
+	/** Speed of each item. */
+	final double[] speed;
+	/** Radius of each item. */
+	final double[] rad;
+	/** Type code of each item (see <code>TrajectoryRecorder</code>). */
+	final int[] type;
+	/** Item ID of each item. */
+	final int[] itemID;
+
+	/**
+	 * Constructs an empty frame for the given number of items.
+	 *
+	 * @param tick  the tick the frame belongs to
+	 * @param count the number of items
+	 */
+	TrajectoryFrame(long tick, int count) {
+		this.tick = tick;
+		this.count = count;
+		x = new double[count];
+		y = new double[count];
+		angle = new double[count];
+		speed = new double[count];
+		rad = new double[count];
+		type = new int[count];
+		itemID = new int[count];
+	}
+
+	/**
+	 * Constructs a frame for a later tick holding the same items and values as
+	 * another frame, ready for a delta to be applied.
+	 *
+	 * @param tick the tick the new frame belongs to
+	 * @param prev the frame to copy
+	 */
+	TrajectoryFrame(long tick, TrajectoryFrame prev) {
+		this.tick = tick;
+		this.count = prev.count;
+		x = prev.x.clone();
+		y = prev.y.clone();
+		angle = prev.angle.clone();
+		speed = prev.speed.clone();
+		rad = prev.rad;
+		type = prev.type;
+		itemID = prev.itemID;
+	}
+
+	/**
+	 * Returns the tick this frame belongs to.
+	 *
+	 * @return the tick
+	 */
+	public long getTick() {
+		return tick;
+	}
+
+	/**
+	 * Returns the number of items in this frame.
+	 *
+	 * @return the item count
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Draws the recorded robots on the canvas at their recorded size: each as a
+	 * circle in the colour of its type with a line showing its heading, and
+	 * triRobots as triangles. Obstacles, lights and other items that do not move
+	 * are not drawn.
+	 *
+	 * @param mc the canvas to draw on
+	 */
+	public void drawFrame(Renderer mc) {
+		mc.setLineWidth(1);
+		mc.setStrokeColour('l');
+		for (int i = 0; i < count; i++) {
+			if (!isRobot(type[i])) {
+				continue;
+			}
+			double r = rad[i];
+			if (type[i] == TrajectoryRecorder.TYPE_TRI_ROBOT) {
+				mc.showTriangle(x[i], y[i], r, colourOf(type[i]));
+			} else {
+				mc.showCircle(x[i], y[i], r, colourOf(type[i]));
+			}
+			double a = Math.toRadians(angle[i]);
+			mc.drawLine(x[i], y[i], x[i] + r * Math.cos(a), y[i] + r * Math.sin(a));
+		}
+	}
+
+	/**
+	 * Returns whether an item type is a kind of robot.
+	 *
+	 * @param type the type code
+	 * @return <code>true</code> for robots, <code>false</code> for obstacles,
+	 *         lights and other items
+	 */
+	static boolean isRobot(int type) {
+		switch (type) {
+		case TrajectoryRecorder.TYPE_ROBOT:
+		case TrajectoryRecorder.TYPE_PREY:
+		case TrajectoryRecorder.TYPE_PREDATOR:
+		case TrajectoryRecorder.TYPE_WHISKER:
+		case TrajectoryRecorder.TYPE_BEAM:
+		case TrajectoryRecorder.TYPE_BEAM_LIGHT:
+		case TrajectoryRecorder.TYPE_TRI_ROBOT:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the colour character used for an item type, matching the colours
+	 * the live items draw themselves in.
+	 *
+	 * @param type the type code
+	 * @return the colour character
+	 */
+	static char colourOf(int type) {
+		switch (type) {
+		case TrajectoryRecorder.TYPE_PREY:
+		case TrajectoryRecorder.TYPE_WHISKER:
+			return 'g';
+		case TrajectoryRecorder.TYPE_BEAM_LIGHT:
+			return 'y';
+		case TrajectoryRecorder.TYPE_TRI_ROBOT:
+			return 'p';
+		default:
+			return 'r';
+		}
+	}
+}
@@ -0,0 +1,293 @@
+package RobotSimulation;
+
+import static RobotSimulation.TrajectoryRecorder.DOUBLE;
+import static RobotSimulation.TrajectoryRecorder.FLOAT;
+import static RobotSimulation.TrajectoryRecorder.INT;
+import static RobotSimulation.TrajectoryRecorder.LONG;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The <code>TrajectoryReader</code> class reads the segment files written by
+ * <code>TrajectoryRecorder</code> and rebuilds the state at any recorded tick.
+ *
+ * <p>
+ * On opening, every segment is mapped read-only and the frame headers are
+ * scanned once to build an index of where each frame starts and which keyframe
+ * it depends on. Rebuilding a tick then decodes that keyframe and applies the
+ * deltas after it, so it costs at most one keyframe interval of frames however
+ * long the recording is.
+ * </p>
+ *
+ * <p>
+ * A reader may be used from any single thread at a time; the mapped files stay
+ * open until {@link #close()}.
+ * </p>
+ *
+ * @author Ahmed Elamari
+ * @version 1.0
+ *
+ * @see TrajectoryRecorder
+ * @see ReplayPlayer
+ */
+public class TrajectoryReader implements AutoCloseable {
+
+	/** Recognises segment file names and extracts the base name. */
+	private static final Pattern SEGMENT_NAME = Pattern.compile("(.+)-(\\d{5})\\.traj");
+
+	/** The memory arena owning every mapping. */
+	private final Arena mapping = Arena.ofShared();
+	/** The mapped segment files, in order. */
+	private final List<MemorySegment> segments = new ArrayList<>();
+
+	/** Number of frames found. */
+	private int frameCount = 0;
+	/** Segment holding each frame. */
+	private int[] frameSegment = new int[64];
+	/** Byte offset of each frame within its segment. */
+	private long[] frameOffset = new long[64];
+	/** Tick of each frame. */
+	private long[] frameTick = new long[64];
+	/** Index of the keyframe each frame is rebuilt from. */
+	private int[] frameKey = new int[64];
+
+	/**
+	 * Opens the recording that a segment file belongs to, reading every segment
+	 * with the same base name in the same directory.
+	 *
+	 * @param anySegment the path of any one segment file
+	 * @throws IOException if a segment cannot be read or is not a valid recording
+	 */
+	public TrajectoryReader(Path anySegment) throws IOException {
+		Matcher m = SEGMENT_NAME.matcher(anySegment.getFileName().toString());
+		if (!m.matches()) {
+			throw new IOException("Not a trajectory segment: " + anySegment);
+		}
+		Path dir = anySegment.toAbsolutePath().getParent();
+		String baseName = m.group(1);
+
+		try {
+			for (int i = 0;; i++) {
+				Path p = TrajectoryRecorder.segmentPath(dir, baseName, i);
+				if (!Files.exists(p)) {
+					break;
+				}
+				try (FileChannel ch = FileChannel.open(p, StandardOpenOption.READ)) {
+					MemorySegment seg = ch.map(MapMode.READ_ONLY, 0, ch.size(), mapping);
+					checkHeader(seg, p);
+					segments.add(seg);
+					indexFrames(seg, segments.size() - 1);
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			mapping.close();
+			throw e;
+		}
+		if (frameCount == 0) {
+			mapping.close();
+			throw new IOException("No frames found for " + baseName + " in " + dir);
+		}
+		System.out.println("Opened recording " + baseName + ": " + frameCount + " frames in " + segments.size()
+				+ " segment(s)");
+	}
+
+	/**
+	 * Checks the file header of a segment.
+	 *
+	 * @param seg the mapped segment
+	 * @param p   the path of the segment, for error messages
+	 * @throws IOException if the header is missing or of another version
+	 */
+	private void checkHeader(MemorySegment seg, Path p) throws IOException {
+		if (seg.byteSize() < TrajectoryRecorder.FILE_HEADER_SIZE || seg.get(INT, 0) != TrajectoryRecorder.FILE_MAGIC) {
+			throw new IOException("Not a trajectory segment: " + p);
+		}
+		if (seg.get(INT, 4) != TrajectoryRecorder.VERSION) {
+			throw new IOException("Unsupported trajectory version " + seg.get(INT, 4) + " in " + p);
+		}
+	}
+
+	/**
+	 * Scans the frame headers of one segment and adds them to the index. A
+	 * truncated or unfinished frame at the end of the file ends the scan.
+	 *
+	 * @param seg   the mapped segment
+	 * @param index the segment number
+	 */
+	private void indexFrames(MemorySegment seg, int index) {
+		long size = seg.byteSize();
+		long p = TrajectoryRecorder.FILE_HEADER_SIZE;
+		int lastKey = -1;
+		while (p + TrajectoryRecorder.FRAME_HEADER_SIZE <= size && seg.get(INT, p) == TrajectoryRecorder.FRAME_MAGIC) {
+			int kind = seg.get(INT, p + 4);
+			int n = seg.get(INT, p + 16);
+			int recordSize = kind == TrajectoryRecorder.FRAME_FULL ? TrajectoryRecorder.RECORD_SIZE
+					: TrajectoryRecorder.DELTA_RECORD_SIZE;
+			long end = p + TrajectoryRecorder.FRAME_HEADER_SIZE + (long) n * recordSize;
+			if (end > size || (kind != TrajectoryRecorder.FRAME_FULL && lastKey < 0)) {
+				break;
+			}
+			if (frameCount == frameTick.length) {
+				int len = frameCount * 2;
+				frameSegment = Arrays.copyOf(frameSegment, len);
+				frameOffset = Arrays.copyOf(frameOffset, len);
+				frameTick = Arrays.copyOf(frameTick, len);
+				frameKey = Arrays.copyOf(frameKey, len);
+			}
+			if (kind == TrajectoryRecorder.FRAME_FULL) {
+				lastKey = frameCount;
+			}
+			frameSegment[frameCount] = index;
+			frameOffset[frameCount] = p;
+			frameTick[frameCount] = seg.get(LONG, p + 8);
+			frameKey[frameCount] = lastKey;
+			frameCount++;
+			p = end;
+		}
+	}
+
+	/**
+	 * Returns the number of frames in the recording.
+	 *
+	 * @return the frame count
+	 */
+	public int getFrameCount() {
+		return frameCount;
+	}
+
+	/**
+	 * Returns the tick of a frame.
+	 *
+	 * @param frame the frame number, in the range [0, frameCount)
+	 * @return the tick recorded in that frame
+	 */
+	public long getTick(int frame) {
+		return frameTick[frame];
+	}
+
+	/**
+	 * Returns the number of the keyframe a frame is rebuilt from.
+	 *
+	 * @param frame the frame number
+	 * @return the frame number of its keyframe
+	 */
+	public int getKeyframe(int frame) {
+		return frameKey[frame];
+	}
+
+	/**
+	 * Finds the last frame recorded at or before a tick.
+	 *
+	 * @param tick the tick to look for
+	 * @return the frame number, or 0 if the tick is before the first frame
+	 */
+	public int frameAtTick(long tick) {
+		int lo = 0, hi = frameCount - 1;
+		while (lo < hi) {
+			int mid = (lo + hi + 1) >>> 1;
+			if (frameTick[mid] <= tick) {
+				lo = mid;
+			} else {
+				hi = mid - 1;
+			}
+		}
+		return lo;
+	}
+
+	/**
+	 * Rebuilds the state recorded in one frame, starting from its keyframe.
+	 *
+	 * @param frame the frame number
+	 * @return the decoded frame
+	 */
+	public TrajectoryFrame decode(int frame) {
+		int key = frameKey[frame];
+		TrajectoryFrame f = decodeKeyframe(key);
+		for (int i = key + 1; i <= frame; i++) {
+			f = applyDelta(i, f);
+		}
+		return f;
+	}
+
+	/**
+	 * Decodes a keyframe and every delta frame after it, up to the next keyframe.
+	 * Decoding a whole block at once lets a player step backwards through it
+	 * without rebuilding each frame from the keyframe.
+	 *
+	 * @param key the frame number of a keyframe
+	 * @param out the list receiving the decoded frames in order
+	 */
+	public void decodeBlock(int key, List<TrajectoryFrame> out) {
+		TrajectoryFrame f = decodeKeyframe(key);
+		out.add(f);
+		for (int i = key + 1; i < frameCount && frameKey[i] == key; i++) {
+			f = applyDelta(i, f);
+			out.add(f);
+		}
+	}
+
+	/**
+	 * Decodes a keyframe.
+	 *
+	 * @param frame the frame number of a keyframe
+	 * @return the decoded frame
+	 */
+	private TrajectoryFrame decodeKeyframe(int frame) {
+		MemorySegment seg = segments.get(frameSegment[frame]);
+		long p = frameOffset[frame];
+		int n = seg.get(INT, p + 16);
+		TrajectoryFrame f = new TrajectoryFrame(frameTick[frame], n);
+		p += TrajectoryRecorder.FRAME_HEADER_SIZE;
+		for (int i = 0; i < n; i++, p += TrajectoryRecorder.RECORD_SIZE) {
+			f.x[i] = seg.get(DOUBLE, p);
+			f.y[i] = seg.get(DOUBLE, p + 8);
+			f.angle[i] = seg.get(DOUBLE, p + 16);
+			f.speed[i] = seg.get(DOUBLE, p + 24);
+			f.rad[i] = seg.get(DOUBLE, p + 32);
+			f.type[i] = seg.get(INT, p + 40);
+			f.itemID[i] = seg.get(INT, p + 44);
+		}
+		return f;
+	}
+
+	/**
+	 * Applies a delta frame to the frame before it.
+	 *
+	 * @param frame the frame number of a delta frame
+	 * @param prev  the decoded previous frame, which holds the same items in the
+	 *              same order
+	 * @return the decoded frame
+	 */
+	private TrajectoryFrame applyDelta(int frame, TrajectoryFrame prev) {
+		MemorySegment seg = segments.get(frameSegment[frame]);
+		long p = frameOffset[frame] + TrajectoryRecorder.FRAME_HEADER_SIZE;
+		TrajectoryFrame f = new TrajectoryFrame(frameTick[frame], prev);
+		for (int i = 0; i < f.count; i++, p += TrajectoryRecorder.DELTA_RECORD_SIZE) {
+			f.x[i] += seg.get(FLOAT, p + 8);
+			f.y[i] += seg.get(FLOAT, p + 12);
+			f.angle[i] += seg.get(FLOAT, p + 16);
+			f.speed[i] += seg.get(FLOAT, p + 20);
+		}
+		return f;
+	}
+
+	/**
+	 * Unmaps every segment. The reader must not be used afterwards.
+	 */
+	@Override
+	public void close() {
+		mapping.close();
+	}
+}
@@ -0,0 +1,552 @@
+package RobotSimulation;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * The <code>TrajectoryRecorder</code> class appends the state of the arena's
+ * items to memory-mapped files, one fixed-width frame per tick, for offline
+ * analysis and replay.
+ *
+ * <p>
+ * Each segment file starts with a {@value #FILE_HEADER_SIZE}-byte header
+ * (magic, format version, record size, reserved) followed by frames. A frame
+ * is a {@value #FRAME_HEADER_SIZE}-byte header (magic, frame kind, tick, item
+ * count, reserved) followed by one record per item. All values are
+ * little-endian.
+ * </p>
+ *
+ * <p>
+ * Every {@link #getKeyframeInterval()}th frame is a keyframe holding the full
+ * state: one {@value #RECORD_SIZE}-byte record per item with <code>x</code>,
+ * <code>y</code>, <code>rAngle</code>, speed and radius as doubles, then the
+ * type code (one of the <code>TYPE_</code> constants) and item ID as ints. The
+ * frames in between are deltas: one {@value #DELTA_RECORD_SIZE}-byte record per
+ * item, in the same order as the previous frame, with the item ID and type
+ * code, then the change in position, heading and speed since the previous
+ * frame as floats. Deltas are taken from the value a reader will have reconstructed, not
+ * the exact one, so rounding never accumulates. A keyframe is also written
+ * whenever the items, their order or a radius change, and at the start of each
+ * segment, so any tick can be rebuilt from at most one keyframe and fewer
+ * than <code>K</code> deltas.
+ * </p>
+ *
+ * <p>
+ * A segment is mapped once when it is opened, so recording a frame is only a
+ * series of primitive stores into mapped memory: nothing is formatted and no
+ * system call is made per item or per frame. When the next frame would not fit,
+ * the segment is trimmed to its used length and a new one is started, named
+ * <code>base-00000.traj</code>, <code>base-00001.traj</code> and so on.
+ * </p>
+ *
+ * <p>
+ * Touching fresh pages of a mapping is what costs most, so while one segment is
+ * being filled the next one is created, mapped and touched on a background
+ * thread. Rolling over then only swaps in the prepared mapping.
+ * </p>
+ *
+ * @author Ahmed Elamari
+ * @version 1.0
+ *
+ * @see RobotArena#setRecorder(TrajectoryRecorder)
+ */
+public class TrajectoryRecorder implements AutoCloseable {
+
+	/** Magic number at the start of each segment file ("TRAJ"). */
+	public static final int FILE_MAGIC = 0x4A415254;
+	/** Magic number at the start of each frame ("FRAM"). */
+	public static final int FRAME_MAGIC = 0x4D415246;
+	/** Version of the file format. */
+	public static final int VERSION = 3;
+	/** Size in bytes of the header at the start of each segment file. */
+	public static final int FILE_HEADER_SIZE = 16;
+	/** Size in bytes of the header at the start of each frame. */
+	public static final int FRAME_HEADER_SIZE = 24;
+	/** Size in bytes of one item record. */
+	public static final int RECORD_SIZE = 48;
+	/** Size in bytes of one delta record. */
+	public static final int DELTA_RECORD_SIZE = 24;
+	/** Frame kind holding the full state of every item. */
+	public static final int FRAME_FULL = 0;
+	/** Frame kind holding the changes since the previous frame. */
+	public static final int FRAME_DELTA = 1;
+	/** Default number of frames from one keyframe to the next. */
+	public static final int DEFAULT_KEYFRAME_INTERVAL = 30;
+
+	/** Default segment size limit: 256 MB. */
+	public static final long DEFAULT_SEGMENT_BYTES = 256L << 20;
+
+	/** Type code of a plain <code>Robot</code>. */
+	public static final int TYPE_ROBOT = 0;
+	/** Type code of a <code>Prey</code>. */
+	public static final int TYPE_PREY = 1;
+	/** Type code of a <code>PredatorRobot</code>. */
+	public static final int TYPE_PREDATOR = 2;
+	/** Type code of a <code>Whisker</code>. */
+	public static final int TYPE_WHISKER = 3;
+	/** Type code of a <code>Beam</code>. */
+	public static final int TYPE_BEAM = 4;
+	/** Type code of a <code>BeamLight</code>. */
+	public static final int TYPE_BEAM_LIGHT = 5;
+	/** Type code of a <code>triRobot</code>. */
+	public static final int TYPE_TRI_ROBOT = 6;
+	/** Type code of an <code>Obstacle</code>. */
+	public static final int TYPE_OBSTACLE = 7;
+	/** Type code of a <code>BounceObstacle</code>. */
+	public static final int TYPE_BOUNCE_OBSTACLE = 8;
+	/** Type code of a <code>miniObstacleXP</code>. */
+	public static final int TYPE_MINI_OBSTACLE = 9;
+	/** Type code of a <code>Light</code>. */
+	public static final int TYPE_LIGHT = 10;
+	/** Type code of any other item. */
+	public static final int TYPE_OTHER = 11;
+
+	/** Type codes cached per concrete class, so each lookup is a single probe. */
+	private static final ClassValue<Integer> TYPE_CODES = new ClassValue<Integer>() {
+		@Override
+		protected Integer computeValue(Class<?> c) {
+			return classify(c);
+		}
+	};
+
+	// Little-endian layouts so files can be read on any machine
+	static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT.withOrder(ByteOrder.LITTLE_ENDIAN);
+	static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG.withOrder(ByteOrder.LITTLE_ENDIAN);
+	static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE.withOrder(ByteOrder.LITTLE_ENDIAN);
+	static final ValueLayout.OfFloat FLOAT = ValueLayout.JAVA_FLOAT.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+	/** The directory receiving the segment files. */
+	private final Path dir;
+	/** The file name prefix of each segment. */
+	private final String baseName;
+	/** The size at which a new segment is started. */
+	private final long segmentLimit;
+	/** Number of frames from one keyframe to the next. */
+	private final int keyframeInterval;
+
+	/**
+	 * One segment file with its mapping.
+	 */
+	private static final class Segment {
+		/** The open file. */
+		final FileChannel channel;
+		/** The memory arena owning the mapping. */
+		final Arena mapping;
+		/** The mapped memory of the file. */
+		final MemorySegment memory;
+
+		Segment(FileChannel channel, Arena mapping, MemorySegment memory) {
+			this.channel = channel;
+			this.mapping = mapping;
+			this.memory = memory;
+		}
+	}
+
+	/** The segment being written, or <code>null</code> before the first frame. */
+	private Segment current;
+	/** The mapped memory of the current segment. */
+	private MemorySegment segment;
+	/** The next segment, being prepared in the background. */
+	private CompletableFuture<Segment> next;
+	/** Number of bytes written to the current segment. */
+	private long position;
+	/** Number of the current segment. */
+	private int segmentIndex = -1;
+	/** Number of frames recorded so far. */
+	private long frames = 0;
+	/** Number of frames written since the last keyframe. */
+	private int sinceKeyframe = 0;
+	/** Number of items in the last frame. */
+	private int lastCount = -1;
+
+	// Last reconstructed state of each item, by position in the last frame
+	private double[] prevX = new double[0];
+	private double[] prevY = new double[0];
+	private double[] prevAngle = new double[0];
+	private double[] prevSpeed = new double[0];
+	/** The item ID at each position of the last frame. */
+	private int[] lastIds = new int[0];
+	/** The radius at each position of the last keyframe. */
+	private double[] lastRad = new double[0];
+
+	/**
+	 * Returns the type code recorded for the given item.
+	 *
+	 * @param item the item
+	 * @return one of the <code>TYPE_</code> constants
+	 */
+	public static int typeOf(ArenaItem item) {
+		return TYPE_CODES.get(item.getClass());
+	}
+
+	/**
+	 * Works out the type code of a class.
+	 *
+	 * @param c the concrete class of an item
+	 * @return one of the <code>TYPE_</code> constants
+	 */
+	private static int classify(Class<?> c) {
+		// Most specific classes first
+		if (PredatorRobot.class.isAssignableFrom(c)) {
+			return TYPE_PREDATOR;
+		} else if (BeamLight.class.isAssignableFrom(c)) {
+			return TYPE_BEAM_LIGHT;
+		} else if (Beam.class.isAssignableFrom(c)) {
+			return TYPE_BEAM;
+		} else if (Prey.class.isAssignableFrom(c)) {
+			return TYPE_PREY;
+		} else if (Whisker.class.isAssignableFrom(c)) {
+			return TYPE_WHISKER;
+		} else if (triRobot.class.isAssignableFrom(c)) {
+			return TYPE_TRI_ROBOT;
+		} else if (Robot.class.isAssignableFrom(c)) {
+			return TYPE_ROBOT;
+		} else if (BounceObstacle.class.isAssignableFrom(c)) {
+			return TYPE_BOUNCE_OBSTACLE;
+		} else if (miniObstacleXP.class.isAssignableFrom(c)) {
+			return TYPE_MINI_OBSTACLE;
+		} else if (Obstacle.class.isAssignableFrom(c)) {
+			return TYPE_OBSTACLE;
+		} else if (Light.class.isAssignableFrom(c)) {
+			return TYPE_LIGHT;
+		}
+		return TYPE_OTHER;
+	}
+
+	/**
+	 * Constructs a recorder writing segments of at most
+	 * {@link #DEFAULT_SEGMENT_BYTES} bytes.
+	 *
+	 * @param dir      the directory receiving the files (created if necessary)
+	 * @param baseName the file name prefix of each segment
+	 */
+	public TrajectoryRecorder(Path dir, String baseName) {
+		this(dir, baseName, DEFAULT_SEGMENT_BYTES, DEFAULT_KEYFRAME_INTERVAL);
+	}
+
+	/**
+	 * Constructs a recorder.
+	 *
+	 * @param dir          the directory receiving the files (created if
+	 *                     necessary)
+	 * @param baseName     the file name prefix of each segment
+	 * @param segmentBytes     the size at which a new segment file is started; a
+	 *                         segment is still made large enough for a single
+	 *                         frame
+	 * @param keyframeInterval the number of frames from one keyframe to the next
+	 *                         (1 writes only keyframes)
+	 */
+	public TrajectoryRecorder(Path dir, String baseName, long segmentBytes, int keyframeInterval) {
+		if (segmentBytes <= FILE_HEADER_SIZE + FRAME_HEADER_SIZE) {
+			throw new IllegalArgumentException("Segment size too small: " + segmentBytes);
+		}
+		if (keyframeInterval < 1) {
+			throw new IllegalArgumentException("Keyframe interval must be at least 1: " + keyframeInterval);
+		}
+		this.dir = dir;
+		this.baseName = baseName;
+		this.segmentLimit = segmentBytes;
+		this.keyframeInterval = keyframeInterval;
+	}
+
+	/**
+	 * Returns the path of a segment file.
+	 *
+	 * @param dir      the directory holding the segments
+	 * @param baseName the file name prefix of each segment
+	 * @param index    the segment number
+	 * @return the path of that segment
+	 */
+	public static Path segmentPath(Path dir, String baseName, int index) {
+		return dir.resolve(String.format("%s-%05d.traj", baseName, index));
+	}
+
+	/**
+	 * Appends one frame holding the state of the given items, as a keyframe or a
+	 * delta from the previous frame.
+	 *
+	 * @param tick  the tick the state belongs to
+	 * @param items the items to record
+	 * @throws IOException if a new segment cannot be created
+	 */
+	public void record(long tick, List<? extends ArenaItem> items) throws IOException {
+		int n = items.size();
+		boolean key = needsKeyframe(items);
+		long frameBytes = FRAME_HEADER_SIZE + (long) n * (key ? RECORD_SIZE : DELTA_RECORD_SIZE);
+		if (!key && (segment == null || position + frameBytes > segment.byteSize())) {
+			// A new segment must start with a keyframe
+			key = true;
+			frameBytes = FRAME_HEADER_SIZE + (long) n * RECORD_SIZE;
+		}
+		ensureRoom(frameBytes);
+
+		MemorySegment s = segment;
+		long p = position;
+		s.set(INT, p, FRAME_MAGIC);
+		s.set(INT, p + 4, key ? FRAME_FULL : FRAME_DELTA);
+		s.set(LONG, p + 8, tick);
+		s.set(INT, p + 16, n);
+		s.set(INT, p + 20, 0);
+		p += FRAME_HEADER_SIZE;
+
+		if (key) {
+			for (int i = 0; i < n; i++, p += RECORD_SIZE) {
+				ArenaItem item = items.get(i);
+				int id = item.itemID;
+				double angle = 0, speed = 0;
+				if (item instanceof Robot) {
+					angle = ((Robot) item).rAngle;
+					speed = ((Robot) item).rSpeed;
+				}
+				s.set(DOUBLE, p, item.x);
+				s.set(DOUBLE, p + 8, item.y);
+				s.set(DOUBLE, p + 16, angle);
+				s.set(DOUBLE, p + 24, speed);
+				s.set(DOUBLE, p + 32, item.rad);
+				s.set(INT, p + 40, typeOf(item));
+				s.set(INT, p + 44, id);
+				prevX[i] = item.x;
+				prevY[i] = item.y;
+				prevAngle[i] = angle;
+				prevSpeed[i] = speed;
+				lastIds[i] = id;
+				lastRad[i] = item.rad;
+			}
+			sinceKeyframe = 1;
+		} else {
+			for (int i = 0; i < n; i++, p += DELTA_RECORD_SIZE) {
+				ArenaItem item = items.get(i);
+				int id = item.itemID;
+				double angle = 0, speed = 0;
+				if (item instanceof Robot) {
+					angle = ((Robot) item).rAngle;
+					speed = ((Robot) item).rSpeed;
+				}
+				// Track what the reader will reconstruct so rounding does not drift
+				float dx = (float) (item.x - prevX[i]);
+				float dy = (float) (item.y - prevY[i]);
+				float da = (float) (angle - prevAngle[i]);
+				float ds = (float) (speed - prevSpeed[i]);
+				s.set(INT, p, id);
+				s.set(INT, p + 4, typeOf(item));
+				s.set(FLOAT, p + 8, dx);
+				s.set(FLOAT, p + 12, dy);
+				s.set(FLOAT, p + 16, da);
+				s.set(FLOAT, p + 20, ds);
+				prevX[i] += dx;
+				prevY[i] += dy;
+				prevAngle[i] += da;
+				prevSpeed[i] += ds;
+			}
+			sinceKeyframe++;
+		}
+		lastCount = n;
+		position = p;
+		frames++;
+	}
+
+	/**
+	 * Decides whether the next frame must be a keyframe: because the interval has
+	 * elapsed, because the items differ from the previous frame, or because one
+	 * has changed size. Delta records are matched to the previous frame by
+	 * position, so the same items in a different order also need a keyframe.
+	 *
+	 * @param items the items about to be recorded
+	 * @return <code>true</code> if a keyframe is needed
+	 */
+	private boolean needsKeyframe(List<? extends ArenaItem> items) {
+		int n = items.size();
+		if (sinceKeyframe >= keyframeInterval || n != lastCount) {
+			if (n > lastIds.length) {
+				growState(n);
+			}
+			return true;
+		}
+		for (int i = 0; i < n; i++) {
+			ArenaItem item = items.get(i);
+			if (item.itemID != lastIds[i] || item.rad != lastRad[i]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Grows the per-position state arrays to hold the given number of items.
+	 *
+	 * @param n the number of items to hold
+	 */
+	private void growState(int n) {
+		int len = Math.max(n, lastIds.length * 2);
+		prevX = Arrays.copyOf(prevX, len);
+		prevY = Arrays.copyOf(prevY, len);
+		prevAngle = Arrays.copyOf(prevAngle, len);
+		prevSpeed = Arrays.copyOf(prevSpeed, len);
+		lastIds = Arrays.copyOf(lastIds, len);
+		lastRad = Arrays.copyOf(lastRad, len);
+	}
+
+	/**
+	 * Makes sure the current segment has room for a frame, starting a new segment
+	 * if it does not.
+	 *
+	 * @param frameBytes the size of the frame about to be written
+	 * @throws IOException if a new segment cannot be created
+	 */
+	private void ensureRoom(long frameBytes) throws IOException {
+		if (segment != null && position + frameBytes <= segment.byteSize()) {
+			return;
+		}
+		finishSegment();
+
+		segmentIndex++;
+		long size = Math.max(segmentLimit, FILE_HEADER_SIZE + frameBytes);
+		Segment prepared = takePrepared();
+		if (prepared == null || prepared.memory.byteSize() < size) {
+			if (prepared != null) {
+				discard(prepared);
+			}
+			prepared = openSegment(segmentIndex, size);
+		}
+		current = prepared;
+		segment = prepared.memory;
+		position = FILE_HEADER_SIZE;
+
+		// Get the following segment ready while this one fills up
+		int following = segmentIndex + 1;
+		next = CompletableFuture.supplyAsync(() -> {
+			try {
+				return openSegment(following, segmentLimit);
+			} catch (IOException e) {
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Creates, maps and touches a segment file and writes its header.
+	 *
+	 * @param index the segment number
+	 * @param size  the size of the file to map
+	 * @return the new segment
+	 * @throws IOException if the file cannot be created or mapped
+	 */
+	private Segment openSegment(int index, long size) throws IOException {
+		Files.createDirectories(dir);
+		FileChannel ch = FileChannel.open(segmentPath(dir, baseName, index), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		Arena arena = Arena.ofShared();
+		MemorySegment mem = ch.map(MapMode.READ_WRITE, 0, size, arena);
+		// Fault every page in now rather than during recording
+		mem.fill((byte) 0);
+
+		mem.set(INT, 0, FILE_MAGIC);
+		mem.set(INT, 4, VERSION);
+		mem.set(INT, 8, RECORD_SIZE);
+		mem.set(INT, 12, 0);
+		return new Segment(ch, arena, mem);
+	}
+
+	/**
+	 * Waits for the segment being prepared in the background, if any.
+	 *
+	 * @return the prepared segment, or <code>null</code> if none is available
+	 */
+	private Segment takePrepared() {
+		if (next == null) {
+			return null;
+		}
+		try {
+			return next.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (ExecutionException e) {
+			return null;
+		} finally {
+			next = null;
+		}
+	}
+
+	/**
+	 * Unmaps and closes a prepared segment that will not be used.
+	 *
+	 * @param s the segment to discard
+	 * @throws IOException if the file cannot be closed
+	 */
+	private void discard(Segment s) throws IOException {
+		s.mapping.close();
+		s.channel.close();
+	}
+
+	/**
+	 * Unmaps the current segment and trims the file to the bytes written.
+	 *
+	 * @throws IOException if the file cannot be trimmed
+	 */
+	private void finishSegment() throws IOException {
+		if (current == null) {
+			return;
+		}
+		segment.force();
+		current.mapping.close();
+		current.channel.truncate(position);
+		current.channel.close();
+		current = null;
+		segment = null;
+	}
+
+	/**
+	 * Returns the number of frames recorded so far.
+	 *
+	 * @return the frame count
+	 */
+	public long getFrameCount() {
+		return frames;
+	}
+
+	/**
+	 * Returns the number of frames from one keyframe to the next.
+	 *
+	 * @return the keyframe interval
+	 */
+	public int getKeyframeInterval() {
+		return keyframeInterval;
+	}
+
+	/**
+	 * Returns the number of segment files started so far.
+	 *
+	 * @return the segment count
+	 */
+	public int getSegmentCount() {
+		return segmentIndex + 1;
+	}
+
+	/**
+	 * Finishes the current segment. The recorder must not be used afterwards.
+	 *
+	 * @throws IOException if the last segment cannot be trimmed
+	 */
+	@Override
+	public void close() throws IOException {
+		finishSegment();
+		Segment unused = takePrepared();
+		if (unused != null) {
+			discard(unused);
+			Files.deleteIfExists(segmentPath(dir, baseName, segmentIndex + 1));
+		}
+	}
+}
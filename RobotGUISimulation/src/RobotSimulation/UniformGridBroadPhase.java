@@ -0,0 +1,42 @@
+package RobotSimulation;
+
+import java.util.List;
+
+/**
+ * The <code>UniformGridBroadPhase</code> class finds candidate collision pairs
+ * with a <code>SpatialGrid</code> whose cells are as wide as the largest item.
+ *
+ * <p>
+ * Two circles can only touch if their centres are at most twice the largest
+ * radius apart, so with that cell size every touching pair lies in the same or
+ * adjacent cells. This works well while items are of similar size; a single
+ * large item makes every cell large.
+ * </p>
+ *
+ * @author Ahmed Elamari
+ * @version 1.0
+ */
+public class UniformGridBroadPhase implements BroadPhase {
+
+	/** The grid holding the items for the current tick. */
+	private final SpatialGrid grid = new SpatialGrid();
+
+	@Override
+	public void update(List<? extends ArenaItem> items) {
+		double maxRad = 0;
+		for (int i = 0; i < items.size(); i++) {
+			maxRad = Math.max(maxRad, items.get(i).rad);
+		}
+		grid.build(items, 2 * maxRad);
+	}
+
+	@Override
+	public void findPairs(PairSink sink) {
+		grid.forEachCandidatePair(sink);
+	}
+
+	@Override
+	public String getName() {
+		return "grid";
+	}
+}
@@ -28,10 +28,20 @@ public class Whisker extends Robot {
 	private int speedResetCounter; // Count updates until speed returns to normal
 	private char whiskerLineColour; // field to track whisker line colour
 
+	// Both whiskers are cast as one batch of rays; these are reused every update
+	private final double[] whiskerDirX = new double[2];
+	private final double[] whiskerDirY = new double[2];
+	private final ArenaItem[] whiskerHits = new ArenaItem[2];
+	private final double[] whiskerDists = new double[2];
+	private final RaycastService.RayHit whiskerHit = new RaycastService.RayHit();
+
 	// Constants - tweak these for different robot "personalities"
 	private static final int SPEED_RESET_DELAY = 20; // How long to maintain boosted speed
 	private static final double SPEED_BOOST_FACTOR = 1.5; // How much faster when escaping
 	private static final double WHISKER_ANGLE = 25; // Angle between whiskers (in degrees)
+	// Whisker directions relative to the heading, precomputed for updateWhiskers
+	private static final double WHISKER_COS = StrictMath.cos(Math.toRadians(WHISKER_ANGLE));
+	private static final double WHISKER_SIN = StrictMath.sin(Math.toRadians(WHISKER_ANGLE));
 
 	/**
 	 * Creates a new Whisker robot for exploring the arena with whisker sensors.
@@ -76,15 +86,11 @@ public class Whisker extends Robot {
 	 * angle. Whiskers are used for collision detection against walls and items.
 	 */
 	private void updateWhiskers() {
-		// Calculate whisker angles relative to the robot's heading
-		double leftAngle = rAngle - WHISKER_ANGLE;
-		double rightAngle = rAngle + WHISKER_ANGLE;
-
-		// Calculate whisker endpoints
-		double leftX = calcX(rad + whiskerLength, leftAngle);
-		double leftY = calcY(rad + whiskerLength, leftAngle);
-		double rightX = calcX(rad + whiskerLength, rightAngle);
-		double rightY = calcY(rad + whiskerLength, rightAngle);
+		// Calculate whisker endpoints at -/+ WHISKER_ANGLE from the robot's heading
+		double leftX = calcXOffset(rad + whiskerLength, WHISKER_COS, -WHISKER_SIN);
+		double leftY = calcYOffset(rad + whiskerLength, WHISKER_COS, -WHISKER_SIN);
+		double rightX = calcXOffset(rad + whiskerLength, WHISKER_COS, WHISKER_SIN);
+		double rightY = calcYOffset(rad + whiskerLength, WHISKER_COS, WHISKER_SIN);
 
 		// Create whisker lines for collision checks
 		leftWhisker = new Line(x, y, leftX, leftY);
@@ -101,11 +107,17 @@ public class Whisker extends Robot {
 	 * @param mc The canvas to draw on
 	 */
 	@Override
-	public void drawItem(MyCanvas mc) {
+	public void drawItem(Renderer mc) {
 		super.drawItem(mc); // Draw the robot body first
-		updateWhiskers(); // Update whiskers before drawing
-		leftWhisker.drawLine(mc);
-		rightWhisker.drawLine(mc);
+		// Draw from the current position rather than the sensing lines, which are
+		// only updated when the robot moves
+		double leftX = calcXOffset(rad + whiskerLength, WHISKER_COS, -WHISKER_SIN);
+		double leftY = calcYOffset(rad + whiskerLength, WHISKER_COS, -WHISKER_SIN);
+		double rightX = calcXOffset(rad + whiskerLength, WHISKER_COS, WHISKER_SIN);
+		double rightY = calcYOffset(rad + whiskerLength, WHISKER_COS, WHISKER_SIN);
+		mc.setStrokeColour(whiskerLineColour);
+		mc.drawLine(x, y, leftX, leftY);
+		mc.drawLine(x, y, rightX, rightY);
 	}
 
 	/**
@@ -142,13 +154,36 @@ public class Whisker extends Robot {
 		leftDetect = leftDetect || wallDetections[0];
 		rightDetect = rightDetect || wallDetections[1];
 
-		// Use item collision checks
+		// Lights near us pull the robot towards them
 		double itemProximityThreshold = rad * 1.3;
-		for (ArenaItem item : arena.items) {
-			if (item != this) {
-				boolean[] itemDetections = checkItemCollision(item, itemProximityThreshold);
-				leftDetect = leftDetect || itemDetections[0];
-				rightDetect = rightDetect || itemDetections[1];
+		for (int n = 0; n < neighbours.size(); n++) {
+			if (neighbours.get(n) instanceof Light) {
+				Light light = (Light) neighbours.get(n);
+				handleLightDetection(light, neighbours.distance(n), itemProximityThreshold);
+			}
+		}
+
+		// Cast the whiskers: an item is detected when a whisker passes within the
+		// proximity threshold of its edge
+		double hc = headingCos();
+		double hs = headingSin();
+		whiskerDirX[0] = hc * WHISKER_COS + hs * WHISKER_SIN; // left, -WHISKER_ANGLE
+		whiskerDirY[0] = hs * WHISKER_COS - hc * WHISKER_SIN;
+		whiskerDirX[1] = hc * WHISKER_COS - hs * WHISKER_SIN; // right, +WHISKER_ANGLE
+		whiskerDirY[1] = hs * WHISKER_COS + hc * WHISKER_SIN;
+		arena.getRaycaster().castBatch(x, y, whiskerDirX, whiskerDirY, 2, rad + whiskerLength,
+				itemProximityThreshold, this, null, whiskerHit, whiskerHits, whiskerDists);
+		if (whiskerHits[0] != null) {
+			leftDetect = true;
+			// If very close, add extra turn angle for avoidance
+			if (isVeryClose(leftWhisker, whiskerHits[0], itemProximityThreshold)) {
+				rAngle += 15;
+			}
+		}
+		if (whiskerHits[1] != null) {
+			rightDetect = true;
+			if (isVeryClose(rightWhisker, whiskerHits[1], itemProximityThreshold)) {
+				rAngle -= 15;
 			}
 		}
 
@@ -192,53 +227,17 @@ public class Whisker extends Robot {
 	}
 
 	/**
-	 * Checks collision with an item in the arena. Different items may prompt
-	 * different behaviors (e.g. light-seeking vs. obstacle avoidance).
+	 * Checks whether a whisker passes so close to an obstacle that the robot
+	 * should turn away harder. Lights are approached rather than avoided.
 	 *
-	 * @param item                   The item to check collision against
+	 * @param whisker                The whisker that detected the item
+	 * @param item                   The item detected
 	 * @param itemProximityThreshold Amount of proximity allowed before detection
-	 * @return A boolean array [leftDetected, rightDetected]
+	 * @return True if the whisker is within half the threshold of the item
 	 */
-	private boolean[] checkItemCollision(ArenaItem item, double itemProximityThreshold) {
-		boolean leftDetected = false;
-		boolean rightDetected = false;
-
-		double distanceToItem = Math.sqrt(Math.pow(item.getX() - x, 2) + Math.pow(item.getY() - y, 2));
-
-		// If it's a Light, use specialized logic
-		if (item instanceof Light) {
-			handleLightDetection((Light) item, distanceToItem, itemProximityThreshold);
-			// Also check if we're just "too close"
-			if (leftWhisker.distanceFrom(item.getX(), item.getY()) < ((Light) item).getRad() + itemProximityThreshold) {
-				leftDetected = true;
-			}
-			if (rightWhisker.distanceFrom(item.getX(), item.getY()) < ((Light) item).getRad()
-					+ itemProximityThreshold) {
-				rightDetected = true;
-			}
-		} else {
-			// General obstacle detection
-			double itemRadius = item.getRad();
-			double leftDistance = leftWhisker.distanceFrom(item.getX(), item.getY());
-			double rightDistance = rightWhisker.distanceFrom(item.getX(), item.getY());
-
-			// Check if either whisker is close to this item
-			if (leftDistance < itemRadius + itemProximityThreshold) {
-				leftDetected = true;
-				// If very close, add extra turn angle for avoidance
-				if (leftDistance < itemRadius + (itemProximityThreshold * 0.5)) {
-					rAngle += 15;
-				}
-			}
-			if (rightDistance < itemRadius + itemProximityThreshold) {
-				rightDetected = true;
-				// If very close, add extra turn angle for avoidance
-				if (rightDistance < itemRadius + (itemProximityThreshold * 0.5)) {
-					rAngle -= 15;
-				}
-			}
-		}
-		return new boolean[] { leftDetected, rightDetected };
+	private boolean isVeryClose(Line whisker, ArenaItem item, double itemProximityThreshold) {
+		return !(item instanceof Light)
+				&& whisker.distanceFrom(item.getX(), item.getY()) < item.getRad() + (itemProximityThreshold * 0.5);
 	}
 
 	/**
@@ -258,13 +257,13 @@ public class Whisker extends Robot {
 	}
 
 	/**
-	 * Moves the robot's angle to point toward a given light source.
+	 * Moves the robot's angle to point toward a given light source, along the
+	 * arena's flow field so that obstacles in between are avoided.
 	 *
 	 * @param light The Light object to move towards
 	 */
 	private void moveTowardsLight(Light light) {
-		double angleToLight = Math.toDegrees(Math.atan2(light.getY() - y, light.getX() - x));
-		rAngle = angleToLight;
+		rAngle = headingToLight(light);
 	}
 
 	/**
@@ -273,7 +272,7 @@ public class Whisker extends Robot {
 	 */
 	private void reverse() {
 		// Reverse angle with a small random offset
-		rAngle = (rAngle + 180 + (Math.random() * 40 - 20)) % 360;
+		rAngle = (rAngle + 180 + (random() * 40 - 20)) % 360;
 
 		if (!isSpeedBoosted) {
 			originalSpeed = rSpeed;
@@ -297,7 +296,7 @@ public class Whisker extends Robot {
 	 * movement.
 	 */
 	private void turnLeft() {
-		rAngle = (rAngle - 90 + (Math.random() * 20 - 10)) % 360;
+		rAngle = (rAngle - 90 + (random() * 20 - 10)) % 360;
 	}
 
 	/**
@@ -305,7 +304,7 @@ public class Whisker extends Robot {
 	 * movement.
 	 */
 	private void turnRight() {
-		rAngle = (rAngle + 90 + (Math.random() * 20 - 10)) % 360;
+		rAngle = (rAngle + 90 + (random() * 20 - 10)) % 360;
 	}
 
 	/**
@@ -317,7 +316,7 @@ public class Whisker extends Robot {
 	 */
 	@Override
 	public double calcX(double s, double deg) {
-		return x + s * Math.cos(Math.toRadians(deg));
+		return x + s * StrictMath.cos(Math.toRadians(deg));
 	}
 
 	/**
@@ -329,7 +328,7 @@ public class Whisker extends Robot {
 	 */
 	@Override
 	public double calcY(double s, double deg) {
-		return y + s * Math.sin(Math.toRadians(deg));
+		return y + s * StrictMath.sin(Math.toRadians(deg));
 	}
 
 	/**
@@ -359,4 +358,21 @@ public class Whisker extends Robot {
 	public String fileString() {
 		return String.format("Whisker %.1f %.1f %.1f %c %.1f %.1f", x, y, rad, col, rAngle, rSpeed);
 	}
+
+	@Override
+	void writeState(StringBuilder sb) {
+		super.writeState(sb);
+		sb.append(' ').append(whiskerLength).append(' ').append(originalSpeed).append(' ').append(isSpeedBoosted)
+				.append(' ').append(speedResetCounter);
+	}
+
+	@Override
+	int readState(String[] f, int i) {
+		i = super.readState(f, i);
+		whiskerLength = Double.parseDouble(f[i++]);
+		originalSpeed = Double.parseDouble(f[i++]);
+		isSpeedBoosted = Boolean.parseBoolean(f[i++]);
+		speedResetCounter = Integer.parseInt(f[i++]);
+		return i;
+	}
 }
\ No newline at end of file
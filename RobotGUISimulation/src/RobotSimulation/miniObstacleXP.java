@@ -6,9 +6,9 @@ package RobotSimulation;
  * "absorbed" upon collision, awarding points to the arena's score.
  * 
  * <p>
- * This class extends the <code> Obstacle </code> class and overrides its
- * behavior to include collision detection and handling with robots in the
- * arena.
+ * This class extends the <code> Obstacle </code> class and replaces its
+ * deflection with absorption when the arena's collision pass finds a robot
+ * touching it.
  * </p>
  * 
  * @author Ahmed Elamari
@@ -32,42 +32,28 @@ public class miniObstacleXP extends Obstacle {
 	}
 
 	/**
-	 * Checks whether the obstacle has collided with any robot in the arena. If a
-	 * collision occurs, the obstacle is "absorbed" (removed) and a point is added
-	 * to the arena's score.
+	 * Absorbs this obstacle after a robot has collided with it: the obstacle is
+	 * removed and a point is added to the arena's score. Called by the arena's
+	 * collision pass.
 	 * 
 	 * @param arena The arena in which this obstacle exists.
+	 * @param robot The robot that touched this obstacle.
 	 */
-	@Override
-	public void checkItem(RobotArena arena) {
+	void absorb(RobotArena arena, Robot robot) {
 		if (!active) {
-			// Skip processing if the obstacle is no longer active.
+			// Already absorbed by another robot this tick.
 			return;
 		}
 
-		// Iterate through each robot in the arena to check for collisions.
-		for (Robot robot : arena.getRobots()) {
-			// Calculate the distance between the obstacle and the robot.
-			double dx = robot.getX() - x;
-			double dy = robot.getY() - y;
-			double dist = Math.sqrt(dx * dx + dy * dy);
+		// Remove the obstacle from the arena's item list.
+		arena.removeItem(this);
+		active = false; // Mark the obstacle as inactive.
+		robot.hitObstacle();
 
-			// If the distance is less than the sum of their radii, a collision has
-			// occurred.
-			if (dist < robot.getRad() + this.rad) {
-				// Remove the obstacle from the arena's item list.
-				arena.items.remove(this);
-				active = false; // Mark the obstacle as inactive.
+		// Award a point to the arena's score.
+		arena.addScore(1);
 
-				// Award a point to the arena's score.
-				arena.addScore(1);
-
-				// Log the absorption event.
-				System.out.println("MiniObstacle absorbed for +1 point!");
-
-				// Stop further processing once the obstacle is removed.
-				return;
-			}
-		}
+		// Log the absorption event.
+		System.out.println("MiniObstacle absorbed for +1 point!");
 	}
-}
+}
\ No newline at end of file
@@ -57,9 +57,9 @@ public class triRobot extends Robot {
 		mass = 8.0; // Default mass value for physics calculations.
 
 		// Initialize velocity based on the robot's speed and angle.
-		double radAngle = Math.toRadians(rAngle);
-		this.velocityX = rSpeed * Math.cos(radAngle);
-		this.velocityY = rSpeed * Math.sin(radAngle);
+		double radians = Math.toRadians(ia);
+		this.velocityX = rSpeed * StrictMath.cos(radians);
+		this.velocityY = rSpeed * StrictMath.sin(radians);
 
 		// Set initial wheel speeds to the robot's base speed.
 		this.frontWheelSpeed = rSpeed;
@@ -70,10 +70,10 @@ public class triRobot extends Robot {
 	/**
 	 * Draws the triRobot as a triangle with small wheels on each corner.
 	 * 
-	 * @param mc The MyCanvas object to handle drawing operations.
+	 * @param mc The Renderer to handle drawing operations.
 	 */
 	@Override
-	public void drawItem(MyCanvas mc) {
+	public void drawItem(Renderer mc) {
 		// Draw the main triangular body.
 		mc.showTriangle(x, y, rad, col);
 
@@ -87,39 +87,12 @@ public class triRobot extends Robot {
 	}
 
 	/**
-	 * Checks for collisions with other items in the arena and handles
-	 * momentum-based interactions.
-	 * 
-	 * @param arena The RobotArena containing the triRobot and other items.
+	 * Treats obstacles as immovable: hitting one zeroes the velocity.
 	 */
 	@Override
-	public void checkItem(RobotArena arena) {
-		// Perform default wall collision checks.
-		super.checkItem(arena);
-
-		// Check for collisions with other items in the arena.
-		for (ArenaItem item : arena.items) {
-			if (item == this) {
-				continue; // Skip self-check.
-			}
-
-			// Calculate the distance between this robot and the item.
-			double dx = item.getX() - x;
-			double dy = item.getY() - y;
-			double dist = Math.sqrt(dx * dx + dy * dy);
-
-			// Check if the item is within collision distance.
-			if (dist < item.getRad() + rad) {
-				// Handle collision based on the type of item.
-				if (item instanceof Robot) {
-					handleRobotCollision(arena, (Robot) item);
-				} else if (item instanceof Obstacle) {
-					// Treat obstacle as immovable; zero out the velocity.
-					this.velocityX = 0;
-					this.velocityY = 0;
-				}
-			}
-		}
+	void hitObstacle() {
+		this.velocityX = 0;
+		this.velocityY = 0;
 	}
 
 	/**
@@ -138,8 +111,8 @@ public class triRobot extends Robot {
 		rAngle %= 360.0; // Keep angle within 0-360 degrees.
 
 		// Calculate desired velocity based on wheel speeds and angle.
-		double desiredVx = averageWheelSpeed * Math.cos(Math.toRadians(rAngle));
-		double desiredVy = averageWheelSpeed * Math.sin(Math.toRadians(rAngle));
+		double desiredVx = averageWheelSpeed * headingCos();
+		double desiredVy = averageWheelSpeed * headingSin();
 
 		// Smoothly adjust the velocity toward the desired velocity.
 		velocityX = 0.9 * velocityX + 0.1 * desiredVx;
@@ -157,12 +130,13 @@ public class triRobot extends Robot {
 	// ===== Additional Helper Methods =====
 
 	/**
-	 * Handles momentum-based collision with another Robot.
+	 * Handles momentum-based collision with another Robot. Called by the arena's
+	 * collision pass once per colliding pair.
 	 * 
 	 * @param arena the RobotArena context
 	 * @param other the Robot with which we're colliding
 	 */
-	private void handleRobotCollision(RobotArena arena, Robot other) {
+	void handleRobotCollision(RobotArena arena, Robot other) {
 		// Example: inelastic collision logic
 		double dx = other.getX() - x;
 		double dy = other.getY() - y;
@@ -185,9 +159,8 @@ public class triRobot extends Robot {
 			otherVy = ((triRobot) other).getVelocityY();
 		} else {
 			// Approx for normal Robot
-			double angleRad = Math.toRadians(other.getAngle());
-			otherVx = other.getSpeed() * Math.cos(angleRad);
-			otherVy = other.getSpeed() * Math.sin(angleRad);
+			otherVx = other.getSpeed() * other.headingCos();
+			otherVy = other.getSpeed() * other.headingSin();
 		}
 
 		double totalMass = this.mass + otherMass;
@@ -204,7 +177,7 @@ public class triRobot extends Robot {
 		} else {
 			// Or forcibly set its speed/angle
 			other.setSpeed(Math.sqrt(newVx * newVx + newVy * newVy));
-			double colAngle = Math.toDegrees(Math.atan2(newVy, newVx));
+			double colAngle = Math.toDegrees(StrictMath.atan2(newVy, newVx));
 			other.setAngle(colAngle);
 		}
 
@@ -315,6 +288,38 @@ public class triRobot extends Robot {
 		frictionFactor = f;
 	}
 
+	/**
+	 * Adds the velocity and angular velocity, which carry over between ticks, to
+	 * the hash of the robot's state.
+	 *
+	 * @return a 64-bit hash of the robot's state
+	 */
+	@Override
+	public long stateHash() {
+		return mix(mix(mix(super.stateHash(), velocityX), velocityY), angularVelocity);
+	}
+
+	@Override
+	void writeState(StringBuilder sb) {
+		super.writeState(sb);
+		sb.append(' ').append(velocityX).append(' ').append(velocityY).append(' ').append(angularVelocity);
+		sb.append(' ').append(frontWheelSpeed).append(' ').append(leftWheelSpeed).append(' ')
+				.append(rightWheelSpeed).append(' ').append(frictionFactor);
+	}
+
+	@Override
+	int readState(String[] f, int i) {
+		i = super.readState(f, i);
+		velocityX = Double.parseDouble(f[i++]);
+		velocityY = Double.parseDouble(f[i++]);
+		angularVelocity = Double.parseDouble(f[i++]);
+		frontWheelSpeed = Double.parseDouble(f[i++]);
+		leftWheelSpeed = Double.parseDouble(f[i++]);
+		rightWheelSpeed = Double.parseDouble(f[i++]);
+		frictionFactor = Double.parseDouble(f[i++]);
+		return i;
+	}
+
 	/**
 	 * Returns the type of the Robot as a string.
 	 */